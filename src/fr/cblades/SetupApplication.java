@@ -11,6 +11,7 @@ import org.summer.annotation.Setup;
 import org.summer.data.DataSunbeam;
 import org.summer.data.JPAOnHibernate;
 import org.summer.platform.GAEPlatformManagerImpl;
+import org.summer.platform.ImageRenditions;
 import org.summer.platform.LocalPlatformManagerImpl;
 import org.summer.platform.PlatformManager;
 import org.summer.security.SecurityManager;
@@ -39,7 +40,7 @@ public class SetupApplication {
         log.info("setup dev database !");
     }
 
-    @Setup(order = 1)
+    @Setup(after = {"setPlatformManager"})
     public static void setupJobManager() {
         PlatformManager.setJobPoolSize(5);
     }
@@ -71,6 +72,9 @@ public class SetupApplication {
     public static void setPlatformManager() {
         if (isGae()) {
             GAEPlatformManagerImpl gaePlatformManager = new GAEPlatformManagerImpl("cblades.appspot.com");
+            // A content rewritten by another instance may be served from the cache until the metadata of its blob
+            // expire (30 seconds by default, see GAEPlatformManagerImpl.setMetadataTtl).
+            gaePlatformManager.setContentCache(64*1024*1024, 2*1024*1024);
             ApplicationManager.get().setPlatformManager(gaePlatformManager);
         }
         else {
@@ -80,11 +84,16 @@ public class SetupApplication {
                 "mail.smtp.port", "2525"
             ).setMailCredentials(
               "0babec488ec1bd", "6330a2ef322b83"
-            );
+            ).setContentAddressedStorage(true);
             ApplicationManager.get().setPlatformManager(localPlatformManager);
         }
     }
 
+    @Setup
+    public static void setImageRenditions() {
+        ImageRenditions.setSizes(48, 128, 512);
+    }
+
     @Launch
     public static void declareStandardUsers() {
         DataSunbeam data = new DataSunbeam() {};
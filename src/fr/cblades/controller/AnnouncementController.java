@@ -129,7 +129,7 @@ public class AnnouncementController implements
 		return result.get();
 	}
 
-	@REST(url="/api/announcement/live", method=Method.GET)
+	@REST(url="/api/announcement/live", method=Method.GET, validator="getLiveValidator")
 	public Json getLive(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
 		inReadTransaction(em->{
@@ -144,6 +144,16 @@ public class AnnouncementController implements
 		return result.get();
 	}
 
+	public String getLiveValidator(Map<String, Object> params, Json request) {
+		Ref<String> result = new Ref<>();
+		inReadTransaction(em->{
+			result.set(getValidator(em,
+				"select max(a.updateTimestamp), count(a) from Announcement a where a.status=:status",
+				"status", AnnouncementStatus.LIVE));
+		});
+		return result.get();
+	}
+
 	@REST(url="/api/announcement/find/:id", method=Method.POST)
 	public Json getById(Map<String, Object> params, Json request) {
 		long id = getLongParam(params, "id", "The Announcement ID is missing or invalid (%s)");
@@ -132,7 +132,7 @@ public class BannerController
 		return result.get();
 	}
 
-	@REST(url="/api/banner/live", method=Method.GET)
+	@REST(url="/api/banner/live", method=Method.GET, validator="getLiveValidator")
 	public Json getLive(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
 		inReadTransaction(em->{
@@ -144,6 +144,16 @@ public class BannerController
 		return result.get();
 	}
 
+	public String getLiveValidator(Map<String, Object> params, Json request) {
+		Ref<String> result = new Ref<>();
+		inReadTransaction(em->{
+			result.set(getValidator(em,
+				"select max(b.updateTimestamp), count(b) from Banner b where b.status=:status",
+				"status", BannerStatus.LIVE));
+		});
+		return result.get();
+	}
+
 	@REST(url="/api/banner/by-name/:name", method=Method.POST)
 	public Json getByName(Map<String, Object> params, Json request) {
 		String name = getStringParam(params, "name", null,"The Announcement ID is missing or invalid (%s)");
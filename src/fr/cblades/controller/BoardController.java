@@ -216,7 +216,7 @@ public class BoardController implements InjectorSunbeam, DataSunbeam, SecuritySu
 		return result.get();
 	}
 
-	@REST(url="/api/board/live", method=Method.GET)
+	@REST(url="/api/board/live", method=Method.GET, validator="getLiveValidator")
 	public Json getLive(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
 		inReadTransaction(em->{
@@ -227,6 +227,19 @@ public class BoardController implements InjectorSunbeam, DataSunbeam, SecuritySu
 		return result.get();
 	}
 
+	public String getLiveValidator(Map<String, Object> params, Json request) {
+		Ref<String> result = new Ref<>();
+		inReadTransaction(em->{
+			result.set(getValidator(em,
+				// The listing shows the author of each board, with the login of the author.
+				"select max(b.updateTimestamp), count(distinct b), max(a.updateTimestamp), max(l.updateTimestamp) " +
+				"from Board b left join b.author a left join a.access l " +
+				"where b.status=:status",
+				"status", BoardStatus.LIVE));
+		});
+		return result.get();
+	}
+
 	@REST(url="/api/board/by-name/:name", method=Method.POST)
 	public Json getByName(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
@@ -7,13 +7,16 @@ import org.summer.FileSpecification;
 import org.summer.controller.ControllerSunbeam;
 import org.summer.controller.SummerControllerException;
 import org.summer.controller.Verifier;
+import org.summer.controller.VerifierSchema;
 import org.summer.data.BaseEntity;
 import org.summer.data.Synchronizer;
 import org.summer.platform.FileSunbeam;
+import org.summer.platform.ImageRenditions;
 import org.summer.platform.PlatformManager;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +33,16 @@ public interface CommonEntities extends ControllerSunbeam, FileSunbeam {
             int minusPos = webName.indexOf('-');
             int pointPos = webName.indexOf('.');
             String imageName = webName.substring(0, minusPos)+webName.substring(pointPos);
+            InputStream stream = null;
+            if (params.get("size")!=null) {
+                int size = getIntegerParam(params, "size", "The requested image size (%s) must be an integer.");
+                stream = ImageRenditions.getRendition(folder+imageName, size);
+            }
+            // While the rendition is not available, the full image stands in for it.
             return new FileSpecification()
                 .setName(imageName)
-                .setStream(PlatformManager.get().getInputStream(folder+imageName));
+                .setSubstitute(params.get("size")!=null && stream==null)
+                .setStream(stream!=null ? stream : PlatformManager.get().getInputStream(folder+imageName));
         } catch (PersistenceException pe) {
             throw new SummerControllerException(409, "Unexpected issue. Please report : %s", pe);
         }
@@ -41,13 +51,14 @@ public interface CommonEntities extends ControllerSunbeam, FileSunbeam {
     default String saveFile(FileSpecification file, String baseName, String path, String webPath) {
         String fileName = baseName + "." + file.getExtension();
         String webName = baseName + "-" + PlatformManager.get().now() + "." + file.getExtension();
-        copyStream(file.getStream(), PlatformManager.get().getOutputStream(path + fileName));
+        storeFile(file, path + fileName);
+        ImageRenditions.generate(path + fileName);
         log.info("Save: " + path + fileName + " for: " + webPath + webName);
         return webPath + webName;
     }
 
-    default void checkComments(Verifier verifier) {
-        verifier.each("comments", cJson -> verify(cJson)
+    VerifierSchema COMMENTS_SCHEMA = VerifierSchema.create()
+        .each("comments", VerifierSchema.create()
             .checkRequired("version")
             .checkRequired("date")
             .checkDate("date")
@@ -57,6 +68,9 @@ public interface CommonEntities extends ControllerSunbeam, FileSunbeam {
             .checkMaxSize("text", 19995)
             .checkDate("date")
         );
+
+    default void checkComments(Verifier verifier) {
+        verifier.checkSchema(COMMENTS_SCHEMA);
     }
 
     default void writeComments(Synchronizer synchronizer) {
@@ -211,7 +211,7 @@ public class FactionController implements InjectorSunbeam, DataSunbeam, Security
 		return result.get();
 	}
 
-	@REST(url="/api/faction/live", method=Method.GET)
+	@REST(url="/api/faction/live", method=Method.GET, validator="getLiveValidator")
 	public Json getLive(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
 		inReadTransaction(em->{
@@ -222,6 +222,19 @@ public class FactionController implements InjectorSunbeam, DataSunbeam, Security
 		return result.get();
 	}
 
+	public String getLiveValidator(Map<String, Object> params, Json request) {
+		Ref<String> result = new Ref<>();
+		inReadTransaction(em->{
+			result.set(getValidator(em,
+				// The listing shows the author of each faction, with the login of the author.
+				"select max(f.updateTimestamp), count(distinct f), max(a.updateTimestamp), max(l.updateTimestamp) " +
+				"from Faction f left join f.author a left join a.access l " +
+				"where f.status=:status",
+				"status", FactionStatus.LIVE));
+		});
+		return result.get();
+	}
+
 	@REST(url="/api/faction/by-name/:name", method=Method.GET)
 	public Json getByName(Map<String, Object> params, Json request) {
 		String name = getStringParam(params, "name", null,"The Faction's name is missing or invalid (%s)");
@@ -12,6 +12,7 @@ import org.summer.controller.ControllerSunbeam;
 import org.summer.controller.Json;
 import org.summer.controller.SummerControllerException;
 import org.summer.controller.Verifier;
+import org.summer.controller.VerifierSchema;
 import org.summer.data.DataSunbeam;
 import org.summer.data.SummerNotFoundException;
 import org.summer.data.SummerPersistenceException;
@@ -37,7 +38,7 @@ import java.util.stream.Collectors;
 public class ForumController implements InjectorSunbeam, DataSunbeam, SecuritySunbeam, ControllerSunbeam,
 	StandardUsers, CommonEntities {
 
-	@REST(url="/api/forum/live", method=Method.GET)
+	@REST(url="/api/forum/live", method=Method.GET, validator="getLiveValidator")
 	public Json getLive(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
 		inReadTransaction(em->{
@@ -52,6 +53,19 @@ public class ForumController implements InjectorSunbeam, DataSunbeam, SecuritySu
 		return result.get();
 	}
 
+	public String getLiveValidator(Map<String, Object> params, Json request) {
+		Ref<String> result = new Ref<>();
+		inReadTransaction(em->{
+			result.set(getValidator(em,
+				// The listing shows the thread and the author of the last message of each forum.
+				"select max(f.updateTimestamp), count(distinct f), max(m.updateTimestamp), max(t.updateTimestamp), max(a.updateTimestamp) " +
+				"from Forum f left join f.lastMessage m left join m.thread t left join m.author a " +
+				"where f.status=:status",
+				"status", ForumStatus.LIVE));
+		});
+		return result.get();
+	}
+
 	@REST(url="/api/forum/threads/:id", method=Method.GET)
 	public Json getForumThreads(Map<String, Object> params, Json request) {
 		Ref<Json> result = new Ref<>();
@@ -579,22 +593,22 @@ public class ForumController implements InjectorSunbeam, DataSunbeam, SecuritySu
 		return forumMessage;
 	}
 
+	static final VerifierSchema FORUM_SCHEMA = VerifierSchema.create()
+		.checkMinSize("title", 2).checkMaxSize("title", 200)
+		.checkPattern("title", "[\\d\\s\\w]+")
+		.checkMinSize("description", 2).checkMaxSize("description", 2000)
+		.checkInteger("forum")
+		.check("status", ForumStatus.byLabels().keySet())
+		.include(COMMENTS_SCHEMA);
+
+	static final VerifierSchema NEW_FORUM_SCHEMA = VerifierSchema.create()
+		.checkRequired("title")
+		.checkRequired("description")
+		.checkRequired("forum")
+		.include(FORUM_SCHEMA);
+
 	void checkForumJson(Json json, boolean full) {
-		verify(json)
-			.process(v->{
-				if (full) {v
-					.checkRequired("title")
-					.checkRequired("description")
-					.checkRequired("forum");
-				}
-			})
-			.checkMinSize("title", 2).checkMaxSize("title", 200)
-			.checkPattern("title", "[\\d\\s\\w]+")
-			.checkMinSize("description", 2).checkMaxSize("description", 2000)
-			.checkInteger("forum")
-			.check("status", ForumStatus.byLabels().keySet())
-			.process(this::checkComments)
-			.ensure();
+		(full ? NEW_FORUM_SCHEMA : FORUM_SCHEMA).ensure(json);
 	}
 
 	Forum writeToForumWithComments(EntityManager em, Json json, Forum forum, boolean full) {
@@ -14,6 +14,7 @@ import org.summer.controller.Json;
 import org.summer.controller.SummerControllerException;
 import org.summer.controller.Verifier;
 import org.summer.data.DataSunbeam;
+import org.summer.data.SyncPlan;
 import org.summer.data.SummerNotFoundException;
 import org.summer.security.SecuritySunbeam;
 
@@ -392,115 +393,116 @@ public class GameController implements InjectorSunbeam, DataSunbeam, SecuritySun
 		}
 	}
 
+	static final SyncPlan<BoardPlacement> BOARD_PLACEMENT_READER = SyncPlan.of(BoardPlacement.class)
+		.read("id")
+		.read("version")
+		.read("path", "board.path")
+		.read("icon", "board.icon")
+		.read("col")
+		.read("row")
+		.read("invert");
+
+	static final SyncPlan<fr.cblades.domain.Map> MAP_READER = SyncPlan.of(fr.cblades.domain.Map.class)
+		.read("id")
+		.read("version")
+		.readEach("boards", BOARD_PLACEMENT_READER);
+
+	static final SyncPlan<PlayerIdentity> IDENTITY_READER = SyncPlan.of(PlayerIdentity.class)
+		.read("name")
+		.read("path");
+
+	static final SyncPlan<Banner> BANNER_READER = SyncPlan.of(Banner.class)
+		.read("name")
+		.read("path");
+
+	static final SyncPlan<TargetHex> RETREAT_ZONE_READER = SyncPlan.of(TargetHex.class)
+		.read("id")
+		.read("version")
+		.read("col")
+		.read("row");
+
+	static final SyncPlan<Unit> UNIT_READER = SyncPlan.of(Unit.class)
+		.read("id")
+		.read("version")
+		.read("name")
+		.read("category", UnitCategory::getLabel)
+		.read("type")
+		.read("angle")
+		.read("positionCol")
+		.read("positionRow")
+		.read("positionAngle")
+		.read("steps")
+		.read("tiredness", Tiredness::getLabel)
+		.read("ammunition", Ammunition::getLabel)
+		.read("cohesion", Cohesion::getLabel)
+		.read("charging")
+		.read("engaging")
+		.read("contact")
+		.read("orderGiven")
+		.read("played");
+
+	static final SyncPlan<Wing> WING_READER = SyncPlan.of(Wing.class)
+		.read("id")
+		.read("version")
+		.readLink("banner", BANNER_READER)
+		.readEach("retreatZone", RETREAT_ZONE_READER)
+		.readEach("units", UNIT_READER)
+		.read("moral")
+		.read("tiredness")
+		.read("leader", Unit::getName)
+		.read("orderInstruction", OrderInstruction::getLabel);
+
+	static final SyncPlan<Player> PLAYER_READER = SyncPlan.of(Player.class)
+		.read("id")
+		.read("version")
+		.readLink("identity", IDENTITY_READER)
+		.readEach("wings", WING_READER);
+
+	static final SyncPlan<Token> TOKEN_READER = SyncPlan.of(Token.class)
+		.read("type")
+		.read("played")
+		.readWhen(token->token.getType().equals("smoke"), SyncPlan.of(Token.class).read("density"))
+		.readWhen(token->token.getType().equals("fire"), SyncPlan.of(Token.class).read("fire"));
+
+	static final SyncPlan<Piece> PIECE_READER = SyncPlan.of(Piece.class)
+		.read("id")
+		.read("version")
+		.read("angle")
+		.readWhen(piece->piece instanceof Token, TOKEN_READER)
+		.readWhen(piece->piece instanceof Unit, SyncPlan.of(Unit.class).read("name"));
+
+	static final SyncPlan<Location> LOCATION_READER = SyncPlan.of(Location.class)
+		.read("id")
+		.read("version")
+		.read("col")
+		.read("row")
+		.readEach("pieces", PIECE_READER);
+
+	static final SyncPlan<SequenceElement> SEQUENCE_ELEMENT_READER = SyncPlan.of(SequenceElement.class)
+		.read("id")
+		.read("version")
+		.read("type")
+		.read("content", (String content)->Json.createJsonFromString(content));
+
+	/**
+	 * La lecture d'une partie est fréquente (chargement, rafraichissement) : elle suit un plan établi une fois pour
+	 * toutes.
+	 */
+	static final SyncPlan<Game> GAME_READER = SyncPlan.of(Game.class)
+		.read("id")
+		.read("version")
+		.read("windDirection")
+		.read("fog", FogType::getLabel)
+		.read("weather", WeatherType::getLabel)
+		.read("currentPlayerIndex")
+		.read("currentTurn")
+		.readLink("map", MAP_READER)
+		.readEach("players", PLAYER_READER)
+		.readEach("locations", LOCATION_READER)
+		.readEach("sequenceElements", SEQUENCE_ELEMENT_READER);
+
 	Json readFromGame(EntityManager em, Game game) {
-		Json json = Json.createJsonObject();
-		sync(json, game)
-			.read("id")
-			.read("version")
-			.read("windDirection")
-			.read("fog", FogType::getLabel)
-			.read("weather", WeatherType::getLabel)
-			.read("currentPlayerIndex")
-			.read("currentTurn")
-			.readLink("map", (pJson, map)->sync(pJson, map)
-				.read("id")
-				.read("version")
-				.readEach("boards", (bJson, boardPlacement)->sync(bJson, boardPlacement)
-					.read("id")
-					.read("version")
-					.read("path", "board.path")
-					.read("icon", "board.icon")
-					.read("col")
-					.read("row")
-					.read("invert")
-				)
-			)
-			.readEach("players", (pJson, player)->sync(pJson, player)
-				.read("id")
-				.read("version")
-				.readLink("identity", (bJson, map)->sync(bJson, map)
-					.read("name")
-					.read("path")
-				)
-				.readEach("wings", (wJson, wing)->sync(wJson, wing)
-					.read("id")
-					.read("version")
-					.readLink("banner", (bJson, map)->sync(bJson, map)
-						.read("name")
-						.read("path")
-					)
-					.readEach("retreatZone", (lJson, location)->sync(lJson, location)
-						.read("id")
-						.read("version")
-						.read("col")
-						.read("row")
-					)
-					.readEach("units", (uJson, unit)->sync(uJson, unit)
-						.read("id")
-						.read("version")
-						.read("name")
-						.read("category", UnitCategory::getLabel)
-						.read("type")
-						.read("angle")
-						.read("positionCol")
-						.read("positionRow")
-						.read("positionAngle")
-						.read("steps")
-						.read("tiredness", Tiredness::getLabel)
-						.read("ammunition", Ammunition::getLabel)
-						.read("cohesion", Cohesion::getLabel)
-						.read("charging")
-						.read("engaging")
-						.read("contact")
-						.read("orderGiven")
-						.read("played")
-					)
-					.read("moral")
-					.read("tiredness")
-					.read("leader", Unit::getName)
-					.read("orderInstruction", OrderInstruction::getLabel)
-				)
-			)
-			.readEach("locations", (lJson, location)->sync(lJson, location)
-				.read("id")
-				.read("version")
-				.read("col")
-				.read("row")
-				.readEach("pieces", (tJson, token)->sync(tJson, token)
-					.read("id")
-					.read("version")
-					.read("angle")
-					.syncWhen(
-						(t2Json, t2oken)->token instanceof Token,
-						(t2Json, t2oken)->sync(t2Json, t2oken)
-							.read("type")
-							.read("played")
-							.syncWhen(
-								(t3Json, t3oken)->((Token)t3oken).getType().equals("smoke"),
-								(t3Json, t3oken)->sync(t3Json, t3oken)
-									.read("density")
-							)
-							.syncWhen(
-								(t3Json, t3oken)->((Token)t3oken).getType().equals("fire"),
-								(t3Json, t3oken)->sync(t3Json, t3oken)
-									.read("fire")
-							)
-					)
-					.syncWhen(
-						(u2Json, u2nit)->token instanceof Unit,
-						(u2Json, u2nit)->sync(u2Json, u2nit)
-							.read("name")
-					)
-				)
-			)
-			.readEach("sequenceElements", (cJson, celem)->sync(cJson, celem)
-				.read("id")
-				.read("version")
-				.read("type")
-				.read("content", (String content)->Json.createJsonFromString(content)
-			)
-		);
-		return json;
+		return GAME_READER.read(game);
 	}
 
 	Json readFromGameHeader(EntityManager em, Game game) {
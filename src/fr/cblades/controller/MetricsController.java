@@ -0,0 +1,32 @@
+package fr.cblades.controller;
+
+import fr.cblades.StandardUsers;
+import org.summer.FileSpecification;
+import org.summer.Ref;
+import org.summer.annotation.Controller;
+import org.summer.annotation.MIME;
+import org.summer.controller.CachePolicy;
+import org.summer.metrics.Metrics;
+import org.summer.security.SecuritySunbeam;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Controleur exposant les métriques des requêtes (au format texte de Prometheus), réservé aux administrateurs.
+ */
+@Controller
+public class MetricsController implements SecuritySunbeam, StandardUsers {
+
+    @MIME(url="/api/admin/metrics", maxAge=CachePolicy.NO_STORE)
+    public FileSpecification getMetrics(Map<String, Object> params) {
+        Ref<FileSpecification> result = new Ref<>();
+        ifAuthorized(user->{
+            byte[] content = Metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            result.set(new FileSpecification("metrics", "metrics.txt", new ByteArrayInputStream(content)));
+        }, ADMIN);
+        return result.get();
+    }
+
+}
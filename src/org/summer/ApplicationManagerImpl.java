@@ -1,13 +1,13 @@
 package org.summer;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
@@ -101,35 +101,53 @@ public class ApplicationManagerImpl extends ApplicationManager {
 		return this;
 	}
 	
+	static int startupThreads = 4;
+
+	/**
+	 * Number of threads on which independent Setup (and Launch) methods are run concurrently. With one thread, they
+	 * are run one after another.
+	 */
+	public static void setStartupThreads(int threads) {
+		startupThreads = threads;
+	}
+
+	/**
+	 * Runs the Setup methods of Summer, then the ones of the application, then the Launch methods of Summer and of the
+	 * application. Inside a phase, a method is run once the methods it depends on (its "after" attribute and the
+	 * methods with a lower order) are done, independent methods being run concurrently.
+	 */
 	void invokeSetupMethods() {
-		Consumer<Method> executeASetUpMethod = setupMethod->{
-			log.info("Execute: "+setupMethod.getName());
-			if ((setupMethod.getModifiers()|Modifier.STATIC)!=0) {
-				setupMethod.setAccessible(true);
-				try {
-					setupMethod.invoke(null);
-				} catch (InvocationTargetException | IllegalAccessException e) {
-					throw new SummerException("Unable to execute setup method : "+setupMethod, e);
-				}
-			}
-			else throw new SummerException("Setup method must be static : "+setupMethod);
-		}; 
-		Collection<Method> summerMethods = this.scanner.getSummerMethodsAnnotedBy(Setup.class);
-		summerMethods.stream()
-			.sorted(Comparator.comparingInt(m -> m.getDeclaredAnnotation(Setup.class).order())
-		).forEach(executeASetUpMethod);
-		Collection<Method> appMethods = this.scanner.getMethodsAnnotatedBy(Setup.class);
-		appMethods.stream()
-			.sorted(Comparator.comparingInt(m -> m.getDeclaredAnnotation(Setup.class).order())
-		).forEach(executeASetUpMethod);
-		summerMethods = this.scanner.getSummerMethodsAnnotedBy(Launch.class);
-		summerMethods.stream()
-			.sorted(Comparator.comparingInt(m -> m.getDeclaredAnnotation(Launch.class).order())
-		).forEach(executeASetUpMethod);
-		appMethods = this.scanner.getMethodsAnnotatedBy(Launch.class);
-		appMethods.stream()
-			.sorted(Comparator.comparingInt(m -> m.getDeclaredAnnotation(Launch.class).order())
-		).forEach(executeASetUpMethod);
+		long start = System.currentTimeMillis();
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService startupService = Executors.newFixedThreadPool(Math.max(1, startupThreads), runnable->{
+			Thread thread = new Thread(runnable, "summer-startup-"+threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			Set<String> executed = new HashSet<>();
+			new StartupPhase("Summer setup", this.scanner.getSummerMethodsAnnotedBy(Setup.class),
+				method->method.getDeclaredAnnotation(Setup.class).order(),
+				method->method.getDeclaredAnnotation(Setup.class).after()
+			).run(startupService, executed);
+			new StartupPhase("Setup", this.scanner.getMethodsAnnotatedBy(Setup.class),
+				method->method.getDeclaredAnnotation(Setup.class).order(),
+				method->method.getDeclaredAnnotation(Setup.class).after()
+			).run(startupService, executed);
+			new StartupPhase("Summer launch", this.scanner.getSummerMethodsAnnotedBy(Launch.class),
+				method->method.getDeclaredAnnotation(Launch.class).order(),
+				method->method.getDeclaredAnnotation(Launch.class).after()
+			).run(startupService, executed);
+			new StartupPhase("Launch", this.scanner.getMethodsAnnotatedBy(Launch.class),
+				method->method.getDeclaredAnnotation(Launch.class).order(),
+				method->method.getDeclaredAnnotation(Launch.class).after()
+			).run(startupService, executed);
+		}
+		finally {
+			// Methods still running after a failure are interrupted.
+			startupService.shutdownNow();
+		}
+		log.info("Startup done in "+(System.currentTimeMillis()-start)+" ms");
 	}
 
 	void invokeJobsMethods() {
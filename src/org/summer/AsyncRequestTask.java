@@ -0,0 +1,322 @@
+package org.summer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Request processed asynchronously by a worker of the RequestExecutor (see SummerServlet.processAsynchronously).
+ * <p>
+ * The task is the listener of the AsyncContext: if the timeout occurs before the worker is done, the task is
+ * abandoned. The timeout answer is then written by the container thread (503 if the request was still queued, 504 if
+ * it was being processed) and the context is completed. The worker only gets guarded views of the request and the
+ * response: once the task is abandoned, any use of them throws a SummerException, so the worker never touches
+ * objects the container may have recycled. A call already in progress when the timeout occurs is not interrupted.
+ */
+class AsyncRequestTask implements Runnable, AsyncListener {
+
+	static final Logger log = Logger.getLogger("summer");
+
+	static final int QUEUED = 0;
+	static final int RUNNING = 1;
+	static final int FINISHED = 2;
+	static final int ABANDONED = 3;
+
+	interface Processor {
+		void process(HttpServletRequest request, HttpServletResponse response) throws Exception;
+	}
+
+	AsyncContext asyncContext;
+	HttpServletRequest request;
+	HttpServletResponse response;
+	Processor processor;
+	String retryAfter;
+	AtomicInteger state = new AtomicInteger(QUEUED);
+
+	AsyncRequestTask(AsyncContext asyncContext, HttpServletRequest request, HttpServletResponse response,
+		Processor processor, String retryAfter)
+	{
+		this.asyncContext = asyncContext;
+		this.request = request;
+		this.response = response;
+		this.processor = processor;
+		this.retryAfter = retryAfter;
+	}
+
+	boolean isAbandoned() {
+		return this.state.get()==ABANDONED;
+	}
+
+	@Override
+	public void run() {
+		if (!this.state.compareAndSet(QUEUED, RUNNING)) {
+			return;
+		}
+		HttpServletRequest guardedRequest = guard(HttpServletRequest.class, this.request);
+		HttpServletResponse guardedResponse = guard(HttpServletResponse.class, this.response);
+		try {
+			this.processor.process(guardedRequest, guardedResponse);
+		}
+		catch (Throwable e) {
+			if (isAbandoned()) {
+				log.warning("Request abandoned after its timeout : "+e.getMessage());
+			}
+			else {
+				log.log(Level.SEVERE, "Unable to process : "+this.request.getRequestURI(), e);
+				if (!this.response.isCommitted()) {
+					this.response.setStatus(500);
+				}
+			}
+		}
+		finally {
+			if (this.state.compareAndSet(RUNNING, FINISHED)) {
+				complete();
+			}
+			else {
+				// The processing was cut short: the request state must not leak to the next task of the worker.
+				SummerServlet.summerRequest.remove();
+				ApplicationManager.get().getInjector().finishThread();
+			}
+		}
+	}
+
+	/**
+	 * Answers a request the executor could not accept.
+	 */
+	void reject() {
+		if (this.state.compareAndSet(QUEUED, ABANDONED)) {
+			writeUnavailable(503);
+			complete();
+		}
+	}
+
+	@Override
+	public void onTimeout(AsyncEvent event) {
+		int previous = this.state.getAndUpdate(state->state==FINISHED ? FINISHED : ABANDONED);
+		if (previous==QUEUED || previous==RUNNING) {
+			log.warning("Request timed out "+(previous==QUEUED ? "in queue" : "while processed")+
+				" : "+this.request.getRequestURI());
+			writeUnavailable(previous==QUEUED ? 503 : 504);
+			complete();
+		}
+	}
+
+	void writeUnavailable(int status) {
+		if (!this.response.isCommitted()) {
+			this.response.reset();
+			this.response.setStatus(status);
+			if (status==503) {
+				this.response.setHeader("Retry-After", this.retryAfter);
+			}
+		}
+	}
+
+	void complete() {
+		try {
+			this.asyncContext.complete();
+		}
+		catch (IllegalStateException e) {
+			log.warning("Request already completed : "+e.getMessage());
+		}
+	}
+
+	@Override
+	public void onComplete(AsyncEvent event) {
+	}
+
+	@Override
+	public void onError(AsyncEvent event) {
+		this.state.getAndUpdate(state->state==FINISHED ? FINISHED : ABANDONED);
+	}
+
+	@Override
+	public void onStartAsync(AsyncEvent event) {
+	}
+
+	void checkNotAbandoned() {
+		if (isAbandoned()) {
+			throw new SummerException("Request abandoned after its timeout.");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> T guard(Class<T> servletClass, T target) {
+		InvocationHandler handler = (proxy, method, args)->{
+			checkNotAbandoned();
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (result instanceof ServletInputStream) {
+				return new GuardedInputStream((ServletInputStream)result);
+			}
+			if (result instanceof ServletOutputStream) {
+				return new GuardedOutputStream((ServletOutputStream)result);
+			}
+			if (result instanceof BufferedReader) {
+				return new BufferedReader(new GuardedReader((Reader)result));
+			}
+			if (result instanceof PrintWriter) {
+				return new PrintWriter(new GuardedWriter((Writer)result));
+			}
+			return result;
+		};
+		return (T)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {servletClass}, handler);
+	}
+
+	void checkStreamNotAbandoned() throws IOException {
+		if (isAbandoned()) {
+			throw new IOException("Request abandoned after its timeout.");
+		}
+	}
+
+	class GuardedInputStream extends ServletInputStream {
+		ServletInputStream in;
+
+		GuardedInputStream(ServletInputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			checkStreamNotAbandoned();
+			return this.in.read();
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			checkStreamNotAbandoned();
+			return this.in.read(bytes, offset, length);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return isAbandoned() || this.in.isFinished();
+		}
+
+		@Override
+		public boolean isReady() {
+			return !isAbandoned() && this.in.isReady();
+		}
+
+		@Override
+		public void setReadListener(ReadListener listener) {
+			checkNotAbandoned();
+			this.in.setReadListener(listener);
+		}
+	}
+
+	class GuardedOutputStream extends ServletOutputStream {
+		ServletOutputStream out;
+
+		GuardedOutputStream(ServletOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int value) throws IOException {
+			checkStreamNotAbandoned();
+			this.out.write(value);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			checkStreamNotAbandoned();
+			this.out.write(bytes, offset, length);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			checkStreamNotAbandoned();
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!isAbandoned()) {
+				this.out.close();
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return !isAbandoned() && this.out.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			checkNotAbandoned();
+			this.out.setWriteListener(listener);
+		}
+	}
+
+	class GuardedReader extends Reader {
+		Reader in;
+
+		GuardedReader(Reader in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			checkStreamNotAbandoned();
+			return this.in.read(buffer, offset, length);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!isAbandoned()) {
+				this.in.close();
+			}
+		}
+	}
+
+	class GuardedWriter extends Writer {
+		Writer out;
+
+		GuardedWriter(Writer out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+			checkStreamNotAbandoned();
+			this.out.write(buffer, offset, length);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			checkStreamNotAbandoned();
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!isAbandoned()) {
+				this.out.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,277 @@
+package org.summer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Reflective metadata of a class: its fields and declared methods (superclasses included), its getters and setters,
+ * and MethodHandles to access them.
+ * <p>
+ * The metadata of a class is computed once, the first time it is requested (or when the class is warmed, as the
+ * entity classes at startup), and never changes: it is read without any lock. A MethodHandle is created (and its
+ * member made accessible) the first time it is requested. There is no handle on a member that cannot be made
+ * accessible, and on a non public member of a JDK class.
+ */
+public class ClassMetadata {
+
+	static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	// Marks a member without handle (a concurrent map cannot hold null).
+	static final MethodHandle NO_HANDLE = MethodHandles.constant(Object.class, null);
+
+	static final ClassValue<ClassMetadata> registry = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> klass) {
+			return new ClassMetadata(klass);
+		}
+	};
+
+	public static ClassMetadata of(Class<?> klass) {
+		return registry.get(klass);
+	}
+
+	/**
+	 * Computes the metadata of the given classes in advance.
+	 */
+	public static void warm(Collection<Class<?>> classes) {
+		for (Class<?> klass : classes) {
+			of(klass);
+		}
+	}
+
+	Class<?> klass;
+	List<Field> fields;
+	Map<String, Field> fieldsByName;
+	List<Method> methods;
+	Map<String, Method> getters;
+	Map<String, Method> setters;
+	ConcurrentMap<String, MethodHandle> fieldGetters = new ConcurrentHashMap<>();
+	ConcurrentMap<String, MethodHandle> fieldSetters = new ConcurrentHashMap<>();
+	ConcurrentMap<String, MethodHandle> getterHandles = new ConcurrentHashMap<>();
+	ConcurrentMap<String, MethodHandle> setterHandles = new ConcurrentHashMap<>();
+
+	ClassMetadata(Class<?> klass) {
+		this.klass = klass;
+		this.fields = Collections.unmodifiableList(collectFields(klass));
+		this.methods = Collections.unmodifiableList(collectMethods(klass));
+		Map<String, Field> fieldsByName = new HashMap<>();
+		for (Field field : this.fields) {
+			// Fields of the class hide the ones of its superclasses.
+			fieldsByName.putIfAbsent(field.getName(), field);
+		}
+		this.fieldsByName = Collections.unmodifiableMap(fieldsByName);
+		this.getters = Collections.unmodifiableMap(collectGetters(klass));
+		this.setters = Collections.unmodifiableMap(collectSetters(klass));
+	}
+
+	static boolean isJdkClass(Class<?> klass) {
+		String name = klass.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") ||
+			name.startsWith("sun.") || name.startsWith("com.sun.") || name.startsWith("jdk.");
+	}
+
+	/**
+	 * Makes a member accessible if needed.
+	 * @return false if it cannot be made accessible: it is not public and belongs to a JDK class, or the security
+	 * manager or the module system (InaccessibleObjectException, since Java 9) forbid it.
+	 */
+	boolean makeAccessible(AccessibleObject member) {
+		Member declared = (Member)member;
+		if (Modifier.isPublic(declared.getModifiers()) &&
+			Modifier.isPublic(declared.getDeclaringClass().getModifiers()))
+		{
+			return true;
+		}
+		if (isJdkClass(declared.getDeclaringClass())) {
+			return false;
+		}
+		try {
+			member.setAccessible(true);
+			return true;
+		}
+		catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	interface HandleFactory<T> {
+		MethodHandle create(MethodHandles.Lookup lookup, T member) throws IllegalAccessException;
+	}
+
+	/**
+	 * @return the handle on the member (created once), null if there is no such member or if it is not accessible.
+	 */
+	<T extends AccessibleObject> MethodHandle getHandle(
+		ConcurrentMap<String, MethodHandle> handles, String name,
+		Function<String, T> members, HandleFactory<T> factory)
+	{
+		MethodHandle handle = handles.get(name);
+		if (handle==null) {
+			T member = members.apply(name);
+			if (member==null) {
+				return null;
+			}
+			handle = handles.computeIfAbsent(name, key->{
+				if (!makeAccessible(member)) {
+					return NO_HANDLE;
+				}
+				try {
+					return factory.create(MethodHandles.lookup(), member);
+				} catch (IllegalAccessException e) {
+					return NO_HANDLE;
+				}
+			});
+		}
+		return handle!=NO_HANDLE ? handle : null;
+	}
+
+	Field getInstanceField(String fieldName) {
+		Field field = this.fieldsByName.get(fieldName);
+		return field!=null && !Modifier.isStatic(field.getModifiers()) ? field : null;
+	}
+
+	Field getWritableField(String fieldName) {
+		Field field = getInstanceField(fieldName);
+		return field!=null && !Modifier.isFinal(field.getModifiers()) ? field : null;
+	}
+
+	static List<Field> collectFields(Class<?> klass) {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> currentKlass = klass; currentKlass!=null && currentKlass!=Object.class;
+			 currentKlass = currentKlass.getSuperclass())
+		{
+			fields.addAll(Arrays.asList(currentKlass.getDeclaredFields()));
+		}
+		return fields;
+	}
+
+	/**
+	 * Declared methods of the class and its superclasses. A method overridden by a subclass is given once: the
+	 * overriding one.
+	 */
+	static List<Method> collectMethods(Class<?> klass) {
+		List<Method> methods = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		for (Class<?> currentKlass = klass; currentKlass!=null && currentKlass!=Object.class;
+			 currentKlass = currentKlass.getSuperclass())
+		{
+			for (Method method : currentKlass.getDeclaredMethods()) {
+				if (Modifier.isPrivate(method.getModifiers()) || method.isBridge() ||
+					signatures.add(method.getName()+Arrays.toString(method.getParameterTypes())))
+				{
+					methods.add(method);
+				}
+			}
+		}
+		return methods;
+	}
+
+	static Map<String, Method> collectGetters(Class<?> klass) {
+		Map<String, Method> getters = new HashMap<>();
+		for (Method method : klass.getMethods()) {
+			if (method.getParameterCount()==0 && (
+				(method.getName().length()>3 && method.getName().startsWith("get")
+					&& method.getReturnType()!=Void.TYPE) ||
+				(method.getName().length()>2 && method.getName().startsWith("is"))))
+			{
+				getters.putIfAbsent(ReflectUtil.canonize(method.getName(), "get", "is"), method);
+			}
+		}
+		return getters;
+	}
+
+	static Map<String, Method> collectSetters(Class<?> klass) {
+		Map<String, Method> setters = new HashMap<>();
+		for (Method method : klass.getMethods()) {
+			if (method.getParameterCount()==1 && method.getName().length()>3 && method.getName().startsWith("set")) {
+				setters.putIfAbsent(ReflectUtil.canonize(method.getName(), "set"), method);
+			}
+		}
+		return setters;
+	}
+
+	public Class<?> getMetadataClass() {
+		return this.klass;
+	}
+
+	/**
+	 * Fields of the class and its superclasses (the ones of the class first).
+	 */
+	public List<Field> getFields() {
+		return this.fields;
+	}
+
+	/**
+	 * @return the field of the class (or of one of its superclasses), null if there is none.
+	 */
+	public Field getField(String fieldName) {
+		return this.fieldsByName.get(fieldName);
+	}
+
+	public List<Method> getMethods() {
+		return this.methods;
+	}
+
+	public Map<String, Method> getGetters() {
+		return this.getters;
+	}
+
+	public Map<String, Method> getSetters() {
+		return this.setters;
+	}
+
+	/**
+	 * @return a handle reading the field, of type (Object)Object, null if there is no such (non static, accessible)
+	 * field.
+	 */
+	public MethodHandle getFieldGetter(String fieldName) {
+		return getHandle(this.fieldGetters, fieldName, this::getInstanceField,
+			(lookup, field)->lookup.unreflectGetter(field).asType(GETTER_TYPE));
+	}
+
+	/**
+	 * @return a handle writing the field, of type (Object, Object)void, null if there is no such (non static, non final,
+	 * accessible) field.
+	 */
+	public MethodHandle getFieldSetter(String fieldName) {
+		return getHandle(this.fieldSetters, fieldName, this::getWritableField,
+			(lookup, field)->lookup.unreflectSetter(field).asType(SETTER_TYPE));
+	}
+
+	/**
+	 * @return a handle invoking the getter of a property, of type (Object)Object, null if there is none (or if it is not
+	 * accessible).
+	 */
+	public MethodHandle getGetterHandle(String propertyName) {
+		return getHandle(this.getterHandles, propertyName, this.getters::get,
+			(lookup, method)->lookup.unreflect(method).asType(GETTER_TYPE));
+	}
+
+	/**
+	 * @return a handle invoking the setter of a property, of type (Object, Object)void, null if there is none (or if it
+	 * is not accessible).
+	 */
+	public MethodHandle getSetterHandle(String propertyName) {
+		return getHandle(this.setterHandles, propertyName, this.setters::get,
+			(lookup, method)->lookup.unreflect(method).asType(SETTER_TYPE));
+	}
+
+}
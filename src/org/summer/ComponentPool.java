@@ -0,0 +1,237 @@
+package org.summer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.summer.annotation.PooledScoped;
+
+/**
+ * Pool of the components of a PooledScoped class.
+ * <p>
+ * Idle components are kept in a lock-free deque: the last released one is borrowed first (it is the most likely to
+ * be "warm"), the oldest ones are evicted when they stay idle longer than the idle timeout (keeping at least minIdle
+ * of them). The number of components of the pool (borrowed or idle) never exceeds maxSize: when they are all
+ * borrowed, a borrower waits (at most the borrow timeout) until one is released.
+ * <p>
+ * Only the borrowed components are expected back, and only them are accepted back. A component may also be taken
+ * (and never given back): it is then outside the bounds of the pool.
+ */
+public class ComponentPool {
+
+	/**
+	 * Creates the components of the pool.
+	 */
+	public interface Factory {
+		Object create() throws InstantiationException, IllegalAccessException;
+	}
+
+	/**
+	 * Snapshot of the activity of a pool.
+	 */
+	public static class Statistics {
+		Statistics(int borrowed, int idle, long created, long evicted) {
+			this.borrowed = borrowed;
+			this.idle = idle;
+			this.created = created;
+			this.evicted = evicted;
+		}
+
+		public int getBorrowed() {
+			return this.borrowed;
+		}
+
+		public int getIdle() {
+			return this.idle;
+		}
+
+		public long getCreated() {
+			return this.created;
+		}
+
+		public long getEvicted() {
+			return this.evicted;
+		}
+
+		@Override
+		public String toString() {
+			return "borrowed="+this.borrowed+", idle="+this.idle+", created="+this.created+", evicted="+this.evicted;
+		}
+
+		int borrowed;
+		int idle;
+		long created;
+		long evicted;
+	}
+
+	/**
+	 * Identity of a borrowed component (components may redefine equals).
+	 */
+	static final class Borrowed {
+		Borrowed(Object component) {
+			this.component = component;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.component);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof Borrowed && ((Borrowed)object).component==this.component;
+		}
+
+		Object component;
+	}
+
+	static class Idle {
+		Idle(Object component) {
+			this.component = component;
+			this.releasedAt = System.currentTimeMillis();
+		}
+
+		Object component;
+		long releasedAt;
+	}
+
+	public ComponentPool(Class<?> componentClass, Factory factory,
+		int maxSize, int minIdle, long idleTimeout, long borrowTimeout)
+	{
+		this.componentClass = componentClass;
+		this.factory = factory;
+		this.maxSize = maxSize;
+		this.minIdle = Math.min(minIdle, maxSize);
+		this.idleTimeout = idleTimeout;
+		this.borrowTimeout = borrowTimeout;
+		this.permits = new Semaphore(maxSize);
+	}
+
+	/**
+	 * Creates the pool of a PooledScoped class, configured by its annotation, and fills it with minIdle components.
+	 */
+	public static ComponentPool create(Class<?> componentClass, Factory factory)
+		throws InstantiationException, IllegalAccessException
+	{
+		PooledScoped annotation = componentClass.getAnnotation(PooledScoped.class);
+		ComponentPool pool = new ComponentPool(componentClass, factory,
+			annotation.maxSize(), annotation.minIdle(), annotation.idleTimeout(), annotation.borrowTimeout());
+		for (int index=0; index<pool.minIdle; index++) {
+			pool.push(pool.newComponent());
+		}
+		return pool;
+	}
+
+	/**
+	 * Returns an idle component, or a new one if there is none and the pool is not full. The component must be given
+	 * back by release.
+	 * @throws SummerException if no component is released before the borrow timeout.
+	 */
+	public Object borrow() throws InstantiationException, IllegalAccessException {
+		try {
+			if (!this.permits.tryAcquire(this.borrowTimeout, TimeUnit.MILLISECONDS)) {
+				throw new SummerException("No pooled component available for : "+this.componentClass);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SummerException("Interrupted while waiting for : "+this.componentClass, e);
+		}
+		try {
+			Object component = take();
+			this.outstanding.add(new Borrowed(component));
+			this.borrowed.incrementAndGet();
+			return component;
+		} catch (InstantiationException | IllegalAccessException | RuntimeException e) {
+			this.permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns an idle component, or a new one if there is none, that is not expected back: it leaves the pool and
+	 * does not count in its size. Never waits.
+	 */
+	public Object take() throws InstantiationException, IllegalAccessException {
+		Idle idle = this.idle.pollFirst();
+		if (idle!=null) {
+			this.idleCount.decrementAndGet();
+			return idle.component;
+		}
+		return newComponent();
+	}
+
+	/**
+	 * Gives back a borrowed component, and evicts the components idle for too long.
+	 * @return false if the component is not borrowed from the pool (never borrowed, or already released): it is
+	 * ignored.
+	 */
+	public boolean release(Object component) {
+		if (!this.outstanding.remove(new Borrowed(component))) {
+			return false;
+		}
+		this.borrowed.decrementAndGet();
+		push(component);
+		this.permits.release();
+		evictIdleComponents();
+		return true;
+	}
+
+	Object newComponent() throws InstantiationException, IllegalAccessException {
+		Object component = this.factory.create();
+		this.created.increment();
+		return component;
+	}
+
+	void push(Object component) {
+		this.idle.offerFirst(new Idle(component));
+		this.idleCount.incrementAndGet();
+	}
+
+	/**
+	 * Run at most every half idle timeout, by the thread releasing a component: no thread is dedicated to eviction.
+	 */
+	void evictIdleComponents() {
+		long now = System.currentTimeMillis();
+		long next = this.nextEviction.get();
+		if (now<next || !this.nextEviction.compareAndSet(next, now+Math.max(1, this.idleTimeout/2))) {
+			return;
+		}
+		while (this.idleCount.get()>this.minIdle) {
+			Idle oldest = this.idle.pollLast();
+			if (oldest==null) {
+				return;
+			}
+			if (now-oldest.releasedAt<this.idleTimeout) {
+				this.idle.offerLast(oldest);
+				return;
+			}
+			this.idleCount.decrementAndGet();
+			this.evicted.increment();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(this.borrowed.get(), this.idleCount.get(), this.created.sum(), this.evicted.sum());
+	}
+
+	Class<?> componentClass;
+	Factory factory;
+	int maxSize;
+	int minIdle;
+	long idleTimeout;
+	long borrowTimeout;
+	Semaphore permits;
+	ConcurrentLinkedDeque<Idle> idle = new ConcurrentLinkedDeque<>();
+	AtomicInteger idleCount = new AtomicInteger();
+	AtomicInteger borrowed = new AtomicInteger();
+	Set<Borrowed> outstanding = ConcurrentHashMap.newKeySet();
+	AtomicLong nextEviction = new AtomicLong();
+	LongAdder created = new LongAdder();
+	LongAdder evicted = new LongAdder();
+
+}
@@ -5,12 +5,18 @@ import java.net.URLDecoder;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.summer.platform.PlatformManager;
+
 public class FileSpecification {
 	
 	String name;
 	String fileName;
 	String extension;
 	InputStream stream;
+	String storedPath;
+	long size = -1;
+	String checksum;
+	boolean substitute = false;
 
 	public FileSpecification() {
 	}
@@ -69,6 +75,9 @@ public class FileSpecification {
 	}
 	
 	public InputStream getStream() {
+		if (stream==null && storedPath!=null) {
+			stream = PlatformManager.get().getInputStream(storedPath);
+		}
 		return stream;
 	}
 	public FileSpecification setStream(InputStream stream) {
@@ -76,6 +85,52 @@ public class FileSpecification {
 		return this;
 	}
 
+	/**
+	 * Path (in the storage of the PlatformManager) where an uploaded file was staged while it was received, null if
+	 * the file is not staged (or was moved to its final location).
+	 */
+	public String getStoredPath() {
+		return storedPath;
+	}
+	public FileSpecification setStoredPath(String storedPath) {
+		this.storedPath = storedPath;
+		return this;
+	}
+
+	/**
+	 * Size in bytes of an uploaded file, -1 if unknown.
+	 */
+	public long getSize() {
+		return size;
+	}
+	public FileSpecification setSize(long size) {
+		this.size = size;
+		return this;
+	}
+
+	/**
+	 * SHA-256 checksum (in hexadecimal) of an uploaded file, null if unknown.
+	 */
+	public String getChecksum() {
+		return checksum;
+	}
+	public FileSpecification setChecksum(String checksum) {
+		this.checksum = checksum;
+		return this;
+	}
+
+	/**
+	 * True if the content stands in for the requested one (e.g. the full image while its rendition is not ready): it
+	 * must not be cached as the requested resource.
+	 */
+	public boolean isSubstitute() {
+		return substitute;
+	}
+	public FileSpecification setSubstitute(boolean substitute) {
+		this.substitute = substitute;
+		return this;
+	}
+
 	static public String getExtension(String fileName) {
 		int index = fileName.lastIndexOf(".");
 		if (index==-1 || index>=fileName.length()-1) {
@@ -1,15 +1,18 @@
 package org.summer;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.servlet.http.HttpSession;
 
 public interface Injector {
 
 	 static <T> void use(Class<T> klassT, InjectOne<T> executor) {
-		T componentT = get().getComponent(klassT);
+		T componentT = get().borrowComponent(klassT);
 		try {
 			executor.run(componentT);
 		}
@@ -19,8 +22,8 @@ public interface Injector {
 	}
 
 	 static <T, U> void use(Class<T> klassT, Class<U> klassU, InjectTwo<T, U> executor) {
-		T componentT = get().getComponent(klassT);
-		U componentU = get().getComponent(klassU);
+		T componentT = get().borrowComponent(klassT);
+		U componentU = get().borrowComponent(klassU);
 		try {
 			executor.run(componentT, componentU);
 		}
@@ -32,9 +35,9 @@ public interface Injector {
 
 	 static <T, U, V> void use(Class<T> klassT, Class<U> klassU, Class<V> klassV,
 			InjectThree<T, U, V> executor) {
-		T componentT = get().getComponent(klassT);
-		U componentU = get().getComponent(klassU);
-		V componentV = get().getComponent(klassV);
+		T componentT = get().borrowComponent(klassT);
+		U componentU = get().borrowComponent(klassU);
+		V componentV = get().borrowComponent(klassV);
 		try {
 			executor.run(componentT, componentU, componentV);
 		}
@@ -46,7 +49,7 @@ public interface Injector {
 	}
 
 	static <T> void use(String profile, Class<T> klassT, InjectOne<T> executor) {
-		T componentT = get().getComponent(profile, klassT);
+		T componentT = get().borrowComponent(profile, klassT);
 		try {
 			executor.run(componentT);
 		}
@@ -56,8 +59,8 @@ public interface Injector {
 	}
 
 	static <T, U> void use(String profile, Class<T> klassT, Class<U> klassU, InjectTwo<T, U> executor) {
-		T componentT = get().getComponent(profile, klassT);
-		U componentU = get().getComponent(profile, klassU);
+		T componentT = get().borrowComponent(profile, klassT);
+		U componentU = get().borrowComponent(profile, klassU);
 		try {
 			executor.run(componentT, componentU);
 		}
@@ -68,9 +71,9 @@ public interface Injector {
 	}
 
 	static <T, U, V> void use(String profile, Class<T> klassT, Class<U> klassU, Class<V> klassV, InjectThree<T, U, V> executor) {
-		T componentT = get().getComponent(profile, klassT);
-		U componentU = get().getComponent(profile, klassU);
-		V componentV = get().getComponent(profile, klassV);
+		T componentT = get().borrowComponent(profile, klassT);
+		U componentU = get().borrowComponent(profile, klassU);
+		V componentV = get().borrowComponent(profile, klassV);
 		try {
 			executor.run(componentT, componentU, componentV);
 		}
@@ -101,11 +104,35 @@ public interface Injector {
 
 	<T> T getComponent(String profile, Class<T> serviceClass);
 	
+	/**
+	 * Returns a component that is given back by releaseComponent, as "use" does. The PooledScoped components
+	 * borrowed this way are bounded by the size of their pool; the ones returned by getComponent are not (they are
+	 * not expected back).
+	 */
+	default <T> T borrowComponent(Class<T> serviceClass) {
+		return getComponent(serviceClass);
+	}
+
+	default <T> T borrowComponent(String profile, Class<T> serviceClass) {
+		return getComponent(profile, serviceClass);
+	}
+
 	<T> void releaseComponent(T component);
 
 	<T> T getValue(String valueName);
 
-	void startThread(HttpSession session);
+	/**
+	 * Returns the activity of the pools of PooledScoped components, by component class.
+	 */
+	default Map<Class<?>, ComponentPool.Statistics> getPoolStatistics() {
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Binds the HTTP session of the request to the current thread. The session is given by a provider so it is
+	 * only retrieved (or created) when a session scoped component is needed.
+	 */
+	void startThread(Supplier<HttpSession> sessionProvider);
 
 	void finishThread();
 
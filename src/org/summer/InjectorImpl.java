@@ -6,11 +6,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.servlet.http.HttpSession;
 
@@ -43,7 +44,10 @@ import org.summer.annotation.SingletonScoped;
  *     <li>SessionScoped : le composant est créé pour une session HTTP donnée</li>
  *     <li>SingletonScoped : un seul composant est créé est partagé entre tous les usages</li>
  *     <li>PooledScoped : un pool de composants est créé et est partagé entre tous les usages. En cas de "famine" un
- *     nouveau composant est créé (sans limite de nombre, ni politique d'éviction)</li>
+ *     nouveau composant est créé, dans la limite de la taille maximale du pool (au-delà, on attend qu'un composant
+ *     soit restitué). Seuls les composants empruntés par "use" (et donc restitués) sont comptés: un composant obtenu
+ *     par "get" est retiré du pool. Les composants inutilisés depuis trop longtemps sont évincés (voir
+ *     ComponentPool)</li>
  * </ul>
  * <code>
  * &#64;SingletonScoped<br>
@@ -190,14 +194,44 @@ public class InjectorImpl implements Injector {
 		return (T)getImplementation(componentClass);
 	}
 
+	/**
+	 * Emprunte un composant de service (sans préciser de profile), qui sera restitué par releaseComponent.
+	 * @param serviceClass interface de service que doit implémenter le composant.
+	 * @return le composant recherché. Cette valeur ne peut être nulle.
+	 * @param <T> type de l'interface de service
+	 * @throws SummerException si le composant ne peut être construit ou trouvé
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T borrowComponent(Class<T> serviceClass) {
+		Class<?> componentClass = getImplementationClass(serviceClass);
+		return (T)getImplementation(componentClass, true);
+	}
+
+	/**
+	 * Emprunte un composant de service (en précisant un profile), qui sera restitué par releaseComponent.
+	 * @param profile profile associé à l'implémentation recherchée
+	 * @param serviceClass interface de service que doit implémenter le composant.
+	 * @return le composant recherché. Cette valeur ne peut être nulle.
+	 * @param <T> type de l'interface de service
+	 * @throws SummerException si le composant ne peut être construit ou trouvé
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T borrowComponent(String profile, Class<T> serviceClass) {
+		Class<?> componentClass = getImplementationClass(profile, serviceClass);
+		return (T)getImplementation(componentClass, true);
+	}
+
 	/**
 	 * Map contenant tous les composants singletons (en fonction d eleurs interface de service)
 	 */
 	Map<Class<?>, Object> singletonScoped = new HashMap<>();
 	/**
-	 * Map contenant tous les composants en pool (en fonction d eleurs interface de service)
+	 * Map contenant les pools de composants (en fonction de leur classe d'implémentation). Les pools sont créés à la
+	 * première demande.
 	 */
-	Map<Class<?>, List<Object>> pooledScoped = new HashMap<>();
+	Map<Class<?>, ComponentPool> pooledScoped = new ConcurrentHashMap<>();
 	/**
 	 * Map des composants que l'on a associé a la session HTTP courante.
 	 */
@@ -216,6 +250,18 @@ public class InjectorImpl implements Injector {
 	 * @throws SummerException si le composant ne peut être construit ou trouvé
 	 */
 	Object getImplementation(Class<?> componentClass) {
+		return getImplementation(componentClass, false);
+	}
+
+	/**
+	 * Retourne une instance d'un service (= un composant).
+	 * @param componentClass classe d'implémentation du composant recherché.
+	 * @param borrowed vrai si le composant sera restitué (voir releaseComponent): un composant en pool est alors
+	 *                 emprunté au pool (dans la limite de sa taille), sinon il en est retiré.
+	 * @return le composant trouvé. Cette valeur ne peut pas être nulle.
+	 * @throws SummerException si le composant ne peut être construit ou trouvé
+	 */
+	Object getImplementation(Class<?> componentClass, boolean borrowed) {
 		try {
 			if (componentClass.getAnnotation(SingletonScoped.class)!=null) {
 				return getComponent(componentClass, singletonScoped);
@@ -227,7 +273,7 @@ public class InjectorImpl implements Injector {
 				return getRequestComponent(componentClass);
 			}
 			else if (componentClass.getAnnotation(PooledScoped.class)!=null) {
-				return getPooledComponent(componentClass);
+				return getPooledComponent(componentClass, borrowed);
 			}
 			else if (componentClass.getAnnotation(OneShotScoped.class)!=null) {
 				return componentClass.newInstance();
@@ -246,10 +292,11 @@ public class InjectorImpl implements Injector {
 	 * @throws SummerException si le composant ne peut être construit ou trouvé
 	 */
 	Object getSessionComponent(Class<?> componentClass) throws IllegalAccessException, InstantiationException {
-		HttpSession currentSession = sessions.get();
-		if (currentSession==null) {
+		Supplier<HttpSession> sessionProvider = sessions.get();
+		if (sessionProvider==null) {
 			throw new SummerException("No current session for : "+componentClass);
 		}
+		HttpSession currentSession = sessionProvider.get();
 		Map<Class<?>, Object> components = sessionScoped.get(currentSession);
 		if (components==null) {
 			components = new HashMap<>();
@@ -280,42 +327,57 @@ public class InjectorImpl implements Injector {
 	 * Retourne une instance d'un service (= un composant) définit pour un scope de type pool
 	 * @param componentClass classe d'implémentation du composant recherché (attention: il ne s'agit pas ici de
 	 *                       l'interface de service, mais celle d'implémentation.
+	 * @param borrowed vrai si le composant sera restitué: il est emprunté au pool (on attend si tous les composants
+	 *                 du pool sont empruntés). Sinon, le composant est retiré du pool (ou créé), sans attente.
 	 * @return le composant trouvé. Cette valeur ne peut pas être nulle.
 	 * @throws SummerException si le composant ne peut être construit ou trouvé
 	 */
-	Object getPooledComponent(Class<?> componentClass) 
+	Object getPooledComponent(Class<?> componentClass, boolean borrowed) 
 			throws InstantiationException, IllegalAccessException 
 	{
-		synchronized(pooledScoped) {
-			List<Object> components = pooledScoped.get(componentClass);
-			if (components==null || components.size()==0) {
-				return componentClass.newInstance();
+		ComponentPool pool = pooledScoped.get(componentClass);
+		if (pool==null) {
+			synchronized(pooledScoped) {
+				pool = pooledScoped.get(componentClass);
+				if (pool==null) {
+					pool = ComponentPool.create(componentClass, componentClass::newInstance);
+					pooledScoped.put(componentClass, pool);
+				}
 			}
-			return components.remove(0);
-		}	
+		}
+		return borrowed ? pool.borrow() : pool.take();
 	}
 
 	/**
 	 * Restitue un composant en fin de l'exécution de la méthode "use". Le seul cas ou il y a quelque chose à faire
 	 * (autre que ce que fait le garbage collector) concerne les composants en pool: dans ce cas, le composant est
-	 * remis dans le pool.
+	 * remis dans le pool (s'il en a été emprunté).
 	 * @param component composant à restituer
 	 */
 	@Override
 	public void releaseComponent(Object component) {
 		Class<?> componentClass = component.getClass();
 		if (componentClass.getAnnotation(PooledScoped.class)!=null) {
-			synchronized(pooledScoped) {
-				List<Object> components = pooledScoped.get(componentClass);
-				if (components==null) {
-					components = new LinkedList<>();
-					pooledScoped.put(componentClass, components);
-				}
-				components.add(component);
+			ComponentPool pool = pooledScoped.get(componentClass);
+			if (pool!=null) {
+				pool.release(component);
 			}
 		}
 	}
 
+	/**
+	 * Retourne l'activité (composants empruntés, inutilisés, créés, évincés) des pools de composants.
+	 * @return les statistiques de chaque pool, en fonction de la classe d'implémentation des composants.
+	 */
+	@Override
+	public Map<Class<?>, ComponentPool.Statistics> getPoolStatistics() {
+		Map<Class<?>, ComponentPool.Statistics> statistics = new HashMap<>();
+		for (Map.Entry<Class<?>, ComponentPool> entry : pooledScoped.entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().getStatistics());
+		}
+		return statistics;
+	}
+
 	/**
 	 * Libere toutes les ressources associées à une requête HTTP
 	 */
@@ -324,12 +386,13 @@ public class InjectorImpl implements Injector {
 	}
 
 	/**
-	 * Enregistre la session HTTP associée à la requête que l'on vient de recevoir
-	 * @param session
+	 * Enregistre le fournisseur de la session HTTP associée à la requête que l'on vient de recevoir. La session
+	 * n'est obtenue (et éventuellement créée) que si un composant de scope Session est demandé.
+	 * @param sessionProvider
 	 */
 	@Override
-	public void startThread(HttpSession session) {
-		sessions.set(session);
+	public void startThread(Supplier<HttpSession> sessionProvider) {
+		sessions.set(sessionProvider);
 	}
 
 	/**
@@ -344,7 +407,7 @@ public class InjectorImpl implements Injector {
 	/**
 	 * Association entre le thread et la session HTTP
 	 */
-	ThreadLocal<HttpSession> sessions = new ThreadLocal<>();
+	ThreadLocal<Supplier<HttpSession>> sessions = new ThreadLocal<>();
 
 	/**
 	 * Map référençant toutes les classes d'implémentation en fonction des interfaces qu'elles déclarent. Pour une
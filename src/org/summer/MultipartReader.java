@@ -0,0 +1,274 @@
+package org.summer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.summer.controller.SummerControllerException;
+
+/**
+ * Streaming reader of a multipart/form-data content. Parts are read one after the other, in a single pass over the
+ * request stream: nothing is buffered apart from a fixed-size window, so the content of a part may be written where
+ * it belongs while it is received.
+ * <p>
+ * The size of the whole content is checked while it is read: a content bigger than the limit is rejected with a 413.
+ */
+public class MultipartReader {
+
+	static final int BUFFER_SIZE = 64*1024;
+	static final int MAX_HEADERS_SIZE = 8*1024;
+
+	InputStream in;
+	long maxSize;
+	long size = 0;
+	byte[] delimiter;
+	byte[] buffer;
+	int head = 0;
+	int tail = 0;
+	boolean eof = false;
+	boolean finished = false;
+	PartInputStream current;
+
+	/**
+	 * A part of the content. Its stream is valid until the next part is requested.
+	 */
+	public static class Part {
+		Map<String, String> headers;
+		Map<String, String> disposition;
+		InputStream stream;
+
+		Part(Map<String, String> headers, InputStream stream) {
+			this.headers = headers;
+			this.disposition = parseDisposition(headers.get("content-disposition"));
+			this.stream = stream;
+		}
+
+		public String getName() {
+			return this.disposition.get("name");
+		}
+
+		public String getFileName() {
+			return this.disposition.get("filename");
+		}
+
+		public String getContentType() {
+			return this.headers.get("content-type");
+		}
+
+		public InputStream getInputStream() {
+			return this.stream;
+		}
+	}
+
+	/**
+	 * @param contentType Content-Type header of the request, which gives the boundary of the parts.
+	 * @param maxSize maximum size of the whole content, in bytes.
+	 */
+	public MultipartReader(InputStream in, String contentType, long maxSize) {
+		String boundary = getBoundary(contentType);
+		if (boundary==null) {
+			throw new SummerControllerException(400, "Missing boundary in multipart content type.");
+		}
+		this.in = in;
+		this.maxSize = maxSize;
+		this.delimiter = ("\r\n--"+boundary).getBytes(StandardCharsets.ISO_8859_1);
+		this.buffer = new byte[BUFFER_SIZE+this.delimiter.length];
+		// The first boundary is not preceded by a line break: one is assumed, so the preamble is read as a part.
+		this.buffer[this.tail++] = '\r';
+		this.buffer[this.tail++] = '\n';
+		this.current = new PartInputStream();
+	}
+
+	static String getBoundary(String contentType) {
+		if (contentType==null) {
+			return null;
+		}
+		for (String parameter : contentType.split(";")) {
+			parameter = parameter.trim();
+			if (parameter.toLowerCase().startsWith("boundary=")) {
+				String boundary = parameter.substring(9).trim();
+				if (boundary.startsWith("\"") && boundary.endsWith("\"") && boundary.length()>1) {
+					boundary = boundary.substring(1, boundary.length()-1);
+				}
+				return boundary.isEmpty() ? null : boundary;
+			}
+		}
+		return null;
+	}
+
+	static Map<String, String> parseDisposition(String disposition) {
+		Map<String, String> result = new HashMap<>();
+		if (disposition!=null) {
+			for (String parameter : disposition.split(";")) {
+				int equalIndex = parameter.indexOf('=');
+				if (equalIndex>0) {
+					String value = parameter.substring(equalIndex+1).trim();
+					if (value.startsWith("\"") && value.endsWith("\"") && value.length()>1) {
+						value = value.substring(1, value.length()-1);
+					}
+					result.put(parameter.substring(0, equalIndex).trim().toLowerCase(), value);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Skips what remains of the current part and reads the headers of the next one.
+	 * @return the next part, null if there is no more part.
+	 */
+	public Part next() throws IOException {
+		if (this.finished) {
+			return null;
+		}
+		this.current.drain();
+		ensure(2);
+		if (this.tail-this.head<2) {
+			throw new SummerControllerException(400, "Unexpected end of multipart content.");
+		}
+		if (this.buffer[this.head]=='-' && this.buffer[this.head+1]=='-') {
+			this.finished = true;
+			return null;
+		}
+		Map<String, String> headers = new HashMap<>();
+		String line = readLine();
+		// The line of the boundary may end with spaces.
+		if (!line.trim().isEmpty()) {
+			throw new SummerControllerException(400, "Malformed multipart boundary.");
+		}
+		int headersSize = 0;
+		while (!(line = readLine()).isEmpty()) {
+			headersSize += line.length();
+			if (headersSize>MAX_HEADERS_SIZE) {
+				throw new SummerControllerException(400, "Multipart headers too large.");
+			}
+			int colonIndex = line.indexOf(':');
+			if (colonIndex>0) {
+				headers.put(line.substring(0, colonIndex).trim().toLowerCase(), line.substring(colonIndex+1).trim());
+			}
+		}
+		this.current = new PartInputStream();
+		return new Part(headers, this.current);
+	}
+
+	String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		while (true) {
+			ensure(2);
+			if (this.tail-this.head<2) {
+				throw new SummerControllerException(400, "Unexpected end of multipart content.");
+			}
+			if (this.buffer[this.head]=='\r' && this.buffer[this.head+1]=='\n') {
+				this.head += 2;
+				return new String(line.toByteArray(), StandardCharsets.UTF_8);
+			}
+			if (line.size()>MAX_HEADERS_SIZE) {
+				throw new SummerControllerException(400, "Multipart headers too large.");
+			}
+			line.write(this.buffer[this.head++]);
+		}
+	}
+
+	/**
+	 * Reads the request stream until the buffer holds at least count bytes, or the stream is exhausted.
+	 */
+	void ensure(int count) throws IOException {
+		if (this.tail-this.head>=count || this.eof) {
+			return;
+		}
+		if (this.head>0) {
+			System.arraycopy(this.buffer, this.head, this.buffer, 0, this.tail-this.head);
+			this.tail -= this.head;
+			this.head = 0;
+		}
+		while (this.tail<count && !this.eof) {
+			int read = this.in.read(this.buffer, this.tail, this.buffer.length-this.tail);
+			if (read<0) {
+				this.eof = true;
+			}
+			else {
+				this.size += read;
+				if (this.size>this.maxSize) {
+					throw new SummerControllerException(413, "Request content exceeds %d bytes.", this.maxSize);
+				}
+				this.tail += read;
+			}
+		}
+	}
+
+	int indexOfDelimiter() {
+		int last = this.tail-this.delimiter.length;
+		for (int index=this.head; index<=last; index++) {
+			int matched = 0;
+			while (matched<this.delimiter.length && this.buffer[index+matched]==this.delimiter[matched]) {
+				matched++;
+			}
+			if (matched==this.delimiter.length) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Content of the current part: the bytes before the next delimiter.
+	 */
+	class PartInputStream extends InputStream {
+
+		boolean ended = false;
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return read(single, 0, 1)<0 ? -1 : single[0]&0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (this.ended || MultipartReader.this.current!=this) {
+				return -1;
+			}
+			if (length==0) {
+				return 0;
+			}
+			while (true) {
+				ensure(delimiter.length);
+				int delimiterIndex = indexOfDelimiter();
+				int available;
+				if (delimiterIndex>=0) {
+					available = delimiterIndex-head;
+					if (available==0) {
+						head += delimiter.length;
+						this.ended = true;
+						return -1;
+					}
+				}
+				else if (eof) {
+					throw new SummerControllerException(400, "Unexpected end of multipart content.");
+				}
+				else {
+					// The last bytes may be the beginning of a delimiter: they are kept until more bytes are read.
+					available = tail-head-delimiter.length+1;
+				}
+				if (available>0) {
+					int count = Math.min(available, length);
+					System.arraycopy(buffer, head, bytes, offset, count);
+					head += count;
+					return count;
+				}
+				ensure(tail-head+1);
+			}
+		}
+
+		void drain() throws IOException {
+			byte[] skipped = new byte[4096];
+			while (read(skipped, 0, skipped.length)>=0) {
+			}
+		}
+
+	}
+
+}
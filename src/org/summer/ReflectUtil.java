@@ -2,55 +2,25 @@ package org.summer;
 
 import org.summer.data.BaseEntity;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class ReflectUtil {
 
-	static Map<Class<?>, Map<String, Method>> getters = Collections.synchronizedMap(new HashMap<>());
-	
+	/**
+	 * Reflective data are computed once per class (see ClassMetadata) and read without lock.
+	 */
 	public static Map<String, Method> getGetters(Class<?> klass) {
-		Map<String, Method> getters = ReflectUtil.getters.get(klass);
-		if (getters==null) {
-			getters = Arrays.asList(klass.getMethods()).stream()
-			.filter(method->{
-				return method.getParameterCount()==0 && (
-					(method.getName().length()>3 && method.getName().startsWith("get")
-							&& method.getReturnType()!=Void.TYPE) ||
-					(method.getName().length()>2 && method.getName().startsWith("is")
-					&& (method.getReturnType()!=Boolean.class || method.getReturnType()!=Boolean.TYPE))
-				);
-			})
-			.collect(Collectors.toMap(method->canonize(method.getName(), "get", "is"), method->method));
-			ReflectUtil.getters.put(klass, getters);
-		}
-		return getters;
+		return ClassMetadata.of(klass).getGetters();
 	}
 
-	static Map<Class<?>, Map<String, Method>> setters = Collections.synchronizedMap(new HashMap<>());
-
 	public static Map<String, Method> getSetters(Class<?> klass) {
-		Map<String, Method> setters = ReflectUtil.setters.get(klass);
-		if (setters==null) {
-			setters = Arrays.asList(klass.getMethods()).stream()
-			.filter(method->{
-				return method.getParameterCount()==1 && (
-					method.getName().length()>3 && method.getName().startsWith("set")
-				);
-			})
-			.collect(Collectors.toMap(method->canonize(method.getName(), "set"), method->method));
-			ReflectUtil.setters.put(klass, setters);
-		}
-		return setters;
+		return ClassMetadata.of(klass).getSetters();
 	}
 
 	public static Method getGetter(Class<?> klass, String fieldName) {
@@ -62,61 +32,21 @@ public class ReflectUtil {
 	}
 
 	public static <T> Field getField(Class<T> klass, String fieldName) {
-		try {
-			Field field = klass.getDeclaredField(fieldName);
-			return field;
-		} 
-		catch (NoSuchFieldException e) {
-			if (klass.equals(Object.class)) {
-				return null;
-			}
-			return getField(klass.getSuperclass(), fieldName);
-		} 
-		catch (SecurityException e) {
-			throw new SummerException("Unexpected exception. Probably a bug", e);
-		}
+		return ClassMetadata.of(klass).getField(fieldName);
 	}
 
-	static Map<Class<?>, Collection<Field>> fields = Collections.synchronizedMap(new HashMap<>());
-
+	/**
+	 * Returns the fields of the class and of its superclasses.
+	 */
 	public static Collection<Field> getFields(Class<?> klass) {
-		Collection<Field> allFields = fields.get(klass);
-		if (allFields==null) {
-			allFields = new ArrayList<Field>();
-			try {
-				Class<?> currentKlass = klass;
-				do {
-					allFields.addAll(Arrays.asList(klass.getDeclaredFields()));
-					currentKlass = currentKlass.getSuperclass();
-				} while (klass.equals(Object.class));
-				fields.put(klass, allFields);
-			} 
-			catch (SecurityException e) {
-				throw new SummerException("Unexpected exception. Probably a bug", e);
-			}
-		}
-		return Collections.unmodifiableCollection(allFields);
+		return ClassMetadata.of(klass).getFields();
 	}
 
-	static Map<Class<?>, Collection<Method>> methods = Collections.synchronizedMap(new HashMap<>());
-
+	/**
+	 * Returns the methods declared by the class and by its superclasses (overridden methods excepted).
+	 */
 	public static Collection<Method> getMethods(Class<?> klass) {
-		Collection<Method> allMethods = methods.get(klass);
-		if (allMethods==null) {
-			allMethods = new ArrayList<Method>();
-			try {
-				Class<?> currentKlass = klass;
-				do {
-					allMethods.addAll(Arrays.asList(klass.getDeclaredMethods()));
-					currentKlass = currentKlass.getSuperclass();
-				} while (klass.equals(Object.class));
-				methods.put(klass, allMethods);
-			} 
-			catch (SecurityException e) {
-				throw new SummerException("Unexpected exception. Probably a bug", e);
-			}
-		}
-		return Collections.unmodifiableCollection(allMethods);
+		return ClassMetadata.of(klass).getMethods();
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -129,7 +59,7 @@ public class ReflectUtil {
 		}
 	}
 
-	static Object convert(Object value, Class<?> type) {
+	public static Object convert(Object value, Class<?> type) {
 		if (value==null) return null;
 		if (type.isInstance(value)) return value;
 		if ((type == Float.class || type == Float.TYPE) && value instanceof Number) {
@@ -156,28 +86,58 @@ public class ReflectUtil {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	static <T> T getFieldValue(Object entity, String fieldName) {
+		MethodHandle getter = ClassMetadata.of(entity.getClass()).getFieldGetter(fieldName);
+		if (getter==null) {
+			return get(entity, getField(entity.getClass(), fieldName));
+		}
+		try {
+			return (T)(Object)getter.invokeExact(entity);
+		} catch (Throwable t) {
+			throw new SummerException("Unexpected exception. Probably a bug", t);
+		}
+	}
+
+	static void setFieldValue(Object entity, String fieldName, Object value) {
+		Field field = getField(entity.getClass(), fieldName);
+		MethodHandle setter = ClassMetadata.of(entity.getClass()).getFieldSetter(fieldName);
+		if (setter==null) {
+			set(entity, field, value);
+			return;
+		}
+		try {
+			setter.invokeExact(entity, convert(value, field.getType()));
+		} catch (Throwable t) {
+			throw new SummerException("Unexpected exception. Probably a bug", t);
+		}
+	}
+
 	public static <T, E> T get(E thisEntity, String fieldName) {
+		if (fieldName.indexOf('.')<0) {
+			return getFieldValue(thisEntity, fieldName);
+		}
 		String[] paths = fieldName.split("\\.");
 		Object entity = thisEntity;
 		for (int index=0; index<paths.length-1; index++) {
-			Field field = getField(thisEntity.getClass(), paths[index]);
-			entity = get(entity, field);
+			entity = getFieldValue(entity, paths[index]);
 			if (entity==null) return null;
 		}
-		Field field = getField(entity.getClass(), paths[paths.length-1]);
-		return get(entity, field);
+		return getFieldValue(entity, paths[paths.length-1]);
 	}
 
 	public static <T, E> void set(E thisEntity, String fieldName, T value) {
+		if (fieldName.indexOf('.')<0) {
+			setFieldValue(thisEntity, fieldName, value);
+			return;
+		}
 		String[] paths = fieldName.split("\\.");
 		Object entity = thisEntity;
 		for (int index=0; index<paths.length-1; index++) {
-			Field field = getField(thisEntity.getClass(), paths[index]);
-			entity = get(entity, field);
+			entity = getFieldValue(entity, paths[index]);
 			if (entity==null) return;
 		}
-		Field field = getField(entity.getClass(), paths[paths.length-1]);
-		set(thisEntity, field, value);
+		setFieldValue(entity, paths[paths.length-1], value);
 	}
 	
 	public static String canonize(String name, String... prefixes) {
@@ -0,0 +1,127 @@
+package org.summer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded executor of the requests processed asynchronously by the SummerServlet. At most "threads" requests run at
+ * the same time and at most "queueSize" requests wait for a worker: beyond, submission is refused so the servlet may
+ * answer immediately (503) instead of letting requests pile up.
+ * <p>
+ * Workers are virtual threads when the runtime supports them (Java 21+), platform threads otherwise.
+ */
+public class RequestExecutor {
+
+	static final Logger log = Logger.getLogger("summer");
+
+	ExecutorService executor;
+	Semaphore permits;
+	Semaphore running = null;
+	AtomicLong rejectedTasks = new AtomicLong();
+
+	public RequestExecutor(int threads, int queueSize) {
+		this.permits = new Semaphore(threads+queueSize);
+		this.executor = createVirtualThreadExecutor();
+		if (this.executor!=null) {
+			this.running = new Semaphore(threads);
+		}
+		else {
+			this.executor = createPlatformThreadExecutor(threads);
+		}
+		log.info("Requests processed asynchronously by "+threads+(isVirtual() ? " virtual" : "")+
+			" threads (queue size: "+queueSize+")");
+	}
+
+	static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "summer-request-", 0L);
+			ThreadFactory factory = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+			return (ExecutorService)Executors.class
+				.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	static ExecutorService createPlatformThreadExecutor(int threads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(),
+			command->{
+				Thread thread = new Thread(command, "summer-request-"+threadCount.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Submits a task if the executor is not saturated.
+	 * @return false if the task is refused.
+	 */
+	public boolean submit(Runnable task) {
+		if (!this.permits.tryAcquire()) {
+			this.rejectedTasks.incrementAndGet();
+			return false;
+		}
+		try {
+			this.executor.execute(()->{
+				try {
+					run(task);
+				}
+				finally {
+					this.permits.release();
+				}
+			});
+			return true;
+		}
+		catch (RejectedExecutionException e) {
+			this.permits.release();
+			this.rejectedTasks.incrementAndGet();
+			return false;
+		}
+	}
+
+	/**
+	 * Virtual threads are not pooled (one per task): the number of tasks running at the same time is bounded by a
+	 * semaphore, so blocking calls (JDBC, storage) keep the same concurrency as with a pool of platform threads.
+	 */
+	void run(Runnable task) {
+		if (this.running==null) {
+			task.run();
+			return;
+		}
+		this.running.acquireUninterruptibly();
+		try {
+			task.run();
+		}
+		finally {
+			this.running.release();
+		}
+	}
+
+	public long getRejectedTasks() {
+		return this.rejectedTasks.get();
+	}
+
+	public boolean isVirtual() {
+		return this.running!=null;
+	}
+
+	public void shutdown() {
+		this.executor.shutdown();
+	}
+
+}
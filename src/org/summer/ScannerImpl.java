@@ -1,5 +1,6 @@
 package org.summer;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -7,6 +8,7 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import org.reflections.Reflections;
@@ -14,23 +16,54 @@ import org.reflections.scanners.FieldAnnotationsScanner;
 import org.reflections.scanners.MethodAnnotationsScanner;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
+import org.summer.index.ComponentIndex;
 
+/**
+ * Scanner using the component index built at compile time (see ComponentIndex), if there is one in the classpath.
+ * The classpath is scanned (with Reflections) only if there is no index, if the index does not cover a requested
+ * annotation, or if it is stale (the indexed classes are not the ones of the classpath, or an indexed class or method
+ * cannot be found or is not annotated anymore).
+ */
 public class ScannerImpl implements Scanner {
 	
+	static final Logger log = Logger.getLogger("summer");
 	static final String SUMMER_ROOT = "org.summer";
 
+	String rootForLookup;
+	volatile ComponentIndex index;
 	Reflections summerReflections;
 	Reflections appReflections;
 	Set<String> profiles;
 
 	public ScannerImpl(String rootForLookup, Set<String> profiles) {
+		if (rootForLookup==null) {
+			throw new InstantiationError("No root-lookup defined");
+		}
 		this.profiles = profiles;
-		prepareReflectionUtility(rootForLookup);
+		this.rootForLookup = rootForLookup;
+		long start = System.currentTimeMillis();
+		try {
+			this.index = ComponentIndex.load(getClassLoader(), SUMMER_ROOT, rootForLookup);
+		} catch (IOException e) {
+			log.warning("Component index unreadable, the classpath is scanned : "+e.getMessage());
+		} catch (IllegalStateException e) {
+			log.warning("Stale component index, the classpath is scanned : "+e.getMessage());
+		}
+		if (this.index==null) {
+			prepareReflectionUtility(rootForLookup);
+		}
+		log.info((this.index!=null ? "Component index loaded" : "Classpath scanned")+
+			" in "+(System.currentTimeMillis()-start)+" ms");
 	}
 
-	void prepareReflectionUtility(String rootForLookup) {
-		if (rootForLookup==null) {
-			throw new InstantiationError("No root-lookup defined");
+	static ClassLoader getClassLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return classLoader!=null ? classLoader : ScannerImpl.class.getClassLoader();
+	}
+
+	synchronized void prepareReflectionUtility(String rootForLookup) {
+		if (this.summerReflections!=null) {
+			return;
 		}
 		this.summerReflections = new Reflections(SUMMER_ROOT, 
 				new TypeAnnotationsScanner(), 
@@ -43,19 +76,58 @@ public class ScannerImpl implements Scanner {
 				new MethodAnnotationsScanner(),
 				new FieldAnnotationsScanner());	
 	}
+
+	Reflections getSummerReflections() {
+		prepareReflectionUtility(this.rootForLookup);
+		return this.summerReflections;
+	}
+
+	Reflections getAppReflections() {
+		prepareReflectionUtility(this.rootForLookup);
+		return this.appReflections;
+	}
+
+	void discardIndex(IllegalStateException exception) {
+		log.warning("Stale component index, the classpath is scanned : "+exception.getMessage());
+		this.index = null;
+	}
+
+	Collection<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotationClass, boolean summer) {
+		ComponentIndex index = this.index;
+		if (index!=null && index.covers(annotationClass)) {
+			try {
+				return index.getTypes(annotationClass, summer ? SUMMER_ROOT : this.rootForLookup);
+			} catch (IllegalStateException e) {
+				discardIndex(e);
+			}
+		}
+		return (summer ? getSummerReflections() : getAppReflections()).getTypesAnnotatedWith(annotationClass);
+	}
+
+	Collection<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotationClass, boolean summer) {
+		ComponentIndex index = this.index;
+		if (index!=null && index.covers(annotationClass)) {
+			try {
+				return index.getMethods(annotationClass, summer ? SUMMER_ROOT : this.rootForLookup);
+			} catch (IllegalStateException e) {
+				discardIndex(e);
+			}
+		}
+		return (summer ? getSummerReflections() : getAppReflections()).getMethodsAnnotatedWith(annotationClass);
+	}
 	
 	@Override
 	public Collection<Class<?>> getClassesAnnotatedBy(
 		Class<? extends Annotation> annotationClass,
 		Class<? extends Annotation> profileAnnotationClass)
 	{
-		Collection<Class<?>> entities =  this.summerReflections.getTypesAnnotatedWith(annotationClass).stream()
+		Collection<Class<?>> entities =  getTypesAnnotatedWith(annotationClass, true).stream()
 			.filter(componentClass->{
 				return profilesMatch(Arrays.asList(
 				getProfilesFromClassAnnotation(
 						componentClass, profileAnnotationClass)));
 			}).collect(Collectors.toList());
-		entities.addAll(this.appReflections.getTypesAnnotatedWith(annotationClass).stream()
+		entities.addAll(getTypesAnnotatedWith(annotationClass, false).stream()
 			.filter(componentClass->{
 				return profilesMatch(Arrays.asList(
 						getProfilesFromClassAnnotation(
@@ -69,7 +141,7 @@ public class ScannerImpl implements Scanner {
 	public Collection<Class<?>> getSummerClassesAnnotatedBy(
 		Class<? extends Annotation> annotationClass)
 	{
-		return this.summerReflections.getTypesAnnotatedWith(annotationClass);
+		return getTypesAnnotatedWith(annotationClass, true);
 	}
 
 	@Override
@@ -84,7 +156,7 @@ public class ScannerImpl implements Scanner {
 			Class<? extends Annotation> annotationClass,
 			Class<? extends Annotation> profileAnnotationClass) 
 	{
-		return this.appReflections.getMethodsAnnotatedWith(annotationClass).stream()
+		return getMethodsAnnotatedWith(annotationClass, false).stream()
 		.filter(method->{
 			return profilesMatch(Arrays.asList(
 					getProfilesFromMethodAnnotation(
@@ -131,7 +203,7 @@ public class ScannerImpl implements Scanner {
 			Class<? extends Annotation> annotationClass,
 			Class<? extends Annotation> profileAnnotationClass) 
 	{
-		return this.appReflections.getFieldsAnnotatedWith(annotationClass);
+		return getAppReflections().getFieldsAnnotatedWith(annotationClass);
 	}
 
 	@Override
@@ -204,6 +276,6 @@ public class ScannerImpl implements Scanner {
 	public Collection<Method> getSummerMethodsAnnotedBy(
 			Class<? extends Annotation> annotationClass) 
 	{
-		return this.summerReflections.getMethodsAnnotatedWith(annotationClass);
+		return getMethodsAnnotatedWith(annotationClass, true);
 	}
 }
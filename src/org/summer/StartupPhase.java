@@ -0,0 +1,178 @@
+package org.summer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Startup methods (Setup or Launch) of a phase. A method is run once the methods it depends on are done: the ones
+ * named in its "after" attribute (by method name, or by simple class name and method name: "SetupApplication.setupDevDatabase"),
+ * and the ones of the phase with a lower order. Independent methods are run concurrently.
+ * <p>
+ * The phase fails fast: after a failure, no other method of the phase is started, and the failure is reported as soon
+ * as it occurs.
+ */
+class StartupPhase {
+	static final Logger log = Logger.getLogger("summer");
+
+	class Task {
+		Task(Method method) {
+			this.method = method;
+		}
+
+		void run() {
+			if (StartupPhase.this.failure.get()!=null) {
+				return;
+			}
+			log.info("Execute: "+this.method.getName());
+			long start = System.currentTimeMillis();
+			if (!Modifier.isStatic(this.method.getModifiers())) {
+				throw new SummerException("Setup method must be static : "+this.method);
+			}
+			this.method.setAccessible(true);
+			try {
+				this.method.invoke(null);
+			} catch (InvocationTargetException | IllegalAccessException e) {
+				throw new SummerException("Unable to execute setup method : "+this.method, e);
+			}
+			log.info("Executed: "+this.method.getName()+" in "+(System.currentTimeMillis()-start)+" ms");
+		}
+
+		Method method;
+		Set<Task> dependencies = new LinkedHashSet<>();
+		CompletableFuture<Void> future;
+		boolean visiting;
+		boolean sorted;
+	}
+
+	StartupPhase(String name, Collection<Method> methods,
+		ToIntFunction<Method> order, Function<Method, String[]> after)
+	{
+		this.name = name;
+		Map<String, List<Task>> tasksByName = new HashMap<>();
+		for (Method method : methods) {
+			Task task = new Task(method);
+			this.tasks.add(task);
+			tasksByName.computeIfAbsent(method.getName(), key->new ArrayList<>()).add(task);
+			tasksByName.computeIfAbsent(getQualifiedName(method), key->new ArrayList<>()).add(task);
+		}
+		for (Task task : this.tasks) {
+			for (Task other : this.tasks) {
+				if (order.applyAsInt(other.method)<order.applyAsInt(task.method)) {
+					task.dependencies.add(other);
+				}
+			}
+			for (String dependency : after.apply(task.method)) {
+				List<Task> dependencies = tasksByName.get(dependency);
+				if (dependencies!=null) {
+					task.dependencies.addAll(dependencies);
+				}
+				else {
+					this.externalDependencies.put(dependency, task.method);
+				}
+			}
+		}
+	}
+
+	static String getQualifiedName(Method method) {
+		return method.getDeclaringClass().getSimpleName()+"."+method.getName();
+	}
+
+	/**
+	 * Names of the methods of the phase, as they may be referenced by the "after" attribute of a later phase.
+	 */
+	Set<String> getNames() {
+		Set<String> names = new LinkedHashSet<>();
+		for (Task task : this.tasks) {
+			names.add(task.method.getName());
+			names.add(getQualifiedName(task.method));
+		}
+		return names;
+	}
+
+	/**
+	 * Runs the methods of the phase and waits until they are all done.
+	 * @param executed names of the methods of the previous phases (a method of a previous phase is considered done).
+	 * @throws SummerException on the first failure, if a dependency is unknown, or if dependencies are cyclic.
+	 */
+	void run(Executor executor, Set<String> executed) {
+		for (Map.Entry<String, Method> dependency : this.externalDependencies.entrySet()) {
+			if (!executed.contains(dependency.getKey())) {
+				throw new SummerException("Unknown setup method : "+dependency.getKey()+" (required by "+dependency.getValue()+")");
+			}
+		}
+		List<Task> sorted = new ArrayList<>();
+		for (Task task : this.tasks) {
+			sort(task, sorted);
+		}
+		long start = System.currentTimeMillis();
+		CompletableFuture<Void> failed = new CompletableFuture<>();
+		for (Task task : sorted) {
+			schedule(task, executor, failed);
+		}
+		CompletableFuture<Void> done = CompletableFuture.allOf(
+			this.tasks.stream().map(task->task.future).toArray(CompletableFuture[]::new));
+		try {
+			CompletableFuture.anyOf(done, failed).join();
+		} catch (CompletionException e) {
+			Throwable cause = e;
+			while (cause instanceof CompletionException && cause.getCause()!=null) {
+				cause = cause.getCause();
+			}
+			throw cause instanceof SummerException ?
+				(SummerException)cause :
+				new SummerException("Unable to execute "+this.name+" methods", cause);
+		}
+		executed.addAll(getNames());
+		log.info(this.name+" phase done in "+(System.currentTimeMillis()-start)+" ms ("+this.tasks.size()+" methods)");
+	}
+
+	/**
+	 * Sorts the tasks so that a task comes after its dependencies.
+	 */
+	void sort(Task task, List<Task> sorted) {
+		if (task.sorted) {
+			return;
+		}
+		if (task.visiting) {
+			throw new SummerException("Cyclic dependency between setup methods : "+task.method);
+		}
+		task.visiting = true;
+		for (Task dependency : task.dependencies) {
+			sort(dependency, sorted);
+		}
+		task.visiting = false;
+		task.sorted = true;
+		sorted.add(task);
+	}
+
+	void schedule(Task task, Executor executor, CompletableFuture<Void> failed) {
+		CompletableFuture<?>[] dependencies = task.dependencies.stream()
+			.map(dependency->dependency.future).toArray(CompletableFuture[]::new);
+		task.future = CompletableFuture.allOf(dependencies).thenRunAsync(task::run, executor);
+		task.future.whenComplete((result, exception)->{
+			if (exception!=null && this.failure.compareAndSet(null, exception)) {
+				failed.completeExceptionally(exception);
+			}
+		});
+	}
+
+	String name;
+	List<Task> tasks = new ArrayList<>();
+	Map<String, Method> externalDependencies = new HashMap<>();
+	AtomicReference<Throwable> failure = new AtomicReference<>();
+}
@@ -1,43 +1,106 @@
 package org.summer;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
-import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.Part;
 
 import org.summer.annotation.REST;
 import org.summer.controller.SummerControllerException;
+import org.summer.platform.PlatformManager;
 
-@MultipartConfig
 public class SummerServlet extends HttpServlet {
 	static final long serialVersionUID = 1L;
 	static final Logger log = Logger.getLogger("summer");
 	static final String ROOT_FOR_LOOKUP = "root-for-lookup";
 	static final String ACTIVE_PROFILES = "active-profiles";
 	static final String REQUEST_PART = "request-part";
+	static final String ASYNC_THREADS = "async-threads";
+	static final String ASYNC_QUEUE_SIZE = "async-queue-size";
+	static final String ASYNC_TIMEOUT = "async-timeout";
+	static final String RETRY_AFTER = "retry-after";
+	static final String STARTUP_THREADS = "startup-threads";
+	static final String UPLOAD_MAX_FILE_SIZE = "upload-max-file-size";
+	static final String UPLOAD_MAX_REQUEST_SIZE = "upload-max-request-size";
+	static final String STAGING_FOLDER = "/uploads/";
+
+	static RequestExecutor requestExecutor = null;
+	long asyncTimeout;
+	String retryAfter;
+	long uploadMaxFileSize;
+	long uploadMaxRequestSize;
 	
 	@Override
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
 		String rootForLookup=config.getInitParameter(ROOT_FOR_LOOKUP);
 		Set<String> profiles = retrieveProfiles(config);
+		ApplicationManagerImpl.setStartupThreads(getIntParameter(config, STARTUP_THREADS, ApplicationManagerImpl.startupThreads));
 		ApplicationManager.set(new ApplicationManagerImpl(rootForLookup, profiles));
 		ApplicationManager.get().start();
+		initAsyncMode(config);
+		this.uploadMaxFileSize = getIntParameter(config, UPLOAD_MAX_FILE_SIZE, 16*1024*1024);
+		this.uploadMaxRequestSize = getIntParameter(config, UPLOAD_MAX_REQUEST_SIZE, 64*1024*1024);
+	}
+
+	/**
+	 * The async mode is enabled by the "async-threads" init parameter (the servlet must also be declared
+	 * async-supported). Requests are then processed by a bounded RequestExecutor instead of the container threads.
+	 */
+	void initAsyncMode(ServletConfig config) {
+		int threads = getIntParameter(config, ASYNC_THREADS, 0);
+		if (threads>0) {
+			requestExecutor = new RequestExecutor(threads, getIntParameter(config, ASYNC_QUEUE_SIZE, threads*4));
+			this.asyncTimeout = getIntParameter(config, ASYNC_TIMEOUT, 60000);
+			this.retryAfter = Integer.toString(getIntParameter(config, RETRY_AFTER, 1));
+		}
+	}
+
+	int getIntParameter(ServletConfig config, String name, int defaultValue) {
+		String value = config.getInitParameter(name);
+		if (value==null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new SummerException("Invalid value for init parameter "+name+" : "+value);
+		}
+	}
+
+	public static RequestExecutor getRequestExecutor() {
+		return requestExecutor;
+	}
+
+	@Override
+	public void destroy() {
+		if (requestExecutor!=null) {
+			requestExecutor.shutdown();
+			requestExecutor = null;
+		}
+		super.destroy();
 	}
 	
 	Set<String> retrieveProfiles(ServletConfig config) {
@@ -97,14 +160,19 @@ public class SummerServlet extends HttpServlet {
 			processor.accept(contextualUri);
 		}
 		catch(SummerControllerException controllerException) {
-			response.setStatus(controllerException.getStatus());
-			PrintWriter writer = response.getWriter();
-			writer.print(controllerException.getMessage());
-			writer.flush();
-			writer.close();
+			writeError(response, controllerException);
 		}
 	}
 
+	static void writeError(HttpServletResponse response, SummerControllerException controllerException)
+			throws IOException {
+		response.setStatus(controllerException.getStatus());
+		PrintWriter writer = response.getWriter();
+		writer.print(controllerException.getMessage());
+		writer.flush();
+		writer.close();
+	}
+
 	protected void processRequest(
 			HttpServletRequest request, 
 			HttpServletResponse response, 
@@ -113,48 +181,163 @@ public class SummerServlet extends HttpServlet {
 			throws ServletException, IOException {
 		String method = request.getMethod();
 		REST.Method httpMethod = REST.Method.valueOf(method);
+		Ref<Boolean> routed = new Ref<>(false);
 		if (httpMethod!=null) {
 			processRESTRequest(httpMethod, request, response, 
 				contextualUri->
-					ApplicationManager.get()
+					routed.set(ApplicationManager.get()
 						.getControllerManager()
-						.processRequest(contextualUri, httpMethod, request, response, requestContent, files)
+						.processRequest(contextualUri, httpMethod, request, response, requestContent, files))
 				);
 		}
-		response.setStatus(404);
+		if (!routed.get()) {
+			response.setStatus(404);
+		}
 	}
 
 	void processRequest(HttpServletRequest request, HttpServletResponse response)
 			throws ServletException, IOException {
+		if (requestExecutor!=null && request.isAsyncSupported()) {
+			processAsynchronously(request, response);
+		}
+		else {
+			processInThread(request, response);
+		}
+	}
+
+	/**
+	 * Releases the container thread: the request is processed by a worker of the RequestExecutor. The request state
+	 * (summerRequest here, session and request scoped components in the Injector) is bound to the worker thread and
+	 * unbound when the processing ends. If the executor is saturated, the request is rejected with a 503. If the
+	 * timeout occurs first, the request is answered by a 503 (still queued) or a 504 (being processed) and the worker
+	 * is cut off from the request (see AsyncRequestTask).
+	 */
+	void processAsynchronously(HttpServletRequest request, HttpServletResponse response) {
+		AsyncContext asyncContext = request.startAsync(request, response);
+		asyncContext.setTimeout(this.asyncTimeout);
+		AsyncRequestTask task = new AsyncRequestTask(asyncContext, request, response,
+			this::processInThread, this.retryAfter);
+		asyncContext.addListener(task);
+		if (!requestExecutor.submit(task)) {
+			log.warning("Request rejected (server saturated): "+request.getRequestURI());
+			task.reject();
+		}
+	}
+
+	void processInThread(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
 		summerRequest.set(new SummerRequest(request, response));
+		try {
+			processContent(request, response);
+		}
+		finally {
+			summerRequest.remove();
+		}
+	}
+
+	void processContent(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
 		if (request.getContentType()!=null&&request.getContentType().contains("multipart/form-data")) {
-			List<FileSpecification> files = new ArrayList<>();
-			for (Part part : request.getParts()) {
-				if (part.getName()==null||!part.getName().equals(REQUEST_PART)) {
-					files.add(new FileSpecification(part.getName(), getFileName(part), part.getInputStream()));
+			processMultipartContent(request, response);
+		}
+		else {
+			this.processRequest(request, response, request.getReader(), Collections.emptyList());
+		}
+	}
+
+	/**
+	 * Parts are read in one pass (see MultipartReader). Files are streamed into the storage of the PlatformManager,
+	 * under a staging path, while their size and checksum are computed: storing them later (FileSunbeam.storeFile)
+	 * only moves them. Staged files that were not stored are deleted once the request is processed.
+	 */
+	void processMultipartContent(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		List<FileSpecification> files = new ArrayList<>();
+		try {
+			MultipartReader reader = new MultipartReader(
+				request.getInputStream(), request.getContentType(), this.uploadMaxRequestSize);
+			String requestContent = null;
+			MultipartReader.Part part;
+			while ((part = reader.next())!=null) {
+				if (REQUEST_PART.equals(part.getName())) {
+					requestContent = readPart(part);
+				}
+				else {
+					stageFile(part, files);
 				}
 			}
-			for (Part part : request.getParts()) {
-				if (part.getName()!=null&&part.getName().equals(REQUEST_PART)) {
-					BufferedReader reader = new BufferedReader(new InputStreamReader(part.getInputStream()));
-					this.processRequest(request, response, reader, files);
+			if (requestContent!=null) {
+				this.processRequest(request, response, new BufferedReader(new StringReader(requestContent)), files);
+			}
+		}
+		catch (SummerControllerException controllerException) {
+			writeError(response, controllerException);
+		}
+		finally {
+			discardStagedFiles(files);
+		}
+	}
+
+	String readPart(MultipartReader.Part part) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int length;
+		while ((length = part.getInputStream().read(buffer)) != -1) {
+			content.write(buffer, 0, length);
+		}
+		return new String(content.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	void stageFile(MultipartReader.Part part, List<FileSpecification> files) throws IOException {
+		log.info(String.format("Part = %s, file = %s", part.getName(), part.getFileName()));
+		String fileName = part.getFileName();
+		FileSpecification file = new FileSpecification(part.getName(), fileName,
+			fileName==null ? null : FileSpecification.getExtension(fileName), null)
+			.setStoredPath(STAGING_FOLDER+UUID.randomUUID());
+		// Registered before being written, so that it is discarded if the upload fails.
+		files.add(file);
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new SummerException(e);
+		}
+		long size = 0;
+		try (OutputStream output = PlatformManager.get().getOutputStream(file.getStoredPath())) {
+			InputStream input = part.getInputStream();
+			byte[] buffer = new byte[64*1024];
+			int length;
+			while ((length = input.read(buffer)) != -1) {
+				size += length;
+				if (size>this.uploadMaxFileSize) {
+					throw new SummerControllerException(413,
+						"File %s exceeds %d bytes.", fileName, this.uploadMaxFileSize);
 				}
+				digest.update(buffer, 0, length);
+				output.write(buffer, 0, length);
 			}
 		}
-		else {
-			this.processRequest(request, response, request.getReader(), Collections.emptyList());
+		StringBuilder checksum = new StringBuilder();
+		for (byte aByte : digest.digest()) {
+			checksum.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
 		}
+		file.setSize(size).setChecksum(checksum.toString());
 	}
-	
-	String getFileName(final Part part) {
-		final String partHeader = part.getHeader("content-disposition");
-		log.info(String.format("Part Header = %s", partHeader));
-		for (String content : part.getHeader("content-disposition").split(";")) {
-			if (content.trim().startsWith("filename")) {
-				return content.substring(content.indexOf('=') + 1).trim().replace("\"", "");
+
+	void discardStagedFiles(List<FileSpecification> files) {
+		for (FileSpecification file : files) {
+			if (file.getStoredPath()!=null) {
+				try {
+					if (file.stream!=null) {
+						file.stream.close();
+					}
+					PlatformManager.get().deleteContent(file.getStoredPath());
+				}
+				catch (IOException|RuntimeException e) {
+					log.log(Level.WARNING, "Unable to discard staged file : "+file.getStoredPath(), e);
+				}
 			}
 		}
-		return null;
 	}
 	
 	@Override
@@ -9,5 +9,10 @@ import java.lang.annotation.Target;
 @Target({ElementType.METHOD})
 public @interface Launch {
 	int order() default 0;
+	/**
+	 * Methods (name, or simple class name and name: "SetupApplication.setupDevDatabase") that must be done before
+	 * this one. They belong to the same phase, or to a previous one.
+	 */
+	String[] after() default {};
 	String[] profile() default {};
 }
@@ -14,4 +14,10 @@ public @interface MIME {
 	String url();
 	Type contentDisposition() default Type.INLINE;
 	String[] profile() default {};
+	/**
+	 * Time (in seconds) the content may be cached, when its name is not versioned (see CachePolicy).
+	 * CachePolicy.NO_STORE forbids any caching of the content; another negative value stands for the default max age
+	 * of CachePolicy.
+	 */
+	int maxAge() default -1;
 }
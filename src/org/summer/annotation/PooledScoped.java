@@ -9,4 +9,20 @@ import java.lang.annotation.Target;
 @Target({ElementType.TYPE})
 public @interface PooledScoped {
 	String[] profile() default {};
+	/**
+	 * Maximum number of components (borrowed or idle) of the pool.
+	 */
+	int maxSize() default 64;
+	/**
+	 * Number of idle components created with the pool, and never evicted.
+	 */
+	int minIdle() default 0;
+	/**
+	 * Time (in milliseconds) after which an idle component is evicted.
+	 */
+	long idleTimeout() default 60000;
+	/**
+	 * Time (in milliseconds) a borrower waits for a component when they are all borrowed.
+	 */
+	long borrowTimeout() default 5000;
 }
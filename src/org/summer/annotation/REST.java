@@ -11,6 +11,13 @@ public @interface REST {
 	String url();
 	Method method();
 	String[] profile() default {};
+	/**
+	 * Name of a method of the controller, taking the same parameters as the annotated method and returning a cheap
+	 * validator (a String without double quotes, e.g. the max update timestamp and the count of the listed entities).
+	 * When set, the validator is computed first and sent as a (weak) ETag: if it matches the If-None-Match header of
+	 * the request, a 304 Not Modified is answered and the annotated method is not invoked.
+	 */
+	String validator() default "";
 	
 	public enum Method {
 		GET, POST, PUT, DELETE, UPLOAD
@@ -0,0 +1,177 @@
+package org.summer.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.summer.SummerException;
+import org.summer.annotation.REST;
+import org.summer.controller.RouteManager.RESTRoute;
+import org.summer.controller.RouteManager.Route;
+import org.summer.controller.RouteManager.RouteInvocation;
+import org.summer.data.DataManager;
+import org.summer.metrics.Metrics;
+
+/**
+ * Route executing several REST calls in one round-trip. The content of the request is either an array of
+ * sub-requests, or an object: { "requests": [...], "sharedReadTransaction": true }. A sub-request is an object:
+ * { "method": "GET", "url": "/api/banner/live?page=0", "params": {...}, "body": {...} } (only url is required).
+ * <p>
+ * Each sub-request is dispatched through the route managers, as if it was received alone, and the reply is an
+ * array of { "status": ..., "body": ... } in the same order. The failure of a sub-request does not stop the batch:
+ * its status is the error status and its body, the error message (a generic one for an unexpected exception).
+ * <p>
+ * With sharedReadTransaction, the read transactions of all the sub-requests share one EntityManager. The
+ * authentication is checked once for the whole batch, as for any request (see SecurityManagerImpl).
+ */
+public class BatchRoute extends Route {
+
+	static final Logger log = Logger.getLogger("summer");
+	public static final String BATCH_URL = "/api/batch";
+	static final String INTERNAL_ERROR = "Internal server error";
+
+	static volatile int maxRequests = 32;
+
+	ControllerManagerImpl controllerManager;
+
+	BatchRoute(ControllerManagerImpl controllerManager) {
+		super(null, null, null);
+		this.controllerManager = controllerManager;
+	}
+
+	/**
+	 * Sets the maximum number of sub-requests of a batch.
+	 */
+	public static void setMaxRequests(int maxRequests) {
+		BatchRoute.maxRequests = maxRequests;
+	}
+
+	@Override
+	public void processRequest(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Map<String, Object> params,
+			BufferedReader reader) {
+		try {
+			Json content = Json.createJsonFromRequest(reader);
+			Json subRequests = content.isArray() ? content : content.getJson("requests");
+			if (subRequests==null || !subRequests.isArray()) {
+				throw new SummerControllerException(400, "A batch must contain an array of requests.");
+			}
+			if (subRequests.size()>maxRequests) {
+				throw new SummerControllerException(413, "A batch must not contain more than %d requests.", maxRequests);
+			}
+			Json result = Json.createJsonArray();
+			Runnable execution = ()->{
+				for (int index=0; index<subRequests.size(); index++) {
+					result.push(execute(subRequests.get(index), request, response));
+				}
+			};
+			if (!content.isArray() && Boolean.TRUE.equals(content.get("sharedReadTransaction"))) {
+				DataManager.inSharedReadTransaction(execution);
+			}
+			else {
+				execution.run();
+			}
+			response.setStatus(200);
+			long start = System.nanoTime();
+			JsonWriter.write(result, request, response);
+			Metrics.recordSerialization(System.nanoTime()-start);
+		} catch (IOException e) {
+			throw new SummerException("Unable to retrieve JSON content.", e);
+		}
+	}
+
+	Json execute(Object subRequest, HttpServletRequest request, HttpServletResponse response) {
+		try {
+			if (!(subRequest instanceof Json) || ((Json)subRequest).isArray()) {
+				throw new SummerControllerException(400, "A request of a batch must be an object.");
+			}
+			Json specification = (Json)subRequest;
+			REST.Method method = getMethod(specification);
+			String url = specification.get("url");
+			if (url==null) {
+				throw new SummerControllerException(400, "The URL of a request of a batch is missing.");
+			}
+			int queryIndex = url.indexOf('?');
+			String uri = queryIndex<0 ? url : url.substring(0, queryIndex);
+			RouteManager routeManager = this.controllerManager.routeManagers.get(method);
+			RouteInvocation invocation = routeManager==null ? null : routeManager.getRoute(uri);
+			if (invocation==null) {
+				throw new SummerControllerException(404, "Unknown route : %s %s", method, uri);
+			}
+			if (!(invocation.route instanceof RESTRoute)) {
+				throw new SummerControllerException(400, "Only REST routes may be batched : %s", uri);
+			}
+			Map<String, Object> params = invocation.getParams();
+			if (queryIndex>=0) {
+				fillParams(url.substring(queryIndex+1), params);
+			}
+			Json paramsSpecification = specification.getJson("params");
+			if (paramsSpecification!=null && !paramsSpecification.isArray()) {
+				for (String name : paramsSpecification.keys()) {
+					Object value = paramsSpecification.get(name);
+					params.put(name, value==null ? null : value.toString());
+				}
+			}
+			Json body = specification.getJson("body");
+			Json result = ((RESTRoute)invocation.route).execute(
+				body==null ? Json.createJsonObject() : body, request, response, params);
+			return reply(200, result);
+		}
+		catch (SummerControllerException sce) {
+			return reply(sce.getStatus(), sce.getMessage());
+		}
+		catch (RuntimeException e) {
+			// As for a request received alone, the internal error is logged, not sent to the client.
+			log.log(Level.SEVERE, "Batched request failed", e);
+			return reply(500, INTERNAL_ERROR);
+		}
+	}
+
+	REST.Method getMethod(Json specification) {
+		String method = specification.get("method");
+		if (method==null) {
+			return REST.Method.GET;
+		}
+		try {
+			REST.Method result = REST.Method.valueOf(method.toUpperCase());
+			if (result!=REST.Method.UPLOAD) {
+				return result;
+			}
+		}
+		catch (IllegalArgumentException e) {
+		}
+		throw new SummerControllerException(400, "Unsupported method for a request of a batch : %s", method);
+	}
+
+	void fillParams(String query, Map<String, Object> params) {
+		try {
+			for (String parameter : query.split("&")) {
+				if (parameter.isEmpty()) {
+					continue;
+				}
+				int equalIndex = parameter.indexOf('=');
+				String name = equalIndex<0 ? parameter : parameter.substring(0, equalIndex);
+				String value = equalIndex<0 ? "" : parameter.substring(equalIndex+1);
+				params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new SummerException(e);
+		}
+	}
+
+	Json reply(int status, Object body) {
+		return Json.createJsonObject()
+			.put("status", status)
+			.put("body", body);
+	}
+
+}
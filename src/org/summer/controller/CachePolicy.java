@@ -0,0 +1,91 @@
+package org.summer.controller;
+
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Caching policy of MIME routes.
+ * <p>
+ * Resources whose name (last segment of the URL) is versioned, i.e. of the form baseName-&lt;version&gt;.ext, as the
+ * names given by uploads, never change: they are cached for a year ("public, max-age=31536000, immutable") and get a
+ * strong ETag, the versioned name itself. The other resources are cached for a short time: the maxAge of the MIME
+ * annotation of the route, or the default max age.
+ * <p>
+ * A substitute content (see FileSpecification.isSubstitute()) sent for a versioned resource is not the resource
+ * itself: it must be revalidated at each use ("no-cache") and gets no entity tag.
+ * <p>
+ * A route declaring the NO_STORE max age serves private contents (e.g. reserved to administrators): they must not be
+ * kept by any cache ("private, no-store"), whatever their name.
+ */
+public class CachePolicy {
+
+	public static final int IMMUTABLE_MAX_AGE = 31536000;
+	static final String IMMUTABLE = "public, max-age="+IMMUTABLE_MAX_AGE+", immutable";
+	/**
+	 * Max age of a route whose contents must not be stored by any cache.
+	 */
+	public static final int NO_STORE = -2;
+	static final String PRIVATE_NO_STORE = "private, no-store";
+
+	static volatile Pattern versionedName = Pattern.compile("[^/]+-\\d+\\.[A-Za-z0-9]+");
+	static volatile int defaultMaxAge = 300;
+
+	/**
+	 * Sets the regular expression recognizing versioned resource names.
+	 */
+	public static void setVersionedNamePattern(String regex) {
+		versionedName = Pattern.compile(regex);
+	}
+
+	/**
+	 * Sets the time (in seconds) non-versioned resources may be cached. 0 requires a revalidation of each use.
+	 */
+	public static void setDefaultMaxAge(int seconds) {
+		defaultMaxAge = seconds;
+	}
+
+	/**
+	 * Returns the versioned name of the requested resource, or null if it is not versioned.
+	 */
+	static String getVersionedName(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		if (uri==null) {
+			return null;
+		}
+		String name = uri.substring(uri.lastIndexOf('/')+1);
+		return versionedName.matcher(name).matches() ? name : null;
+	}
+
+	/**
+	 * Sets the Cache-Control header of the reply of a MIME route.
+	 * @param maxAge max age declared by the route, NO_STORE for a private content, another negative value if the
+	 *               route relies on the default one.
+	 * @param substitute true if the content stands in for the requested one.
+	 * @return the strong entity tag (without quotes) of a versioned resource, null otherwise.
+	 */
+	static String apply(HttpServletRequest request, HttpServletResponse response, int maxAge, boolean substitute) {
+		if (maxAge==NO_STORE) {
+			response.setHeader(RouteManager.CACHE_CONTROL, PRIVATE_NO_STORE);
+			return null;
+		}
+		String name = getVersionedName(request);
+		if (name!=null && substitute) {
+			response.setHeader(RouteManager.CACHE_CONTROL, "no-cache");
+			return null;
+		}
+		if (name!=null) {
+			response.setHeader(RouteManager.CACHE_CONTROL, IMMUTABLE);
+			// Parameters (e.g. the size of an image rendition) select another representation.
+			String query = request.getQueryString();
+			return query==null ? name : name+"?"+query.replace("\"", "");
+		}
+		if (maxAge<0) {
+			maxAge = defaultMaxAge;
+		}
+		response.setHeader(RouteManager.CACHE_CONTROL, maxAge==0 ? "no-cache" : "max-age="+maxAge);
+		return null;
+	}
+
+}
@@ -0,0 +1,144 @@
+package org.summer.controller;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.summer.FileSpecification;
+import org.summer.SummerException;
+
+/**
+ * Invocation layer of the controller methods. Everything that does not depend on the request (how a controller
+ * instance is obtained, method resolution and access checks) is done once, when the route is deployed:
+ * <ul>
+ *     <li>a controller class without instance fields (the usual "interface mixin" controller) is instantiated
+ *     once and its instance is shared by all the requests,</li>
+ *     <li>the controller method is bound to a MethodHandle adapted to the route signature.</li>
+ * </ul>
+ */
+public class ControllerInvoker {
+
+	static final MethodType REST_TYPE = MethodType.methodType(Json.class, Object.class, Map.class, Json.class);
+	static final MethodType MIME_TYPE = MethodType.methodType(FileSpecification.class, Object.class, Map.class);
+	static final MethodType VALIDATOR_TYPE = MethodType.methodType(String.class, Object.class, Map.class, Json.class);
+
+	static final Map<Class<?>, Supplier<Object>> instanceSuppliers = new ConcurrentHashMap<>();
+
+	Method method;
+	Supplier<Object> instanceSupplier;
+	MethodHandle handle;
+
+	ControllerInvoker(Class<?> componentClass, Method method, MethodType type) {
+		this.method = method;
+		this.instanceSupplier = getInstanceSupplier(componentClass);
+		try {
+			method.setAccessible(true);
+			this.handle = MethodHandles.lookup().unreflect(method).asType(type);
+		} catch (IllegalAccessException | WrongMethodTypeException e) {
+			throw new InstantiationError("Unable to bind : "+method);
+		}
+	}
+
+	static ControllerInvoker forREST(Class<?> componentClass, Method method) {
+		return new ControllerInvoker(componentClass, method, REST_TYPE);
+	}
+
+	static ControllerInvoker forMIME(Class<?> componentClass, Method method) {
+		return new ControllerInvoker(componentClass, method, MIME_TYPE);
+	}
+
+	/**
+	 * Binds the validator method (see REST.validator()) of a REST route: a public method of the controller class,
+	 * taking the same parameters as the route method and returning a String.
+	 */
+	static ControllerInvoker forValidator(Class<?> componentClass, String validatorName) {
+		Method validator;
+		try {
+			validator = componentClass.getMethod(validatorName, Map.class, Json.class);
+		} catch (NoSuchMethodException e) {
+			throw new InstantiationError("Unable to find validator : "+componentClass.getName()+"."+validatorName);
+		}
+		return new ControllerInvoker(componentClass, validator, VALIDATOR_TYPE);
+	}
+
+	Json invoke(Map<String, Object> params, Json json) {
+		try {
+			return (Json)this.handle.invokeExact(this.instanceSupplier.get(), params, json);
+		} catch (SummerException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SummerException("Unable to invoke : "+this.method, e);
+		}
+	}
+
+	String validate(Map<String, Object> params, Json json) {
+		try {
+			return (String)this.handle.invokeExact(this.instanceSupplier.get(), params, json);
+		} catch (SummerException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SummerException("Unable to invoke : "+this.method, e);
+		}
+	}
+
+	FileSpecification invoke(Map<String, Object> params) {
+		try {
+			return (FileSpecification)this.handle.invokeExact(this.instanceSupplier.get(), params);
+		} catch (SummerException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SummerException("Unable to invoke : "+this.method, e);
+		}
+	}
+
+	static Supplier<Object> getInstanceSupplier(Class<?> componentClass) {
+		return instanceSuppliers.computeIfAbsent(componentClass, ControllerInvoker::createInstanceSupplier);
+	}
+
+	static Supplier<Object> createInstanceSupplier(Class<?> componentClass) {
+		MethodHandle constructor;
+		try {
+			constructor = MethodHandles.lookup()
+				.findConstructor(componentClass, MethodType.methodType(void.class))
+				.asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new InstantiationError("Unable to create : "+componentClass);
+		}
+		if (isStateless(componentClass)) {
+			Object instance = newInstance(constructor, componentClass);
+			return ()->instance;
+		}
+		return ()->newInstance(constructor, componentClass);
+	}
+
+	static Object newInstance(MethodHandle constructor, Class<?> componentClass) {
+		try {
+			return (Object)constructor.invokeExact();
+		} catch (Throwable e) {
+			throw new InstantiationError("Unable to create : "+componentClass);
+		}
+	}
+
+	/**
+	 * A controller class may be shared between requests if neither it nor its superclasses declare an instance
+	 * field.
+	 */
+	static boolean isStateless(Class<?> componentClass) {
+		for (Class<?> klass = componentClass; klass!=null && klass!=Object.class; klass = klass.getSuperclass()) {
+			for (Field field : klass.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
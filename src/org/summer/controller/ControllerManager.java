@@ -14,7 +14,10 @@ public interface ControllerManager {
 	
 	void installControllers();
 	
-	void processRequest(
+	/**
+	 * @return false if no route matches the request.
+	 */
+	boolean processRequest(
 			String contextualUri,
 			REST.Method httpMethod,
 			HttpServletRequest request, 
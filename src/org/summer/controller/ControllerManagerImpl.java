@@ -22,6 +22,8 @@ import org.summer.annotation.MIME;
 import org.summer.annotation.REST;
 import org.summer.controller.RouteManager.Route;
 import org.summer.controller.RouteManager.RouteInvocation;
+import org.summer.metrics.Metrics;
+import org.summer.metrics.RouteMetrics;
 
 public class ControllerManagerImpl implements ControllerManager {
 	static final Logger log = Logger.getLogger("summer");
@@ -30,6 +32,8 @@ public class ControllerManagerImpl implements ControllerManager {
 	public void installControllers() {
 		Scanner.get().getClassesAnnotatedBy(Controller.class).stream()
 		.forEach(componentClass->this.deployControllerClass(componentClass));
+		deployBatchRoute();
+		this.routeManagers.values().forEach(RouteManager::compile);
 	}
 	
 	void deployControllerClass(Class<?> componentClass) {
@@ -38,19 +42,29 @@ public class ControllerManagerImpl implements ControllerManager {
 			REST restRoute = method.getAnnotation(REST.class);
 			if (restRoute!=null && Scanner.get().profilesMatch(Arrays.asList(restRoute.profile()))) {
 				RouteManager routeManager = getRouteManager(restRoute.method());
-				routeManager.prepareRoute(restRoute.url(), new RouteManager.RESTRoute(componentClass, method));
+				Route route = new RouteManager.RESTRoute(componentClass, method, restRoute.validator());
+				route.metrics = Metrics.getRouteMetrics(restRoute.method().name(), restRoute.url());
+				routeManager.prepareRoute(restRoute.url(), route);
 				return;
 			}
 			MIME mimeRoute = method.getAnnotation(MIME.class);
 			if (mimeRoute!=null && Scanner.get().profilesMatch(Arrays.asList(mimeRoute.profile()))) {
 				RouteManager routeManager = getRouteManager(REST.Method.GET);
-				routeManager.prepareRoute(mimeRoute.url(), new RouteManager.MIMERoute(
-						componentClass, method, mimeRoute.contentDisposition()==MIME.Type.INLINE));
+				Route route = new RouteManager.MIMERoute(
+						componentClass, method, mimeRoute.contentDisposition()==MIME.Type.INLINE, mimeRoute.maxAge());
+				route.metrics = Metrics.getRouteMetrics(REST.Method.GET.name(), mimeRoute.url());
+				routeManager.prepareRoute(mimeRoute.url(), route);
 				return;
 			}
 		});
 	}
 
+	void deployBatchRoute() {
+		Route route = new BatchRoute(this);
+		route.metrics = Metrics.getRouteMetrics(REST.Method.POST.name(), BatchRoute.BATCH_URL);
+		getRouteManager(REST.Method.POST).prepareRoute(BatchRoute.BATCH_URL, route);
+	}
+
 	RouteManager getRouteManager(REST.Method method) {
 		RouteManager routeManager = this.routeManagers.get(method);
 		if (routeManager==null) {
@@ -60,7 +74,7 @@ public class ControllerManagerImpl implements ControllerManager {
 		return routeManager;
 	}
 
-	void processRequest(
+	boolean processRequest(
 			String contextualUri,
 			REST.Method httpMethod,
 			HttpServletRequest request, 
@@ -71,20 +85,43 @@ public class ControllerManagerImpl implements ControllerManager {
 		if (routeManager!=null) {
 			RouteInvocation routeInvocation = routeManager.getRoute(contextualUri);
 			if (routeInvocation!=null) {
-				HttpSession session = request.getSession(true);
-				ApplicationManager.get().getInjector().startThread(session);
+				ApplicationManager.get().getInjector().startThread(()->getSession(request));
+				RouteMetrics metrics = routeInvocation.getRoute().getMetrics();
+				long start = metrics.start();
+				int status = 500;
 				try {
 					executor.accept(routeInvocation);
+					status = response.getStatus();
+				}
+				catch (SummerControllerException sce) {
+					status = sce.getStatus();
+					throw sce;
 				}
 				finally {
+					metrics.finish(start, status);
 					ApplicationManager.get().getInjector().finishThread();
 				}
+				return true;
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Returns the HTTP session of the request, creating it if needed. Called lazily: requests that do not use
+	 * session scoped components (authentication relies on a JWT cookie) do not create a session.
+	 */
+	HttpSession getSession(HttpServletRequest request) {
+		HttpSession session = request.getSession(false);
+		if (session==null) {
+			session = request.getSession(true);
+			Metrics.recordSessionCreation();
+		}
+		return session;
 	}
 
 	@Override
-	public void processRequest(
+	public boolean processRequest(
 			String contextualUri,
 			REST.Method httpMethod,
 			HttpServletRequest request, 
@@ -92,7 +129,7 @@ public class ControllerManagerImpl implements ControllerManager {
 			BufferedReader reader,
 			List<FileSpecification> files) 
 	{
-		processRequest(contextualUri, httpMethod, request, response, 
+		return processRequest(contextualUri, httpMethod, request, response, 
 			routeInvocation->{
 				Route route = routeInvocation.getRoute();
 				Map<String, Object> params = routeInvocation.getParams();
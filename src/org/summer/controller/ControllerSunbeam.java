@@ -5,7 +5,6 @@ import org.summer.data.Synchronizer;
 
 import java.util.Map;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public interface ControllerSunbeam {
 
@@ -49,8 +48,7 @@ public interface ControllerSunbeam {
 			throw new SummerControllerException(400, message, param, null);
 		}
 		if (pattern != null) {
-			Pattern compiled = Pattern.compile(pattern);
-			Matcher matcher = compiled.matcher(param);
+			Matcher matcher = Verifier.getPattern(pattern).matcher(param);
 			if (!matcher.matches()) {
 				throw new SummerControllerException(400, message, param, null);
 			}
@@ -0,0 +1,447 @@
+package org.summer.controller;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.summer.controller.RouteManager.RESTRoute;
+import org.summer.platform.StoredContent;
+
+/**
+ * Sends the content of a MIME route. When the size of the content is known (local files, or streams implementing
+ * StoredContent), the reply has a Content-Length and a Last-Modified header, and single or multiple byte ranges may
+ * be requested (Range / If-Range headers). Versioned contents also get a strong entity tag (see CachePolicy), which
+ * may be checked through If-None-Match and If-Range.
+ * <p>
+ * Local files are sent without being copied in the JVM: through the sendfile support of the container when it
+ * offers one (Tomcat), or FileChannel.transferTo otherwise. Other streams (e.g. Cloud Storage channels) are copied
+ * through large pooled buffers.
+ */
+class FileServer {
+
+	static final int BUFFER_SIZE = 64*1024;
+	static final int MAX_POOLED_BUFFERS = 32;
+	static final int MAX_RANGES = 16;
+
+	static final String RANGE = "Range";
+	static final String IF_RANGE = "If-Range";
+	static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+	static final String ACCEPT_RANGES = "Accept-Ranges";
+	static final String CONTENT_RANGE = "Content-Range";
+	static final String LAST_MODIFIED = "Last-Modified";
+	static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	static final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+	static final AtomicInteger pooledBuffers = new AtomicInteger();
+
+	/**
+	 * A range of bytes, bounds included.
+	 */
+	static class Range {
+		long start;
+		long end;
+
+		Range(long start, long end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		long length() {
+			return this.end-this.start+1;
+		}
+
+		String contentRange(long contentLength) {
+			return "bytes "+this.start+"-"+this.end+"/"+contentLength;
+		}
+	}
+
+	/**
+	 * Sends the content (status and content type are already set). The stream is closed.
+	 * @param entityTag strong entity tag of the content (without quotes), null if it has none.
+	 */
+	static void serve(
+			InputStream in,
+			String contentType,
+			String entityTag,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException
+	{
+		try {
+			long contentLength = -1;
+			long lastModified = -1;
+			File file = null;
+			if (in instanceof StoredContent) {
+				StoredContent content = (StoredContent)in;
+				contentLength = content.getContentLength();
+				lastModified = content.getLastModified();
+				file = content.getFile();
+			}
+			else if (in instanceof FileInputStream) {
+				contentLength = ((FileInputStream)in).getChannel().size();
+			}
+			if (entityTag!=null) {
+				response.setHeader(RouteManager.ETAG, "\""+entityTag+"\"");
+			}
+			if (lastModified>=0) {
+				response.setDateHeader(LAST_MODIFIED, lastModified);
+			}
+			if (isNotModified(request, entityTag, lastModified)) {
+				response.setStatus(304);
+				response.flushBuffer();
+				return;
+			}
+			if (contentLength<0) {
+				OutputStream out = ResponseCompression.openOutputStream(request, response, contentType, -1);
+				try {
+					copy(in, out);
+					out.close();
+				}
+				finally {
+					ResponseCompression.abort(out);
+				}
+				return;
+			}
+			response.setHeader(ACCEPT_RANGES, "bytes");
+			List<Range> ranges = getRanges(request, contentLength, entityTag, lastModified);
+			if (ranges!=null && !(in instanceof FileInputStream) && !isAscending(ranges)) {
+				// A stream is read once: its ranges must be in order and must not overlap.
+				ranges = null;
+			}
+			if (ranges==null) {
+				serveAll(in, file, contentType, entityTag, contentLength, request, response);
+			}
+			else if (ranges.isEmpty()) {
+				response.setStatus(416);
+				response.setHeader(CONTENT_RANGE, "bytes */"+contentLength);
+				response.flushBuffer();
+			}
+			else if (ranges.size()==1) {
+				serveRange(in, file, ranges.get(0), contentLength, request, response);
+			}
+			else {
+				serveRanges(in, ranges, contentType, contentLength, response);
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * If-None-Match prevails over If-Modified-Since. The entity tags of the compressed variants of the content
+	 * (see serveAll) match too.
+	 */
+	static boolean isNotModified(HttpServletRequest request, String entityTag, long lastModified) {
+		String ifNoneMatch = request.getHeader(RouteManager.IF_NONE_MATCH);
+		if (ifNoneMatch!=null) {
+			return entityTag!=null && (RESTRoute.matches(ifNoneMatch, entityTag) ||
+				RESTRoute.matches(ifNoneMatch, entityTag+"-"+ResponseCompression.GZIP) ||
+				RESTRoute.matches(ifNoneMatch, entityTag+"-"+ResponseCompression.DEFLATE));
+		}
+		if (lastModified<0) {
+			return false;
+		}
+		try {
+			long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+			return ifModifiedSince>=0 && lastModified/1000<=ifModifiedSince/1000;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	static void serveAll(
+			InputStream in,
+			File file,
+			String contentType,
+			String entityTag,
+			long contentLength,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException
+	{
+		String encoding = ResponseCompression.selectEncoding(request, response, contentType, contentLength);
+		if (encoding!=null && entityTag!=null) {
+			// A strong entity tag identifies one representation: the compressed one gets its own.
+			response.setHeader(RouteManager.ETAG, "\""+entityTag+"-"+encoding+"\"");
+		}
+		if (encoding==null && file!=null && sendFile(file, new Range(0, contentLength-1), request, response)) {
+			return;
+		}
+		OutputStream out = ResponseCompression.openOutputStream(response, encoding, contentLength);
+		try {
+			if (encoding==null && in instanceof FileInputStream) {
+				transfer((FileInputStream)in, new Range(0, contentLength-1), out);
+			}
+			else {
+				copy(in, out, contentLength);
+			}
+			out.close();
+		}
+		finally {
+			ResponseCompression.abort(out);
+		}
+	}
+
+	/**
+	 * Partial replies are never compressed.
+	 */
+	static void serveRange(
+			InputStream in,
+			File file,
+			Range range,
+			long contentLength,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException
+	{
+		response.setStatus(206);
+		response.setHeader(CONTENT_RANGE, range.contentRange(contentLength));
+		if (file!=null && sendFile(file, range, request, response)) {
+			return;
+		}
+		response.setContentLengthLong(range.length());
+		OutputStream out = response.getOutputStream();
+		if (in instanceof FileInputStream) {
+			transfer((FileInputStream)in, range, out);
+		}
+		else {
+			skip(in, range.start);
+			copy(in, out, range.length());
+		}
+		out.close();
+	}
+
+	static void serveRanges(
+			InputStream in,
+			List<Range> ranges,
+			String contentType,
+			long contentLength,
+			HttpServletResponse response) throws IOException
+	{
+		String boundary = UUID.randomUUID().toString().replace("-", "");
+		List<byte[]> headers = new ArrayList<>();
+		long length = 0;
+		for (Range range : ranges) {
+			byte[] header = ("\r\n--"+boundary+"\r\n"+
+				(contentType!=null ? "Content-Type: "+contentType+"\r\n" : "")+
+				"Content-Range: "+range.contentRange(contentLength)+"\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+			headers.add(header);
+			length += header.length+range.length();
+		}
+		byte[] trailer = ("\r\n--"+boundary+"--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+		length += trailer.length;
+		response.setStatus(206);
+		response.setContentType("multipart/byteranges; boundary="+boundary);
+		response.setContentLengthLong(length);
+		OutputStream out = response.getOutputStream();
+		long position = 0;
+		for (int index=0; index<ranges.size(); index++) {
+			Range range = ranges.get(index);
+			out.write(headers.get(index));
+			if (in instanceof FileInputStream) {
+				transfer((FileInputStream)in, range, out);
+			}
+			else {
+				skip(in, range.start-position);
+				copy(in, out, range.length());
+				position = range.end+1;
+			}
+		}
+		out.write(trailer);
+		out.close();
+	}
+
+	/**
+	 * Parses the Range header.
+	 * @return null if the whole content must be sent, an empty list if the ranges cannot be satisfied.
+	 */
+	static List<Range> getRanges(HttpServletRequest request, long contentLength, String entityTag, long lastModified) {
+		String header = request.getHeader(RANGE);
+		if (header==null || !header.startsWith("bytes=") || !isRangeApplicable(request, entityTag, lastModified)) {
+			return null;
+		}
+		List<Range> ranges = new ArrayList<>();
+		for (String specification : header.substring(6).split(",")) {
+			specification = specification.trim();
+			int dash = specification.indexOf('-');
+			if (dash<0) {
+				return null;
+			}
+			try {
+				long start;
+				long end;
+				if (dash==0) {
+					long suffix = Long.parseLong(specification.substring(1));
+					if (suffix<=0) {
+						continue;
+					}
+					start = Math.max(0, contentLength-suffix);
+					end = contentLength-1;
+				}
+				else {
+					start = Long.parseLong(specification.substring(0, dash));
+					if (start>=contentLength) {
+						continue;
+					}
+					end = dash==specification.length()-1 ?
+						contentLength-1 : Math.min(Long.parseLong(specification.substring(dash+1)), contentLength-1);
+					if (end<start) {
+						return null;
+					}
+				}
+				ranges.add(new Range(start, end));
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return ranges.size()>MAX_RANGES ? null : ranges;
+	}
+
+	static boolean isAscending(List<Range> ranges) {
+		for (int index=1; index<ranges.size(); index++) {
+			if (ranges.get(index).start<=ranges.get(index-1).end) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * If-Range is either a strong entity tag, which must be the one of the content, or a date: ranges are then applied
+	 * if the content was not modified since.
+	 */
+	static boolean isRangeApplicable(HttpServletRequest request, String entityTag, long lastModified) {
+		String ifRange = request.getHeader(IF_RANGE);
+		if (ifRange==null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return entityTag!=null && ifRange.equals("\""+entityTag+"\"");
+		}
+		try {
+			long ifRangeDate = request.getDateHeader(IF_RANGE);
+			return lastModified>=0 && lastModified/1000==ifRangeDate/1000;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Delegates the sending of a local file to the container (Tomcat sendfile), if it supports it.
+	 */
+	static boolean sendFile(File file, Range range, HttpServletRequest request, HttpServletResponse response)
+		throws IOException
+	{
+		if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			return false;
+		}
+		response.setContentLengthLong(range.length());
+		request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+		request.setAttribute(SENDFILE_START, range.start);
+		request.setAttribute(SENDFILE_END, range.end+1);
+		return true;
+	}
+
+	static void transfer(FileInputStream in, Range range, OutputStream out) throws IOException {
+		FileChannel channel = in.getChannel();
+		WritableByteChannel target = Channels.newChannel(out);
+		long position = range.start;
+		long remaining = range.length();
+		while (remaining>0) {
+			long transferred = channel.transferTo(position, remaining, target);
+			if (transferred<=0) {
+				throw new IOException("Unexpected end of file.");
+			}
+			position += transferred;
+			remaining -= transferred;
+		}
+	}
+
+	static void skip(InputStream in, long count) throws IOException {
+		while (count>0) {
+			long skipped = in.skip(count);
+			if (skipped<=0) {
+				if (in.read()<0) {
+					throw new IOException("Unexpected end of stream.");
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
+	/**
+	 * Copies a stream of unknown length, up to its end.
+	 */
+	static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = acquireBuffer();
+		try {
+			int length;
+			while ((length = in.read(buffer))>=0) {
+				out.write(buffer, 0, length);
+			}
+		}
+		finally {
+			releaseBuffer(buffer);
+		}
+	}
+
+	/**
+	 * Copies the given count of bytes. The count was announced to the client (Content-Length or range length): a
+	 * stream ending before is an error, not a shorter content.
+	 */
+	static void copy(InputStream in, OutputStream out, long count) throws IOException {
+		byte[] buffer = acquireBuffer();
+		try {
+			while (count>0) {
+				int length = in.read(buffer, 0, (int)Math.min(buffer.length, count));
+				if (length<0) {
+					throw new IOException("Unexpected end of stream.");
+				}
+				out.write(buffer, 0, length);
+				count -= length;
+			}
+		}
+		finally {
+			releaseBuffer(buffer);
+		}
+	}
+
+	static byte[] acquireBuffer() {
+		byte[] buffer = buffers.poll();
+		if (buffer==null) {
+			return new byte[BUFFER_SIZE];
+		}
+		pooledBuffers.decrementAndGet();
+		return buffer;
+	}
+
+	static void releaseBuffer(byte[] buffer) {
+		if (pooledBuffers.incrementAndGet()<=MAX_POOLED_BUFFERS) {
+			buffers.offer(buffer);
+		}
+		else {
+			pooledBuffers.decrementAndGet();
+		}
+	}
+
+}
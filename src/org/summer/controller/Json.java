@@ -1,9 +1,8 @@
 package org.summer.controller;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.Reader;
+import java.lang.invoke.MethodHandle;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -12,7 +11,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
-import org.summer.ReflectUtil;
+import org.summer.ClassMetadata;
 import org.summer.SummerException;
 
 public class Json implements Iterable {
@@ -30,20 +29,21 @@ public class Json implements Iterable {
 		this.jsonArray = jsonArray;
 	}
 	
-	public static Json createJsonFromRequest(BufferedReader reader) throws IOException {
-		StringBuffer jsonBuffer = new StringBuffer();
-		String line = null;
-		while ((line = reader.readLine()) != null) {
-			jsonBuffer.append(line);
-		}
-		String content = jsonBuffer.toString().trim();
-		if (content.length()==0) {
-			return createJsonObject();
-		}
-		else {
-			System.out.println(">>"+content);
-			return createJsonFromString(content);
-		}
+	static long maxContentSize = 16*1024*1024;
+	static int maxDepth = 64;
+
+	/**
+	 * Sets the limits applied when a JSON request content is parsed.
+	 * @param maxContentSize maximum number of characters of the content
+	 * @param maxDepth maximum nesting level of objects and arrays
+	 */
+	public static void setRequestLimits(long maxContentSize, int maxDepth) {
+		Json.maxContentSize = maxContentSize;
+		Json.maxDepth = maxDepth;
+	}
+
+	public static Json createJsonFromRequest(Reader reader) throws IOException {
+		return JsonParser.parse(reader, maxContentSize, maxDepth);
 	}
 	
 	public static Json createJsonFromString(String content) {
@@ -144,21 +144,13 @@ public class Json implements Iterable {
 		if (this.json==null) {
 			throw new SummerException("JSON Array instead of JSON Object");
 		}
-		try {
-			Map<String, Method> getters = ReflectUtil.getGetters(src.getClass());
-			for (String name : names) {
-				Method getMethod = getters.get(name);
-				if (getMethod==null) {
-					throw new SummerException("No get accessor \""+name+"\" in class : "+src.getClass());
-				}
-				Object value = getMethod.invoke(src);
-				this.json.put(name, value);
+		ClassMetadata metadata = ClassMetadata.of(src.getClass());
+		for (String name : names) {
+			MethodHandle getter = metadata.getGetterHandle(name);
+			if (getter==null) {
+				throw new SummerException("No get accessor \""+name+"\" in class : "+src.getClass());
 			}
-		} catch (IllegalAccessException 
-				| IllegalArgumentException
-				| InvocationTargetException e) 
-		{
-			throw new SummerException("Unexcepted exception, probably a bug.", e);
+			this.json.put(name, invokeGetter(getter, src));
 		}
 		return this;
 	}
@@ -167,21 +159,13 @@ public class Json implements Iterable {
 		if (this.json==null) {
 			throw new SummerException("JSON Array instead of JSON Object");
 		}
-		try {
-			Map<String, Method> setters = ReflectUtil.getSetters(dest.getClass());
-			for (String name : names) {
-				Method setMethod = setters.get(name);
-				if (setMethod==null) {
-					throw new SummerException("No set accessor \""+name+"\" in class : "+dest.getClass());
-				}
-				Object value = this.json.get(name);
-				setMethod.invoke(dest, value);
+		ClassMetadata metadata = ClassMetadata.of(dest.getClass());
+		for (String name : names) {
+			MethodHandle setter = metadata.getSetterHandle(name);
+			if (setter==null) {
+				throw new SummerException("No set accessor \""+name+"\" in class : "+dest.getClass());
 			}
-		} catch (IllegalAccessException 
-				| IllegalArgumentException
-				| InvocationTargetException e) 
-		{
-			throw new SummerException("Unexcepted exception, probably a bug.", e);
+			invokeSetter(setter, dest, this.json.get(name));
 		}
 		return dest;
 	}
@@ -190,20 +174,11 @@ public class Json implements Iterable {
 		if (this.json==null) {
 			throw new SummerException("JSON Array instead of JSON Object");
 		}
-		try {
-			Map<String, Method> getters = ReflectUtil.getGetters(src.getClass());
-			Method getMethod = getters.get(fieldName);
-			if (getMethod==null) {
-				throw new SummerException("No get accessor \""+fieldName+"\" in class : "+src.getClass());
-			}
-			Object value = getMethod.invoke(src);
-			this.json.put(jsonAttribute, value);
-		} catch (IllegalAccessException 
-				| IllegalArgumentException
-				| InvocationTargetException e) 
-		{
-			throw new SummerException("Unexcepted exception, probably a bug.", e);
+		MethodHandle getter = ClassMetadata.of(src.getClass()).getGetterHandle(fieldName);
+		if (getter==null) {
+			throw new SummerException("No get accessor \""+fieldName+"\" in class : "+src.getClass());
 		}
+		this.json.put(jsonAttribute, invokeGetter(getter, src));
 		return this;
 	}
 
@@ -211,22 +186,30 @@ public class Json implements Iterable {
 		if (this.json==null) {
 			throw new SummerException("JSON Array instead of JSON Object");
 		}
-		try {
-			Map<String, Method> setters = ReflectUtil.getSetters(dest.getClass());
-			Method setMethod = setters.get(fieldName);
-			if (setMethod==null) {
-				throw new SummerException("No set accessor \""+fieldName+"\" in class : "+dest.getClass());
-			}
-			setMethod.invoke(dest, this.json.get(fieldName));
-		} catch (IllegalAccessException 
-				| IllegalArgumentException
-				| InvocationTargetException e) 
-		{
-			throw new SummerException("Unexcepted exception, probably a bug.", e);
+		MethodHandle setter = ClassMetadata.of(dest.getClass()).getSetterHandle(fieldName);
+		if (setter==null) {
+			throw new SummerException("No set accessor \""+fieldName+"\" in class : "+dest.getClass());
 		}
+		invokeSetter(setter, dest, this.json.get(fieldName));
 		return dest;
 	}
 
+	static Object invokeGetter(MethodHandle getter, Object src) {
+		try {
+			return (Object)getter.invokeExact(src);
+		} catch (Throwable t) {
+			throw new SummerException("Unexcepted exception, probably a bug.", t);
+		}
+	}
+
+	static void invokeSetter(MethodHandle setter, Object dest, Object value) {
+		try {
+			setter.invokeExact(dest, value);
+		} catch (Throwable t) {
+			throw new SummerException("Unexcepted exception, probably a bug.", t);
+		}
+	}
+
 	public Object get(int index) {
 		if (this.jsonArray==null) {
 			return null;
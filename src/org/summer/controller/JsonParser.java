@@ -0,0 +1,236 @@
+package org.summer.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Streaming JSON parser. The Json tree is built while the content is read: no intermediate String holding the whole
+ * content is created. The number of characters read and the nesting depth are bounded, so an oversized or too deep
+ * request is rejected before it is fully consumed.
+ * <p>
+ * Values are the same as those produced by org.json (Integer, Long, Double, String, Boolean, JSONObject.NULL,
+ * JSONObject and JSONArray), numbers being converted by JSONObject.stringToValue.
+ */
+class JsonParser {
+
+	Reader reader;
+	long maxSize;
+	int maxDepth;
+
+	char[] buffer = new char[8192];
+	int position = 0;
+	int limit = 0;
+	long consumed = 0;
+	int depth = 0;
+	StringBuilder text = new StringBuilder();
+
+	JsonParser(Reader reader, long maxSize, int maxDepth) {
+		this.reader = reader;
+		this.maxSize = maxSize;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Parses a whole content. An empty content gives an empty JSON object.
+	 */
+	static Json parse(Reader reader, long maxSize, int maxDepth) throws IOException {
+		JsonParser parser = new JsonParser(reader, maxSize, maxDepth);
+		int character = parser.skipWhitespaces();
+		if (character==-1) {
+			return Json.createJsonObject();
+		}
+		Json json;
+		if (character=='{') {
+			json = new Json(parser.readObject());
+		}
+		else if (character=='[') {
+			json = new Json(parser.readArray());
+		}
+		else {
+			throw parser.error("a JSON object or array is expected");
+		}
+		if (parser.skipWhitespaces()!=-1) {
+			throw parser.error("unexpected content after the JSON value");
+		}
+		return json;
+	}
+
+	int read() throws IOException {
+		while (this.position==this.limit) {
+			int count = this.reader.read(this.buffer, 0, this.buffer.length);
+			if (count==-1) {
+				return -1;
+			}
+			this.position = 0;
+			this.limit = count;
+			this.consumed += count;
+			if (this.consumed>this.maxSize) {
+				throw new SummerControllerException(413, "JSON content exceeds %d characters.", this.maxSize);
+			}
+		}
+		return this.buffer[this.position++];
+	}
+
+	void unread() {
+		this.position--;
+	}
+
+	int skipWhitespaces() throws IOException {
+		int character;
+		do {
+			character = read();
+		} while (character==' ' || character=='\t' || character=='\n' || character=='\r');
+		return character;
+	}
+
+	Object readValue(int character) throws IOException {
+		switch (character) {
+			case '{': return readObject();
+			case '[': return readArray();
+			case '"': return readString();
+			case 't': readWord("true"); return Boolean.TRUE;
+			case 'f': readWord("false"); return Boolean.FALSE;
+			case 'n': readWord("null"); return JSONObject.NULL;
+			default:
+				if (character=='-' || (character>='0' && character<='9')) {
+					return readNumber(character);
+				}
+				throw error("a JSON value is expected");
+		}
+	}
+
+	JSONObject readObject() throws IOException {
+		enterLevel();
+		JSONObject object = new JSONObject();
+		int character = skipWhitespaces();
+		if (character!='}') {
+			while (true) {
+				if (character!='"') {
+					throw error("a key is expected");
+				}
+				String key = readString();
+				if (skipWhitespaces()!=':') {
+					throw error("':' is expected");
+				}
+				Object value = readValue(skipWhitespaces());
+				if (object.has(key)) {
+					throw error("duplicate key \""+key+"\"");
+				}
+				object.put(key, value);
+				character = skipWhitespaces();
+				if (character=='}') {
+					break;
+				}
+				if (character!=',') {
+					throw error("',' or '}' is expected");
+				}
+				character = skipWhitespaces();
+			}
+		}
+		this.depth--;
+		return object;
+	}
+
+	JSONArray readArray() throws IOException {
+		enterLevel();
+		JSONArray array = new JSONArray();
+		int character = skipWhitespaces();
+		if (character!=']') {
+			while (true) {
+				array.put(readValue(character));
+				character = skipWhitespaces();
+				if (character==']') {
+					break;
+				}
+				if (character!=',') {
+					throw error("',' or ']' is expected");
+				}
+				character = skipWhitespaces();
+			}
+		}
+		this.depth--;
+		return array;
+	}
+
+	String readString() throws IOException {
+		this.text.setLength(0);
+		while (true) {
+			int character = read();
+			switch (character) {
+				case -1:
+				case '\n':
+				case '\r':
+					throw error("unterminated string");
+				case '"':
+					return this.text.toString();
+				case '\\':
+					character = read();
+					switch (character) {
+						case 'b': this.text.append('\b'); break;
+						case 't': this.text.append('\t'); break;
+						case 'n': this.text.append('\n'); break;
+						case 'f': this.text.append('\f'); break;
+						case 'r': this.text.append('\r'); break;
+						case 'u': this.text.append(readUnicode()); break;
+						case '"':
+						case '\'':
+						case '\\':
+						case '/': this.text.append((char)character); break;
+						default: throw error("illegal escape");
+					}
+					break;
+				default:
+					this.text.append((char)character);
+			}
+		}
+	}
+
+	char readUnicode() throws IOException {
+		int code = 0;
+		for (int index=0; index<4; index++) {
+			int digit = Character.digit(read(), 16);
+			if (digit==-1) {
+				throw error("illegal unicode escape");
+			}
+			code = code*16 + digit;
+		}
+		return (char)code;
+	}
+
+	Object readNumber(int character) throws IOException {
+		this.text.setLength(0);
+		while ((character>='0' && character<='9') || character=='-' || character=='+' ||
+				character=='.' || character=='e' || character=='E')
+		{
+			this.text.append((char)character);
+			character = read();
+		}
+		if (character!=-1) {
+			unread();
+		}
+		return JSONObject.stringToValue(this.text.toString());
+	}
+
+	void readWord(String word) throws IOException {
+		for (int index=1; index<word.length(); index++) {
+			if (read()!=word.charAt(index)) {
+				throw error("a JSON value is expected");
+			}
+		}
+	}
+
+	void enterLevel() {
+		if (++this.depth>this.maxDepth) {
+			throw new SummerControllerException(400, "JSON content is nested deeper than %d levels.", this.maxDepth);
+		}
+	}
+
+	SummerControllerException error(String reason) {
+		return new SummerControllerException(400, "Malformed JSON content : %s at character %d.",
+			reason, this.consumed-this.limit+this.position);
+	}
+
+}
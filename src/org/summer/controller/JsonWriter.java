@@ -0,0 +1,270 @@
+package org.summer.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Streaming JSON writer. The Json tree is serialized and encoded in UTF-8 directly into a pooled byte buffer that is
+ * pushed to the servlet output stream each time it is full, so no String holding the whole reply is created.
+ * <p>
+ * When the whole reply fits in the buffer, its size is known: it is sent with a Content-Length header (or compressed
+ * if it is large enough). Otherwise the reply is streamed, with a chunked transfer encoding. The produced text is the
+ * same as the one given by Json.toString().
+ */
+class JsonWriter {
+
+	static final int BUFFER_SIZE = 32*1024;
+	static final int MAX_POOLED_BUFFERS = 64;
+	static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	static final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+	static final AtomicInteger pooledBuffers = new AtomicInteger();
+
+	HttpServletRequest request;
+	HttpServletResponse response;
+	OutputStream out = null;
+	byte[] buffer;
+	int count = 0;
+
+	JsonWriter(HttpServletRequest request, HttpServletResponse response) {
+		this.request = request;
+		this.response = response;
+		this.buffer = acquireBuffer();
+	}
+
+	static void write(Json json, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setCharacterEncoding("UTF-8");
+		JsonWriter writer = new JsonWriter(request, response);
+		try {
+			if (json.json!=null) {
+				writer.writeObject(json.json);
+			}
+			else {
+				writer.writeArray(json.jsonArray);
+			}
+			writer.finish();
+		}
+		finally {
+			// If the reply was not fully written, its compressor (if any) was not closed.
+			ResponseCompression.abort(writer.out);
+			writer.release();
+		}
+	}
+
+	static byte[] acquireBuffer() {
+		byte[] buffer = buffers.poll();
+		if (buffer==null) {
+			return new byte[BUFFER_SIZE];
+		}
+		pooledBuffers.decrementAndGet();
+		return buffer;
+	}
+
+	void release() {
+		if (pooledBuffers.incrementAndGet()<=MAX_POOLED_BUFFERS) {
+			buffers.offer(this.buffer);
+		}
+		else {
+			pooledBuffers.decrementAndGet();
+		}
+		this.buffer = null;
+	}
+
+	void flushBuffer() throws IOException {
+		if (this.out==null) {
+			this.out = ResponseCompression.openOutputStream(
+				this.request, this.response, this.response.getContentType(), -1);
+		}
+		this.out.write(this.buffer, 0, this.count);
+		this.count = 0;
+	}
+
+	void finish() throws IOException {
+		if (this.out==null) {
+			this.out = ResponseCompression.openOutputStream(
+				this.request, this.response, this.response.getContentType(), this.count);
+		}
+		flushBuffer();
+		this.out.flush();
+		this.out.close();
+	}
+
+	void writeByte(int value) throws IOException {
+		if (this.count==this.buffer.length) {
+			flushBuffer();
+		}
+		this.buffer[this.count++] = (byte)value;
+	}
+
+	void writeObject(JSONObject object) throws IOException {
+		writeByte('{');
+		boolean first = true;
+		for (String key : object.keySet()) {
+			if (!first) {
+				writeByte(',');
+			}
+			first = false;
+			writeString(key);
+			writeByte(':');
+			writeValue(object.opt(key));
+		}
+		writeByte('}');
+	}
+
+	void writeArray(JSONArray array) throws IOException {
+		writeByte('[');
+		for (int index=0; index<array.length(); index++) {
+			if (index>0) {
+				writeByte(',');
+			}
+			writeValue(array.opt(index));
+		}
+		writeByte(']');
+	}
+
+	void writeValue(Object value) throws IOException {
+		if (value==null || value==JSONObject.NULL) {
+			writeAscii("null");
+		}
+		else if (value instanceof String) {
+			writeString((String)value);
+		}
+		else if (value instanceof JSONObject) {
+			writeObject((JSONObject)value);
+		}
+		else if (value instanceof JSONArray) {
+			writeArray((JSONArray)value);
+		}
+		else if (value instanceof Integer || value instanceof Long) {
+			writeLong(((Number)value).longValue());
+		}
+		else if (value instanceof Number) {
+			writeAscii(JSONObject.numberToString((Number)value));
+		}
+		else if (value instanceof Boolean) {
+			writeAscii(value.toString());
+		}
+		else {
+			writeText(JSONObject.valueToString(value));
+		}
+	}
+
+	void writeLong(long value) throws IOException {
+		if (value==Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return;
+		}
+		if (value<0) {
+			writeByte('-');
+			value = -value;
+		}
+		long divider = 1;
+		while (divider<=value/10) {
+			divider *= 10;
+		}
+		while (divider>0) {
+			writeByte('0'+(int)(value/divider));
+			value %= divider;
+			divider /= 10;
+		}
+	}
+
+	void writeAscii(String text) throws IOException {
+		for (int index=0; index<text.length(); index++) {
+			writeByte(text.charAt(index));
+		}
+	}
+
+	/**
+	 * Writes a quoted string, escaped as JSONObject.quote does.
+	 */
+	void writeString(String text) throws IOException {
+		writeByte('"');
+		char previous = 0;
+		for (int index=0; index<text.length(); index++) {
+			char character = text.charAt(index);
+			switch (character) {
+				case '\\':
+				case '"':
+					writeByte('\\');
+					writeByte(character);
+					break;
+				case '/':
+					if (previous=='<') {
+						writeByte('\\');
+					}
+					writeByte(character);
+					break;
+				case '\b': writeByte('\\'); writeByte('b'); break;
+				case '\t': writeByte('\\'); writeByte('t'); break;
+				case '\n': writeByte('\\'); writeByte('n'); break;
+				case '\f': writeByte('\\'); writeByte('f'); break;
+				case '\r': writeByte('\\'); writeByte('r'); break;
+				default:
+					if (character<' ' || (character>='\u0080' && character<'\u00a0')
+						|| (character>='\u2000' && character<'\u2100'))
+					{
+						writeByte('\\');
+						writeByte('u');
+						writeByte(HEX_DIGITS[(character>>12)&0xF]);
+						writeByte(HEX_DIGITS[(character>>8)&0xF]);
+						writeByte(HEX_DIGITS[(character>>4)&0xF]);
+						writeByte(HEX_DIGITS[character&0xF]);
+					}
+					else {
+						index = writeChar(text, index, character);
+					}
+			}
+			previous = character;
+		}
+		writeByte('"');
+	}
+
+	void writeText(String text) throws IOException {
+		for (int index=0; index<text.length(); index++) {
+			index = writeChar(text, index, text.charAt(index));
+		}
+	}
+
+	/**
+	 * Encodes a character in UTF-8. A surrogate pair is encoded as one code point and both its chars are consumed.
+	 * @return index of the last consumed char
+	 */
+	int writeChar(String text, int index, char character) throws IOException {
+		if (character<0x80) {
+			writeByte(character);
+		}
+		else if (character<0x800) {
+			writeByte(0xC0 | (character>>6));
+			writeByte(0x80 | (character&0x3F));
+		}
+		else if (Character.isHighSurrogate(character) && index+1<text.length()
+				&& Character.isLowSurrogate(text.charAt(index+1)))
+		{
+			int codePoint = Character.toCodePoint(character, text.charAt(++index));
+			writeByte(0xF0 | (codePoint>>18));
+			writeByte(0x80 | ((codePoint>>12)&0x3F));
+			writeByte(0x80 | ((codePoint>>6)&0x3F));
+			writeByte(0x80 | (codePoint&0x3F));
+		}
+		else if (Character.isSurrogate(character)) {
+			writeByte('?');
+		}
+		else {
+			writeByte(0xE0 | (character>>12));
+			writeByte(0x80 | ((character>>6)&0x3F));
+			writeByte(0x80 | (character&0x3F));
+		}
+		return index;
+	}
+
+}
@@ -1,15 +1,21 @@
 package org.summer.controller;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.summer.SummerException;
@@ -64,35 +70,112 @@ public class RESTClient {
 		Json content;
 	}
 
-	static Response sendGetStyleRequest(String httpMethod, String url) {
+	static final String CHARSET = "UTF-8";
+	static final int MAX_RESPONSE_DEPTH = 512;
+
+	static volatile int connectTimeout = 5000;
+	static volatile int readTimeout = 30000;
+	static volatile Semaphore connections = new Semaphore(20);
+	static int maxConnections = 20;
+	static ExecutorService asyncExecutor = null;
+
+	/**
+	 * Sets the time (in milliseconds) allowed to open a connection, and to wait for data once connected.
+	 */
+	public static void setTimeouts(int connectTimeout, int readTimeout) {
+		RESTClient.connectTimeout = connectTimeout;
+		RESTClient.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of requests sent at the same time. A request waits (at most the connect timeout) for
+	 * one of them to end. Idle connections are kept alive and reused by the JDK (up to http.maxConnections per
+	 * server): this is why the response streams are consumed and closed, never disconnected.
+	 */
+	public static synchronized void setMaxConnections(int maxConnections) {
+		RESTClient.maxConnections = maxConnections;
+		RESTClient.connections = new Semaphore(maxConnections);
+		if (asyncExecutor!=null) {
+			asyncExecutor.shutdown();
+			asyncExecutor = null;
+		}
+	}
+
+	static synchronized ExecutorService getAsyncExecutor() {
+		if (asyncExecutor==null) {
+			AtomicInteger count = new AtomicInteger();
+			asyncExecutor = Executors.newFixedThreadPool(maxConnections, runnable->{
+				Thread thread = new Thread(runnable, "summer-rest-client-"+count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return asyncExecutor;
+	}
+
+	static Response send(String httpMethod, String url, String content) {
+		Semaphore permits = connections;
+		try {
+			if (!permits.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+				throw new SummerException("No connection available for "+httpMethod+" "+url);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SummerException("Interrupted while waiting for a connection", e);
+		}
+		HttpURLConnection conn = null;
 		try {
 			URL urlObject = new URL(url);
-			HttpURLConnection conn = (HttpURLConnection) urlObject.openConnection();
+			conn = (HttpURLConnection) urlObject.openConnection();
+			conn.setConnectTimeout(connectTimeout);
+			conn.setReadTimeout(readTimeout);
 			conn.setRequestMethod(httpMethod);
 			conn.setRequestProperty("Content-Type", "application/json");
+			conn.setRequestProperty("Accept", "application/json");
+			if (content!=null) {
+				byte[] bytes = content.getBytes(CHARSET);
+				conn.setDoOutput(true);
+				conn.setFixedLengthStreamingMode(bytes.length);
+				try (OutputStream outputStream = conn.getOutputStream()) {
+					outputStream.write(bytes);
+				}
+			}
 			int statusPart = conn.getResponseCode();
-			Json contentPart = (statusPart>=200 && statusPart<=299) ? 
-				getResponseContent(conn.getInputStream()):
-				getResponseContent(conn.getErrorStream());
-			conn.disconnect();
+			Json contentPart = (statusPart>=200 && statusPart<=299) ?
+				getResponseContent(conn.getInputStream(), false):
+				getResponseContent(conn.getErrorStream(), true);
+			log.info("Received: "+statusPart+" from "+httpMethod+" "+url);
 			return new Response(statusPart, contentPart);
-		} 
-		catch (IOException e) {
+		}
+		catch (IOException|RuntimeException e) {
+			if (conn!=null) {
+				// The connection may be in any state: it must not be reused.
+				conn.disconnect();
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException)e;
+			}
 			throw new SummerException("IOException", e);
 		}
+		finally {
+			permits.release();
+		}
+	}
+
+	static Response sendGetStyleRequest(String httpMethod, String url) {
+		return send(httpMethod, url, null);
 	}
 
 	static Response sendGetStyleRequest(String httpMethod, Request request) {
 		try {
-			String charset = "UTF-8";
 			String url = request.url;
 			if (request.params.size()>0) {
 				StringBuilder paramsOnURL = new StringBuilder(
 					"?"+request.params.get(0).name+"="+ 
-							URLEncoder.encode(String.valueOf(request.params.get(0).value), charset));
+							URLEncoder.encode(String.valueOf(request.params.get(0).value), CHARSET));
 				for (int index=1; index<request.params.size(); index++) {
 					paramsOnURL.append("&"+request.params.get(index).name+"="+ 
-							URLEncoder.encode(""+request.params.get(index).value, charset));
+							URLEncoder.encode(""+request.params.get(index).value, CHARSET));
 				}
 				url+=paramsOnURL.toString();
 			}
@@ -103,38 +186,41 @@ public class RESTClient {
 		}
 	}
 
-	static Json getResponseContent(InputStream responseFromServer) throws IOException {
-		BufferedReader br = new BufferedReader(new InputStreamReader(
-				responseFromServer));
-		StringBuilder output = new StringBuilder();
-		String line;
-		while ((line = br.readLine()) != null) {
-			output.append(line);
+	/**
+	 * The content is parsed while it is read. It is read to the end and the stream is closed, so the connection may
+	 * be reused.
+	 * <p>
+	 * The limits of the incoming requests (see Json.setRequestLimits) do not apply: only the nesting depth is bounded.
+	 * An error content that is not JSON (e.g. the HTML page of a proxy) gives a null content; a malformed successful
+	 * content is reported by a SummerException.
+	 * @param error true if the content comes with an error status.
+	 */
+	static Json getResponseContent(InputStream responseFromServer, boolean error) throws IOException {
+		if (responseFromServer==null) {
+			return null;
+		}
+		try (Reader reader = new InputStreamReader(responseFromServer, CHARSET)) {
+			try {
+				return JsonParser.parse(reader, Long.MAX_VALUE, MAX_RESPONSE_DEPTH);
+			}
+			catch (SummerControllerException sce) {
+				skip(reader);
+				if (error) {
+					return null;
+				}
+				throw new SummerException("Malformed JSON response", sce);
+			}
+		}
+	}
+
+	static void skip(Reader reader) throws IOException {
+		char[] buffer = new char[8192];
+		while (reader.read(buffer)!=-1) {
 		}
-		log.info("Received:"+output.toString());
-		return Json.createJsonFromString(output.toString());	
 	}
 
 	static Response sendPostStyleRequest(String httpMethod, String url, String content) {
-		try {
-			URL urlObject = new URL(url);
-			HttpURLConnection conn = (HttpURLConnection) urlObject.openConnection();
-			conn.setDoOutput(true);
-			conn.setRequestMethod(httpMethod);
-			conn.setRequestProperty("Content-Type", "application/json");
-			OutputStream outputStream = conn.getOutputStream();
-			outputStream.write(content.getBytes());
-			outputStream.flush();
-			int statusPart = conn.getResponseCode();
-			Json contentPart = (statusPart>=200 && statusPart<=299) ? 
-				getResponseContent(conn.getInputStream()):
-				getResponseContent(conn.getErrorStream());
-			conn.disconnect();
-			return new Response(statusPart, contentPart);
-		} 
-		catch (IOException e) {
-			throw new SummerException("IOException", e);
-		}
+		return send(httpMethod, url, content);
 	}
 
 	static Response sendPostStyleRequest(String httpMethod, Request request) {
@@ -188,5 +274,33 @@ public class RESTClient {
 	public static Response patch(String url, String content) {
 		return sendPostStyleRequest("PATCH", url, content);
 	}
+
+	/**
+	 * Sends a request in the background, so several requests may be sent at the same time.
+	 * @param httpMethod GET, HEAD or DELETE (parameters of the request on the URL), POST, PUT or PATCH (JSON of the
+	 * request as content).
+	 */
+	public static CompletableFuture<Response> sendAsync(String httpMethod, Request request) {
+		boolean getStyle = httpMethod.equals("GET") || httpMethod.equals("HEAD") || httpMethod.equals("DELETE");
+		return CompletableFuture.supplyAsync(()->getStyle ?
+			sendGetStyleRequest(httpMethod, request) :
+			sendPostStyleRequest(httpMethod, request), getAsyncExecutor());
+	}
+
+	public static CompletableFuture<Response> getAsync(Request request) {
+		return sendAsync("GET", request);
+	}
+
+	public static CompletableFuture<Response> deleteAsync(Request request) {
+		return sendAsync("DELETE", request);
+	}
+
+	public static CompletableFuture<Response> postAsync(Request request) {
+		return sendAsync("POST", request);
+	}
+
+	public static CompletableFuture<Response> putAsync(Request request) {
+		return sendAsync("PUT", request);
+	}
 	
 }
@@ -0,0 +1,286 @@
+package org.summer.controller;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Negotiates the compression (gzip or deflate) of REST and MIME responses from the Accept-Encoding header of the
+ * request. A response is compressed only if:
+ * <ul>
+ *     <li>its content type belongs to the list of compressible types (images, archives... that are already compressed,
+ *     are not in this list),</li>
+ *     <li>its size, when known, is not below the minimum size.</li>
+ * </ul>
+ * Compression is done while the content is written (nothing is buffered). The bytes written before and after
+ * compression are counted, so the saved bytes may be monitored.
+ */
+public class ResponseCompression {
+
+	static final String ACCEPT_ENCODING = "Accept-Encoding";
+	static final String CONTENT_ENCODING = "Content-Encoding";
+	static final String VARY = "Vary";
+	static final String GZIP = "gzip";
+	static final String DEFLATE = "deflate";
+
+	static volatile int minimumSize = 1024;
+	static volatile Set<String> compressibleTypes = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+		"application/json", "application/javascript", "application/xml", "application/xhtml+xml",
+		"image/svg+xml", "text/html", "text/css", "text/csv", "text/plain", "text/calendar"
+	)));
+
+	static final AtomicLong compressedResponses = new AtomicLong();
+	static final AtomicLong uncompressedBytes = new AtomicLong();
+	static final AtomicLong compressedBytes = new AtomicLong();
+
+	/**
+	 * Sets the size under which a response whose size is known, is not compressed.
+	 */
+	public static void setMinimumSize(int minimumSize) {
+		ResponseCompression.minimumSize = minimumSize;
+	}
+
+	/**
+	 * Sets the MIME types that may be compressed.
+	 */
+	public static void setCompressibleTypes(String... types) {
+		compressibleTypes = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(types)));
+	}
+
+	public static long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	public static long getUncompressedBytes() {
+		return uncompressedBytes.get();
+	}
+
+	public static long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	public static long getSavedBytes() {
+		return uncompressedBytes.get()-compressedBytes.get();
+	}
+
+	static boolean isCompressible(String contentType) {
+		if (contentType==null) {
+			return false;
+		}
+		int parameters = contentType.indexOf(';');
+		String mimeType = (parameters<0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase();
+		return compressibleTypes.contains(mimeType);
+	}
+
+	/**
+	 * Selects the encoding to use from the Accept-Encoding header: gzip is preferred to deflate at the same quality,
+	 * encodings with a null quality are refused.
+	 * @return "gzip", "deflate" or null if none of them is accepted.
+	 */
+	static String negotiate(String acceptEncoding) {
+		if (acceptEncoding==null) {
+			return null;
+		}
+		float gzipQuality = -1;
+		float deflateQuality = -1;
+		float anyQuality = -1;
+		for (String item : acceptEncoding.split(",")) {
+			String[] parts = item.split(";");
+			String coding = parts[0].trim().toLowerCase();
+			float quality = 1;
+			for (int index=1; index<parts.length; index++) {
+				String parameter = parts[index].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Float.parseFloat(parameter.substring(2));
+					}
+					catch (NumberFormatException nfe) {
+						quality = 0;
+					}
+				}
+			}
+			if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+				gzipQuality = quality;
+			}
+			else if (coding.equals(DEFLATE)) {
+				deflateQuality = quality;
+			}
+			else if (coding.equals("*")) {
+				anyQuality = quality;
+			}
+		}
+		if (gzipQuality<0) {
+			gzipQuality = anyQuality;
+		}
+		if (deflateQuality<0) {
+			deflateQuality = anyQuality;
+		}
+		if (gzipQuality>0 && gzipQuality>=deflateQuality) {
+			return GZIP;
+		}
+		if (deflateQuality>0) {
+			return DEFLATE;
+		}
+		return null;
+	}
+
+	/**
+	 * Opens the stream on which the content of a response must be written: compressing or not, depending on the
+	 * request, the type and the size of the content.
+	 * @param contentLength size of the content if known, -1 otherwise. When the response is not compressed and the
+	 *                      size is known, it is sent as the Content-Length of the response.
+	 */
+	static OutputStream openOutputStream(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			String contentType,
+			long contentLength) throws IOException
+	{
+		return openOutputStream(response, selectEncoding(request, response, contentType, contentLength), contentLength);
+	}
+
+	/**
+	 * Selects the encoding of a response, depending on the request, the type and the size of the content.
+	 * @return "gzip", "deflate" or null if the response must not be compressed.
+	 */
+	static String selectEncoding(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			String contentType,
+			long contentLength)
+	{
+		if (isCompressible(contentType)) {
+			response.addHeader(VARY, ACCEPT_ENCODING);
+			if (contentLength<0 || contentLength>=minimumSize) {
+				return negotiate(request.getHeader(ACCEPT_ENCODING));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Opens the stream of a response for an already selected encoding (null: no compression).
+	 */
+	static OutputStream openOutputStream(
+			HttpServletResponse response,
+			String encoding,
+			long contentLength) throws IOException
+	{
+		if (encoding==null) {
+			if (contentLength>=0) {
+				response.setContentLengthLong(contentLength);
+			}
+			return response.getOutputStream();
+		}
+		response.setHeader(CONTENT_ENCODING, encoding);
+		CountingOutputStream compressedStream = new CountingOutputStream(response.getOutputStream());
+		DeflaterOutputStream compressingStream = encoding.equals(GZIP) ?
+			new GzipStream(compressedStream) :
+			new DeflateStream(compressedStream);
+		compressedResponses.incrementAndGet();
+		return new CompressingOutputStream(compressingStream, compressedStream);
+	}
+
+	/**
+	 * Releases the native memory of the compressor of a stream opened by openOutputStream, when the content could not
+	 * be written up to the end (and the stream is not closed). Does nothing if the stream does not compress.
+	 */
+	static void abort(OutputStream out) {
+		if (out instanceof CompressingOutputStream) {
+			((CompressingOutputStream)out).abort();
+		}
+	}
+
+	static class GzipStream extends GZIPOutputStream {
+
+		GzipStream(OutputStream out) throws IOException {
+			super(out, 8192);
+		}
+
+		Deflater getDeflater() {
+			return this.def;
+		}
+
+	}
+
+	static class DeflateStream extends DeflaterOutputStream {
+
+		DeflateStream(OutputStream out) {
+			super(out, new Deflater(), 8192);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				this.def.end();
+			}
+		}
+
+		Deflater getDeflater() {
+			return this.def;
+		}
+
+	}
+
+	static class CompressingOutputStream extends CountingOutputStream {
+
+		CountingOutputStream compressedStream;
+		Deflater deflater;
+
+		CompressingOutputStream(DeflaterOutputStream out, CountingOutputStream compressedStream) {
+			super(out);
+			this.compressedStream = compressedStream;
+			this.deflater = out instanceof GzipStream ?
+				((GzipStream)out).getDeflater() : ((DeflateStream)out).getDeflater();
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			uncompressedBytes.addAndGet(this.count);
+			compressedBytes.addAndGet(this.compressedStream.count);
+		}
+
+		void abort() {
+			this.deflater.end();
+		}
+
+	}
+
+	static class CountingOutputStream extends FilterOutputStream {
+
+		long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int value) throws IOException {
+			this.out.write(value);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			this.out.write(bytes, offset, length);
+			this.count += length;
+		}
+
+	}
+
+}
@@ -2,12 +2,10 @@ package org.summer.controller;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -16,27 +14,68 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.summer.FileSpecification;
 import org.summer.SummerException;
+import org.summer.metrics.Metrics;
+import org.summer.metrics.RouteMetrics;
 
 public class RouteManager {
 
 	static final Logger log = Logger.getLogger("summer");
 
 	static final String CONTENT_DISPOSITION = "Content-Disposition";
+	static final String ETAG = "ETag";
+	static final String IF_NONE_MATCH = "If-None-Match";
+	static final String CACHE_CONTROL = "Cache-Control";
 	RouteRecord root = new RouteRecord();
+	volatile CompiledRecord compiledRoot = null;
 	
 	static class RouteRecord {
-		String segment;
-		Map<String, RouteRecord> next = new HashMap<>();
-		Map<String, RouteRecord> params = new HashMap<>();
+		Map<String, RouteRecord> next = new LinkedHashMap<>();
+		Map<String, RouteRecord> params = new LinkedHashMap<>();
 		Route route;
+		String uri;
 	}
+
+	static class CompiledRecord {
+		String[] literals;
+		int[] literalHashes;
+		CompiledRecord[] literalRecords;
+		String[] paramNames;
+		CompiledRecord[] paramRecords;
+		Route route;
+		String uri;
+	}
+
+	/**
+	 * Per-thread, reusable result of a match: param values are kept as bounds in the URI until the route is found.
+	 */
+	static class RouteMatch {
+		Route route;
+		String[] names = new String[4];
+		int[] starts = new int[4];
+		int[] ends = new int[4];
+		int size;
+
+		void push(String name, int start, int end) {
+			if (size==names.length) {
+				names = Arrays.copyOf(names, size*2);
+				starts = Arrays.copyOf(starts, size*2);
+				ends = Arrays.copyOf(ends, size*2);
+			}
+			names[size] = name;
+			starts[size] = start;
+			ends[size++] = end;
+		}
+	}
+
+	static final ThreadLocal<RouteMatch> matches = ThreadLocal.withInitial(RouteMatch::new);
 	
 	public static abstract class Route {
 
-		public Route(Class<?> component, Method method) {
+		public Route(Class<?> component, Method method, ControllerInvoker invoker) {
 			super();
 			this.component = component;
 			this.method = method;
+			this.invoker = invoker;
 		}
 		
 		public abstract void processRequest(
@@ -46,17 +85,29 @@ public class RouteManager {
 				BufferedReader reader);
 		
 
+		public RouteMetrics getMetrics() {
+			return this.metrics;
+		}
+
 		Class<?> component;
 		Method method;
+		ControllerInvoker invoker;
+		RouteMetrics metrics;
 	}
 	
 	public static class MIMERoute extends Route {
 		
 		boolean inlineAttachment;
+		int maxAge;
 		
 		public MIMERoute(Class<?> component, Method method, boolean inlineAttachment) {
-			super(component, method);
+			this(component, method, inlineAttachment, -1);
+		}
+
+		public MIMERoute(Class<?> component, Method method, boolean inlineAttachment, int maxAge) {
+			super(component, method, ControllerInvoker.forMIME(component, method));
 			this.inlineAttachment = inlineAttachment;
+			this.maxAge = maxAge;
 		}
 
 		public void processRequest(
@@ -66,7 +117,10 @@ public class RouteManager {
 				BufferedReader reader) {
 			try {
 				FileSpecification result = execute(request, response, params);
-				if (result!=null) {
+				if (result==null || result.getStream()==null) {
+					response.setStatus(404);
+				}
+				else {
 					response.setStatus(200);
 					response.setContentType(result.getType());
 					if (this.inlineAttachment) {
@@ -75,15 +129,8 @@ public class RouteManager {
 					else {
 						response.setHeader(CONTENT_DISPOSITION, "attachment; filename=\""+result.getFileName()+"\"");
 					}
-					InputStream in = result.getStream();
-					OutputStream out = response.getOutputStream();
-					byte[] buffer = new byte[1024];
-					int len;
-					while ((len = in.read(buffer)) != -1) {
-					    out.write(buffer, 0, len);
-					}
-					out.flush();
-					out.close();
+					String entityTag = CachePolicy.apply(request, response, this.maxAge, result.isSubstitute());
+					FileServer.serve(result.getStream(), result.getType(), entityTag, request, response);
 				}
 			} catch (IOException e) {
 				throw new SummerException("Unable to retrieve JSON content.", e);
@@ -95,33 +142,22 @@ public class RouteManager {
 				HttpServletResponse response, 
 				Map<String, Object> params) 
 		{
-			Object component;
-			try {
-				component = this.component.newInstance();
-			} catch (InstantiationException | IllegalAccessException e) {
-				throw new InstantiationError("Unable to create : "+this.component);
-			}
-			try {
-				FileSpecification file = (FileSpecification)this.method.invoke(component, params);
-				return file;
-			} catch (InvocationTargetException e) {
-				if (e.getCause() instanceof SummerException) {
-					throw (SummerException)e.getCause();
-				}
-				else {
-					throw new SummerException("Unable to invoke : "+this.method, e);
-				}
-			} catch (IllegalAccessException | IllegalArgumentException e) {
-				throw new SummerException("Unable to invoke : "+this.method, e);
-			}
+			return this.invoker.invoke(params);
 		}
 		
 	}
 
 	public static class RESTRoute extends Route {
-		
+
+		ControllerInvoker validatorInvoker;
+
 		public RESTRoute(Class<?> component, Method method) {
-			super(component, method);
+			this(component, method, "");
+		}
+
+		public RESTRoute(Class<?> component, Method method, String validator) {
+			super(component, method, ControllerInvoker.forREST(component, method));
+			this.validatorInvoker = validator.isEmpty() ? null : ControllerInvoker.forValidator(component, validator);
 		}
 
 		public void processRequest(
@@ -131,13 +167,20 @@ public class RouteManager {
 				BufferedReader reader) {
 			try {
 				Json json = Json.createJsonFromRequest(reader);
+				if (this.validatorInvoker!=null && isNotModified(json, request, response, params)) {
+					response.setStatus(304);
+					response.flushBuffer();
+					return;
+				}
 				Json result = execute(json, request, response, params);
 				if (result!=null) {
 					response.setStatus(200);
-					PrintWriter writer = response.getWriter();
-					writer.print(result.toString());
-					writer.flush();
-					writer.close();
+					long start = System.nanoTime();
+					JsonWriter.write(result, request, response);
+					Metrics.recordSerialization(System.nanoTime()-start);
+				}
+				else {
+					response.setStatus(404);
 				}					
 			} catch (IOException e) {
 				throw new SummerException("Unable to retrieve JSON content.", e);
@@ -150,25 +193,50 @@ public class RouteManager {
 				HttpServletResponse response, 
 				Map<String, Object> params) 
 		{
-			Object component;
-			try {
-				component = this.component.newInstance();
-			} catch (InstantiationException | IllegalAccessException e) {
-				throw new InstantiationError("Unable to create : "+this.component);
+			return this.invoker.invoke(params, json);
+		}
+
+		/**
+		 * Computes the validator of the route and sends it as the ETag of the response.
+		 * @return true if the client already has the content identified by this validator.
+		 */
+		boolean isNotModified(
+				Json json,
+				HttpServletRequest request,
+				HttpServletResponse response,
+				Map<String, Object> params)
+		{
+			String validator = this.validatorInvoker.validate(params, json);
+			if (validator==null) {
+				return false;
 			}
-			try {
-				Json reply = (Json)this.method.invoke(component, params, json);
-				return reply;
-			} catch (InvocationTargetException e) {
-				if (e.getCause() instanceof SummerException) {
-					throw (SummerException)e.getCause();
+			response.setHeader(ETAG, "W/\""+validator+"\"");
+			response.setHeader(CACHE_CONTROL, "no-cache");
+			return matches(request.getHeader(IF_NONE_MATCH), validator);
+		}
+
+		/**
+		 * Weak comparison of the validator with the entity tags of an If-None-Match header.
+		 */
+		static boolean matches(String ifNoneMatch, String validator) {
+			if (ifNoneMatch==null) {
+				return false;
+			}
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.equals("*")) {
+					return true;
 				}
-				else {
-					throw new SummerException("Unable to invoke : "+this.method, e);
+				if (tag.startsWith("W/")) {
+					tag = tag.substring(2);
+				}
+				if (tag.length()==validator.length()+2 && tag.startsWith("\"") && tag.endsWith("\"")
+					&& tag.regionMatches(1, validator, 0, validator.length()))
+				{
+					return true;
 				}
-			} catch (IllegalAccessException | IllegalArgumentException e) {
-				throw new SummerException("Unable to invoke : "+this.method, e);
 			}
+			return false;
 		}
 
 	}
@@ -189,129 +257,185 @@ public class RouteManager {
 	public void prepareRoute(
 			String uri, Route route) 
 	{
-		String[] path = uri.toLowerCase().replace('\\', '/').replace("//",  "/").split("/");
 		RouteRecord currentRecord = root;
-		for (int index=0; index<path.length; index++) {
-			String segment = path[index].trim();
+		for (String segment : uri.toLowerCase().replace('\\', '/').split("/")) {
+			segment = segment.trim();
+			if (segment.isEmpty()) {
+				continue;
+			}
 			if (segment.startsWith(":")) {
-				segment = segment.substring(1);
-				RouteRecord nextRecord = currentRecord.params.get(segment);
-				if (nextRecord!=null) {
-					currentRecord = nextRecord;
-					if (index==path.length-1) {
-						currentRecord.route = route;
-						return;
-					}
-				}
-				else {
-					registerSegment(segment, path, index, route, currentRecord.params);
-					log.info("Path : "+uri+" installed.");
-					return;
-				}
+				currentRecord = currentRecord.params.computeIfAbsent(segment.substring(1), name->new RouteRecord());
 			}
 			else {
-				RouteRecord nextRecord = currentRecord.next.get(segment);
-				if (nextRecord!=null && index<path.length-1) {
-					currentRecord = nextRecord;
-					if (index==path.length-1) {
-						currentRecord.route = route;
-						return;
-					}
-				}
-				else {
-					registerSegment(segment, path, index, route, currentRecord.next);
-					log.info("Path : "+uri+" installed.");
-					return;
-				}
+				currentRecord = currentRecord.next.computeIfAbsent(segment, name->new RouteRecord());
 			}
 		}
-		throw new InstantiationError("Path : "+uri+" already used.");
+		if (currentRecord.route!=null) {
+			throw new InstantiationError("Path : "+uri+" already used.");
+		}
+		currentRecord.route = route;
+		currentRecord.uri = uri;
+		this.compiledRoot = null;
+		log.info("Path : "+uri+" installed.");
 	}
-	
-	void registerSegment(
-			String segment, 
-			String[] path, 
-			int index, 
-			Route route,
-			Map<String, RouteRecord> where) 
-	{
-		RouteRecord newRecord = new RouteRecord();
-		where.put(segment, newRecord);
-		if (++index==path.length) {
-			newRecord.route = route;
+
+	/**
+	 * Builds the matching tree used by getRoute from the registered routes. Ambiguous routes (two parameterized
+	 * routes that may match the same URI) are reported here, so they can't fail at request time.
+	 */
+	public synchronized void compile() {
+		CompiledRecord compiledRoot = compile(this.root);
+		checkAmbiguities(compiledRoot);
+		this.compiledRoot = compiledRoot;
+	}
+
+	CompiledRecord compile(RouteRecord record) {
+		CompiledRecord compiled = new CompiledRecord();
+		compiled.route = record.route;
+		compiled.uri = record.uri;
+		int literalCount = record.next.size();
+		compiled.literals = new String[literalCount];
+		compiled.literalHashes = new int[literalCount];
+		compiled.literalRecords = new CompiledRecord[literalCount];
+		int index = 0;
+		for (Map.Entry<String, RouteRecord> entry : record.next.entrySet()) {
+			compiled.literals[index] = entry.getKey();
+			compiled.literalHashes[index] = entry.getKey().hashCode();
+			compiled.literalRecords[index++] = compile(entry.getValue());
 		}
-		else {
-			processNextRegistration(newRecord, path[index], path, index, route);
+		int paramCount = record.params.size();
+		compiled.paramNames = new String[paramCount];
+		compiled.paramRecords = new CompiledRecord[paramCount];
+		index = 0;
+		for (Map.Entry<String, RouteRecord> entry : record.params.entrySet()) {
+			compiled.paramNames[index] = entry.getKey();
+			compiled.paramRecords[index++] = compile(entry.getValue());
 		}
+		return compiled;
 	}
-	
-	void processNextRegistration(
-			RouteRecord currentRecord, 
-			String segment, 
-			String[] path, 
-			int index, 
-			Route route) 
-	{
-		segment = segment.trim();
-		if (segment.startsWith(":")) {
-			segment = segment.substring(1);
-			registerSegment(segment, path, index, route, currentRecord.params);
-		}
-		else {
-			registerSegment(segment, path, index, route, currentRecord.next);
-		}		
-	}
-	
-	public RouteInvocation getRoute(String uri) {
-		RouteInvocation result = new RouteInvocation(); 
-		String[] path = uri.toLowerCase().replace('\\', '/').replace("//",  "/").split("/");
-		RouteRecord currentRecord = root;
-		return trySubPath(currentRecord, path, 0, result);
+
+	void checkAmbiguities(CompiledRecord record) {
+		for (int first=0; first<record.paramRecords.length; first++) {
+			for (int second=first+1; second<record.paramRecords.length; second++) {
+				String[] overlap = findOverlap(record.paramRecords[first], record.paramRecords[second]);
+				if (overlap!=null) {
+					throw new InstantiationError("Paths : "+overlap[0]+" and "+overlap[1]+" are ambiguous.");
+				}
+			}
+			checkAmbiguities(record.paramRecords[first]);
+		}
+		for (CompiledRecord next : record.literalRecords) {
+			checkAmbiguities(next);
+		}
 	}
-	
-	RouteInvocation trySubPath(
-			RouteRecord currentRecord, 
-			String[] path, int index, 
-			RouteInvocation currentInvocation) 
-	{
-		if (index==path.length) {
-			return currentRecord.route!=null ? 
-					duplicate(currentInvocation, currentRecord.route):null;
-		}
-		String segment = path[index++].trim();
-		RouteRecord nextRecord = currentRecord.next.get(segment);
-		RouteInvocation result = null;
-		if (nextRecord!=null) {
-			result = trySubPath(nextRecord, path, index, currentInvocation);
-			if (result!=null) {
-				return result;
+
+	String[] findOverlap(CompiledRecord first, CompiledRecord second) {
+		if (first.route!=null && second.route!=null) {
+			return new String[] {first.uri, second.uri};
+		}
+		String[] overlap = null;
+		for (int index=0; overlap==null && index<first.literals.length; index++) {
+			for (int other=0; overlap==null && other<second.literals.length; other++) {
+				if (first.literals[index].equals(second.literals[other])) {
+					overlap = findOverlap(first.literalRecords[index], second.literalRecords[other]);
+				}
+			}
+			for (int other=0; overlap==null && other<second.paramRecords.length; other++) {
+				overlap = findOverlap(first.literalRecords[index], second.paramRecords[other]);
 			}
 		}
-		for (String paramName : currentRecord.params.keySet()) {
-			RouteInvocation otherResult = trySubPath(currentRecord.params.get(paramName), path, index, 
-					duplicate(currentInvocation, paramName, segment));
-			if (result!=null && otherResult!=null) {
-				throw new SummerException("Paths ambiguous.");
+		for (int index=0; overlap==null && index<first.paramRecords.length; index++) {
+			for (int other=0; overlap==null && other<second.literalRecords.length; other++) {
+				overlap = findOverlap(first.paramRecords[index], second.literalRecords[other]);
 			}
-			if (otherResult!=null) {
-				result = otherResult;
+			for (int other=0; overlap==null && other<second.paramRecords.length; other++) {
+				overlap = findOverlap(first.paramRecords[index], second.paramRecords[other]);
 			}
 		}
-		return result;
+		return overlap;
 	}
-	
-	RouteInvocation duplicate(RouteInvocation model, Route route) {
+
+	public RouteInvocation getRoute(String uri) {
+		CompiledRecord compiledRoot = this.compiledRoot;
+		if (compiledRoot==null) {
+			compile();
+			compiledRoot = this.compiledRoot;
+		}
+		RouteMatch match = matches.get();
+		match.size = 0;
+		if (!match(compiledRoot, uri, 0, match)) {
+			return null;
+		}
 		RouteInvocation result = new RouteInvocation();
-		result.params = new HashMap<>(model.params);
-		result.route = route;
+		result.route = match.route;
+		for (int index=0; index<match.size; index++) {
+			// Param values are lower-cased, as the whole URI was before routes were compiled.
+			result.params.put(match.names[index],
+				uri.substring(match.starts[index], match.ends[index]).toLowerCase());
+		}
+		match.route = null;
 		return result;
 	}
 
-	RouteInvocation duplicate(RouteInvocation model, String paramName, String paramValue) {
-		RouteInvocation result = new RouteInvocation();
-		result.params = new HashMap<>(model.params);
-		result.params.put(paramName, paramValue);
-		return result;
+	/**
+	 * Matches the URI from a given position, directly on its characters. Literal segments are tried before
+	 * parameterized ones, and the first complete match wins (ambiguities were rejected by compile).
+	 */
+	boolean match(CompiledRecord record, String uri, int index, RouteMatch match) {
+		int length = uri.length();
+		while (index<length && isSeparator(uri.charAt(index))) {
+			index++;
+		}
+		if (index==length) {
+			if (record.route!=null) {
+				match.route = record.route;
+				return true;
+			}
+			return false;
+		}
+		int next = index;
+		while (next<length && !isSeparator(uri.charAt(next))) {
+			next++;
+		}
+		int start = index;
+		int end = next;
+		while (start<end && uri.charAt(start)<=' ') {
+			start++;
+		}
+		while (end>start && uri.charAt(end-1)<=' ') {
+			end--;
+		}
+		if (start==end) {
+			return match(record, uri, next, match);
+		}
+		int hash = 0;
+		for (int position=start; position<end; position++) {
+			hash = 31*hash + Character.toLowerCase(uri.charAt(position));
+		}
+		for (int literal=0; literal<record.literals.length; literal++) {
+			if (record.literalHashes[literal]==hash &&
+				record.literals[literal].length()==end-start &&
+				record.literals[literal].regionMatches(true, 0, uri, start, end-start))
+			{
+				if (match(record.literalRecords[literal], uri, next, match)) {
+					return true;
+				}
+				break;
+			}
+		}
+		for (int param=0; param<record.paramRecords.length; param++) {
+			int mark = match.size;
+			match.push(record.paramNames[param], start, end);
+			if (match(record.paramRecords[param], uri, next, match)) {
+				return true;
+			}
+			match.size = mark;
+		}
+		return false;
 	}
-	
+
+	static boolean isSeparator(char character) {
+		return character=='/' || character=='\\';
+	}
+
 }
@@ -7,14 +7,36 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class Verifier {
 
+	static final String EMAIL_PATTERN = "^[a-zA-Z0-9.!#$%&'*+/=?^_`{|}~-]+@[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*$";
+	static final int MAX_CACHED_PATTERNS = 1000;
+
+	static Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the compiled form of a regular expression. Patterns are given by the code, so they are few: they are
+	 * compiled once (up to a limit).
+	 */
+	static Pattern getPattern(String regex) {
+		Pattern pattern = patterns.get(regex);
+		if (pattern==null) {
+			pattern = Pattern.compile(regex);
+			if (patterns.size()<MAX_CACHED_PATTERNS) {
+				patterns.put(regex, pattern);
+			}
+		}
+		return pattern;
+	}
+
 	Json json;
 	Json result;
 
@@ -116,6 +138,22 @@ public class Verifier {
 		return this;
 	}
 
+	/**
+	 * Applies the rules of a schema, and reports its errors as the ones of the Verifier.
+	 */
+	public Verifier checkSchema(VerifierSchema schema) {
+		Json errors = schema.validate(this.json);
+		if (errors!=null) {
+			if (this.result==null) {
+				this.result = Json.createJsonObject();
+			}
+			for (String key : errors.keys()) {
+				this.result.put(key, errors.get(key));
+			}
+		}
+		return this;
+	}
+
 	public Verifier checkWhen(Predicate<Json> predicate, Function<Json, Verifier> verifyBuilder) {
 		if (predicate.test(this.json)) {
 			verifyBuilder.apply(this.json);
@@ -132,9 +170,10 @@ public class Verifier {
 	}
 	
 	public Verifier checkPattern(String field, String pattern, String message) {
+		Pattern compiled = getPattern(pattern);
 		return check(json->json.get(field)==null||
 			(json.get(field) instanceof String) &&
-			(((String)json.get(field)).matches(pattern)), field, message);
+			(compiled.matcher((String)json.get(field)).matches()), field, message);
 	}
 
 	public Verifier checkPattern(String field, String pattern) {
@@ -279,8 +318,7 @@ public class Verifier {
 	}
 
 	public Verifier checkEmail(String field, String message) {
-		return checkPattern(field, "^[a-zA-Z0-9.!#$%&'*+/=?^_`{|}~-]+@[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?(?:\\.[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*$", 
-				message);
+		return checkPattern(field, EMAIL_PATTERN, message);
 	}
 
 	public Verifier checkEmail(String field) {
@@ -0,0 +1,352 @@
+package org.summer.controller;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Set of Verifier rules, declared once (typically in a static field of a controller) and reused for every request:
+ * <code>
+ * static final VerifierSchema FORUM_SCHEMA = VerifierSchema.create()<br>
+ * 		.checkMinSize("title", 2).checkMaxSize("title", 200)<br>
+ * 		.checkPattern("title", "[\\d\\s\\w]+")<br>
+ * 		.each("comments", COMMENT_SCHEMA);<br>
+ * ...<br>
+ * FORUM_SCHEMA.ensure(request);
+ * </code>
+ * Patterns are compiled and messages built when the schema is declared. The rules on a field are grouped, so the
+ * value of each field is read once, and nested schemas (inspect, each) know their path prefix in advance.
+ * <p>
+ * Errors are reported exactly as a Verifier with the same rules would: same keys (nested fields prefixed by
+ * "field-"), same messages, the last failing rule of a field giving the message.
+ */
+public class VerifierSchema {
+
+	interface Rule {
+		Json verify(Json json, Json result);
+	}
+
+	interface ValueRule {
+		boolean test(Object value, Json json);
+	}
+
+	/**
+	 * Rules reporting on the same field.
+	 */
+	static class FieldRules implements Rule {
+		String field;
+		List<ValueRule> tests = new ArrayList<>();
+		List<Function<Object, String>> messages = new ArrayList<>();
+
+		FieldRules(String field) {
+			this.field = field;
+		}
+
+		@Override
+		public Json verify(Json json, Json result) {
+			Object value = json.get(this.field);
+			for (int index=0; index<this.tests.size(); index++) {
+				if (!this.tests.get(index).test(value, json)) {
+					result = report(result, this.field, this.messages.get(index).apply(value));
+				}
+			}
+			return result;
+		}
+	}
+
+	List<Rule> rules = new ArrayList<>();
+	Map<String, FieldRules> fieldRules = new HashMap<>();
+
+	VerifierSchema() {
+	}
+
+	public static VerifierSchema create() {
+		return new VerifierSchema();
+	}
+
+	static Json report(Json result, String key, Object message) {
+		if (result==null) {
+			result = Json.createJsonObject();
+		}
+		result.put(key, message);
+		return result;
+	}
+
+	static Json reportAll(Json result, String prefix, Json errors) {
+		if (errors!=null) {
+			if (result==null) {
+				result = Json.createJsonObject();
+			}
+			for (String key : errors.keys()) {
+				result.put(prefix+key, errors.get(key));
+			}
+		}
+		return result;
+	}
+
+	VerifierSchema addRule(String field, ValueRule test, Function<Object, String> message) {
+		FieldRules rules = this.fieldRules.get(field);
+		if (rules==null) {
+			rules = new FieldRules(field);
+			this.fieldRules.put(field, rules);
+			this.rules.add(rules);
+		}
+		rules.tests.add(test);
+		rules.messages.add(message);
+		return this;
+	}
+
+	VerifierSchema addRule(String field, ValueRule test, String message) {
+		return addRule(field, test, value->message);
+	}
+
+	/**
+	 * Adds the rules of another schema to this one.
+	 */
+	public VerifierSchema include(VerifierSchema schema) {
+		for (Rule rule : schema.rules) {
+			if (rule instanceof FieldRules) {
+				FieldRules fieldRules = (FieldRules)rule;
+				for (int index=0; index<fieldRules.tests.size(); index++) {
+					addRule(fieldRules.field, fieldRules.tests.get(index), fieldRules.messages.get(index));
+				}
+			}
+			else {
+				this.rules.add(rule);
+			}
+		}
+		return this;
+	}
+
+	public VerifierSchema check(Predicate<Json> predicate, String field, String message) {
+		return addRule(field, (value, json)->predicate.test(json), message);
+	}
+
+	/**
+	 * Checks the JSON object of a field against a nested schema.
+	 */
+	public VerifierSchema inspect(String field, VerifierSchema schema) {
+		String prefix = field+"-";
+		this.rules.add((json, result)->{
+			Json inspected = (Json)json.get(field);
+			return inspected==null ? result : reportAll(result, prefix, schema.validate(inspected));
+		});
+		return this;
+	}
+
+	/**
+	 * Checks each item of the array of a field against a nested schema. An item that is not an object is checked
+	 * as the "_" field of an object.
+	 */
+	public VerifierSchema each(String field, VerifierSchema schema) {
+		String prefix = field+"-";
+		this.rules.add((json, result)->{
+			Json jarray = (Json)json.get(field);
+			if (jarray!=null) {
+				for (Object value : jarray) {
+					Json item = value instanceof Json ? (Json)value : Json.createJsonObject().put("_", value);
+					result = reportAll(result, prefix, schema.validate(item));
+				}
+			}
+			return result;
+		});
+		return this;
+	}
+
+	/**
+	 * Checks the "then" schema, only if the "if" one reports no error.
+	 */
+	public VerifierSchema ifThen(VerifierSchema ifSchema, VerifierSchema thenSchema) {
+		this.rules.add((json, result)->{
+			Json errors = ifSchema.validate(json);
+			return reportAll(result, "", errors!=null ? errors : thenSchema.validate(json));
+		});
+		return this;
+	}
+
+	public VerifierSchema checkRequired(String field) {
+		return checkRequired(field, "required");
+	}
+
+	public VerifierSchema checkRequired(String field, String message) {
+		return addRule(field, (value, json)->value!=null, message);
+	}
+
+	public VerifierSchema checkPattern(String field, String regex, String message) {
+		Pattern pattern = Verifier.getPattern(regex);
+		return addRule(field, (value, json)->value==null||
+			(value instanceof String) && pattern.matcher((String)value).matches(), message);
+	}
+
+	public VerifierSchema checkPattern(String field, String regex) {
+		return checkPattern(field, regex, "must matches '"+regex+"'");
+	}
+
+	public VerifierSchema checkIdAndVersion() {
+		return checkIdAndVersion("id and version must be valid integers");
+	}
+
+	public VerifierSchema checkIdAndVersion(String message) {
+		return check(json->
+			json.get("id")==null || (
+				(json.get("id") instanceof Integer) &&
+				json.get("version")!=null &&
+				(json.get("version") instanceof Integer)
+		), "version", message);
+	}
+
+	public <T> VerifierSchema check(String field, Set<T> values) {
+		String options = String.join(", ", values.stream().map(item->item.toString()).collect(Collectors.toList()));
+		return addRule(field, (value, json)->value==null || values.contains(value),
+			value->value+" must matches one of ["+options+"]");
+	}
+
+	@SafeVarargs
+	public final <T> VerifierSchema check(String field, T ... values) {
+		String options = String.join(", ", Arrays.stream(values).map(item->item.toString()).collect(Collectors.toList()));
+		return addRule(field, (value, json)->{
+				if (value==null) return true;
+				for (T option : values) {
+					if (value.equals(option)) return true;
+				}
+				return false;
+			},
+			value->value+" must matches one of ["+options+"]");
+	}
+
+	public VerifierSchema checkMinSize(String field, int size) {
+		return checkMinSize(field, size, "must be greater of equals to "+size);
+	}
+
+	public VerifierSchema checkMaxSize(String field, int size) {
+		return checkMaxSize(field, size, "must not be greater than "+size);
+	}
+
+	public VerifierSchema checkMinSize(String field, int size, String message) {
+		return addRule(field, (value, json)->value==null||
+			(!(value instanceof String)) || (((String)value).length()>=size), message);
+	}
+
+	public VerifierSchema checkMaxSize(String field, int size, String message) {
+		return addRule(field, (value, json)->value==null||
+			(!(value instanceof String)) || (((String)value).length()<=size), message);
+	}
+
+	public VerifierSchema checkMin(String field, int min) {
+		return checkMin(field, min, "must be greater or equal to "+min);
+	}
+
+	public VerifierSchema checkMax(String field, int max) {
+		return checkMax(field, max, "must not be greater than "+max);
+	}
+
+	public VerifierSchema checkMin(String field, Number min, String message) {
+		return addRule(field, (value, json)->value==null||
+			(value instanceof Number) && (((Number)value).doubleValue()>=min.doubleValue()), message);
+	}
+
+	public VerifierSchema checkMax(String field, Number max, String message) {
+		return addRule(field, (value, json)->value==null||
+			(value instanceof Number) && (((Number)value).doubleValue()<=max.doubleValue()), message);
+	}
+
+	public VerifierSchema checkDate(String field, String message) {
+		return addRule(field, (value, json)->{
+			if (value==null) return true;
+			if (!(value instanceof String)) return false;
+			try {
+				new SimpleDateFormat("yyyy-MM-dd").parse((String)value);
+			} catch (ParseException e) {
+				return false;
+			}
+			return true;
+		}, message);
+	}
+
+	public VerifierSchema checkInteger(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof Integer), message);
+	}
+
+	public VerifierSchema checkString(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof String), message);
+	}
+
+	public VerifierSchema checkLong(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof Long), message);
+	}
+
+	public VerifierSchema checkFloat(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof Float), message);
+	}
+
+	public VerifierSchema checkDouble(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof Double), message);
+	}
+
+	public VerifierSchema checkBoolean(String field, String message) {
+		return addRule(field, (value, json)->value==null||(value instanceof Boolean), message);
+	}
+
+	public VerifierSchema checkInteger(String field) {
+		return checkInteger(field, "not a valid integer");
+	}
+
+	public VerifierSchema checkDate(String field) {
+		return checkDate(field, "not a valid date");
+	}
+
+	public VerifierSchema checkFloat(String field) {
+		return checkFloat(field, "not a valid float");
+	}
+
+	public VerifierSchema checkDouble(String field) {
+		return checkDouble(field, "not a valid double");
+	}
+
+	public VerifierSchema checkString(String field) {
+		return checkString(field, "not a valid string");
+	}
+
+	public VerifierSchema checkBoolean(String field) {
+		return checkBoolean(field, "not a valid boolean");
+	}
+
+	public VerifierSchema checkEmail(String field, String message) {
+		return checkPattern(field, Verifier.EMAIL_PATTERN, message);
+	}
+
+	public VerifierSchema checkEmail(String field) {
+		return checkEmail(field, "not a valid email");
+	}
+
+	/**
+	 * @return the errors found in the JSON object (by field), null if there is none.
+	 */
+	public Json validate(Json json) {
+		Json result = null;
+		for (Rule rule : this.rules) {
+			result = rule.verify(json, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Throws a 400 error, whose content is the errors found in the JSON object (if any).
+	 */
+	public void ensure(Json json) {
+		Json result = validate(json);
+		if (result!=null) {
+			throw new SummerControllerException(400, result);
+		}
+	}
+
+}
@@ -90,6 +90,16 @@ public interface DataManager {
 		ApplicationManager.get().getDataManager().executeInReadTransaction(executor);
 	}
 
+	/**
+	 * Exécute une action au cours de laquelle toutes les transactions "lecture seulement" d'une même unité de
+	 * persistence partagent un seul EntityManager (et donc une seule transaction, annulée à la fin de l'action).
+	 * Utilisé pour exécuter une série de requêtes en lecture (voir BatchRoute).
+	 * @param action action à exécuter.
+	 */
+	static void inSharedReadTransaction(Runnable action) {
+		ApplicationManager.get().getDataManager().executeInSharedReadTransaction(action);
+	}
+
 	/**
 	 * Exécute une snippet au sein d'une transaction (en précisant le nom de l'unité de persistence utilisée). Cette
 	 * transaction sera validée (commit) si l'exécution de la snippet arrive à son terme et annulée (rollback) lorsqu'
@@ -217,6 +227,15 @@ public interface DataManager {
 		}
 	}
 
+	/**
+	 * Exécute une action au cours de laquelle les transactions "lecture seulement" partagent un même EntityManager.
+	 * Par défaut, aucun partage n'est fait.
+	 * @param action action à exécuter.
+	 */
+	default void executeInSharedReadTransaction(Runnable action) {
+		action.run();
+	}
+
 	/**
 	 * Ouvre une unité de persistence JPA.
 	 * @param persistenceUnitName nom de l'unité de persistence
@@ -17,6 +17,7 @@ import javax.sql.DataSource;
 import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
 import org.hibernate.jpa.boot.internal.PersistenceUnitInfoDescriptor;
 import org.summer.SummerException;
+import org.summer.metrics.Metrics;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 
@@ -28,6 +29,7 @@ public class DataManagerImpl implements DataManager {
 		if (emf==null) {
 			throw new SummerException("Persistence unit not registered : "+persistenceUnitName);
 		}
+		long start = System.nanoTime();
 		EntityManager em = emf.createEntityManager();
 		em.getTransaction().begin();
 		boolean success = false;
@@ -50,6 +52,8 @@ public class DataManagerImpl implements DataManager {
 					em.close();
 				}
 			}
+			Metrics.recordTransaction(false, System.nanoTime()-start);
+			closeSharedReadTransactions();
 		}
 	}
 
@@ -59,6 +63,12 @@ public class DataManagerImpl implements DataManager {
 		if (emf==null) {
 			throw new SummerException("Persistence unit not registered : "+persistenceUnitName);
 		}
+		SharedReadManagers sharedManagers = sharedReadManagers.get();
+		if (sharedManagers!=null) {
+			executeInSharedReadTransaction(persistenceUnitName, emf, sharedManagers, executor);
+			return;
+		}
+		long start = System.nanoTime();
 		EntityManager em = emf.createEntityManager();
 		em.getTransaction().begin();
 		try {
@@ -67,9 +77,89 @@ public class DataManagerImpl implements DataManager {
 		finally {
 			em.getTransaction().rollback();
 			em.close();
+			Metrics.recordTransaction(true, System.nanoTime()-start);
 		}
 	}
 
+	void executeInSharedReadTransaction(
+			String persistenceUnitName,
+			EntityManagerFactory emf,
+			SharedReadManagers sharedManagers,
+			Executor executor)
+	{
+		long start = System.nanoTime();
+		EntityManager em = sharedManagers.managers.get(persistenceUnitName);
+		if (em==null) {
+			em = emf.createEntityManager();
+			em.getTransaction().begin();
+			sharedManagers.managers.put(persistenceUnitName, em);
+		}
+		boolean success = false;
+		sharedManagers.running++;
+		try {
+			executor.run(em);
+			success = true;
+		}
+		finally {
+			sharedManagers.running--;
+			if (!success && sharedManagers.managers.get(persistenceUnitName)==em) {
+				// The persistence context may be unusable after a failure: the next reads get a fresh one.
+				sharedManagers.managers.remove(persistenceUnitName);
+				closeReadManager(em);
+			}
+			Metrics.recordTransaction(true, System.nanoTime()-start);
+		}
+	}
+
+	/**
+	 * Shares an EntityManager between the read transactions executed by the action. A write transaction executed
+	 * meanwhile closes the shared EntityManagers, so the following reads see its changes.
+	 */
+	@Override
+	public void executeInSharedReadTransaction(Runnable action) {
+		if (sharedReadManagers.get()!=null) {
+			action.run();
+			return;
+		}
+		sharedReadManagers.set(new SharedReadManagers());
+		try {
+			action.run();
+		}
+		finally {
+			closeSharedReadTransactions();
+			sharedReadManagers.remove();
+		}
+	}
+
+	/**
+	 * Closes the shared EntityManagers, unless one of them is in use (write transaction nested in a read one).
+	 */
+	void closeSharedReadTransactions() {
+		SharedReadManagers sharedManagers = sharedReadManagers.get();
+		if (sharedManagers!=null && sharedManagers.running==0) {
+			sharedManagers.managers.values().forEach(this::closeReadManager);
+			sharedManagers.managers.clear();
+		}
+	}
+
+	void closeReadManager(EntityManager em) {
+		try {
+			em.getTransaction().rollback();
+		}
+		catch (IllegalStateException e) {
+		}
+		finally {
+			em.close();
+		}
+	}
+
+	static class SharedReadManagers {
+		Map<String, EntityManager> managers = new HashMap<>();
+		int running = 0;
+	}
+
+	ThreadLocal<SharedReadManagers> sharedReadManagers = new ThreadLocal<>();
+
 	@Override
 	public void executeInTransaction(Executor executor) {
 		executeInTransaction(DataManager.DEFAULT_PERSISTENCE_UNIT, executor);
@@ -90,6 +90,25 @@ public interface DataSunbeam {
 		return new HashSet<>(getResultList(em, queryString, params));
 	}
 
+	/**
+	 * Computes a validator of a result set (see REST.validator()) from an aggregate query that returns a single row,
+	 * like "select max(e.updateTimestamp), count(e) from ...". The values of the row are joined by '-'.
+	 */
+	default String getValidator(EntityManager em, String queryString, Object ... params) {
+		Query query = em.createQuery(queryString);
+		setParams(query, params);
+		Object row = query.getSingleResult();
+		Object[] values = row instanceof Object[] ? (Object[])row : new Object[] {row};
+		StringBuilder validator = new StringBuilder();
+		for (Object value : values) {
+			if (validator.length()>0) {
+				validator.append('-');
+			}
+			validator.append(value==null ? 0 : value);
+		}
+		return validator.toString();
+	}
+
 	default int executeUpdate(Query query) {
 		return query.executeUpdate();
 	}
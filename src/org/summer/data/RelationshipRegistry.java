@@ -11,6 +11,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 
+import org.summer.ClassMetadata;
 import org.summer.ReflectUtil;
 import org.summer.Scanner;
 import org.summer.annotation.Setup;
@@ -21,6 +22,8 @@ public class RelationshipRegistry {
 	@Setup
 	static void setupRelationships() {
 		log.info("Inspect entity relationships...");
+		// Entities are accessed by reflection at each request: their metadata is computed once for all, now.
+		ClassMetadata.warm(DataManager.get().getEntityClasses());
 		DataManager.get().getEntityClasses().stream().forEach(
 			entityClass->{
 				Scanner.get().getComponentFieldsAnnotatedBy(entityClass, OneToOne.class).stream().forEach(
@@ -57,7 +60,7 @@ public class RelationshipRegistry {
 	}
 
 	static void registerRelationship(Field field, String mappedBy) {
-		registerRelationship(field, mappedBy, field.getClass());
+		registerRelationship(field, mappedBy, field.getType());
 	}
 
 	static void registerRelationshipCollection(Field field, String mappedBy) {
@@ -0,0 +1,270 @@
+package org.summer.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.summer.ClassMetadata;
+import org.summer.ReflectUtil;
+import org.summer.SummerException;
+import org.summer.controller.Json;
+
+/**
+ * Mapping between the fields of an entity class and a JSON object, declared once (typically in a static field of a
+ * controller) and reused for every request, where a Synchronizer chain is rebuilt each time:
+ * <code>
+ * static final SyncPlan&lt;Board&gt; BOARD_READER = SyncPlan.of(Board.class)<br>
+ * 		.read("id")<br>
+ * 		.read("status", BoardStatus::getLabel)<br>
+ * 		.readLink("author", AUTHOR_READER);<br>
+ * ...<br>
+ * Json json = BOARD_READER.read(board);
+ * </code>
+ * Fields are resolved when the plan is declared (an unknown field is reported at once), and accessed through
+ * MethodHandles: reading or writing an entity involves no reflection lookup and no allocation apart from the JSON
+ * objects themselves.
+ * <p>
+ * A plan must not be modified once it is shared.
+ */
+public class SyncPlan<E> {
+
+	interface ReadStep {
+		void read(Json json, Object entity) throws Throwable;
+	}
+
+	interface WriteStep {
+		void write(Json json, Object entity) throws Throwable;
+	}
+
+	Class<E> entityClass;
+	List<ReadStep> readSteps = new ArrayList<>();
+	List<WriteStep> writeSteps = new ArrayList<>();
+
+	SyncPlan(Class<E> entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	public static <E> SyncPlan<E> of(Class<E> entityClass) {
+		return new SyncPlan<>(entityClass);
+	}
+
+	public Class<E> getEntityClass() {
+		return this.entityClass;
+	}
+
+	/**
+	 * Accessors of a (possibly dotted) field path: "board.path" gives the getter of board, then the one of path.
+	 */
+	static class Accessor {
+		MethodHandle[] getters;
+		MethodHandle setter;
+		Field field;
+
+		Accessor(Class<?> entityClass, String fieldPath) {
+			String[] names = fieldPath.split("\\.");
+			this.getters = new MethodHandle[names.length];
+			Class<?> currentClass = entityClass;
+			for (int index=0; index<names.length; index++) {
+				ClassMetadata metadata = ClassMetadata.of(currentClass);
+				this.getters[index] = metadata.getFieldGetter(names[index]);
+				if (this.getters[index]==null) {
+					throw new SummerException("Unknown field "+names[index]+" in "+currentClass.getName());
+				}
+				this.field = metadata.getField(names[index]);
+				this.setter = metadata.getFieldSetter(names[index]);
+				currentClass = this.field.getType();
+			}
+		}
+
+		Object get(Object entity) throws Throwable {
+			for (MethodHandle getter : this.getters) {
+				if (entity==null) {
+					return null;
+				}
+				entity = (Object)getter.invokeExact(entity);
+			}
+			return entity;
+		}
+
+		void set(Object entity, Object value) throws Throwable {
+			for (int index=0; index<this.getters.length-1; index++) {
+				entity = (Object)this.getters[index].invokeExact(entity);
+				if (entity==null) {
+					return;
+				}
+			}
+			if (this.setter==null) {
+				throw new SummerException("Field "+this.field.getName()+" cannot be written");
+			}
+			this.setter.invokeExact(entity, ReflectUtil.convert(value, this.field.getType()));
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static Function compose(Function[] functions) {
+		Function composed = null;
+		for (Function function : functions) {
+			composed = composed==null ? function : composed.andThen(function);
+		}
+		return composed;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SafeVarargs
+	final public <T, R> SyncPlan<E> read(String jsonFieldName, String targetFieldName, Function<T, R> ... functions) {
+		Accessor accessor = new Accessor(this.entityClass, targetFieldName);
+		Function converter = compose(functions);
+		this.readSteps.add((json, entity)->{
+			Object readValue = accessor.get(entity);
+			if (readValue!=null && converter!=null) {
+				readValue = converter.apply(readValue);
+			}
+			if (readValue!=null) {
+				json.put(jsonFieldName, readValue);
+			}
+		});
+		return this;
+	}
+
+	@SafeVarargs
+	final public <T, R> SyncPlan<E> read(String fieldName, Function<T, R> ... functions) {
+		return read(fieldName, fieldName, functions);
+	}
+
+	/**
+	 * Reads a linked entity in a sub-object of the JSON, following the plan of the linked entity.
+	 */
+	public <L> SyncPlan<E> readLink(String jsonLinkName, String targetLinkName, SyncPlan<L> plan) {
+		Accessor accessor = new Accessor(this.entityClass, targetLinkName);
+		this.readSteps.add((json, entity)->{
+			Object linked = accessor.get(entity);
+			if (linked!=null) {
+				Json linkedJson = json.search(jsonLinkName);
+				if (linkedJson==null) {
+					linkedJson = Json.createJsonObject();
+					json.put(jsonLinkName, linkedJson);
+				}
+				plan.readEntity(linkedJson, linked);
+			}
+		});
+		return this;
+	}
+
+	public <L> SyncPlan<E> readLink(String linkName, SyncPlan<L> plan) {
+		return readLink(linkName, linkName, plan);
+	}
+
+	/**
+	 * Reads the entities of a collection in a JSON array, following the plan of the collected entities.
+	 */
+	public <L> SyncPlan<E> readEach(String jsonCollName, String targetCollName, SyncPlan<L> plan) {
+		Accessor accessor = new Accessor(this.entityClass, targetCollName);
+		this.readSteps.add((json, entity)->{
+			Json dtos = json.search(jsonCollName);
+			if (dtos==null) {
+				dtos = Json.createJsonArray();
+				json.put(jsonCollName, dtos);
+			}
+			Collection<?> entities = (Collection<?>)accessor.get(entity);
+			if (entities!=null) {
+				for (Object collected : entities) {
+					Json cJson = Json.createJsonObject();
+					dtos.push(cJson);
+					plan.readEntity(cJson, collected);
+				}
+			}
+		});
+		return this;
+	}
+
+	public <L> SyncPlan<E> readEach(String collectionName, SyncPlan<L> plan) {
+		return readEach(collectionName, collectionName, plan);
+	}
+
+	/**
+	 * Applies another plan (usually the one of a subclass) to the entities that satisfy a predicate.
+	 */
+	@SuppressWarnings("unchecked")
+	public SyncPlan<E> readWhen(Predicate<? super E> predicate, SyncPlan<? extends E> plan) {
+		this.readSteps.add((json, entity)->{
+			if (predicate.test((E)entity)) {
+				plan.readEntity(json, entity);
+			}
+		});
+		return this;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SafeVarargs
+	final public <T, R> SyncPlan<E> write(String jsonFieldName, String targetFieldName, Function<T, R> ... functions) {
+		Accessor accessor = new Accessor(this.entityClass, targetFieldName);
+		Function converter = compose(functions);
+		this.writeSteps.add((json, entity)->{
+			Object readValue = json.search(jsonFieldName);
+			if (converter!=null) {
+				readValue = converter.apply(readValue);
+			}
+			if (readValue!=null) {
+				accessor.set(entity, readValue);
+			}
+		});
+		return this;
+	}
+
+	@SafeVarargs
+	final public <T, R> SyncPlan<E> write(String fieldName, Function<T, R> ... functions) {
+		return write(fieldName, fieldName, functions);
+	}
+
+	/**
+	 * Copies the fields of the entity into a new JSON object.
+	 */
+	public Json read(E entity) {
+		return read(Json.createJsonObject(), entity);
+	}
+
+	/**
+	 * Copies the fields of the entity into the given JSON object.
+	 */
+	public Json read(Json json, E entity) {
+		readEntity(json, entity);
+		return json;
+	}
+
+	void readEntity(Json json, Object entity) {
+		try {
+			for (ReadStep step : this.readSteps) {
+				step.read(json, entity);
+			}
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			throw new SummerException("Unexpected exception. Probably a bug", t);
+		}
+	}
+
+	/**
+	 * Copies the (written) fields of the JSON object into the entity.
+	 */
+	public E write(Json json, E entity) {
+		try {
+			for (WriteStep step : this.writeSteps) {
+				step.write(json, entity);
+			}
+		}
+		catch (RuntimeException | Error e) {
+			throw e;
+		}
+		catch (Throwable t) {
+			throw new SummerException("Unexpected exception. Probably a bug", t);
+		}
+		return entity;
+	}
+
+}
@@ -0,0 +1,308 @@
+package org.summer.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Index of the Summer components, written at compile time by the ComponentIndexProcessor, and read at startup in
+ * place of a scan of the whole classpath. The index is a text resource (META-INF/summer/components.idx), each line
+ * giving an entry:
+ * <code>
+ * type org.summer.annotation.Controller fr.cblades.controllers.BoardController<br>
+ * method org.summer.annotation.Setup fr.cblades.StandardUsers setupDevDatabase()<br>
+ * class fr.cblades.StandardUsers
+ * </code>
+ * The first line lists the annotations covered by the index: for the others, a scan is still needed. The "class" lines
+ * list all the top level classes the index was built from: if the classes of the classpath entry holding the index are
+ * not the same (the processor did not run on the last build), the index is stale.
+ */
+public class ComponentIndex {
+
+	public static final String INDEX = "META-INF/summer/components.idx";
+	static final String HEADER = "# covered: ";
+	static final String TYPE = "type";
+	static final String METHOD = "method";
+	static final String CLASS = "class";
+	static final String CLASS_SUFFIX = ".class";
+
+	static final Set<String> TYPE_ANNOTATIONS = new TreeSet<>(Arrays.asList(
+		"org.summer.annotation.Controller",
+		"org.summer.annotation.OneShotScoped",
+		"org.summer.annotation.RequestScoped",
+		"org.summer.annotation.SessionScoped",
+		"org.summer.annotation.SingletonScoped",
+		"org.summer.annotation.PooledScoped",
+		"javax.persistence.Entity"
+	));
+
+	static final Set<String> METHOD_ANNOTATIONS = new TreeSet<>(Arrays.asList(
+		"org.summer.annotation.REST",
+		"org.summer.annotation.MIME",
+		"org.summer.annotation.Setup",
+		"org.summer.annotation.Launch",
+		"org.summer.annotation.Job"
+	));
+
+	static Set<String> getCoveredAnnotations() {
+		Set<String> annotations = new TreeSet<>(TYPE_ANNOTATIONS);
+		annotations.addAll(METHOD_ANNOTATIONS);
+		return annotations;
+	}
+
+	ClassLoader classLoader;
+	Set<String> covered = new TreeSet<>();
+	Map<String, List<String>> types = new HashMap<>();
+	Map<String, List<String[]>> methods = new HashMap<>();
+
+	ComponentIndex(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Loads (and merges) the indexes found in the classpath.
+	 * @param packageNames packages whose classes must be indexed: each classpath entry holding one of them must hold an
+	 * index.
+	 * @return null if there is no index.
+	 * @throws IllegalStateException if an index is stale or if some classes of the packages are not indexed.
+	 */
+	public static ComponentIndex load(ClassLoader classLoader, String... packageNames) throws IOException {
+		Enumeration<URL> resources = classLoader.getResources(INDEX);
+		if (!resources.hasMoreElements()) {
+			return null;
+		}
+		ComponentIndex index = new ComponentIndex(classLoader);
+		Set<String> roots = new HashSet<>();
+		Set<String> covered = null;
+		while (resources.hasMoreElements()) {
+			URL resource = resources.nextElement();
+			Set<String> classes = new TreeSet<>();
+			try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8)))
+			{
+				String line = reader.readLine();
+				if (line==null || !line.startsWith(HEADER)) {
+					return null;
+				}
+				Set<String> resourceCovered = new TreeSet<>(Arrays.asList(line.substring(HEADER.length()).split(",")));
+				if (covered==null) {
+					covered = resourceCovered;
+				}
+				else {
+					// An annotation is covered only if all the indexes cover it.
+					covered.retainAll(resourceCovered);
+				}
+				while ((line = reader.readLine())!=null) {
+					index.addEntry(line, classes);
+				}
+			}
+			if (!classes.equals(getClasses(resource))) {
+				throw new IllegalStateException("Index not up to date with the classes : "+resource);
+			}
+			roots.add(getRoot(resource, INDEX));
+		}
+		for (String packageName : packageNames) {
+			String path = packageName.replace('.', '/');
+			Enumeration<URL> packages = classLoader.getResources(path);
+			while (packages.hasMoreElements()) {
+				URL location = packages.nextElement();
+				if (!roots.contains(getRoot(location, path))) {
+					throw new IllegalStateException("Classes not indexed : "+location);
+				}
+			}
+		}
+		index.covered = covered;
+		return index;
+	}
+
+	static String getRoot(URL resource, String path) {
+		String location = resource.toString();
+		if (location.endsWith("/")) {
+			location = location.substring(0, location.length()-1);
+		}
+		return location.endsWith(path) ? location.substring(0, location.length()-path.length()) : location;
+	}
+
+	/**
+	 * Top level classes of the classpath entry (directory or jar) holding an index. Their names are collected from
+	 * the names of the class files: no class is read.
+	 */
+	static Set<String> getClasses(URL resource) throws IOException {
+		Set<String> classes = new TreeSet<>();
+		if ("file".equals(resource.getProtocol())) {
+			Path root;
+			try {
+				root = Paths.get(resource.toURI());
+			} catch (URISyntaxException e) {
+				throw new IOException("Unexpected index location : "+resource, e);
+			}
+			for (int level=0; level<INDEX.split("/").length; level++) {
+				root = root.getParent();
+			}
+			Path base = root;
+			try (Stream<Path> files = Files.walk(root)) {
+				files.forEach(file->addClass(base.relativize(file).toString().replace('\\', '/'), classes));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+		else if ("jar".equals(resource.getProtocol())) {
+			JarURLConnection connection = (JarURLConnection)resource.openConnection();
+			connection.setUseCaches(false);
+			try (JarFile jar = connection.getJarFile()) {
+				Enumeration<JarEntry> entries = jar.entries();
+				while (entries.hasMoreElements()) {
+					addClass(entries.nextElement().getName(), classes);
+				}
+			}
+		}
+		else {
+			throw new IllegalStateException("Index location not supported : "+resource);
+		}
+		return classes;
+	}
+
+	/**
+	 * Nested, local and anonymous classes are ignored: they are compiled with their top level class.
+	 */
+	static void addClass(String path, Set<String> classes) {
+		if (path.endsWith(CLASS_SUFFIX) && path.indexOf('$')<0) {
+			String className = path.substring(0, path.length()-CLASS_SUFFIX.length()).replace('/', '.');
+			if (!className.endsWith("package-info") && !className.endsWith("module-info")) {
+				classes.add(className);
+			}
+		}
+	}
+
+	void addEntry(String line, Set<String> classes) {
+		String[] parts = line.split(" ");
+		if (parts.length==2 && CLASS.equals(parts[0])) {
+			classes.add(parts[1]);
+		}
+		else if (parts.length==3 && TYPE.equals(parts[0])) {
+			this.types.computeIfAbsent(parts[1], annotation->new ArrayList<>()).add(parts[2]);
+		}
+		else if (parts.length==4 && METHOD.equals(parts[0])) {
+			this.methods.computeIfAbsent(parts[1], annotation->new ArrayList<>()).add(
+				new String[] {parts[2], parts[3]});
+		}
+	}
+
+	public boolean covers(Class<? extends Annotation> annotationClass) {
+		return this.covered.contains(annotationClass.getName());
+	}
+
+	static boolean inPackage(String className, String packageName) {
+		return className.startsWith(packageName+".");
+	}
+
+	/**
+	 * @return the classes of the package (and its subpackages) annotated by the annotation, or extending such a class.
+	 * @throws IllegalStateException if an indexed class cannot be found or is not annotated anymore: the index is stale.
+	 */
+	public Collection<Class<?>> getTypes(Class<? extends Annotation> annotationClass, String packageName) {
+		Set<Class<?>> result = new LinkedHashSet<>();
+		for (String className : this.types.getOrDefault(annotationClass.getName(), Collections.emptyList())) {
+			if (inPackage(className, packageName)) {
+				Class<?> klass = loadClass(className);
+				if (!isAnnotated(klass, annotationClass, new HashSet<>())) {
+					throw new IllegalStateException("Indexed class not annotated : "+className);
+				}
+				result.add(klass);
+			}
+		}
+		return result;
+	}
+
+	static boolean isAnnotated(Class<?> klass, Class<? extends Annotation> annotationClass, Set<Class<?>> visited) {
+		if (klass==null || !visited.add(klass)) {
+			return false;
+		}
+		if (klass.getDeclaredAnnotation(annotationClass)!=null ||
+			isAnnotated(klass.getSuperclass(), annotationClass, visited))
+		{
+			return true;
+		}
+		for (Class<?> type : klass.getInterfaces()) {
+			if (isAnnotated(type, annotationClass, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the methods of the classes of the package (and its subpackages) annotated by the annotation.
+	 * @throws IllegalStateException if an indexed method cannot be found or is not annotated anymore: the index is
+	 * stale.
+	 */
+	public Collection<Method> getMethods(Class<? extends Annotation> annotationClass, String packageName) {
+		Set<Method> result = new LinkedHashSet<>();
+		for (String[] entry : this.methods.getOrDefault(annotationClass.getName(), Collections.emptyList())) {
+			if (inPackage(entry[0], packageName)) {
+				Method method = findMethod(loadClass(entry[0]), entry[1]);
+				if (method.getAnnotation(annotationClass)==null) {
+					throw new IllegalStateException("Indexed method not annotated : "+entry[0]+"#"+entry[1]);
+				}
+				result.add(method);
+			}
+		}
+		return result;
+	}
+
+	Class<?> loadClass(String className) {
+		try {
+			return Class.forName(className, false, this.classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new IllegalStateException("Indexed class not found : "+className, e);
+		}
+	}
+
+	static Method findMethod(Class<?> klass, String signature) {
+		for (Method method : klass.getDeclaredMethods()) {
+			if (!method.isBridge() && signature.equals(getSignature(method))) {
+				return method;
+			}
+		}
+		throw new IllegalStateException("Indexed method not found : "+klass.getName()+"#"+signature);
+	}
+
+	static String getSignature(Method method) {
+		StringBuilder signature = new StringBuilder(method.getName());
+		signature.append('(');
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int index=0; index<parameterTypes.length; index++) {
+			if (index>0) {
+				signature.append(',');
+			}
+			signature.append(parameterTypes[index].getCanonicalName());
+		}
+		return signature.append(')').toString();
+	}
+
+}
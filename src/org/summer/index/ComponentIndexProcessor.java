@@ -0,0 +1,191 @@
+package org.summer.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor writing, at compile time, the index of the Summer components (see ComponentIndex): the
+ * classes annotated by a component annotation (or extending such a class), and the annotated methods.
+ * <p>
+ * The processor only relies on the names of the annotations, so it may be compiled (and run) before the rest of the
+ * code. When only a part of the code is compiled (incremental build), the entries of the previous index that relate
+ * to classes not recompiled (and still present) are kept.
+ * <p>
+ * The index also lists all the top level classes compiled, so a stale index (left by a build where the processor did
+ * not run) can be detected at startup.
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+	Set<String> entries = new TreeSet<>();
+	Set<String> compiledTypes = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		else {
+			for (Element element : roundEnv.getRootElements()) {
+				if (element instanceof TypeElement) {
+					TypeElement type = (TypeElement)element;
+					this.entries.add(ComponentIndex.CLASS+" "+getBinaryName(type));
+					collect(type);
+				}
+			}
+		}
+		// Annotations are not claimed: other processors may use them.
+		return false;
+	}
+
+	String getBinaryName(TypeElement type) {
+		return this.processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	void collect(TypeElement type) {
+		String typeName = getBinaryName(type);
+		this.compiledTypes.add(typeName);
+		for (String annotation : getInheritedTypeAnnotations(type)) {
+			this.entries.add(ComponentIndex.TYPE+" "+annotation+" "+typeName);
+		}
+		for (Element member : type.getEnclosedElements()) {
+			if (member.getKind()==ElementKind.METHOD) {
+				for (AnnotationMirror annotation : member.getAnnotationMirrors()) {
+					String annotationName = getName(annotation);
+					if (ComponentIndex.METHOD_ANNOTATIONS.contains(annotationName)) {
+						this.entries.add(ComponentIndex.METHOD+" "+annotationName+" "+typeName+" "+
+							getSignature((ExecutableElement)member));
+					}
+				}
+			}
+			else if (member instanceof TypeElement) {
+				collect((TypeElement)member);
+			}
+		}
+	}
+
+	/**
+	 * Type annotations carried by the type or by one of its supertypes: as the reflective scan, a subclass of a
+	 * component class is reported as annotated.
+	 */
+	Set<String> getInheritedTypeAnnotations(TypeElement type) {
+		Set<String> annotations = new TreeSet<>();
+		Deque<TypeMirror> types = new ArrayDeque<>();
+		Set<String> visited = new HashSet<>();
+		types.add(type.asType());
+		while (!types.isEmpty()) {
+			TypeMirror current = types.poll();
+			if (current.getKind()!=TypeKind.DECLARED) {
+				continue;
+			}
+			Element element = ((DeclaredType)current).asElement();
+			if (!visited.add(element.toString())) {
+				continue;
+			}
+			for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+				String annotationName = getName(annotation);
+				if (ComponentIndex.TYPE_ANNOTATIONS.contains(annotationName)) {
+					annotations.add(annotationName);
+				}
+			}
+			types.addAll(this.processingEnv.getTypeUtils().directSupertypes(current));
+		}
+		return annotations;
+	}
+
+	static String getName(AnnotationMirror annotation) {
+		return ((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+	}
+
+	String getSignature(ExecutableElement method) {
+		StringBuilder signature = new StringBuilder(method.getSimpleName());
+		signature.append('(');
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int index=0; index<parameters.size(); index++) {
+			if (index>0) {
+				signature.append(',');
+			}
+			signature.append(this.processingEnv.getTypeUtils().erasure(parameters.get(index).asType()));
+		}
+		return signature.append(')').toString();
+	}
+
+	/**
+	 * An entry of the previous index is kept if its class was not recompiled and still exists.
+	 */
+	boolean isKept(String typeName) {
+		return !this.compiledTypes.contains(typeName) &&
+			this.processingEnv.getElementUtils().getTypeElement(typeName.replace('$', '.'))!=null;
+	}
+
+	void writeIndex() {
+		Set<String> lines = new TreeSet<>(this.entries);
+		try {
+			FileObject previous = this.processingEnv.getFiler().getResource(
+				StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX);
+			try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(previous.openInputStream(), StandardCharsets.UTF_8)))
+			{
+				String line;
+				while ((line = reader.readLine())!=null) {
+					String[] parts = line.split(" ");
+					String typeName = ComponentIndex.CLASS.equals(parts[0]) ?
+						(parts.length==2 ? parts[1] : null) :
+						(parts.length>=3 ? parts[2] : null);
+					if (typeName!=null && !line.startsWith("#") && isKept(typeName)) {
+						lines.add(line);
+					}
+				}
+			}
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// No previous index: the whole code is compiled.
+		}
+		try {
+			FileObject index = this.processingEnv.getFiler().createResource(
+				StandardLocation.CLASS_OUTPUT, "", ComponentIndex.INDEX);
+			try (Writer writer = index.openWriter()) {
+				writer.write(ComponentIndex.HEADER+String.join(",", ComponentIndex.getCoveredAnnotations())+"\n");
+				for (String line : lines) {
+					writer.write(line+"\n");
+				}
+			}
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+				"Unable to write the Summer component index: "+e.getMessage());
+		}
+	}
+
+}
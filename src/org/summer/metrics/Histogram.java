@@ -0,0 +1,67 @@
+package org.summer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram. Durations are recorded in nanoseconds into log-scaled buckets (1-2.5-5 series, from
+ * 100µs to 60s), which are exported as the cumulative buckets of a Prometheus histogram.
+ */
+public class Histogram {
+
+	static final double[] BOUNDS = {
+		0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60
+	};
+	static final long[] NANO_BOUNDS = new long[BOUNDS.length];
+
+	static {
+		for (int index=0; index<BOUNDS.length; index++) {
+			NANO_BOUNDS[index] = Math.round(BOUNDS[index]*1e9);
+		}
+	}
+
+	AtomicLongArray counts = new AtomicLongArray(BOUNDS.length+1);
+	LongAdder sum = new LongAdder();
+
+	public void record(long nanos) {
+		int index = 0;
+		while (index<NANO_BOUNDS.length && nanos>NANO_BOUNDS[index]) {
+			index++;
+		}
+		this.counts.incrementAndGet(index);
+		this.sum.add(nanos);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int index=0; index<this.counts.length(); index++) {
+			count += this.counts.get(index);
+		}
+		return count;
+	}
+
+	public double getSumSeconds() {
+		return this.sum.sum()/1e9;
+	}
+
+	/**
+	 * Writes the histogram in the Prometheus text format.
+	 * @param labels labels of the metric without braces (e.g. method="GET",route="/api/ping"), may be empty.
+	 */
+	void write(StringBuilder builder, String name, String labels) {
+		String separator = labels.isEmpty() ? "" : ",";
+		long cumulated = 0;
+		for (int index=0; index<BOUNDS.length; index++) {
+			cumulated += this.counts.get(index);
+			builder.append(name).append("_bucket{").append(labels).append(separator)
+				.append("le=\"").append(BOUNDS[index]).append("\"} ").append(cumulated).append('\n');
+		}
+		cumulated += this.counts.get(BOUNDS.length);
+		builder.append(name).append("_bucket{").append(labels).append(separator)
+			.append("le=\"+Inf\"} ").append(cumulated).append('\n');
+		String braces = labels.isEmpty() ? "" : "{"+labels+"}";
+		builder.append(name).append("_sum").append(braces).append(' ').append(getSumSeconds()).append('\n');
+		builder.append(name).append("_count").append(braces).append(' ').append(cumulated).append('\n');
+	}
+
+}
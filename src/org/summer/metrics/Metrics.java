@@ -0,0 +1,133 @@
+package org.summer.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.summer.ApplicationManager;
+import org.summer.RequestExecutor;
+import org.summer.SummerServlet;
+import org.summer.controller.ResponseCompression;
+import org.summer.platform.ContentCache;
+
+/**
+ * Registry of the request metrics of the application. Route metrics are created when the routes are deployed; the
+ * time spent in transactions (DataManagerImpl) and in JSON serialization (RESTRoute) is recorded globally and charged
+ * to the route being processed by the current thread.
+ * <p>
+ * All the metrics may be exported in the Prometheus text format (see toPrometheusText()).
+ */
+public class Metrics {
+
+	static final Map<String, RouteMetrics> routes = new ConcurrentSkipListMap<>();
+	static final ThreadLocal<RouteMetrics> currentRoute = new ThreadLocal<>();
+	static final Histogram readTransactions = new Histogram();
+	static final Histogram writeTransactions = new Histogram();
+	static final Histogram serializations = new Histogram();
+	static final LongAdder createdSessions = new LongAdder();
+
+	public static RouteMetrics getRouteMetrics(String method, String route) {
+		return routes.computeIfAbsent(method+" "+route, key->new RouteMetrics(method, route));
+	}
+
+	public static void recordTransaction(boolean readOnly, long nanos) {
+		(readOnly ? readTransactions : writeTransactions).record(nanos);
+		RouteMetrics route = currentRoute.get();
+		if (route!=null) {
+			route.transactionNanos.add(nanos);
+		}
+	}
+
+	public static void recordSerialization(long nanos) {
+		serializations.record(nanos);
+		RouteMetrics route = currentRoute.get();
+		if (route!=null) {
+			route.serializationNanos.add(nanos);
+		}
+	}
+
+	public static void recordSessionCreation() {
+		createdSessions.increment();
+	}
+
+	public static long getCreatedSessions() {
+		return createdSessions.sum();
+	}
+
+	public static String toPrometheusText() {
+		StringBuilder builder = new StringBuilder();
+		header(builder, "summer_requests_total", "counter", "Requests processed, by route.");
+		for (RouteMetrics route : routes.values()) {
+			builder.append("summer_requests_total{").append(route.labels()).append("} ")
+				.append(route.requests.sum()).append('\n');
+		}
+		header(builder, "summer_request_errors_total", "counter", "Requests answered with an error status, by route.");
+		for (RouteMetrics route : routes.values()) {
+			route.errors.forEach((status, count)->
+				builder.append("summer_request_errors_total{").append(route.labels())
+					.append(",status=\"").append(status).append("\"} ").append(count.sum()).append('\n'));
+		}
+		header(builder, "summer_requests_in_flight", "gauge", "Requests being processed, by route.");
+		for (RouteMetrics route : routes.values()) {
+			builder.append("summer_requests_in_flight{").append(route.labels()).append("} ")
+				.append(route.inFlight.get()).append('\n');
+		}
+		header(builder, "summer_request_duration_seconds", "histogram", "Request processing time, by route.");
+		for (RouteMetrics route : routes.values()) {
+			route.latency.write(builder, "summer_request_duration_seconds", route.labels());
+		}
+		header(builder, "summer_request_transaction_seconds_total", "counter",
+			"Time spent in transactions, by route.");
+		for (RouteMetrics route : routes.values()) {
+			builder.append("summer_request_transaction_seconds_total{").append(route.labels()).append("} ")
+				.append(route.transactionNanos.sum()/1e9).append('\n');
+		}
+		header(builder, "summer_request_serialization_seconds_total", "counter",
+			"Time spent in JSON serialization, by route.");
+		for (RouteMetrics route : routes.values()) {
+			builder.append("summer_request_serialization_seconds_total{").append(route.labels()).append("} ")
+				.append(route.serializationNanos.sum()/1e9).append('\n');
+		}
+		header(builder, "summer_transaction_duration_seconds", "histogram", "Transaction time.");
+		readTransactions.write(builder, "summer_transaction_duration_seconds", "mode=\"read\"");
+		writeTransactions.write(builder, "summer_transaction_duration_seconds", "mode=\"write\"");
+		header(builder, "summer_serialization_duration_seconds", "histogram", "JSON serialization time.");
+		serializations.write(builder, "summer_serialization_duration_seconds", "");
+		header(builder, "summer_sessions_created_total", "counter", "HTTP sessions created.");
+		builder.append("summer_sessions_created_total ").append(createdSessions.sum()).append('\n');
+		header(builder, "summer_compressed_responses_total", "counter", "Compressed responses.");
+		builder.append("summer_compressed_responses_total ")
+			.append(ResponseCompression.getCompressedResponses()).append('\n');
+		header(builder, "summer_compression_saved_bytes_total", "counter", "Bytes saved by compression.");
+		builder.append("summer_compression_saved_bytes_total ")
+			.append(ResponseCompression.getSavedBytes()).append('\n');
+		RequestExecutor requestExecutor = SummerServlet.getRequestExecutor();
+		if (requestExecutor!=null) {
+			header(builder, "summer_rejected_requests_total", "counter", "Requests rejected by the async executor.");
+			builder.append("summer_rejected_requests_total ").append(requestExecutor.getRejectedTasks()).append('\n');
+		}
+		ContentCache contentCache = ApplicationManager.get()==null || ApplicationManager.get().getPlatformManager()==null ?
+			null : ApplicationManager.get().getPlatformManager().getContentCache();
+		if (contentCache!=null) {
+			header(builder, "summer_content_cache_hits_total", "counter", "Stored contents read from the cache.");
+			builder.append("summer_content_cache_hits_total ").append(contentCache.getHits()).append('\n');
+			header(builder, "summer_content_cache_misses_total", "counter", "Stored contents missing from the cache.");
+			builder.append("summer_content_cache_misses_total ").append(contentCache.getMisses()).append('\n');
+			header(builder, "summer_content_cache_evictions_total", "counter", "Stored contents evicted from the cache.");
+			builder.append("summer_content_cache_evictions_total ").append(contentCache.getEvictions()).append('\n');
+			header(builder, "summer_content_cache_bytes", "gauge", "Size of the cached contents.");
+			builder.append("summer_content_cache_bytes ").append(contentCache.getSize()).append('\n');
+		}
+		return builder.toString();
+	}
+
+	static void header(StringBuilder builder, String name, String type, String help) {
+		builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	static String escape(String label) {
+		return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
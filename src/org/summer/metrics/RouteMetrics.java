@@ -0,0 +1,66 @@
+package org.summer.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one route: requests, errors by status, requests in flight, latency, and the time spent in transactions
+ * and in JSON serialization while processing its requests.
+ */
+public class RouteMetrics {
+
+	String method;
+	String route;
+	LongAdder requests = new LongAdder();
+	Map<Integer, LongAdder> errors = new ConcurrentSkipListMap<>();
+	AtomicInteger inFlight = new AtomicInteger();
+	Histogram latency = new Histogram();
+	LongAdder transactionNanos = new LongAdder();
+	LongAdder serializationNanos = new LongAdder();
+
+	RouteMetrics(String method, String route) {
+		this.method = method;
+		this.route = route;
+	}
+
+	/**
+	 * Marks the beginning of a request on this route. The route becomes the current one of the thread, to which
+	 * transaction and serialization times are charged.
+	 * @return the start time, to give back to finish().
+	 */
+	public long start() {
+		this.inFlight.incrementAndGet();
+		Metrics.currentRoute.set(this);
+		return System.nanoTime();
+	}
+
+	public void finish(long start, int status) {
+		long duration = System.nanoTime()-start;
+		Metrics.currentRoute.remove();
+		this.inFlight.decrementAndGet();
+		this.requests.increment();
+		this.latency.record(duration);
+		if (status>=400) {
+			this.errors.computeIfAbsent(status, key->new LongAdder()).increment();
+		}
+	}
+
+	public long getRequests() {
+		return this.requests.sum();
+	}
+
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	public Histogram getLatency() {
+		return this.latency;
+	}
+
+	String labels() {
+		return "method=\""+this.method+"\",route=\""+Metrics.escape(this.route)+"\"";
+	}
+
+}
@@ -2,6 +2,8 @@ package org.summer.platform;
 
 import org.summer.SummerException;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -17,6 +19,73 @@ public abstract class AbstractPlatformManagerImpl implements PlatformManager {
     static final Logger log = Logger.getLogger("summer");
 
     ScheduledExecutorService scheduledService = null;
+    ContentCache contentCache = null;
+
+    /**
+     * Keeps the stored contents read through getInputStream in memory (see ContentCache).
+     * @param maxBytes maximum size of all the cached contents.
+     * @param maxEntryBytes maximum size of a cached content.
+     */
+    public void setContentCache(long maxBytes, long maxEntryBytes) {
+        this.contentCache = new ContentCache(maxBytes, maxEntryBytes);
+    }
+
+    @Override
+    public ContentCache getContentCache() {
+        return this.contentCache;
+    }
+
+    @Override
+    public InputStream getInputStream(String filePath) {
+        return this.contentCache==null ?
+            openInputStream(filePath) :
+            this.contentCache.get(filePath, getContentVersions(), this::openInputStream);
+    }
+
+    /**
+     * Gives the current version of the stored contents, if they may be written by other processes than this one:
+     * cached contents are then checked against it (see ContentCache). Returns null if the contents are only written
+     * through this platform manager.
+     */
+    protected Function<String, Object> getContentVersions() {
+        return null;
+    }
+
+    @Override
+    public OutputStream getOutputStream(String filePath) {
+        OutputStream outputStream = openOutputStream(filePath);
+        return this.contentCache==null ?
+            outputStream :
+            this.contentCache.invalidating(filePath, outputStream);
+    }
+
+    @Override
+    public void moveContent(String sourcePath, String targetPath) {
+        doMoveContent(sourcePath, targetPath);
+        if (this.contentCache!=null) {
+            this.contentCache.invalidate(sourcePath);
+            this.contentCache.invalidate(targetPath);
+        }
+    }
+
+    @Override
+    public void deleteContent(String filePath) {
+        doDeleteContent(filePath);
+        if (this.contentCache!=null) {
+            this.contentCache.invalidate(filePath);
+        }
+    }
+
+    protected abstract void doMoveContent(String sourcePath, String targetPath);
+
+    protected abstract void doDeleteContent(String filePath);
+
+    /**
+     * Opens the stored content, without using the cache.
+     */
+    protected abstract InputStream openInputStream(String filePath);
+
+    protected abstract OutputStream openOutputStream(String filePath);
 
     @Override
     public void doSetJobPoolSize(int poolSize) {
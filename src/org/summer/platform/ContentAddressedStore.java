@@ -0,0 +1,303 @@
+package org.summer.platform;
+
+import org.summer.SummerException;
+
+import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Local storage where contents are stored by their SHA-256 hash, under two levels of directories
+ * (objects/ab/cd/abcd...): identical contents are stored once, and no directory holds too many files.
+ * <p>
+ * The names used by the application (e.g. /boards/board12.png) are mapped to the hashes by an index, kept in memory
+ * and saved in index.properties. Each change of the index is appended to a journal (index.journal), which is folded
+ * into index.properties when it grows bigger than the index, and at startup. A content is first written in a
+ * temporary file, then moved into place when it is complete; index.properties is replaced the same way. A content no
+ * longer referenced by any name is deleted.
+ * <p>
+ * At startup, the temporary files and the contents referenced by no name (left by an interrupted process) are
+ * deleted.
+ */
+class ContentAddressedStore {
+    static final Logger log = Logger.getLogger("summer");
+
+    static final String INDEX = "index.properties";
+    static final String JOURNAL = "index.journal";
+    static final String OBJECTS = "objects";
+    static final String TEMPORARY = "tmp";
+    static final int MIN_JOURNAL_SIZE = 1000;
+
+    File root;
+    Map<String, String> index = new HashMap<>();
+    Map<String, Integer> references = new HashMap<>();
+    int journalSize = 0;
+
+    ContentAddressedStore(File root) {
+        this.root = root;
+        new File(root, OBJECTS).mkdirs();
+        new File(root, TEMPORARY).mkdirs();
+        // Without any index file, no content can be told orphan: the index may have been lost.
+        boolean indexed = new File(root, INDEX).exists() || new File(root, JOURNAL).exists();
+        loadIndex();
+        saveIndex();
+        deleteTemporaryFiles();
+        if (indexed) {
+            deleteOrphans(new File(root, OBJECTS));
+        }
+    }
+
+    synchronized void loadIndex() {
+        File indexFile = new File(this.root, INDEX);
+        if (indexFile.exists()) {
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(indexFile)) {
+                properties.load(in);
+            }
+            catch (IOException ioe) {
+                throw new SummerPlatformException("Unable to read content index "+indexFile, ioe);
+            }
+            for (String name : properties.stringPropertyNames()) {
+                this.index.put(name, properties.getProperty(name));
+            }
+        }
+        loadJournal();
+        for (String hash : this.index.values()) {
+            this.references.merge(hash, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Replays the changes of the journal. Each line is "name=hash" (name bound to hash) or "name=" (name unbound),
+     * the name being URL encoded. An incomplete last line (interrupted process) is ignored.
+     */
+    void loadJournal() {
+        File journalFile = new File(this.root, JOURNAL);
+        if (!journalFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine())!=null) {
+                int equalIndex = line.indexOf('=');
+                if (equalIndex>0) {
+                    String name = URLDecoder.decode(line.substring(0, equalIndex), "UTF-8");
+                    String hash = line.substring(equalIndex+1);
+                    if (hash.isEmpty()) {
+                        this.index.remove(name);
+                    }
+                    else {
+                        this.index.put(name, hash);
+                    }
+                }
+            }
+        }
+        catch (IOException|IllegalArgumentException e) {
+            throw new SummerPlatformException("Unable to read content index journal "+journalFile, e);
+        }
+    }
+
+    /**
+     * Writes the whole index in index.properties, and empties the journal.
+     */
+    synchronized void saveIndex() {
+        Properties properties = new Properties();
+        properties.putAll(this.index);
+        File temporary = newTemporaryFile();
+        try {
+            try (OutputStream out = new FileOutputStream(temporary)) {
+                properties.store(out, null);
+            }
+            move(temporary.toPath(), new File(this.root, INDEX).toPath());
+        }
+        catch (IOException ioe) {
+            deleteFile(temporary);
+            throw new SummerPlatformException("Unable to write content index", ioe);
+        }
+        // If the process stops before the journal is deleted, replaying it on the saved index gives the same index.
+        File journalFile = new File(this.root, JOURNAL);
+        if (journalFile.exists()) {
+            deleteFile(journalFile);
+        }
+        this.journalSize = 0;
+    }
+
+    /**
+     * Records a change of the index (hash is null if the name is unbound).
+     */
+    synchronized void journal(String name, String hash) {
+        if (this.journalSize>=Math.max(MIN_JOURNAL_SIZE, this.index.size())) {
+            saveIndex();
+            return;
+        }
+        File journalFile = new File(this.root, JOURNAL);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8)) {
+            writer.write(URLEncoder.encode(name, "UTF-8")+"="+(hash==null ? "" : hash)+"\n");
+        }
+        catch (IOException ioe) {
+            throw new SummerPlatformException("Unable to write content index journal "+journalFile, ioe);
+        }
+        this.journalSize++;
+    }
+
+    void deleteTemporaryFiles() {
+        File[] files = new File(this.root, TEMPORARY).listFiles();
+        if (files!=null) {
+            for (File file : files) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    /**
+     * Deletes the contents referenced by no name.
+     */
+    void deleteOrphans(File directory) {
+        File[] files = directory.listFiles();
+        if (files!=null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteOrphans(file);
+                }
+                else if (!this.references.containsKey(file.getName())) {
+                    log.info("Delete orphan content : "+file.getName());
+                    deleteFile(file);
+                }
+            }
+        }
+    }
+
+    static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            log.warning("Unable to delete "+file);
+        }
+    }
+
+    File newTemporaryFile() {
+        return new File(new File(this.root, TEMPORARY), UUID.randomUUID().toString());
+    }
+
+    File getObjectFile(String hash) {
+        return new File(this.root,
+            OBJECTS+File.separator+hash.substring(0, 2)+File.separator+hash.substring(2, 4)+File.separator+hash);
+    }
+
+    /**
+     * @return the file holding the content stored under the given name, null if there is none.
+     */
+    synchronized File getFile(String name) {
+        String hash = this.index.get(name);
+        return hash==null ? null : getObjectFile(hash);
+    }
+
+    /**
+     * Returns a stream writing the content to store under the given name. The content is stored (and the index
+     * updated) when the stream is closed.
+     */
+    OutputStream openOutputStream(String name) {
+        File temporary = newTemporaryFile();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+            return new DigestOutputStream(new FileOutputStream(temporary), digest) {
+                boolean closed = false;
+
+                @Override
+                public void close() throws IOException {
+                    if (!this.closed) {
+                        this.closed = true;
+                        super.close();
+                        store(name, temporary, this.digest.digest());
+                    }
+                }
+            };
+        }
+        catch (NoSuchAlgorithmException|FileNotFoundException e) {
+            throw new SummerPlatformException("Unable to store "+name, e);
+        }
+    }
+
+    void store(String name, File temporary, byte[] digest) throws IOException {
+        StringBuilder hash = new StringBuilder();
+        for (byte aByte : digest) {
+            hash.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
+        }
+        File objectFile = getObjectFile(hash.toString());
+        synchronized (this) {
+            if (objectFile.exists()) {
+                // Same content already stored: it is shared.
+                deleteFile(temporary);
+            }
+            else {
+                objectFile.getParentFile().mkdirs();
+                move(temporary.toPath(), objectFile.toPath());
+            }
+            bind(name, hash.toString());
+        }
+    }
+
+    synchronized void move(String sourceName, String targetName) {
+        String hash = this.index.get(sourceName);
+        if (hash==null) {
+            throw new SummerException("No content stored under "+sourceName);
+        }
+        bind(targetName, hash);
+        unbind(sourceName);
+    }
+
+    synchronized void delete(String name) {
+        unbind(name);
+    }
+
+    void bind(String name, String hash) {
+        this.references.merge(hash, 1, Integer::sum);
+        String previous = this.index.put(name, hash);
+        journal(name, hash);
+        if (previous!=null) {
+            release(previous);
+        }
+    }
+
+    void unbind(String name) {
+        String hash = this.index.remove(name);
+        if (hash!=null) {
+            journal(name, null);
+            release(hash);
+        }
+    }
+
+    /**
+     * The content is deleted once it is no longer referenced. If it cannot be, it is deleted at the next startup.
+     */
+    void release(String hash) {
+        if (this.references.merge(hash, -1, Integer::sum)<=0) {
+            this.references.remove(hash);
+            deleteFile(getObjectFile(hash));
+        }
+    }
+
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
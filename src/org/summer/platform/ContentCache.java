@@ -0,0 +1,231 @@
+package org.summer.platform;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-memory LRU cache of stored contents, weighted by their size. Contents bigger than the maximum entry size are
+ * never cached; the least recently used contents are evicted when the total size exceeds the maximum size.
+ * <p>
+ * Writing a content (see invalidating()) invalidates its entry, when the writing starts and when it ends, so a
+ * content read while being written is never kept.
+ * <p>
+ * When the storage may be written by other processes (e.g. other instances of the application), entries are kept
+ * with the version of the stored content (a Cloud Storage generation, for example), and each hit is checked against
+ * the current version: an outdated entry is dropped and the content is loaded again.
+ */
+public class ContentCache {
+
+    long maxBytes;
+    long maxEntryBytes;
+    Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    long size = 0;
+    long generation = 0;
+    LongAdder hits = new LongAdder();
+    LongAdder misses = new LongAdder();
+    LongAdder evictions = new LongAdder();
+
+    public ContentCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    static class Entry {
+        byte[] content;
+        long lastModified;
+        Object version;
+
+        Entry(byte[] content, long lastModified, Object version) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+
+        InputStream open() {
+            return new CachedContent(this.content, this.lastModified);
+        }
+    }
+
+    static class CachedContent extends ByteArrayInputStream implements StoredContent {
+
+        long lastModified;
+
+        CachedContent(byte[] content, long lastModified) {
+            super(content);
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.buf.length;
+        }
+
+        @Override
+        public long getLastModified() {
+            return this.lastModified;
+        }
+
+    }
+
+    /**
+     * Returns the content stored under the given path, from the cache or else from the loader (which may return null
+     * if there is no such content).
+     */
+    public InputStream get(String path, Function<String, InputStream> loader) {
+        return get(path, null, loader);
+    }
+
+    /**
+     * Returns the content stored under the given path, from the cache if the cached content is still the stored one,
+     * or else from the loader.
+     * @param versions gives the current version of a stored content (null if there is no such content). If null,
+     *                 cached contents are not checked.
+     */
+    public InputStream get(String path, Function<String, Object> versions, Function<String, InputStream> loader) {
+        Entry entry;
+        long generation;
+        synchronized (this) {
+            entry = this.entries.get(path);
+            generation = this.generation;
+        }
+        Object version = null;
+        if (versions!=null) {
+            version = versions.apply(path);
+            if (entry!=null && !Objects.equals(entry.version, version)) {
+                remove(path, entry);
+                entry = null;
+            }
+        }
+        if (entry!=null) {
+            this.hits.increment();
+            return entry.open();
+        }
+        this.misses.increment();
+        InputStream in = loader.apply(path);
+        if (versions!=null && (version==null || !isVersion(in, version))) {
+            // No version to check a cached content against, or the content read is not the expected version (it was
+            // replaced meanwhile): the content is not kept.
+            return in;
+        }
+        if (in==null) {
+            return null;
+        }
+        long length = in instanceof StoredContent ? ((StoredContent)in).getContentLength() : -1;
+        if (length>this.maxEntryBytes) {
+            return in;
+        }
+        long lastModified = in instanceof StoredContent ? ((StoredContent)in).getLastModified() : -1;
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream(length>=0 ? (int)length : 8192);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+                if (content.size()>this.maxEntryBytes) {
+                    // Too big to be cached: the caller reads what remains from the original stream.
+                    return new SequenceInputStream(new ByteArrayInputStream(content.toByteArray()), in);
+                }
+            }
+            in.close();
+            entry = new Entry(content.toByteArray(), lastModified, version);
+        }
+        catch (IOException ioe) {
+            try {
+                in.close();
+            }
+            catch (IOException ignored) {
+            }
+            throw new SummerPlatformException("IOException while reading "+path, ioe);
+        }
+        put(path, entry, generation);
+        return entry.open();
+    }
+
+    static boolean isVersion(InputStream in, Object version) {
+        Object contentVersion = in instanceof StoredContent ? ((StoredContent)in).getVersion() : null;
+        return contentVersion==null || contentVersion.equals(version);
+    }
+
+    synchronized void put(String path, Entry entry, long generation) {
+        if (generation!=this.generation) {
+            // The content was (or may have been) written while it was read.
+            return;
+        }
+        Entry previous = this.entries.put(path, entry);
+        if (previous!=null) {
+            this.size -= previous.content.length;
+        }
+        this.size += entry.content.length;
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (this.size>this.maxBytes && iterator.hasNext()) {
+            this.size -= iterator.next().content.length;
+            iterator.remove();
+            this.evictions.increment();
+        }
+    }
+
+    synchronized void remove(String path, Entry entry) {
+        if (this.entries.remove(path, entry)) {
+            this.size -= entry.content.length;
+        }
+    }
+
+    public synchronized void invalidate(String path) {
+        this.generation++;
+        Entry entry = this.entries.remove(path);
+        if (entry!=null) {
+            this.size -= entry.content.length;
+        }
+    }
+
+    /**
+     * Returns a stream writing the content stored under the given path, which invalidates the cached content.
+     */
+    public OutputStream invalidating(String path, OutputStream out) {
+        invalidate(path);
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                this.out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    invalidate(path);
+                }
+            }
+        };
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+}
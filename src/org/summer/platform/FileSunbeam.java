@@ -1,5 +1,6 @@
 package org.summer.platform;
 
+import org.summer.FileSpecification;
 import org.summer.SummerException;
 
 import javax.imageio.ImageIO;
@@ -24,4 +25,18 @@ public interface FileSunbeam {
         }
     }
 
+    /**
+     * Stores a file under the given path. An uploaded file, already staged in the storage while it was received, is
+     * moved there instead of being copied.
+     */
+    default void storeFile(FileSpecification file, String filePath) {
+        if (file.getStoredPath()!=null) {
+            PlatformManager.get().moveContent(file.getStoredPath(), filePath);
+            file.setStoredPath(null);
+        }
+        else {
+            copyStream(file.getStream(), PlatformManager.get().getOutputStream(filePath));
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package org.summer.platform;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.*;
 
 import javax.mail.Message;
@@ -8,40 +9,248 @@ import javax.mail.Session;
 import javax.mail.Transport;
 import java.io.*;
 import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class GAEPlatformManagerImpl extends AbstractPlatformManagerImpl  {
 
+    static final int MAX_CACHED_METADATA = 10000;
+    static volatile Storage defaultStorage = null;
+
     String bucket = "";
+    Storage storage;
+    long metadataTtl = 30000;
+    Map<String, BlobMetadata> metadataCache = new ConcurrentHashMap<>();
 
     public GAEPlatformManagerImpl(String bucket) {
+        this(bucket, null);
+    }
+
+    /**
+     * @param storage the Cloud Storage client to use (e.g. an in-memory one for tests), null for the default one.
+     */
+    public GAEPlatformManagerImpl(String bucket, Storage storage) {
         this.bucket = bucket;
+        this.storage = storage;
+    }
+
+    /**
+     * Sets the time (in milliseconds) the metadata of a blob (existence, size, update time) is kept.
+     */
+    public GAEPlatformManagerImpl setMetadataTtl(long metadataTtl) {
+        this.metadataTtl = metadataTtl;
+        return this;
+    }
+
+    /**
+     * The default client is shared: it is costly to build and safe to use from several threads.
+     */
+    static Storage getDefaultStorage() {
+        if (defaultStorage == null) {
+            synchronized (GAEPlatformManagerImpl.class) {
+                if (defaultStorage == null) {
+                    defaultStorage = StorageOptions.getDefaultInstance().getService();
+                }
+            }
+        }
+        return defaultStorage;
+    }
+
+    Storage getStorage() {
+        if (this.storage == null) {
+            this.storage = getDefaultStorage();
+        }
+        return this.storage;
     }
 
+    static class BlobMetadata {
+        boolean exists;
+        long size;
+        long updateTime;
+        Long generation;
+        long expiration;
+
+        BlobMetadata(Blob blob, long expiration) {
+            this.exists = blob != null;
+            this.size = blob == null || blob.getSize() == null ? -1 : blob.getSize();
+            this.updateTime = blob == null || blob.getUpdateTime() == null ? -1 : blob.getUpdateTime();
+            this.generation = blob == null ? null : blob.getGeneration();
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Returns the metadata of a blob, from the cache if they were retrieved less than metadataTtl ago. The absence
+     * of a blob is not cached: the blob may be created by another instance at any time.
+     */
+    BlobMetadata getMetadata(String filePath) {
+        BlobMetadata metadata = this.metadataCache.get(filePath);
+        if (metadata == null || metadata.expiration <= System.currentTimeMillis()) {
+            metadata = refreshMetadata(filePath);
+        }
+        return metadata;
+    }
+
+    /**
+     * Retrieves the metadata of a blob from Cloud Storage and caches them.
+     */
+    BlobMetadata refreshMetadata(String filePath) {
+        long now = System.currentTimeMillis();
+        Blob blob = getStorage().get(BlobId.of(this.bucket, filePath),
+            Storage.BlobGetOption.fields(
+                Storage.BlobField.SIZE, Storage.BlobField.UPDATED, Storage.BlobField.GENERATION));
+        BlobMetadata metadata = new BlobMetadata(blob, now + this.metadataTtl);
+        if (!metadata.exists) {
+            this.metadataCache.remove(filePath);
+            return metadata;
+        }
+        if (this.metadataCache.size() >= MAX_CACHED_METADATA) {
+            this.metadataCache.values().removeIf(cached -> cached.expiration <= now);
+        }
+        if (this.metadataCache.size() < MAX_CACHED_METADATA) {
+            this.metadataCache.put(filePath, metadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * Stream of a blob, giving its metadata so it can be served with a Content-Length.
+     */
+    static class BlobInputStream extends FilterInputStream implements StoredContent {
+
+        BlobMetadata metadata;
+
+        BlobInputStream(InputStream in, BlobMetadata metadata) {
+            super(in);
+            this.metadata = metadata;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.metadata.size;
+        }
+
+        @Override
+        public long getLastModified() {
+            return this.metadata.updateTime;
+        }
+
+        @Override
+        public Object getVersion() {
+            return this.metadata.generation;
+        }
+
+    }
+
+    /**
+     * The blob is read at the generation given by its metadata, so the content matches the advertised size and update
+     * time even if the blob was replaced since the metadata were cached. If that generation does not exist anymore,
+     * the metadata are retrieved again.
+     */
     @Override
-    public InputStream getInputStream(String filePath) {
-        Storage storage = StorageOptions.getDefaultInstance().getService();
-        BlobId blobId = BlobId.of(this.bucket, filePath);
-        Blob blob = storage.get(blobId);
-        if (blob != null) {
-            ReadableByteChannel channel = blob.reader();
-            return Channels.newInputStream(channel);
+    protected InputStream openInputStream(String filePath) {
+        BlobMetadata metadata = getMetadata(filePath);
+        if (!metadata.exists) {
+            return null;
+        }
+        InputStream inputStream = openGeneration(filePath, metadata);
+        if (inputStream == null) {
+            this.metadataCache.remove(filePath);
+            metadata = getMetadata(filePath);
+            if (!metadata.exists) {
+                return null;
+            }
+            inputStream = openGeneration(filePath, metadata);
+            if (inputStream == null) {
+                throw new SummerPlatformException("Blob replaced while being opened: " + filePath, null);
+            }
+        }
+        return new BlobInputStream(inputStream, metadata);
+    }
+
+    /**
+     * Opens a generation of a blob. The reading starts at once, so a missing generation is detected here.
+     * @return null if the generation does not exist anymore.
+     */
+    InputStream openGeneration(String filePath, BlobMetadata metadata) {
+        ReadChannel channel = getStorage().reader(BlobId.of(this.bucket, filePath, metadata.generation));
+        PushbackInputStream inputStream = new PushbackInputStream(Channels.newInputStream(channel));
+        try {
+            int first = inputStream.read();
+            if (first >= 0) {
+                inputStream.unread(first);
+            }
+            return inputStream;
+        } catch (IOException | StorageException e) {
+            channel.close();
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw new SummerPlatformException("Unable to read blob: " + filePath, e);
         }
-        return null;
+    }
+
+    static boolean isNotFound(Throwable exception) {
+        while (exception != null) {
+            if (exception instanceof StorageException) {
+                return ((StorageException) exception).getCode() == 404;
+            }
+            exception = exception.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * The bucket is shared by all the instances of the application: a cached content is checked against the generation
+     * of the blob given by the metadata cache, so a cache hit does not cost a request to Cloud Storage. A blob written
+     * by another instance may then be served from the cache until its metadata expire (see setMetadataTtl).
+     */
+    @Override
+    protected Function<String, Object> getContentVersions() {
+        return filePath -> getMetadata(filePath).generation;
+    }
+
+    @Override
+    protected OutputStream openOutputStream(String filePath) {
+        this.metadataCache.remove(filePath);
+        WritableByteChannel channel = getStorage().writer(BlobInfo.newBuilder(BlobId.of(this.bucket, filePath)).build());
+        OutputStream outputStream = Channels.newOutputStream(channel);
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                this.out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    metadataCache.remove(filePath);
+                }
+            }
+        };
+    }
+
+    @Override
+    protected void doMoveContent(String sourcePath, String targetPath) {
+        Storage storage = getStorage();
+        BlobId source = BlobId.of(this.bucket, sourcePath);
+        // The copy is done by Cloud Storage: the content does not go through the application.
+        storage.copy(Storage.CopyRequest.of(source, BlobId.of(this.bucket, targetPath))).getResult();
+        storage.delete(source);
+        this.metadataCache.remove(sourcePath);
+        this.metadataCache.remove(targetPath);
     }
 
     @Override
-    public OutputStream getOutputStream(String filePath) {
-        Storage storage = StorageOptions.getDefaultInstance().getService();
-        BlobId blobId = BlobId.of(this.bucket, filePath);
-        Blob blob = storage.get(blobId);
-        if (blob == null) {
-            blob = storage.create(BlobInfo.newBuilder(blobId).build());
-        }
-        WritableByteChannel channel = blob.writer();
-        return Channels.newOutputStream(channel);
+    protected void doDeleteContent(String filePath) {
+        getStorage().delete(BlobId.of(this.bucket, filePath));
+        this.metadataCache.remove(filePath);
     }
 
     @Override
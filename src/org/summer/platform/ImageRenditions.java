@@ -0,0 +1,179 @@
+package org.summer.platform;
+
+import org.summer.FileSpecification;
+import org.summer.SummerException;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Smaller renditions of stored images (e.g. 48, 128 and 512 pixels wide or high), generated in the background when
+ * an image is stored, and stored next to it: /boards/board12.png gives /boards/board12-48px.png...
+ * <p>
+ * No rendition is generated until sizes are configured (see setSizes). Renditions bigger than the image itself are
+ * not generated: the image is served instead.
+ */
+public class ImageRenditions {
+
+    static final Logger log = Logger.getLogger("summer");
+    static final Set<String> FORMATS = new TreeSet<>(Arrays.asList("png", "jpg", "jpeg", "gif", "bmp"));
+    static final int QUEUE_SIZE = 256;
+
+    static volatile int[] sizes = new int[0];
+    static ThreadPoolExecutor executor = null;
+
+    /**
+     * Sets the sizes (in pixels, for the biggest dimension) of the renditions to generate.
+     */
+    public static void setSizes(int ... sizes) {
+        int[] sorted = sizes.clone();
+        Arrays.sort(sorted);
+        ImageRenditions.sizes = sorted;
+    }
+
+    static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "summer-renditions-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        return executor;
+    }
+
+    public static String getRenditionPath(String filePath, int size) {
+        int pointPos = filePath.lastIndexOf('.');
+        return pointPos < filePath.lastIndexOf('/') + 1 ?
+            filePath + "-" + size + "px" :
+            filePath.substring(0, pointPos) + "-" + size + "px" + filePath.substring(pointPos);
+    }
+
+    /**
+     * @return the smallest configured size not lower than the requested one, -1 if there is none (the image itself
+     * must then be used).
+     */
+    public static int selectSize(int requestedSize) {
+        for (int size : sizes) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the stream of the rendition of a stored image, null if the rendition does not exist (yet).
+     */
+    public static InputStream getRendition(String filePath, int requestedSize) {
+        int size = selectSize(requestedSize);
+        if (size < 0) {
+            return null;
+        }
+        try {
+            return PlatformManager.get().getInputStream(getRenditionPath(filePath, size));
+        }
+        catch (SummerException se) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes the renditions of the image previously stored under the path, and schedules the generation of the
+     * renditions of the new one.
+     */
+    public static void generate(String filePath) {
+        String extension = FileSpecification.getExtension(filePath);
+        if (sizes.length == 0 || extension == null || !FORMATS.contains(extension.toLowerCase())) {
+            return;
+        }
+        PlatformManager platformManager = PlatformManager.get();
+        int[] renditionSizes = sizes;
+        // Renditions of the replaced image must not be served for the new one.
+        for (int size : renditionSizes) {
+            platformManager.deleteContent(getRenditionPath(filePath, size));
+        }
+        try {
+            getExecutor().execute(() -> generate(platformManager, filePath, extension, renditionSizes));
+        }
+        catch (RejectedExecutionException ree) {
+            log.warning("Renditions not generated (too many pending): " + filePath);
+        }
+    }
+
+    static void generate(PlatformManager platformManager, String filePath, String extension, int[] sizes) {
+        try {
+            BufferedImage image;
+            try (InputStream in = platformManager.getInputStream(filePath)) {
+                image = in == null ? null : ImageIO.read(in);
+            }
+            if (image == null) {
+                return;
+            }
+            String format = extension.toLowerCase().equals("jpg") ? "jpeg" : extension.toLowerCase();
+            for (int size : sizes) {
+                int biggest = Math.max(image.getWidth(), image.getHeight());
+                if (size >= biggest) {
+                    break;
+                }
+                BufferedImage rendition = scale(image, size, format);
+                try (OutputStream out = platformManager.getOutputStream(getRenditionPath(filePath, size))) {
+                    ImageIO.write(rendition, format, out);
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Unable to generate renditions of " + filePath, e);
+        }
+    }
+
+    /**
+     * The image is halved (bilinear interpolation) until it is less than twice as big as the rendition, which is
+     * then drawn with a bicubic interpolation: a single step would skip most of the pixels of a big image.
+     */
+    static BufferedImage scale(BufferedImage image, int size, String format) {
+        double ratio = (double)size / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int)Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int)Math.round(image.getHeight() * ratio));
+        // JPEG and BMP have no alpha channel.
+        int type = format.equals("jpeg") || format.equals("bmp") ?
+            BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = image;
+        while (current.getWidth() >= width * 2 && current.getHeight() >= height * 2) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, type,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        return draw(current, width, height, type, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    static BufferedImage draw(BufferedImage image, int width, int height, int type, Object interpolation) {
+        BufferedImage result = new BufferedImage(width, height, type);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        }
+        finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+}
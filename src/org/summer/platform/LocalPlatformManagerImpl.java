@@ -4,6 +4,11 @@ import org.summer.SummerException;
 
 import javax.mail.*;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -14,15 +19,31 @@ public class LocalPlatformManagerImpl extends AbstractPlatformManagerImpl  {
     Properties mailParams= new Properties();
     String mailFrom = "";
     String mailPassword = "";
+    ContentAddressedStore contentStore = null;
+    Session mailSession = null;
 
     public LocalPlatformManagerImpl(String basePath) {
         this.basePath = basePath;
     }
 
+    /**
+     * Stores the contents by their hash (see ContentAddressedStore). Files stored before, directly under their name,
+     * remain readable.
+     */
+    public LocalPlatformManagerImpl setContentAddressedStorage(boolean contentAddressed) {
+        this.contentStore = contentAddressed ? new ContentAddressedStore(new File(basePath)) : null;
+        return this;
+    }
+
+    File getFile(String filePath) {
+        File file = this.contentStore == null ? null : this.contentStore.getFile(filePath);
+        return file != null ? file : new File(basePath + filePath);
+    }
+
     @Override
-    public InputStream getInputStream(String filePath) {
+    protected InputStream openInputStream(String filePath) {
         try {
-            return new FileInputStream(basePath + filePath);
+            return new LocalFileInputStream(getFile(filePath));
         }
         catch (FileNotFoundException fnfe) {
             throw new SummerException(String.format("File %s", basePath + filePath));
@@ -30,19 +51,88 @@ public class LocalPlatformManagerImpl extends AbstractPlatformManagerImpl  {
     }
 
     @Override
-    public OutputStream getOutputStream(String filePath) {
+    protected OutputStream openOutputStream(String filePath) {
+        if (this.contentStore != null) {
+            return this.contentStore.openOutputStream(filePath);
+        }
         try {
-            return new FileOutputStream(basePath + filePath);
+            File file = new File(basePath + filePath);
+            file.getParentFile().mkdirs();
+            return new FileOutputStream(file);
         }
         catch (FileNotFoundException fnfe) {
             throw new SummerException(String.format("File %s", basePath + filePath));
         }
     }
 
+    @Override
+    protected void doMoveContent(String sourcePath, String targetPath) {
+        if (this.contentStore != null && this.contentStore.getFile(sourcePath) != null) {
+            this.contentStore.move(sourcePath, targetPath);
+            return;
+        }
+        Path source = Paths.get(basePath + sourcePath);
+        Path target = Paths.get(basePath + targetPath);
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException ioe) {
+            throw new SummerPlatformException(String.format("Unable to move %s to %s", source, target), ioe);
+        }
+    }
+
+    @Override
+    protected void doDeleteContent(String filePath) {
+        if (this.contentStore != null) {
+            this.contentStore.delete(filePath);
+        }
+        try {
+            Files.deleteIfExists(Paths.get(basePath + filePath));
+        }
+        catch (IOException ioe) {
+            throw new SummerPlatformException(String.format("Unable to delete %s", basePath + filePath), ioe);
+        }
+    }
+
+    /**
+     * Local file stream, giving the metadata of the file so it can be served without copy.
+     */
+    static class LocalFileInputStream extends FileInputStream implements StoredContent {
+
+        File file;
+
+        LocalFileInputStream(File file) throws FileNotFoundException {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.file.length();
+        }
+
+        @Override
+        public long getLastModified() {
+            return this.file.lastModified();
+        }
+
+        @Override
+        public File getFile() {
+            return this.file;
+        }
+
+    }
+
     public LocalPlatformManagerImpl setMailProperties(String ... params) {
         for (int index=0; index<params.length; index+=2) {
             this.mailParams.put(params[index], params[index+1]);
         }
+        this.mailSession = null;
         return this;
     }
 
@@ -52,22 +142,44 @@ public class LocalPlatformManagerImpl extends AbstractPlatformManagerImpl  {
         return this;
     }
 
+    /**
+     * The session is shared, so the transports opened for it may be reused (see MailQueue).
+     */
     @Override
     public Session getMailSession() {
-        return Session.getInstance(this.mailParams);
+        if (this.mailSession == null) {
+            this.mailSession = Session.getInstance(this.mailParams);
+        }
+        return this.mailSession;
     }
 
     @Override
-    public void sendMail(Session session, Message msg) {
+    public Transport connectTransport(Session session) {
         try {
             Transport transport = session.getTransport("smtp");
             transport.connect(
                 (String)this.mailParams.get("mail.smtp.host"),
                 Integer.parseInt((String)this.mailParams.get("mail.smtp.port")),
                 this.mailFrom, this.mailPassword);
+            return transport;
+        } catch (MessagingException me) {
+            throw new SummerPlatformException("Mail exception", me);
+        }
+    }
+
+    @Override
+    public void sendMail(Session session, Message msg) {
+        Transport transport = connectTransport(session);
+        try {
             transport.sendMessage(msg, msg.getAllRecipients());
         } catch (MessagingException me) {
             throw new SummerPlatformException("Mail exception", me);
+        } finally {
+            try {
+                transport.close();
+            } catch (MessagingException me) {
+                log.fine("Unable to close mail transport: " + me.getMessage());
+            }
         }
     }
 
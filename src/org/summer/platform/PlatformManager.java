@@ -4,6 +4,7 @@ import org.summer.ApplicationManager;
 
 import javax.mail.Message;
 import javax.mail.Session;
+import javax.mail.Transport;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
@@ -46,10 +47,32 @@ public interface PlatformManager {
 
     OutputStream getOutputStream(String filePath);
 
+    /**
+     * Moves a stored content, replacing the one stored under the target path if any.
+     */
+    void moveContent(String sourcePath, String targetPath);
+
+    void deleteContent(String filePath);
+
+    /**
+     * @return the cache of the stored contents, null if they are not cached.
+     */
+    default ContentCache getContentCache() {
+        return null;
+    }
+
     Session getMailSession();
 
     void sendMail(Session session, Message msg);
 
+    /**
+     * Opens a connected transport, to send several mails through the same connection.
+     * @return the transport, null if the platform sends the mails on its own (see sendMail).
+     */
+    default Transport connectTransport(Session session) {
+        return null;
+    }
+
     default float random() {
         return new SecureRandom().nextFloat();
     }
@@ -0,0 +1,35 @@
+package org.summer.platform;
+
+import java.io.File;
+
+/**
+ * Implemented by the streams returned by PlatformManager.getInputStream when the platform knows the metadata of
+ * the stored content. They are used to serve files (Content-Length, Last-Modified, ranges).
+ */
+public interface StoredContent {
+
+    /**
+     * @return the size of the content in bytes, -1 if unknown.
+     */
+    long getContentLength();
+
+    /**
+     * @return the last modification time in milliseconds, -1 if unknown.
+     */
+    long getLastModified();
+
+    /**
+     * @return the local file holding the content, if any. It allows the content to be sent without being copied.
+     */
+    default File getFile() {
+        return null;
+    }
+
+    /**
+     * @return the version of the stored content (e.g. a Cloud Storage generation), null if unknown.
+     */
+    default Object getVersion() {
+        return null;
+    }
+
+}
@@ -23,16 +23,19 @@ import org.summer.platform.PlatformManager;
 
 public class SecurityManagerImpl implements SecurityManager {
 
+	static final String AUTHENTICATION = "summer.authentication";
+	static final String AUTHENTICATION_REFRESHED = "summer.authentication-refreshed";
+
 	@Override
 	public void executeIfConnected(Executor executor) {
-        ClaimSet claimSet = checkAuthentication(SummerServlet.getRequest());
-        setAuthentication(SummerServlet.getResponse(), claimSet.subject, claimSet.expiration-claimSet.issuedAt);
+        ClaimSet claimSet = getAuthentication(SummerServlet.getRequest());
+        refreshAuthentication(claimSet);
 		executor.run(claimSet.subject);
 	}
 
 	@Override
 	public boolean lookForRole(String user, String[] roles) {
-	    ClaimSet claimSet = checkAuthentication(SummerServlet.getRequest());
+	    ClaimSet claimSet = getAuthentication(SummerServlet.getRequest());
         String[] userRoles = getRoles(claimSet.subject);
         if (roles.length>0) {
             for (String role : userRoles) {
@@ -49,10 +52,9 @@ public class SecurityManagerImpl implements SecurityManager {
 
 	@Override
 	public void executeIfAuthorized(Executor executor, String... roles) {
-        ClaimSet claimSet = checkAuthentication(SummerServlet.getRequest());
+        ClaimSet claimSet = getAuthentication(SummerServlet.getRequest());
         if (lookForRole(claimSet.subject, roles)) {
-            setAuthentication(SummerServlet.getResponse(),
-                    claimSet.subject, claimSet.expiration - claimSet.issuedAt);
+            refreshAuthentication(claimSet);
             executor.run(claimSet.subject);
         }
         else {
@@ -62,12 +64,11 @@ public class SecurityManagerImpl implements SecurityManager {
 
     @Override
     public void executeIfAuthorized(Executor executor, BiPredicate<String, String[]> verifier) {
-        ClaimSet claimSet = checkAuthentication(SummerServlet.getRequest());
+        ClaimSet claimSet = getAuthentication(SummerServlet.getRequest());
         String login = claimSet.subject;
         String[] userRoles = getRoles(claimSet.subject);
         if (verifier.test(login, userRoles)) {
-            setAuthentication(SummerServlet.getResponse(),
-                claimSet.subject, claimSet.expiration - claimSet.issuedAt);
+            refreshAuthentication(claimSet);
             executor.run(claimSet.subject);
         }
         else throw new SummerControllerException(403, "Not authorized");
@@ -76,11 +77,13 @@ public class SecurityManagerImpl implements SecurityManager {
 	@Override
 	public void doConnect(String login, long expire) {
 		setAuthentication(SummerServlet.getResponse(), login, expire);
+		forgetAuthentication(SummerServlet.getRequest());
 	}
 	
 	@Override
 	public void doDisconnect() {
 		removeAuthentication(SummerServlet.getResponse());
+		forgetAuthentication(SummerServlet.getRequest());
 	}
 	
 	@Override
@@ -138,6 +141,40 @@ public class SecurityManagerImpl implements SecurityManager {
     
     Finder rolesFinder = user -> new String[] {user};
 
+    /**
+     * Returns the authentication of the request. It is checked once per HTTP request (several checks may be
+     * requested by the sub-requests of a batch) and kept as a request attribute.
+     */
+    ClaimSet getAuthentication(HttpServletRequest request) {
+        ClaimSet claimSet = (ClaimSet)request.getAttribute(AUTHENTICATION);
+        if (claimSet==null) {
+            claimSet = checkAuthentication(request);
+            request.setAttribute(AUTHENTICATION, claimSet);
+        }
+        return claimSet;
+    }
+
+    /**
+     * Renews the authentication cookies, once per HTTP request.
+     */
+    void refreshAuthentication(ClaimSet claimSet) {
+        HttpServletRequest request = SummerServlet.getRequest();
+        if (request.getAttribute(AUTHENTICATION_REFRESHED)==null) {
+            setAuthentication(SummerServlet.getResponse(),
+                claimSet.subject, claimSet.expiration - claimSet.issuedAt);
+            request.setAttribute(AUTHENTICATION_REFRESHED, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * The authentication cookies have just been set (or removed): they must not be renewed with the previous
+     * authentication.
+     */
+    void forgetAuthentication(HttpServletRequest request) {
+        request.removeAttribute(AUTHENTICATION);
+        request.setAttribute(AUTHENTICATION_REFRESHED, Boolean.TRUE);
+    }
+
     ClaimSet checkAuthentication(HttpServletRequest request) {
         try {
             Cookie jwtCookie = null;
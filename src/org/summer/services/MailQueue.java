@@ -0,0 +1,303 @@
+package org.summer.services;
+
+import org.summer.platform.PlatformManager;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory queue of mails, delivered in the background by a pool of workers.
+ * <p>
+ * A worker keeps its transport (SMTP connection) open while there are mails to send, and sends the mails to the
+ * same recipient domain together. A mail that cannot be sent is retried with an exponential backoff, unless its
+ * addresses are rejected. Each mail gets a delivery id, by which its status may be followed.
+ */
+public class MailQueue {
+
+    static final Logger log = Logger.getLogger("summer");
+    static final int MAX_STATUSES = 10000;
+
+    public enum Status { PENDING, SENT, FAILED }
+
+    static volatile int workerCount = 2;
+    static volatile int batchSize = 20;
+    static volatile int maxAttempts = 5;
+    static volatile long retryDelay = 1000;
+    static volatile long idleTimeout = 30000;
+
+    Deque<Delivery> deliveries = new ArrayDeque<>();
+    Map<String, Status> statuses = new StatusMap();
+    ScheduledExecutorService retryScheduler = null;
+    int workers = 0;
+    int startedWorkers = 0;
+
+    /**
+     * Statuses of the last deliveries: the oldest are forgotten beyond MAX_STATUSES.
+     */
+    static class StatusMap extends LinkedHashMap<String, Status> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Status> eldest) {
+            return size() > MAX_STATUSES;
+        }
+    }
+
+    static class Delivery {
+        String id = UUID.randomUUID().toString();
+        PlatformManager platformManager;
+        Session session;
+        Message message;
+        String domain;
+        int attempts = 0;
+
+        Delivery(PlatformManager platformManager, Session session, Message message) {
+            this.platformManager = platformManager;
+            this.session = session;
+            this.message = message;
+            this.domain = getDomain(message);
+        }
+    }
+
+    /**
+     * Sets the number of threads delivering mails.
+     */
+    public static void setWorkerCount(int workerCount) {
+        MailQueue.workerCount = workerCount;
+    }
+
+    /**
+     * Sets the maximum number of mails sent together to a recipient domain.
+     */
+    public static void setBatchSize(int batchSize) {
+        MailQueue.batchSize = batchSize;
+    }
+
+    /**
+     * Sets how many times a mail is tried, and the delay (in milliseconds) before the first retry. The delay doubles
+     * at each retry.
+     */
+    public static void setRetryPolicy(int maxAttempts, long retryDelay) {
+        MailQueue.maxAttempts = maxAttempts;
+        MailQueue.retryDelay = retryDelay;
+    }
+
+    /**
+     * Sets the time (in milliseconds) an idle worker keeps its transport open.
+     */
+    public static void setIdleTimeout(long idleTimeout) {
+        MailQueue.idleTimeout = idleTimeout;
+    }
+
+    static String getDomain(Message message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            if (recipients != null && recipients.length > 0 && recipients[0] instanceof InternetAddress) {
+                String address = ((InternetAddress)recipients[0]).getAddress();
+                return address.substring(address.indexOf('@') + 1).toLowerCase();
+            }
+        }
+        catch (MessagingException me) {
+            log.warning("Unable to read mail recipients: " + me.getMessage());
+        }
+        return "";
+    }
+
+    /**
+     * Queues a mail.
+     * @return the delivery id of the mail.
+     */
+    public String submit(Session session, Message message) {
+        Delivery delivery = new Delivery(PlatformManager.get(), session, message);
+        synchronized (this) {
+            this.statuses.put(delivery.id, Status.PENDING);
+            enqueue(delivery);
+        }
+        return delivery.id;
+    }
+
+    /**
+     * Queues a delivery, and starts a worker if there are less than workerCount (a worker stops when it fails).
+     */
+    synchronized void enqueue(Delivery delivery) {
+        this.deliveries.addLast(delivery);
+        if (this.workers < workerCount) {
+            this.workers++;
+            Thread worker = new Thread(this::work, "summer-mail-" + (++this.startedWorkers));
+            worker.setDaemon(true);
+            worker.start();
+        }
+        notify();
+    }
+
+    /**
+     * @return the status of a delivery, null if the delivery is unknown (or too old).
+     */
+    public synchronized Status getStatus(String deliveryId) {
+        return this.statuses.get(deliveryId);
+    }
+
+    public synchronized int getPendingCount() {
+        return this.deliveries.size();
+    }
+
+    /**
+     * Takes the next mail and the following ones to the same domain. Waits at most idleTimeout.
+     */
+    synchronized List<Delivery> take() throws InterruptedException {
+        List<Delivery> batch = new ArrayList<>();
+        if (this.deliveries.isEmpty()) {
+            wait(idleTimeout);
+        }
+        Delivery first = this.deliveries.pollFirst();
+        if (first != null) {
+            batch.add(first);
+            Iterator<Delivery> iterator = this.deliveries.iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                Delivery delivery = iterator.next();
+                if (delivery.domain.equals(first.domain)) {
+                    iterator.remove();
+                    batch.add(delivery);
+                }
+            }
+        }
+        return batch;
+    }
+
+    void work() {
+        Transport transport = null;
+        Session transportSession = null;
+        Throwable failure = null;
+        List<Delivery> batch = new ArrayList<>();
+        int current = 0;
+        try {
+            while (true) {
+                batch = take();
+                if (batch.isEmpty()) {
+                    close(transport);
+                    transport = null;
+                    continue;
+                }
+                for (current = 0; current < batch.size(); current++) {
+                    Delivery delivery = batch.get(current);
+                    try {
+                        if (transport == null || transportSession != delivery.session || !transport.isConnected()) {
+                            close(transport);
+                            transport = delivery.platformManager.connectTransport(delivery.session);
+                            transportSession = delivery.session;
+                        }
+                        if (transport == null) {
+                            delivery.platformManager.sendMail(delivery.session, delivery.message);
+                        }
+                        else {
+                            transport.sendMessage(delivery.message, delivery.message.getAllRecipients());
+                        }
+                        setStatus(delivery, Status.SENT);
+                    }
+                    catch (MessagingException | RuntimeException e) {
+                        close(transport);
+                        transport = null;
+                        retry(delivery, e);
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        }
+        finally {
+            close(transport);
+            // The mail being sent when the worker failed is not retried (it may fail the same way); the rest of the
+            // batch is queued again, once the worker is no longer counted so that another one may be started.
+            boolean interrupted = failure != null && current < batch.size();
+            if (failure != null) {
+                log.log(Level.SEVERE, "Mail worker " + Thread.currentThread().getName() + " stopped", failure);
+                if (interrupted) {
+                    setStatus(batch.get(current), Status.FAILED);
+                }
+            }
+            synchronized (this) {
+                this.workers--;
+            }
+            if (interrupted) {
+                for (Delivery delivery : batch.subList(current + 1, batch.size())) {
+                    enqueue(delivery);
+                }
+            }
+        }
+    }
+
+    synchronized void setStatus(Delivery delivery, Status status) {
+        this.statuses.put(delivery.id, status);
+    }
+
+    void retry(Delivery delivery, Exception exception) {
+        delivery.attempts++;
+        if (isPermanent(exception) || delivery.attempts >= maxAttempts) {
+            log.log(Level.SEVERE, "Mail " + delivery.id + " not delivered after " + delivery.attempts + " attempt(s)",
+                exception);
+            setStatus(delivery, Status.FAILED);
+            return;
+        }
+        long delay = Math.min(retryDelay << (delivery.attempts - 1), TimeUnit.MINUTES.toMillis(5));
+        log.warning("Mail " + delivery.id + " not delivered (" + exception.getMessage() + "), retried in " + delay
+            + " ms");
+        getRetryScheduler().schedule(() -> enqueue(delivery), delay, TimeUnit.MILLISECONDS);
+    }
+
+    static boolean isPermanent(Throwable exception) {
+        while (exception != null) {
+            if (exception instanceof SendFailedException || exception instanceof AddressException) {
+                return true;
+            }
+            exception = exception.getCause();
+        }
+        return false;
+    }
+
+    synchronized ScheduledExecutorService getRetryScheduler() {
+        if (this.retryScheduler == null) {
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "summer-mail-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.retryScheduler;
+    }
+
+    static void close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            }
+            catch (MessagingException me) {
+                log.fine("Unable to close mail transport: " + me.getMessage());
+            }
+        }
+    }
+
+}
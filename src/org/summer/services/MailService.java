@@ -1,8 +1,14 @@
 package org.summer.services;
 
+/**
+ * Sends mails asynchronously: the mail is queued, and delivered in the background.
+ */
 public interface MailService {
 
-    void sendEmail(
+    /**
+     * @return the delivery id of the mail (see getDeliveryStatus).
+     */
+    String sendEmail(
         String toEmail,
         String subject,
         String body,
@@ -15,10 +21,15 @@ public interface MailService {
         String transfertEncoding,
         String ... attachments);
 
-    void sendEmail(
+    String sendEmail(
         String toEmail,
         String subject,
         String body,
         String from,
         String ... attachments);
+
+    /**
+     * @return the status of a mail, null if the delivery id is unknown (or too old).
+     */
+    MailQueue.Status getDeliveryStatus(String deliveryId);
 }
@@ -23,8 +23,10 @@ import javax.mail.internet.MimeMultipart;
 @SingletonScoped
 public class MailServiceImpl implements MailService {
 
+    MailQueue mailQueue = new MailQueue();
+
     @Override
-    public void sendEmail(
+    public String sendEmail(
             String toEmail,
             String subject,
             String body,
@@ -39,7 +41,6 @@ public class MailServiceImpl implements MailService {
     ) {
         try{
             Session session = PlatformManager.get().getMailSession();
-            session.setDebug(true);
             MimeMessage msg = new MimeMessage(session);
             msg.addHeader("Content-type", contentType);
             msg.addHeader("format", format);
@@ -65,26 +66,31 @@ public class MailServiceImpl implements MailService {
                 }
                 msg.setContent(multipart);
             }
-            // Send message
-            PlatformManager.get().sendMail(session, msg);
+            // Queue message
+            return this.mailQueue.submit(session, msg);
         } catch (MessagingException | UnsupportedEncodingException me) {
             throw new SummerPlatformException("Mail exception", me);
         }
     }
 
     @Override
-    public void sendEmail(
+    public String sendEmail(
             String toEmail,
             String subject,
             String body,
             String from,
             String ... attachments
     ) {
-        this.sendEmail(
+        return this.sendEmail(
             toEmail, subject, body, from, from, from,
             "text/HTML; charset=UTF-8", "flowed",
             "UTF-8", "8bit", attachments
         );
     }
 
+    @Override
+    public MailQueue.Status getDeliveryStatus(String deliveryId) {
+        return this.mailQueue.getStatus(deliveryId);
+    }
+
 }
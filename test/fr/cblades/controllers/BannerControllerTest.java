@@ -11,6 +11,7 @@ import org.summer.controller.ControllerSunbeam;
 import org.summer.controller.Json;
 import org.summer.controller.SummerControllerException;
 import org.summer.data.DataManipulatorSunbeam;
+import org.summer.platform.ImageRenditions;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
@@ -318,6 +319,26 @@ public class BannerControllerTest implements TestSeawave, CollectionSunbeam, Dat
 		dataManager.hasFinished();
 	}
 
+	@Test
+	public void getLiveBannersValidator() {
+		dataManager.register("createQuery", null, null,
+				"select max(b.updateTimestamp), count(b) from Banner b where b.status=:status");
+		dataManager.register("setParameter", null, null, "status", BannerStatus.LIVE);
+		dataManager.register("getSingleResult", new Object[] {1234L, 2L}, null);
+		Assert.assertEquals("1234-2", bannerController.getLiveValidator(params(), null));
+		dataManager.hasFinished();
+	}
+
+	@Test
+	public void getLiveBannersValidatorWhenNoBannerIsLive() {
+		dataManager.register("createQuery", null, null,
+				"select max(b.updateTimestamp), count(b) from Banner b where b.status=:status");
+		dataManager.register("setParameter", null, null, "status", BannerStatus.LIVE);
+		dataManager.register("getSingleResult", new Object[] {null, 0L}, null);
+		Assert.assertEquals("0-0", bannerController.getLiveValidator(params(), null));
+		dataManager.hasFinished();
+	}
+
 	@Test
 	public void tryToListAllBannersWithBadCredentials() {
 		securityManager.doConnect("someone", 0);
@@ -823,9 +844,46 @@ public class BannerControllerTest implements TestSeawave, CollectionSunbeam, Dat
 		Assert.assertEquals("elf.png", image.getFileName());
 		Assert.assertEquals("Content of /games/elf.png", inputStreamToString(image.getStream()));
 		Assert.assertEquals("png", image.getExtension());
+		Assert.assertFalse(image.isSubstitute());
 		platformManager.hasFinished();
 	}
 
+	@Test
+	public void chargeBannerImageRendition() {
+		ImageRenditions.setSizes(48, 128, 512);
+		try {
+			platformManager.register("getInputStream",
+					new ByteArrayInputStream(("Content of /games/elf-128px.png").getBytes()),
+					null,  "/games/elf-128px.png");
+			FileSpecification image = bannerController.getImage(params("imagename", "elf-10123456.png", "size", "100"));
+			Assert.assertEquals("elf.png", image.getName());
+			Assert.assertEquals("Content of /games/elf-128px.png", inputStreamToString(image.getStream()));
+			Assert.assertFalse(image.isSubstitute());
+			platformManager.hasFinished();
+		}
+		finally {
+			ImageRenditions.setSizes();
+		}
+	}
+
+	@Test
+	public void chargeBannerImageWhenRenditionIsNotAvailable() {
+		ImageRenditions.setSizes(48, 128, 512);
+		try {
+			platformManager.register("getInputStream", null, null,  "/games/elf-48px.png");
+			platformManager.register("getInputStream",
+					new ByteArrayInputStream(("Content of /games/elf.png").getBytes()),
+					null,  "/games/elf.png");
+			FileSpecification image = bannerController.getImage(params("imagename", "elf-10123456.png", "size", "48"));
+			Assert.assertEquals("Content of /games/elf.png", inputStreamToString(image.getStream()));
+			Assert.assertTrue(image.isSubstitute());
+			platformManager.hasFinished();
+		}
+		finally {
+			ImageRenditions.setSizes();
+		}
+	}
+
 	@Test
 	public void failChargeBannerImage() {
 		platformManager.register("getInputStream", null,
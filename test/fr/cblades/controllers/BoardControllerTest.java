@@ -1301,6 +1301,18 @@ public class BoardControllerTest implements TestSeawave, CollectionSunbeam, Data
 		dataManager.hasFinished();
 	}
 
+	@Test
+	public void getLiveBoardsValidator() {
+		dataManager.register("createQuery", null, null,
+			"select max(b.updateTimestamp), count(distinct b), max(a.updateTimestamp), max(l.updateTimestamp) " +
+			"from Board b left join b.author a left join a.access l " +
+			"where b.status=:status");
+		dataManager.register("setParameter", null, null, "status", BoardStatus.LIVE);
+		dataManager.register("getSingleResult", new Object[] {1234L, 2L, 1300L, 1000L}, null);
+		Assert.assertEquals("1234-2-1300-1000", boardController.getLiveValidator(params(), null));
+		dataManager.hasFinished();
+	}
+
 	@Test
 	public void tryToGetBoardsWithoutGivingParameters() {
 		securityManager.doConnect("admin", 0);
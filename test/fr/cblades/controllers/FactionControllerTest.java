@@ -1253,6 +1253,18 @@ public class FactionControllerTest implements TestSeawave, CollectionSunbeam, Da
         dataManager.hasFinished();
     }
 
+    @Test
+    public void getLiveFactionsValidator() {
+        dataManager.register("createQuery", null, null,
+            "select max(f.updateTimestamp), count(distinct f), max(a.updateTimestamp), max(l.updateTimestamp) " +
+            "from Faction f left join f.author a left join a.access l " +
+            "where f.status=:status");
+        dataManager.register("setParameter", null, null, "status", FactionStatus.LIVE);
+        dataManager.register("getSingleResult", new Object[] {1234L, 2L, 1300L, null}, null);
+        Assert.assertEquals("1234-2-1300-0", factionController.getLiveValidator(params(), null));
+        dataManager.hasFinished();
+    }
+
     @Test
     public void tryToGetAFactionWithoutGivingItsID() {
         securityManager.doConnect("admin", 0);
@@ -173,6 +173,18 @@ public class ForumControllerTest implements TestSeawave, CollectionSunbeam, Data
         dataManager.hasFinished();
     }
 
+    @Test
+    public void getLiveForumsValidator() {
+        dataManager.register("createQuery", null, null,
+            "select max(f.updateTimestamp), count(distinct f), max(m.updateTimestamp), max(t.updateTimestamp), max(a.updateTimestamp) " +
+            "from Forum f left join f.lastMessage m left join m.thread t left join m.author a " +
+            "where f.status=:status");
+        dataManager.register("setParameter", null, null, "status", ForumStatus.LIVE);
+        dataManager.register("getSingleResult", new Object[] {1234L, 2L, 1200L, 1100L, 1300L}, null);
+        Assert.assertEquals("1234-2-1200-1100-1300", forumController.getLiveValidator(params(), null));
+        dataManager.hasFinished();
+    }
+
     @Test
     public void tryToGetThreadsOfALivingForumWithoutGivingItsID() {
         try {
@@ -0,0 +1,59 @@
+package fr.cblades.controllers;
+
+import fr.cblades.StandardUsers;
+import fr.cblades.controller.MetricsController;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.*;
+import org.summer.controller.SummerControllerException;
+import org.summer.metrics.Metrics;
+import org.summer.metrics.RouteMetrics;
+
+public class MetricsControllerTest implements TestSeawave {
+
+    MetricsController metricsController;
+    MockSecurityManagerImpl securityManager;
+
+    @Before
+    public void before() {
+        ApplicationManager.set(new ApplicationManagerForTestImpl());
+        metricsController = new MetricsController();
+        securityManager = (MockSecurityManagerImpl)ApplicationManager.get().getSecurityManager();
+        securityManager.register(new MockSecurityManagerImpl.Credential("admin", "admin", StandardUsers.ADMIN));
+        securityManager.register(new MockSecurityManagerImpl.Credential("someone", "someone", StandardUsers.USER));
+    }
+
+    @Test
+    public void getMetrics() {
+        RouteMetrics routeMetrics = Metrics.getRouteMetrics("GET", "/api/metrics-test/:id");
+        routeMetrics.finish(routeMetrics.start(), 200);
+        routeMetrics.finish(routeMetrics.start(), 404);
+        securityManager.doConnect("admin", 0);
+        FileSpecification metrics = metricsController.getMetrics(params());
+        Assert.assertEquals("text/plain", metrics.getType());
+        String content = inputStreamToString(metrics.getStream());
+        Assert.assertTrue(content.contains(
+            "summer_requests_total{method=\"GET\",route=\"/api/metrics-test/:id\"} 2\n"));
+        Assert.assertTrue(content.contains(
+            "summer_request_errors_total{method=\"GET\",route=\"/api/metrics-test/:id\",status=\"404\"} 1\n"));
+        Assert.assertTrue(content.contains(
+            "summer_requests_in_flight{method=\"GET\",route=\"/api/metrics-test/:id\"} 0\n"));
+        Assert.assertTrue(content.contains(
+            "summer_request_duration_seconds_bucket{method=\"GET\",route=\"/api/metrics-test/:id\",le=\"+Inf\"} 2\n"));
+    }
+
+    @Test
+    public void tryToGetMetricsWithBadCredentials() {
+        securityManager.doConnect("someone", 0);
+        try {
+            metricsController.getMetrics(params());
+            Assert.fail("The request should fail");
+        }
+        catch (SummerControllerException sce) {
+            Assert.assertEquals(403, sce.getStatus());
+            Assert.assertEquals("Not authorized", sce.getMessage());
+        }
+    }
+
+}
@@ -58,6 +58,11 @@ public class ApplicationManagerForTestImpl extends ApplicationManager {
 		return this;
 	}
 	
+	public ApplicationManagerForTestImpl setSecurityManager(org.summer.security.SecurityManager securityManager) {
+		this.securityManager = securityManager;
+		return this;
+	}
+
 	public ApplicationManagerForTestImpl setInjector(Injector injector) {
 		this.injector = injector;
 		return this;
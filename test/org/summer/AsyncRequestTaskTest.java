@@ -0,0 +1,129 @@
+package org.summer;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.controller.MockHttpServletRequest;
+import org.summer.controller.MockHttpServletResponse;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AsyncRequestTaskTest {
+
+	AtomicInteger completions;
+	AsyncContext asyncContext;
+	MockHttpServletRequest request;
+	MockHttpServletResponse response;
+
+	@Before
+	public void before() {
+		ApplicationManager.set(new ApplicationManagerForTestImpl());
+		this.completions = new AtomicInteger();
+		this.asyncContext = (AsyncContext)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {AsyncContext.class}, (proxy, method, args)->{
+				if (method.getName().equals("complete")) {
+					if (this.completions.incrementAndGet()>1) {
+						throw new IllegalStateException("Already completed");
+					}
+					return null;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			});
+		this.request = new MockHttpServletRequest();
+		this.response = new MockHttpServletResponse();
+	}
+
+	AsyncRequestTask createTask(AsyncRequestTask.Processor processor) {
+		return new AsyncRequestTask(this.asyncContext, this.request.get(), this.response.get(), processor, "2");
+	}
+
+	@Test
+	public void completeProcessedRequest() {
+		AsyncRequestTask task = createTask((request, response)->{
+			response.setStatus(201);
+			response.getOutputStream().write("done".getBytes());
+		});
+		task.run();
+		task.onTimeout(null);
+		Assert.assertEquals(201, this.response.getStatus());
+		Assert.assertEquals("done", this.response.getContentAsString());
+		Assert.assertEquals(1, this.completions.get());
+	}
+
+	@Test
+	public void answerInternalErrorOnFailure() {
+		AsyncRequestTask task = createTask((request, response)->{
+			throw new SummerException("Failed");
+		});
+		task.run();
+		Assert.assertEquals(500, this.response.getStatus());
+		Assert.assertEquals(1, this.completions.get());
+	}
+
+	@Test
+	public void rejectRequest() {
+		AsyncRequestTask task = createTask((request, response)->Assert.fail());
+		task.reject();
+		task.run();
+		Assert.assertEquals(503, this.response.getStatus());
+		Assert.assertEquals("2", this.response.getHeader("Retry-After"));
+		Assert.assertEquals(1, this.completions.get());
+	}
+
+	@Test
+	public void answerServiceUnavailableOnTimeoutInQueue() {
+		AsyncRequestTask task = createTask((request, response)->Assert.fail());
+		task.onTimeout(null);
+		Assert.assertEquals(503, this.response.getStatus());
+		Assert.assertEquals("2", this.response.getHeader("Retry-After"));
+		Assert.assertEquals(1, this.completions.get());
+		task.run();
+		Assert.assertEquals(1, this.completions.get());
+	}
+
+	@Test
+	public void cutWorkerOffOnTimeoutWhileProcessed() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch timedOut = new CountDownLatch(1);
+		AtomicReference<Throwable> headerFailure = new AtomicReference<>();
+		AtomicReference<Throwable> writeFailure = new AtomicReference<>();
+		AsyncRequestTask task = createTask((HttpServletRequest request, HttpServletResponse response)->{
+			OutputStream out = response.getOutputStream();
+			started.countDown();
+			timedOut.await();
+			try {
+				response.setStatus(200);
+			}
+			catch (SummerException e) {
+				headerFailure.set(e);
+			}
+			try {
+				out.write("late".getBytes());
+			}
+			catch (IOException e) {
+				writeFailure.set(e);
+			}
+		});
+		Thread worker = new Thread(task);
+		worker.start();
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		task.onTimeout(null);
+		timedOut.countDown();
+		worker.join(5000);
+		Assert.assertEquals(504, this.response.getStatus());
+		Assert.assertEquals("", this.response.getContentAsString());
+		Assert.assertNotNull(headerFailure.get());
+		Assert.assertNotNull(writeFailure.get());
+		Assert.assertEquals(1, this.completions.get());
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.summer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ClassMetadataTest {
+
+	static class Sample {
+		private String name = "sample";
+		final int size = 3;
+		static String shared;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	@Test
+	public void createHandlesOnDemand() throws Throwable {
+		ClassMetadata metadata = ClassMetadata.of(Sample.class);
+		Assert.assertSame(metadata, ClassMetadata.of(Sample.class));
+		Assert.assertTrue(metadata.fieldGetters.isEmpty());
+		Sample sample = new Sample();
+		MethodHandle getter = metadata.getFieldGetter("name");
+		Assert.assertEquals("sample", (Object)getter.invokeExact((Object)sample));
+		Assert.assertSame(getter, metadata.getFieldGetter("name"));
+		metadata.getFieldSetter("name").invokeExact((Object)sample, (Object)"other");
+		Assert.assertEquals("other", sample.getName());
+		metadata.getSetterHandle("name").invokeExact((Object)sample, (Object)"again");
+		Assert.assertEquals("again", (Object)metadata.getGetterHandle("name").invokeExact((Object)sample));
+		Assert.assertEquals(Arrays.asList("name"), new ArrayList<>(metadata.fieldGetters.keySet()));
+	}
+
+	@Test
+	public void giveNoHandleOnMissingStaticOrFinalFields() {
+		ClassMetadata metadata = ClassMetadata.of(Sample.class);
+		Assert.assertNull(metadata.getFieldGetter("unknown"));
+		Assert.assertNull(metadata.getFieldGetter("shared"));
+		Assert.assertNotNull(metadata.getFieldGetter("size"));
+		Assert.assertNull(metadata.getFieldSetter("size"));
+		Assert.assertNull(metadata.getGetterHandle("unknown"));
+		Assert.assertFalse(metadata.fieldGetters.containsKey("unknown"));
+	}
+
+	@Test
+	public void doNotOpenJdkClasses() throws Throwable {
+		ClassMetadata metadata = ClassMetadata.of(ArrayList.class);
+		Field size = metadata.getField("size");
+		Assert.assertNotNull(size);
+		Assert.assertFalse(size.isAccessible());
+		Assert.assertNull(metadata.getFieldGetter("size"));
+		Assert.assertNull(metadata.getFieldGetter("size"));
+		Assert.assertFalse(size.isAccessible());
+		// Public accessors of public JDK classes are still available.
+		ArrayList<String> list = new ArrayList<>(Arrays.asList("a"));
+		Assert.assertEquals(false, (Object)metadata.getGetterHandle("empty").invokeExact((Object)list));
+		Assert.assertNull(ClassMetadata.of(Field.class).getFieldGetter("genericInfo"));
+	}
+
+}
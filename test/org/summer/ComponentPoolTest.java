@@ -0,0 +1,127 @@
+package org.summer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.summer.annotation.PooledScoped;
+
+public class ComponentPoolTest {
+
+	@PooledScoped(maxSize=2, minIdle=1, idleTimeout=20, borrowTimeout=50)
+	public static class PooledComponent {
+	}
+
+	static ComponentPool createPool() throws InstantiationException, IllegalAccessException {
+		return ComponentPool.create(PooledComponent.class, PooledComponent::new);
+	}
+
+	@Test
+	public void fillThePoolWithMinIdleComponents() throws Exception {
+		ComponentPool pool = createPool();
+		ComponentPool.Statistics statistics = pool.getStatistics();
+		Assert.assertEquals(0, statistics.getBorrowed());
+		Assert.assertEquals(1, statistics.getIdle());
+		Assert.assertEquals(1, statistics.getCreated());
+		Assert.assertEquals(0, statistics.getEvicted());
+	}
+
+	@Test
+	public void borrowTheLastReleasedComponentFirst() throws Exception {
+		ComponentPool pool = createPool();
+		Object first = pool.borrow();
+		Object second = pool.borrow();
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(2, pool.getStatistics().getBorrowed());
+		Assert.assertEquals(2, pool.getStatistics().getCreated());
+		Assert.assertTrue(pool.release(first));
+		Assert.assertTrue(pool.release(second));
+		Assert.assertSame(second, pool.borrow());
+		Assert.assertSame(first, pool.borrow());
+		Assert.assertEquals(2, pool.getStatistics().getCreated());
+	}
+
+	@Test
+	public void waitForAComponentWhenThePoolIsFull() throws Exception {
+		ComponentPool pool = createPool();
+		Object first = pool.borrow();
+		pool.borrow();
+		long start = System.currentTimeMillis();
+		try {
+			pool.borrow();
+			Assert.fail("The pool is full");
+		} catch (SummerException se) {
+			Assert.assertEquals("No pooled component available for : "+PooledComponent.class, se.getMessage());
+		}
+		Assert.assertTrue(System.currentTimeMillis()-start>=45);
+		Assert.assertEquals(2, pool.getStatistics().getCreated());
+		Thread releaser = new Thread(()->{
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			pool.release(first);
+		});
+		releaser.start();
+		Assert.assertSame(first, pool.borrow());
+		releaser.join();
+	}
+
+	@Test
+	public void takeComponentsOutsideTheBoundsOfThePool() throws Exception {
+		ComponentPool pool = createPool();
+		pool.borrow();
+		pool.borrow();
+		Object taken = pool.take();
+		Assert.assertNotNull(taken);
+		Assert.assertNotNull(pool.take());
+		Assert.assertEquals(2, pool.getStatistics().getBorrowed());
+		Assert.assertEquals(4, pool.getStatistics().getCreated());
+		// A taken component is not expected back.
+		Assert.assertFalse(pool.release(taken));
+		Assert.assertEquals(0, pool.getStatistics().getIdle());
+	}
+
+	@Test
+	public void ignoreDoubleAndForeignReleases() throws Exception {
+		ComponentPool pool = createPool();
+		Object component = pool.borrow();
+		Assert.assertTrue(pool.release(component));
+		Assert.assertFalse(pool.release(component));
+		Assert.assertFalse(pool.release(new PooledComponent()));
+		ComponentPool.Statistics statistics = pool.getStatistics();
+		Assert.assertEquals(0, statistics.getBorrowed());
+		Assert.assertEquals(1, statistics.getIdle());
+		// The pool is still bounded by its size.
+		pool.borrow();
+		pool.borrow();
+		try {
+			pool.borrow();
+			Assert.fail("The pool is full");
+		} catch (SummerException se) {
+		}
+	}
+
+	@Test
+	public void evictIdleComponentsButKeepMinIdle() throws Exception {
+		ComponentPool pool = createPool();
+		Object first = pool.borrow();
+		Object second = pool.borrow();
+		pool.release(first);
+		Thread.sleep(40);
+		pool.release(second);
+		ComponentPool.Statistics statistics = pool.getStatistics();
+		Assert.assertEquals(1, statistics.getIdle());
+		Assert.assertEquals(1, statistics.getEvicted());
+		Assert.assertSame(second, pool.borrow());
+		pool.release(second);
+		Thread.sleep(40);
+		Object third = pool.borrow();
+		pool.release(third);
+		// The last idle component is kept, however long it stays idle.
+		statistics = pool.getStatistics();
+		Assert.assertEquals(1, statistics.getIdle());
+		Assert.assertEquals(1, statistics.getEvicted());
+		Assert.assertEquals("borrowed=0, idle=1, created=2, evicted=1", statistics.toString());
+	}
+
+}
@@ -100,7 +100,7 @@ public class InjectorForTest implements Injector {
 	}
 
 	@Override
-	public void startThread(HttpSession session) {
+	public void startThread(java.util.function.Supplier<HttpSession> sessionProvider) {
 	}
 
 	@Override
@@ -64,6 +64,16 @@ public class MockPlatformManagerImpl implements Mockable, PlatformManager {
         }
     }
 
+    @Override
+    public void moveContent(String sourcePath, String targetPath) {
+        throw new SummerTestException("Not yet implemented.");
+    }
+
+    @Override
+    public void deleteContent(String filePath) {
+        throw new SummerTestException("Not yet implemented.");
+    }
+
     @Override
     public Session getMailSession() {
         throw new SummerTestException("Not yet implemented.");
@@ -0,0 +1,242 @@
+package org.summer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.summer.controller.SummerControllerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class MultipartReaderTest {
+
+	static final String CONTENT_TYPE = "multipart/form-data; boundary=XyZ";
+
+	/**
+	 * Stream giving at most "chunk" bytes at each read.
+	 */
+	static class ChunkedInputStream extends FilterInputStream {
+		int chunk;
+
+		ChunkedInputStream(byte[] content, int chunk) {
+			super(new ByteArrayInputStream(content));
+			this.chunk = chunk;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			return super.read(bytes, offset, Math.min(length, this.chunk));
+		}
+	}
+
+	static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	static String part(String name, String content) {
+		return "--XyZ\r\nContent-Disposition: form-data; name=\""+name+"\"\r\n\r\n"+content+"\r\n";
+	}
+
+	static String filePart(String name, String fileName, String content) {
+		return "--XyZ\r\nContent-Disposition: form-data; name=\""+name+"\"; filename=\""+fileName+"\"\r\n"+
+			"Content-Type: image/png\r\n\r\n"+content+"\r\n";
+	}
+
+	static String multipart(String... parts) {
+		return String.join("", parts)+"--XyZ--\r\n";
+	}
+
+	static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int length;
+		while ((length = in.read(buffer))!=-1) {
+			content.write(buffer, 0, length);
+		}
+		return new String(content.toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+	static List<String> readParts(InputStream in, long maxSize) throws IOException {
+		MultipartReader reader = new MultipartReader(in, CONTENT_TYPE, maxSize);
+		List<String> parts = new ArrayList<>();
+		MultipartReader.Part part;
+		while ((part = reader.next())!=null) {
+			parts.add(part.getName()+"="+read(part.getInputStream()));
+		}
+		return parts;
+	}
+
+	static List<String> readParts(String content) throws IOException {
+		return readParts(new ByteArrayInputStream(bytes(content)), Long.MAX_VALUE);
+	}
+
+	static String repeat(char character, int count) {
+		char[] characters = new char[count];
+		Arrays.fill(characters, character);
+		return new String(characters);
+	}
+
+	@Test
+	public void readParts() throws IOException {
+		MultipartReader reader = new MultipartReader(new ByteArrayInputStream(bytes(multipart(
+			part("request-part", "{\"id\":1}"),
+			filePart("file", "map.png", "PNG content")
+		))), CONTENT_TYPE, Long.MAX_VALUE);
+		MultipartReader.Part part = reader.next();
+		Assert.assertEquals("request-part", part.getName());
+		Assert.assertNull(part.getFileName());
+		Assert.assertEquals("{\"id\":1}", read(part.getInputStream()));
+		part = reader.next();
+		Assert.assertEquals("file", part.getName());
+		Assert.assertEquals("map.png", part.getFileName());
+		Assert.assertEquals("image/png", part.getContentType());
+		Assert.assertEquals("PNG content", read(part.getInputStream()));
+		Assert.assertNull(reader.next());
+		Assert.assertNull(reader.next());
+	}
+
+	@Test
+	public void skipUnreadParts() throws IOException {
+		MultipartReader reader = new MultipartReader(new ByteArrayInputStream(bytes(multipart(
+			part("first", "unread"),
+			part("second", "read")
+		))), CONTENT_TYPE, Long.MAX_VALUE);
+		Assert.assertEquals("first", reader.next().getName());
+		MultipartReader.Part part = reader.next();
+		Assert.assertEquals("second", part.getName());
+		Assert.assertEquals("read", read(part.getInputStream()));
+	}
+
+	@Test
+	public void ignorePreambleAndEpilogue() throws IOException {
+		Assert.assertEquals(Arrays.asList("a=1", "b=2"), readParts(
+			"This is the preamble.\r\n-XyZ\r\n"+
+			multipart(part("a", "1"), part("b", "2"))+
+			"This is the epilogue.\r\n--XyZ\r\nContent-Disposition: form-data; name=\"c\"\r\n\r\n3\r\n--XyZ--\r\n"));
+	}
+
+	@Test
+	public void readEmptyPart() throws IOException {
+		Assert.assertEquals(Arrays.asList("a=", "b=2", "c="), readParts(
+			multipart(part("a", ""), part("b", "2"), part("c", ""))));
+	}
+
+	@Test
+	public void keepDelimiterLookalikes() throws IOException {
+		String content = "line\r\n--\r\n--X\r\n--Xy\r\n--XyA\r\n-XyZ\r\n--xyz\n--XyZ\r--XyZ";
+		Assert.assertEquals(Arrays.asList("a="+content, "b=\r\n--"), readParts(
+			multipart(part("a", content), part("b", "\r\n--"))));
+	}
+
+	@Test
+	public void readDelimiterSplitAcrossWindow() throws IOException {
+		// The delimiter ("\r\n--XyZ", 7 bytes) of the first part ends around the end of the 64KB window.
+		int headerLength = bytes(part("a", "")).length-2;
+		for (int shift=-10; shift<=10; shift++) {
+			String content = repeat('x', MultipartReader.BUFFER_SIZE-headerLength+shift);
+			byte[] multipart = bytes(multipart(part("a", content), part("b", "end")));
+			for (int chunk : new int[] {MultipartReader.BUFFER_SIZE, 4093, 7}) {
+				List<String> parts = readParts(new ChunkedInputStream(multipart, chunk), Long.MAX_VALUE);
+				Assert.assertEquals("shift "+shift+", chunk "+chunk, Arrays.asList("a="+content, "b=end"), parts);
+			}
+		}
+	}
+
+	@Test
+	public void readContentBiggerThanWindow() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int index=0; builder.length()<3*MultipartReader.BUFFER_SIZE; index++) {
+			builder.append(index).append("\r\n--XyY\r\n");
+		}
+		String content = builder.toString();
+		byte[] multipart = bytes(multipart(filePart("file", "big.bin", content), part("b", "end")));
+		for (int chunk : new int[] {Integer.MAX_VALUE, 1000, 1}) {
+			Assert.assertEquals(Arrays.asList("file="+content, "b=end"),
+				readParts(new ChunkedInputStream(multipart, chunk), Long.MAX_VALUE));
+		}
+	}
+
+	@Test
+	public void rejectContentExceedingRequestLimit() throws IOException {
+		byte[] multipart = bytes(multipart(part("a", repeat('x', 1000)), part("b", "2")));
+		Assert.assertEquals(2, readParts(new ByteArrayInputStream(multipart), multipart.length).size());
+		try {
+			readParts(new ChunkedInputStream(multipart, 100), multipart.length-1);
+			Assert.fail("The request limit should be enforced");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(413, sce.getStatus());
+			Assert.assertEquals("Request content exceeds "+(multipart.length-1)+" bytes.", sce.getMessage());
+		}
+	}
+
+	@Test
+	public void rejectFileExceedingFileLimit() throws IOException {
+		ApplicationManagerForTestImpl applicationManager = new ApplicationManagerForTestImpl();
+		ApplicationManager.set(applicationManager);
+		MockPlatformManagerImpl platformManager = (MockPlatformManagerImpl)applicationManager.getPlatformManager();
+		SummerServlet servlet = new SummerServlet();
+		servlet.uploadMaxFileSize = 10;
+		MultipartReader reader = new MultipartReader(new ByteArrayInputStream(bytes(multipart(
+			filePart("small", "small.png", repeat('x', 10)),
+			filePart("big", "big.png", repeat('x', 11))
+		))), CONTENT_TYPE, Long.MAX_VALUE);
+		Predicate<Object> stagedPath = path->((String)path).startsWith(SummerServlet.STAGING_FOLDER);
+		ByteArrayOutputStream small = new ByteArrayOutputStream();
+		platformManager.register("getOutputStream", small, null, stagedPath);
+		platformManager.register("getOutputStream", new ByteArrayOutputStream(), null, stagedPath);
+		List<FileSpecification> files = new ArrayList<>();
+		servlet.stageFile(reader.next(), files);
+		Assert.assertEquals(10, files.get(0).getSize());
+		Assert.assertEquals(repeat('x', 10), new String(small.toByteArray(), StandardCharsets.ISO_8859_1));
+		try {
+			servlet.stageFile(reader.next(), files);
+			Assert.fail("The file limit should be enforced");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(413, sce.getStatus());
+			Assert.assertEquals("File big.png exceeds 10 bytes.", sce.getMessage());
+		}
+		// The file is registered, so that it is discarded.
+		Assert.assertEquals(2, files.size());
+		platformManager.hasFinished();
+	}
+
+	@Test
+	public void rejectTruncatedContent() throws IOException {
+		for (String content : new String[] {
+			part("a", "1"),
+			"--XyZ\r\nContent-Disposition: form-data; name=\"a\"\r\n",
+			"--XyZ"
+		}) {
+			try {
+				readParts(content);
+				Assert.fail("Truncated content should be rejected : "+content);
+			}
+			catch (SummerControllerException sce) {
+				Assert.assertEquals(400, sce.getStatus());
+				Assert.assertEquals("Unexpected end of multipart content.", sce.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void rejectMissingBoundary() {
+		try {
+			new MultipartReader(new ByteArrayInputStream(new byte[0]), "multipart/form-data", Long.MAX_VALUE);
+			Assert.fail("A boundary is required");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(400, sce.getStatus());
+		}
+		Assert.assertEquals("a b", MultipartReader.getBoundary("multipart/form-data; charset=utf-8; boundary=\"a b\""));
+	}
+
+}
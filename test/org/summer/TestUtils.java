@@ -2,6 +2,8 @@ package org.summer;
 
 import org.junit.Assert;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -52,4 +54,15 @@ public class TestUtils {
 		}
 	}
 	
+	/**
+	 * Binds a request to the current thread, as SummerServlet does while it processes it.
+	 */
+	static public void bindRequest(HttpServletRequest request, HttpServletResponse response) {
+		SummerServlet.summerRequest.set(new SummerServlet.SummerRequest(request, response));
+	}
+
+	static public void unbindRequest() {
+		SummerServlet.summerRequest.remove();
+	}
+
 }
@@ -0,0 +1,270 @@
+package org.summer.controller;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.ApplicationManager;
+import org.summer.ApplicationManagerForTestImpl;
+import org.summer.FileSpecification;
+import org.summer.MockPlatformManagerImpl;
+import org.summer.TestUtils;
+import org.summer.annotation.REST;
+import org.summer.data.DataManager;
+import org.summer.data.RecordingEntityManagerFactory;
+import org.summer.security.SecurityManager;
+import org.summer.security.SecurityManagerImpl;
+
+import javax.servlet.http.Cookie;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BatchRouteTest {
+
+	public static class BatchController {
+
+		public Json getItem(Map<String, Object> params, Json request) {
+			return Json.createJsonObject()
+				.put("id", params.get("id"))
+				.put("page", params.get("page"));
+		}
+
+		public Json postItem(Map<String, Object> params, Json request) {
+			return Json.createJsonObject().put("name", request.get("name"));
+		}
+
+		public Json getFailure(Map<String, Object> params, Json request) {
+			throw new IllegalStateException("Connection refused by db-internal:5432");
+		}
+
+		public Json getConflict(Map<String, Object> params, Json request) {
+			throw new SummerControllerException(409, "Item already exists");
+		}
+
+		public Json getRead(Map<String, Object> params, Json request) {
+			DataManager.inReadTransaction(em->{});
+			return Json.createJsonObject();
+		}
+
+		public Json postWrite(Map<String, Object> params, Json request) {
+			DataManager.inTransaction(em->{});
+			return Json.createJsonObject();
+		}
+
+		public Json getSecured(Map<String, Object> params, Json request) {
+			Json result = Json.createJsonObject();
+			SecurityManager.ifConnected(user->result.put("user", user));
+			return result;
+		}
+
+		public FileSpecification getImage(Map<String, Object> params) {
+			return null;
+		}
+	}
+
+	ControllerManagerImpl controllerManager;
+	RecordingEntityManagerFactory factory;
+	MockHttpServletRequest request;
+
+	@Before
+	public void before() throws NoSuchMethodException {
+		this.factory = new RecordingEntityManagerFactory();
+		ApplicationManager.set(new ApplicationManagerForTestImpl()
+			.setDataManager(this.factory.createDataManager())
+			.setSecurityManager(new SecurityManagerImpl())
+			.setPlatformManager(new MockPlatformManagerImpl().setTime(System.currentTimeMillis())));
+		this.controllerManager = new ControllerManagerImpl();
+		addRESTRoute(REST.Method.GET, "/api/item/:id", "getItem");
+		addRESTRoute(REST.Method.POST, "/api/item", "postItem");
+		addRESTRoute(REST.Method.GET, "/api/failure", "getFailure");
+		addRESTRoute(REST.Method.GET, "/api/conflict", "getConflict");
+		addRESTRoute(REST.Method.GET, "/api/read", "getRead");
+		addRESTRoute(REST.Method.POST, "/api/write", "postWrite");
+		addRESTRoute(REST.Method.GET, "/api/secured", "getSecured");
+		this.controllerManager.getRouteManager(REST.Method.GET).prepareRoute("/api/image",
+			new RouteManager.MIMERoute(BatchController.class,
+				BatchController.class.getMethod("getImage", Map.class), true));
+		this.controllerManager.routeManagers.values().forEach(RouteManager::compile);
+		this.request = new MockHttpServletRequest().setMethod("POST").setUri(BatchRoute.BATCH_URL, null);
+	}
+
+	@After
+	public void after() {
+		BatchRoute.setMaxRequests(32);
+		TestUtils.unbindRequest();
+	}
+
+	void addRESTRoute(REST.Method method, String url, String methodName) throws NoSuchMethodException {
+		Method controllerMethod = BatchController.class.getMethod(methodName, Map.class, Json.class);
+		this.controllerManager.getRouteManager(method).prepareRoute(url,
+			new RouteManager.RESTRoute(BatchController.class, controllerMethod));
+	}
+
+	MockHttpServletResponse process(String content) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		TestUtils.bindRequest(this.request.get(), response.get());
+		new BatchRoute(this.controllerManager).processRequest(
+			this.request.get(), response.get(), new HashMap<>(), new BufferedReader(new StringReader(content)));
+		return response;
+	}
+
+	static Json getReplies(MockHttpServletResponse response) {
+		Assert.assertEquals(200, response.getStatus());
+		return Json.createJsonFromString(new String(response.getContent(), StandardCharsets.UTF_8));
+	}
+
+	static Json getBody(Json replies, int index, int status) {
+		Json reply = replies.getJson(index);
+		Assert.assertEquals(status, ((Number)reply.get("status")).intValue());
+		return reply.getJson("body");
+	}
+
+	static void assertError(Json replies, int index, int status, String message) {
+		Json reply = replies.getJson(index);
+		Assert.assertEquals(status, ((Number)reply.get("status")).intValue());
+		Assert.assertEquals(message, reply.get("body"));
+	}
+
+	@Test
+	public void dispatchSubRequests() {
+		MockHttpServletResponse response = process("[" +
+			"{\"url\":\"/api/item/12?page=3\"}," +
+			"{\"method\":\"get\",\"url\":\"/api/item/13\",\"params\":{\"page\":4}}," +
+			"{\"method\":\"POST\",\"url\":\"/api/item\",\"body\":{\"name\":\"Rampart\"}}" +
+			"]");
+		Json replies = getReplies(response);
+		Assert.assertEquals(3, replies.size());
+		Assert.assertEquals("12", getBody(replies, 0, 200).get("id"));
+		Assert.assertEquals("3", getBody(replies, 0, 200).get("page"));
+		Assert.assertEquals("13", getBody(replies, 1, 200).get("id"));
+		Assert.assertEquals("4", getBody(replies, 1, 200).get("page"));
+		Assert.assertEquals("Rampart", getBody(replies, 2, 200).get("name"));
+	}
+
+	@Test
+	public void isolateFailingSubRequests() {
+		MockHttpServletResponse response = process("[" +
+			"{\"url\":\"/api/item/12\"}," +
+			"{\"url\":\"/api/failure\"}," +
+			"{\"url\":\"/api/conflict\"}," +
+			"\"/api/item/13\"," +
+			"{\"url\":\"/api/item/14\"}" +
+			"]");
+		Json replies = getReplies(response);
+		Assert.assertEquals(5, replies.size());
+		Assert.assertEquals("12", getBody(replies, 0, 200).get("id"));
+		// The internal error is not sent to the client.
+		assertError(replies, 1, 500, "Internal server error");
+		assertError(replies, 2, 409, "Item already exists");
+		assertError(replies, 3, 400, "A request of a batch must be an object.");
+		Assert.assertEquals("14", getBody(replies, 4, 200).get("id"));
+		Assert.assertFalse(response.getContentAsString().contains("db-internal"));
+	}
+
+	@Test
+	public void refuseUnknownAndNonRESTRoutes() {
+		MockHttpServletResponse response = process("[" +
+			"{\"url\":\"/api/unknown\"}," +
+			"{\"method\":\"DELETE\",\"url\":\"/api/item/12\"}," +
+			"{\"url\":\"/api/image\"}," +
+			"{\"method\":\"UPLOAD\",\"url\":\"/api/item\"}," +
+			"{\"method\":\"POST\",\"url\":\"/api/batch\"}" +
+			"]");
+		Json replies = getReplies(response);
+		assertError(replies, 0, 404, "Unknown route : GET /api/unknown");
+		assertError(replies, 1, 404, "Unknown route : DELETE /api/item/12");
+		assertError(replies, 2, 400, "Only REST routes may be batched : /api/image");
+		assertError(replies, 3, 400, "Unsupported method for a request of a batch : UPLOAD");
+		assertError(replies, 4, 404, "Unknown route : POST /api/batch");
+	}
+
+	@Test
+	public void refuseTooLargeBatch() {
+		BatchRoute.setMaxRequests(2);
+		process("[{\"url\":\"/api/item/1\"},{\"url\":\"/api/item/2\"}]");
+		try {
+			process("[{\"url\":\"/api/item/1\"},{\"url\":\"/api/item/2\"},{\"url\":\"/api/item/3\"}]");
+			Assert.fail("The batch is not refused");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(413, sce.getStatus());
+			Assert.assertEquals("A batch must not contain more than 2 requests.", sce.getMessage());
+		}
+	}
+
+	@Test
+	public void refuseBatchWithoutRequests() {
+		try {
+			process("{\"sharedReadTransaction\":true}");
+			Assert.fail("The batch is not refused");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(400, sce.getStatus());
+		}
+	}
+
+	@Test
+	public void shareOneEntityManagerBetweenReads() {
+		process("{\"sharedReadTransaction\":true,\"requests\":[" +
+			"{\"url\":\"/api/read\"},{\"url\":\"/api/read\"},{\"url\":\"/api/read\"}" +
+			"]}");
+		Assert.assertEquals(1, this.factory.getEntityManagers().size());
+		Assert.assertTrue(this.factory.getEntityManagers().get(0).isClosed());
+	}
+
+	@Test
+	public void closeSharedEntityManagerAfterWrite() {
+		process("{\"sharedReadTransaction\":true,\"requests\":[" +
+			"{\"url\":\"/api/read\"},{\"method\":\"POST\",\"url\":\"/api/write\"}," +
+			"{\"url\":\"/api/read\"},{\"url\":\"/api/read\"}" +
+			"]}");
+		// One shared manager before the write, the write's one and a new shared manager after it.
+		Assert.assertEquals(3, this.factory.getEntityManagers().size());
+		Assert.assertTrue(this.factory.getEntityManagers().get(1).isCommitted());
+		this.factory.getEntityManagers().forEach(em->Assert.assertTrue(em.isClosed()));
+	}
+
+	@Test
+	public void readsAreNotSharedByDefault() {
+		process("[{\"url\":\"/api/read\"},{\"url\":\"/api/read\"}]");
+		Assert.assertEquals(2, this.factory.getEntityManagers().size());
+	}
+
+	@Test
+	public void checkAuthenticationOncePerBatch() {
+		MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+		TestUtils.bindRequest(new MockHttpServletRequest().get(), loginResponse.get());
+		SecurityManager.connect("admin", 3600000);
+		for (Cookie cookie : loginResponse.getCookies()) {
+			if ("jwt".equals(cookie.getName())) {
+				this.request.addCookie(cookie);
+			}
+			else {
+				this.request.setHeader("XSRF-TOKEN", cookie.getValue());
+			}
+		}
+		MockHttpServletResponse response = process("[" +
+			"{\"url\":\"/api/secured\"},{\"url\":\"/api/secured\"},{\"url\":\"/api/secured\"}" +
+			"]");
+		Json replies = getReplies(response);
+		for (int index=0; index<3; index++) {
+			Assert.assertEquals("admin", getBody(replies, index, 200).get("user"));
+		}
+		Assert.assertNotNull(this.request.getAttribute("summer.authentication"));
+		// The authentication cookies are renewed once for the whole batch.
+		Assert.assertEquals(2, response.getCookies().size());
+	}
+
+	@Test
+	public void refuseUnauthenticatedSubRequests() {
+		MockHttpServletResponse response = process("[{\"url\":\"/api/secured\"},{\"url\":\"/api/item/1\"}]");
+		Json replies = getReplies(response);
+		assertError(replies, 0, 403, "No authentication found");
+		Assert.assertEquals("1", getBody(replies, 1, 200).get("id"));
+	}
+
+}
@@ -0,0 +1,61 @@
+package org.summer.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachePolicyTest {
+
+	static String apply(MockHttpServletRequest request, MockHttpServletResponse response, int maxAge, boolean substitute) {
+		return CachePolicy.apply(request.get(), response.get(), maxAge, substitute);
+	}
+
+	@Test
+	public void cacheVersionedResourceForever() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Assert.assertEquals("elf-10123456.png", apply(
+			new MockHttpServletRequest().setUri("/api/banner/images/elf-10123456.png", null), response, -1, false));
+		Assert.assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void distinguishRepresentationsOfVersionedResource() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Assert.assertEquals("elf-10123456.png?size=48", apply(
+			new MockHttpServletRequest().setUri("/api/banner/images/elf-10123456.png", "size=48"), response, -1, false));
+		Assert.assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void revalidateSubstituteOfVersionedResource() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Assert.assertNull(apply(
+			new MockHttpServletRequest().setUri("/api/banner/images/elf-10123456.png", "size=48"), response, -1, true));
+		Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void cacheOtherResourcesShortly() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Assert.assertNull(apply(new MockHttpServletRequest().setUri("/api/banner/images/elf.png", null), response, -1, false));
+		Assert.assertEquals("max-age="+CachePolicy.defaultMaxAge, response.getHeader("Cache-Control"));
+		response = new MockHttpServletResponse();
+		Assert.assertNull(apply(new MockHttpServletRequest().setUri("/api/banner/images/elf.png", null), response, 0, true));
+		Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+		response = new MockHttpServletResponse();
+		Assert.assertNull(apply(new MockHttpServletRequest().setUri("/api/banner/images/elf.png", null), response, 60, false));
+		Assert.assertEquals("max-age=60", response.getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void neverStorePrivateResources() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Assert.assertNull(apply(new MockHttpServletRequest().setUri("/api/admin/metrics", null),
+			response, CachePolicy.NO_STORE, false));
+		Assert.assertEquals("private, no-store", response.getHeader("Cache-Control"));
+		response = new MockHttpServletResponse();
+		Assert.assertNull(apply(new MockHttpServletRequest().setUri("/api/admin/report-10123456.txt", null),
+			response, CachePolicy.NO_STORE, false));
+		Assert.assertEquals("private, no-store", response.getHeader("Cache-Control"));
+	}
+
+}
@@ -0,0 +1,236 @@
+package org.summer.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.summer.platform.StoredContent;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class FileServerTest {
+
+	static final String CONTENT = "0123456789abcdefghij";
+	static final long LAST_MODIFIED = 1700000000000L;
+
+	static class Content extends ByteArrayInputStream implements StoredContent {
+		long contentLength = CONTENT.length();
+
+		Content() {
+			super(CONTENT.getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		/**
+		 * Content whose stream ends before its announced length.
+		 */
+		Content(int truncatedLength) {
+			super(CONTENT.getBytes(StandardCharsets.ISO_8859_1), 0, truncatedLength);
+		}
+
+		@Override
+		public long getContentLength() {
+			return this.contentLength;
+		}
+
+		@Override
+		public long getLastModified() {
+			return LAST_MODIFIED;
+		}
+	}
+
+	static MockHttpServletResponse serve(InputStream in, MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileServer.serve(in, "image/png", "abc", request.get(), response.get());
+		return response;
+	}
+
+	static MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+		return serve(new Content(), request);
+	}
+
+	static MockHttpServletResponse serveRange(String range) throws IOException {
+		return serve(new MockHttpServletRequest().setHeader("Range", range));
+	}
+
+	static void assertFullContent(MockHttpServletResponse response) {
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertNull(response.getHeader("Content-Range"));
+		Assert.assertEquals(CONTENT.length(), response.getContentLength());
+		Assert.assertEquals(CONTENT, response.getContentAsString());
+	}
+
+	static void assertRange(MockHttpServletResponse response, int start, int end) {
+		Assert.assertEquals(206, response.getStatus());
+		Assert.assertEquals("bytes "+start+"-"+end+"/"+CONTENT.length(), response.getHeader("Content-Range"));
+		Assert.assertEquals(end-start+1, response.getContentLength());
+		Assert.assertEquals(CONTENT.substring(start, end+1), response.getContentAsString());
+	}
+
+	static String ranges(int count) {
+		StringBuilder ranges = new StringBuilder("bytes=");
+		for (int index=0; index<count; index++) {
+			ranges.append(index>0 ? "," : "").append(index).append("-").append(index);
+		}
+		return ranges.toString();
+	}
+
+	@Test
+	public void serveWholeContent() throws IOException {
+		MockHttpServletResponse response = serve(new MockHttpServletRequest());
+		assertFullContent(response);
+		Assert.assertEquals("bytes", response.getHeader("Accept-Ranges"));
+		Assert.assertEquals("\"abc\"", response.getHeader("ETag"));
+		Assert.assertEquals(MockHttpServletRequest.formatDate(LAST_MODIFIED), response.getHeader("Last-Modified"));
+	}
+
+	@Test
+	public void serveBoundedRange() throws IOException {
+		assertRange(serveRange("bytes=2-5"), 2, 5);
+		assertRange(serveRange("bytes=18-100"), 18, 19);
+	}
+
+	@Test
+	public void serveOpenEndedRange() throws IOException {
+		assertRange(serveRange("bytes=15-"), 15, 19);
+		assertRange(serveRange("bytes=0-"), 0, 19);
+	}
+
+	@Test
+	public void serveSuffixRange() throws IOException {
+		assertRange(serveRange("bytes=-4"), 16, 19);
+		assertRange(serveRange("bytes=-50"), 0, 19);
+	}
+
+	@Test
+	public void rejectUnsatisfiableRanges() throws IOException {
+		for (String range : new String[] {"bytes=20-30", "bytes=25-", "bytes=-0", "bytes=20-25,30-"}) {
+			MockHttpServletResponse response = serveRange(range);
+			Assert.assertEquals(range, 416, response.getStatus());
+			Assert.assertEquals(range, "bytes */20", response.getHeader("Content-Range"));
+			Assert.assertEquals(range, 0, response.getContent().length);
+		}
+	}
+
+	@Test
+	public void ignoreUnsatisfiablePartOfRanges() throws IOException {
+		assertRange(serveRange("bytes=20-30,3-4"), 3, 4);
+	}
+
+	@Test
+	public void ignoreMalformedRanges() throws IOException {
+		for (String range : new String[] {"bytes=a-b", "bytes=5", "bytes=6-2", "items=0-1"}) {
+			assertFullContent(serveRange(range));
+		}
+	}
+
+	@Test
+	public void serveRangeIfEntityTagMatches() throws IOException {
+		assertRange(serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setHeader("If-Range", "\"abc\"")), 2, 5);
+	}
+
+	@Test
+	public void serveWholeContentIfEntityTagDiffers() throws IOException {
+		assertFullContent(serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setHeader("If-Range", "\"abd\"")));
+		// If-Range requires a strong comparison.
+		assertFullContent(serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setHeader("If-Range", "W/\"abc\"")));
+	}
+
+	@Test
+	public void serveRangeIfDateMatches() throws IOException {
+		assertRange(serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setDateHeader("If-Range", LAST_MODIFIED)), 2, 5);
+		assertFullContent(serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setDateHeader("If-Range", LAST_MODIFIED-60000)));
+	}
+
+	@Test
+	public void serveMultipleRanges() throws IOException {
+		MockHttpServletResponse response = serveRange("bytes=0-1,4-5");
+		Assert.assertEquals(206, response.getStatus());
+		Assert.assertNull(response.getHeader("Content-Range"));
+		Assert.assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+		String boundary = response.getContentType().substring("multipart/byteranges; boundary=".length());
+		String expected =
+			"\r\n--"+boundary+"\r\nContent-Type: image/png\r\nContent-Range: bytes 0-1/20\r\n\r\n01"+
+			"\r\n--"+boundary+"\r\nContent-Type: image/png\r\nContent-Range: bytes 4-5/20\r\n\r\n45"+
+			"\r\n--"+boundary+"--\r\n";
+		Assert.assertEquals(expected, response.getContentAsString());
+		Assert.assertEquals(expected.length(), response.getContentLength());
+	}
+
+	@Test
+	public void capNumberOfRanges() throws IOException {
+		MockHttpServletResponse response = serveRange(ranges(FileServer.MAX_RANGES));
+		Assert.assertEquals(206, response.getStatus());
+		Assert.assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+		assertFullContent(serveRange(ranges(FileServer.MAX_RANGES+1)));
+	}
+
+	@Test
+	public void serveWholeStreamForUnorderedRanges() throws IOException {
+		assertFullContent(serveRange("bytes=4-5,0-1"));
+		assertFullContent(serveRange("bytes=0-5,4-8"));
+	}
+
+	@Test
+	public void serveUnorderedRangesOfFile() throws IOException {
+		File file = File.createTempFile("file-server", ".png");
+		try {
+			Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.ISO_8859_1));
+			MockHttpServletResponse response = serve(new FileInputStream(file),
+				new MockHttpServletRequest().setHeader("Range", "bytes=4-5,0-1"));
+			Assert.assertEquals(206, response.getStatus());
+			String content = response.getContentAsString();
+			Assert.assertTrue(content.indexOf("bytes 4-5/20\r\n\r\n45")<content.indexOf("bytes 0-1/20\r\n\r\n01"));
+			Assert.assertEquals(content.length(), response.getContentLength());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void answerNotModified() throws IOException {
+		Assert.assertEquals(304, serve(new MockHttpServletRequest()
+			.setHeader("Range", "bytes=2-5").setHeader("If-None-Match", "\"abc\"")).getStatus());
+		Assert.assertEquals(304, serve(new MockHttpServletRequest()
+			.setDateHeader("If-Modified-Since", LAST_MODIFIED)).getStatus());
+	}
+
+	@Test
+	public void failOnTruncatedContent() throws IOException {
+		try {
+			serve(new Content(12), new MockHttpServletRequest());
+			Assert.fail("The truncated content is not reported");
+		}
+		catch (IOException e) {
+			Assert.assertEquals("Unexpected end of stream.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void failOnTruncatedRange() throws IOException {
+		try {
+			serve(new Content(12), new MockHttpServletRequest().setHeader("Range", "bytes=8-15"));
+			Assert.fail("The truncated range is not reported");
+		}
+		catch (IOException e) {
+			Assert.assertEquals("Unexpected end of stream.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void copyStreamOfUnknownLength() throws IOException {
+		MockHttpServletResponse response = serve(
+			new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.ISO_8859_1)), new MockHttpServletRequest());
+		Assert.assertEquals(CONTENT, response.getContentAsString());
+	}
+
+}
@@ -0,0 +1,179 @@
+package org.summer.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+public class JsonParserTest {
+
+	/**
+	 * Reader giving at most one character at each read, so every token is split across reads.
+	 */
+	static class TrickleReader extends FilterReader {
+		TrickleReader(String content) {
+			super(new StringReader(content));
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			return super.read(buffer, offset, Math.min(length, 1));
+		}
+	}
+
+	static Json parse(Reader reader) throws IOException {
+		return JsonParser.parse(reader, 1024*1024, 64);
+	}
+
+	static Json parse(String content) throws IOException {
+		return parse(new StringReader(content));
+	}
+
+	void assertSameAsOrgJson(String content) throws IOException {
+		Json expected = Json.createJsonFromString(content);
+		for (Json parsed : new Json[] {parse(content), parse(new TrickleReader(content))}) {
+			if (expected.json!=null) {
+				Assert.assertNotNull(content, parsed.json);
+				Assert.assertTrue(content, expected.json.similar(parsed.json));
+			}
+			else {
+				Assert.assertNotNull(content, parsed.jsonArray);
+				Assert.assertTrue(content, expected.jsonArray.similar(parsed.jsonArray));
+			}
+		}
+	}
+
+	void assertRejected(String content, int status) throws IOException {
+		try {
+			parse(content);
+			Assert.fail("The content should be rejected : "+content);
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(status, sce.getStatus());
+		}
+	}
+
+	@Test
+	public void parseObjectsAndArraysAsOrgJson() throws IOException {
+		assertSameAsOrgJson("{}");
+		assertSameAsOrgJson("[]");
+		assertSameAsOrgJson(" \t\r\n{ \"a\" : [ 1 , [ ] , { } , [ [ \"b\" ] ] ] } \n");
+		assertSameAsOrgJson("{\"name\":\"board\",\"hexes\":[{\"col\":0,\"row\":1,\"type\":\"outdoor-clear\"}]}");
+		assertSameAsOrgJson("[true, false, null, {\"n\":null}]");
+	}
+
+	@Test
+	public void parseNumbersAsOrgJson() throws IOException {
+		assertSameAsOrgJson("[0, -1, 7, 2147483647, -2147483648]");
+		assertSameAsOrgJson("[2147483648, -2147483649, 9223372036854775807]");
+		assertSameAsOrgJson("[1.5, -2.25, 0.1, 1e3, 1E-3, -2.5e+3, 12345678901234567890]");
+		Json json = parse("{\"i\":12, \"l\":12345678901, \"d\":1.5}");
+		Assert.assertEquals(Integer.class, json.get("i").getClass());
+		Assert.assertEquals(Long.class, json.get("l").getClass());
+		Assert.assertEquals(Double.class, json.get("d").getClass());
+	}
+
+	@Test
+	public void parseEscapesAsOrgJson() throws IOException {
+		assertSameAsOrgJson("[\"\\\" \\\\ \\/ \\b \\f \\n \\r \\t\"]");
+		assertSameAsOrgJson("[\"caf\\u00e9 \\u00E9t\\u00e9\", \"caf\u00e9\"]");
+		assertSameAsOrgJson("[\"\\uD83D\\uDE00\", \"\uD83D\uDE00\", \"a\\uD83D\\uDE00b\"]");
+		Json json = parse("[\"\\uD83D\\uDE00\"]");
+		Assert.assertEquals("\uD83D\uDE00", json.get(0));
+		Assert.assertEquals(0x1F600, ((String)json.get(0)).codePointAt(0));
+	}
+
+	@Test
+	public void parseContentLargerThanTheBuffer() throws IOException {
+		StringBuilder content = new StringBuilder("[");
+		for (int index=0; index<5000; index++) {
+			content.append(index==0 ? "" : ",").append("{\"value\":\"item ").append(index).append("\"}");
+		}
+		content.append("]");
+		assertSameAsOrgJson(content.toString());
+	}
+
+	@Test
+	public void parseEmptyContentAsAnEmptyObject() throws IOException {
+		for (String content : new String[] {"", "  \n "}) {
+			Json json = parse(content);
+			Assert.assertNotNull(json.json);
+			Assert.assertEquals(0, json.json.length());
+		}
+	}
+
+	@Test
+	public void rejectOversizedContent() throws IOException {
+		String content = "{\"text\":\"" + new String(new char[100]).replace('\0', 'x') + "\"}";
+		Assert.assertNotNull(JsonParser.parse(new StringReader(content), content.length(), 64));
+		try {
+			JsonParser.parse(new StringReader(content), content.length()-1, 64);
+			Assert.fail("The content should be rejected");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(413, sce.getStatus());
+			Assert.assertEquals("JSON content exceeds "+(content.length()-1)+" characters.", sce.getMessage());
+		}
+	}
+
+	@Test
+	public void rejectTooDeepContent() throws IOException {
+		Assert.assertNotNull(JsonParser.parse(new StringReader("[[[{}]]]"), 1024, 4));
+		try {
+			JsonParser.parse(new StringReader("[[[{\"a\":[]}]]]"), 1024, 4);
+			Assert.fail("The content should be rejected");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(400, sce.getStatus());
+			Assert.assertEquals("JSON content is nested deeper than 4 levels.", sce.getMessage());
+		}
+	}
+
+	@Test
+	public void reportTheErrorPosition() throws IOException {
+		try {
+			parse("{\"a\":1 \"b\":2}");
+			Assert.fail("The content should be rejected");
+		}
+		catch (SummerControllerException sce) {
+			Assert.assertEquals(400, sce.getStatus());
+			Assert.assertEquals("Malformed JSON content : ',' or '}' is expected at character 8.", sce.getMessage());
+		}
+	}
+
+	/**
+	 * Lenient forms that org.json accepts, and the streaming parser rejects.
+	 */
+	@Test
+	public void rejectContentAcceptedByOrgJson() throws IOException {
+		assertRejected("{a:1}", 400);
+		assertRejected("{'a':1}", 400);
+		assertRejected("['x']", 400);
+		assertRejected("[1,]", 400);
+		assertRejected("{\"a\":1,}", 400);
+		assertRejected("{\"a\":1} trailing", 400);
+		assertRejected("{\"a\":1}{\"b\":2}", 400);
+		assertRejected("[1 2]", 400);
+		assertRejected("{\"a\"=1}", 400);
+		assertRejected("[yes]", 400);
+	}
+
+	@Test
+	public void rejectMalformedContent() throws IOException {
+		assertRejected("\"x\"", 400);
+		assertRejected("12", 400);
+		assertRejected("{", 400);
+		assertRejected("[1", 400);
+		assertRejected("{\"a\":}", 400);
+		assertRejected("[\"unterminated]", 400);
+		assertRejected("[\"line\nbreak\"]", 400);
+		assertRejected("[\"\\x\"]", 400);
+		assertRejected("[\"\\u12g4\"]", 400);
+		assertRejected("[tru]", 400);
+		assertRejected("{\"a\":1,\"a\":2}", 400);
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.summer.controller;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Request given to the routes and the file server by the tests. Only the methods they use are implemented: the
+ * others throw an UnsupportedOperationException.
+ */
+public class MockHttpServletRequest {
+
+	String method = "GET";
+	String uri = "/api/test";
+	String queryString;
+	String contentType;
+	byte[] content = new byte[0];
+	Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	Map<String, Object> attributes = new HashMap<>();
+	List<Cookie> cookies = new ArrayList<>();
+
+	public MockHttpServletRequest setMethod(String method) {
+		this.method = method;
+		return this;
+	}
+
+	public MockHttpServletRequest setUri(String uri, String queryString) {
+		this.uri = uri;
+		this.queryString = queryString;
+		return this;
+	}
+
+	public MockHttpServletRequest setHeader(String name, String value) {
+		this.headers.put(name, value);
+		return this;
+	}
+
+	public MockHttpServletRequest setDateHeader(String name, long date) {
+		return setHeader(name, formatDate(date));
+	}
+
+	public MockHttpServletRequest setContent(String contentType, byte[] content) {
+		this.contentType = contentType;
+		this.content = content;
+		return this;
+	}
+
+	public MockHttpServletRequest addCookie(Cookie cookie) {
+		this.cookies.add(cookie);
+		return this;
+	}
+
+	public Object getAttribute(String name) {
+		return this.attributes.get(name);
+	}
+
+	static String formatDate(long date) {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.format(date);
+	}
+
+	long getDateHeader(String name) {
+		String value = this.headers.get(name);
+		if (value==null) {
+			return -1;
+		}
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		try {
+			return format.parse(value).getTime();
+		} catch (java.text.ParseException e) {
+			throw new IllegalArgumentException(value);
+		}
+	}
+
+	ServletInputStream getInputStream() {
+		ByteArrayInputStream in = new ByteArrayInputStream(this.content);
+		return new ServletInputStream() {
+			@Override
+			public int read() {
+				return in.read();
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) {
+				return in.read(bytes, offset, length);
+			}
+
+			@Override
+			public boolean isFinished() {
+				return in.available()==0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener listener) {
+			}
+		};
+	}
+
+	public HttpServletRequest get() {
+		return (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {HttpServletRequest.class}, (proxy, method, args)->{
+				switch (method.getName()) {
+					case "getMethod": return this.method;
+					case "getRequestURI": return this.uri;
+					case "getQueryString": return this.queryString;
+					case "getHeader": return this.headers.get((String)args[0]);
+					case "getHeaders": return Collections.enumeration(this.headers.containsKey((String)args[0]) ?
+						Collections.singletonList(this.headers.get((String)args[0])) : Collections.emptyList());
+					case "getDateHeader": return getDateHeader((String)args[0]);
+					case "getContentType": return this.contentType;
+					case "getContentLength": return this.content.length;
+					case "getContentLengthLong": return (long)this.content.length;
+					case "getInputStream": return getInputStream();
+					case "getCookies": return this.cookies.isEmpty() ? null : this.cookies.toArray(new Cookie[0]);
+					case "getAttribute": return this.attributes.get((String)args[0]);
+					case "setAttribute": this.attributes.put((String)args[0], args[1]); return null;
+					case "removeAttribute": this.attributes.remove((String)args[0]); return null;
+					case "toString": return "MockHttpServletRequest";
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy==args[0];
+					default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.summer.controller;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response given to the routes and the file server by the tests: it records the status, the headers and the
+ * content. Only the methods they use are implemented: the others throw an UnsupportedOperationException.
+ */
+public class MockHttpServletResponse {
+
+	int status = 200;
+	String contentType;
+	String characterEncoding;
+	long contentLength = -1;
+	boolean committed = false;
+	Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	ByteArrayOutputStream content = new ByteArrayOutputStream();
+	List<Cookie> cookies = new ArrayList<>();
+
+	public int getStatus() {
+		return this.status;
+	}
+
+	public String getContentType() {
+		return this.contentType;
+	}
+
+	public long getContentLength() {
+		return this.contentLength;
+	}
+
+	public String getHeader(String name) {
+		List<String> values = this.headers.get(name);
+		return values==null ? null : values.get(0);
+	}
+
+	public List<String> getHeaders(String name) {
+		return this.headers.getOrDefault(name, new ArrayList<>());
+	}
+
+	public List<Cookie> getCookies() {
+		return this.cookies;
+	}
+
+	public byte[] getContent() {
+		return this.content.toByteArray();
+	}
+
+	public String getContentAsString() {
+		return new String(getContent(), StandardCharsets.ISO_8859_1);
+	}
+
+	public boolean isCommitted() {
+		return this.committed;
+	}
+
+	void setHeader(String name, String value) {
+		List<String> values = new ArrayList<>();
+		values.add(value);
+		this.headers.put(name, values);
+	}
+
+	void addHeader(String name, String value) {
+		this.headers.computeIfAbsent(name, key->new ArrayList<>()).add(value);
+	}
+
+	void reset() {
+		if (this.committed) {
+			throw new IllegalStateException("Response already committed");
+		}
+		this.status = 200;
+		this.contentType = null;
+		this.headers.clear();
+		this.content.reset();
+	}
+
+	ServletOutputStream getOutputStream() {
+		return new ServletOutputStream() {
+			@Override
+			public void write(int value) {
+				MockHttpServletResponse.this.committed = true;
+				MockHttpServletResponse.this.content.write(value);
+			}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) {
+				MockHttpServletResponse.this.committed = true;
+				MockHttpServletResponse.this.content.write(bytes, offset, length);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+		};
+	}
+
+	public HttpServletResponse get() {
+		return (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {HttpServletResponse.class}, (proxy, method, args)->{
+				switch (method.getName()) {
+					case "setStatus": this.status = (Integer)args[0]; return null;
+					case "getStatus": return this.status;
+					case "sendError": this.status = (Integer)args[0]; this.committed = true; return null;
+					case "setContentType": this.contentType = (String)args[0]; return null;
+					case "getContentType": return this.contentType;
+					case "setCharacterEncoding": this.characterEncoding = (String)args[0]; return null;
+					case "getCharacterEncoding": return this.characterEncoding;
+					case "setContentLength": this.contentLength = (Integer)args[0]; return null;
+					case "setContentLengthLong": this.contentLength = (Long)args[0]; return null;
+					case "setHeader": setHeader((String)args[0], (String)args[1]); return null;
+					case "addHeader": addHeader((String)args[0], (String)args[1]); return null;
+					case "setDateHeader":
+						setHeader((String)args[0], MockHttpServletRequest.formatDate((Long)args[1])); return null;
+					case "setIntHeader": setHeader((String)args[0], args[1].toString()); return null;
+					case "getHeader": return getHeader((String)args[0]);
+					case "addCookie": this.cookies.add((Cookie)args[0]); return null;
+					case "containsHeader": return this.headers.containsKey((String)args[0]);
+					case "getOutputStream": return getOutputStream();
+					case "flushBuffer": this.committed = true; return null;
+					case "reset": reset(); return null;
+					case "isCommitted": return this.committed;
+					case "toString": return "MockHttpServletResponse";
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy==args[0];
+					default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+
+}
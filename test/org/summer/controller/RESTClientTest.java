@@ -0,0 +1,73 @@
+package org.summer.controller;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.summer.SummerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class RESTClientTest {
+
+	@After
+	public void restoreLimits() {
+		Json.setRequestLimits(16*1024*1024, 64);
+	}
+
+	static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String nested(int depth) {
+		StringBuilder content = new StringBuilder();
+		for (int index=0; index<depth; index++) {
+			content.append('[');
+		}
+		for (int index=0; index<depth; index++) {
+			content.append(']');
+		}
+		return content.toString();
+	}
+
+	@Test
+	public void parseAResponse() throws IOException {
+		Json content = RESTClient.getResponseContent(stream("{\"name\":\"value\"}"), false);
+		Assert.assertEquals("value", content.get("name"));
+		Assert.assertNull(RESTClient.getResponseContent(null, false));
+	}
+
+	@Test
+	public void ignoreTheRequestLimitsForAResponse() throws IOException {
+		Json.setRequestLimits(10, 2);
+		Json content = RESTClient.getResponseContent(stream("{\"name\":\"a long enough value\"}"), false);
+		Assert.assertEquals("a long enough value", content.get("name"));
+		Assert.assertNotNull(RESTClient.getResponseContent(stream(nested(100)), false));
+	}
+
+	@Test
+	public void reportAMalformedResponse() throws IOException {
+		try {
+			RESTClient.getResponseContent(stream("<html>Bad gateway</html>"), false);
+			Assert.fail("The malformed response should be reported");
+		} catch (SummerException se) {
+			Assert.assertTrue(se.getMessage().startsWith("Malformed JSON response"));
+		}
+		try {
+			RESTClient.getResponseContent(stream(nested(RESTClient.MAX_RESPONSE_DEPTH+1)), false);
+			Assert.fail("The too deep response should be reported");
+		} catch (SummerException se) {
+			Assert.assertTrue(se.getMessage().startsWith("Malformed JSON response"));
+		}
+	}
+
+	@Test
+	public void ignoreAnErrorContentThatIsNotJson() throws IOException {
+		Assert.assertNull(RESTClient.getResponseContent(stream("<html>Bad gateway</html>"), true));
+		Json content = RESTClient.getResponseContent(stream("{\"error\":\"not found\"}"), true);
+		Assert.assertEquals("not found", content.get("error"));
+	}
+
+}
@@ -0,0 +1,114 @@
+package org.summer.controller;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RESTRouteTest {
+
+	public static class VersionedController {
+		static String version = "12-3";
+		static int invocations = 0;
+
+		public Json getItems(Map<String, Object> params, Json request) {
+			invocations++;
+			return Json.createJsonObject().put("version", version);
+		}
+
+		public String getItemsValidator(Map<String, Object> params, Json request) {
+			return version;
+		}
+
+		public String getNoValidator(Map<String, Object> params, Json request) {
+			return null;
+		}
+	}
+
+	@Before
+	public void before() {
+		VersionedController.version = "12-3";
+		VersionedController.invocations = 0;
+	}
+
+	static RouteManager.RESTRoute createRoute(String validator) throws NoSuchMethodException {
+		return new RouteManager.RESTRoute(VersionedController.class,
+			VersionedController.class.getMethod("getItems", Map.class, Json.class), validator);
+	}
+
+	static MockHttpServletResponse process(RouteManager.RESTRoute route, MockHttpServletRequest request) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Map<String, Object> params = new HashMap<>();
+		route.processRequest(request.get(), response.get(), params, new BufferedReader(new StringReader("")));
+		return response;
+	}
+
+	@Test
+	public void sendValidatorAsWeakETag() throws NoSuchMethodException {
+		MockHttpServletResponse response = process(createRoute("getItemsValidator"), new MockHttpServletRequest());
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals("W/\"12-3\"", response.getHeader("ETag"));
+		Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+		Assert.assertEquals(1, VersionedController.invocations);
+		Assert.assertEquals("{\"version\":\"12-3\"}", new String(response.getContent(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void answerNotModifiedWhenTheValidatorMatches() throws NoSuchMethodException {
+		MockHttpServletResponse response = process(createRoute("getItemsValidator"),
+			new MockHttpServletRequest().setHeader("If-None-Match", "W/\"12-3\""));
+		Assert.assertEquals(304, response.getStatus());
+		Assert.assertEquals("W/\"12-3\"", response.getHeader("ETag"));
+		Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+		Assert.assertEquals(0, VersionedController.invocations);
+		Assert.assertEquals(0, response.getContent().length);
+	}
+
+	@Test
+	public void answerContentWhenTheValidatorHasChanged() throws NoSuchMethodException {
+		VersionedController.version = "13-3";
+		MockHttpServletResponse response = process(createRoute("getItemsValidator"),
+			new MockHttpServletRequest().setHeader("If-None-Match", "W/\"12-3\""));
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals("W/\"13-3\"", response.getHeader("ETag"));
+		Assert.assertEquals(1, VersionedController.invocations);
+		Assert.assertEquals("{\"version\":\"13-3\"}", new String(response.getContent(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void ignoreRouteWithoutValidator() throws NoSuchMethodException {
+		MockHttpServletResponse response = process(createRoute(""),
+			new MockHttpServletRequest().setHeader("If-None-Match", "*"));
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertNull(response.getHeader("ETag"));
+		Assert.assertNull(response.getHeader("Cache-Control"));
+		Assert.assertEquals(1, VersionedController.invocations);
+	}
+
+	@Test
+	public void ignoreNullValidator() throws NoSuchMethodException {
+		MockHttpServletResponse response = process(createRoute("getNoValidator"),
+			new MockHttpServletRequest().setHeader("If-None-Match", "*"));
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertNull(response.getHeader("ETag"));
+		Assert.assertEquals(1, VersionedController.invocations);
+	}
+
+	@Test
+	public void matchIfNoneMatchHeader() {
+		Assert.assertFalse(RouteManager.RESTRoute.matches(null, "12-3"));
+		Assert.assertTrue(RouteManager.RESTRoute.matches("*", "12-3"));
+		Assert.assertTrue(RouteManager.RESTRoute.matches("\"12-3\"", "12-3"));
+		Assert.assertTrue(RouteManager.RESTRoute.matches("W/\"12-3\"", "12-3"));
+		Assert.assertTrue(RouteManager.RESTRoute.matches("W/\"11-3\", W/\"12-3\"", "12-3"));
+		Assert.assertFalse(RouteManager.RESTRoute.matches("W/\"11-3\", W/\"12-4\"", "12-3"));
+		Assert.assertFalse(RouteManager.RESTRoute.matches("12-3", "12-3"));
+		Assert.assertFalse(RouteManager.RESTRoute.matches("W/\"12-34\"", "12-3"));
+	}
+
+}
@@ -0,0 +1,116 @@
+package org.summer.data;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.data.RecordingEntityManagerFactory.RecordedEntityManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DataManagerImplTest {
+
+	RecordingEntityManagerFactory factory;
+	DataManagerImpl dataManager;
+	List<EntityManager> used;
+
+	@Before
+	public void before() {
+		this.factory = new RecordingEntityManagerFactory();
+		this.dataManager = this.factory.createDataManager();
+		this.used = new ArrayList<>();
+	}
+
+	void read() {
+		this.dataManager.executeInReadTransaction(em->this.used.add(em));
+	}
+
+	void write() {
+		this.dataManager.executeInTransaction(em->this.used.add(em));
+	}
+
+	@Test
+	public void readsAreNotSharedByDefault() {
+		read();
+		read();
+		List<RecordedEntityManager> entityManagers = this.factory.getEntityManagers();
+		Assert.assertEquals(2, entityManagers.size());
+		for (RecordedEntityManager entityManager : entityManagers) {
+			Assert.assertTrue(entityManager.isRolledBack());
+			Assert.assertTrue(entityManager.isClosed());
+		}
+	}
+
+	@Test
+	public void sharedReadsUseOneEntityManager() {
+		this.dataManager.executeInSharedReadTransaction(()->{
+			read();
+			read();
+			read();
+			RecordedEntityManager shared = this.factory.getEntityManagers().get(0);
+			Assert.assertFalse(shared.isClosed());
+		});
+		Assert.assertEquals(1, this.factory.getEntityManagers().size());
+		Assert.assertEquals(3, this.used.size());
+		Assert.assertSame(this.used.get(0), this.used.get(2));
+		RecordedEntityManager shared = this.factory.getEntityManagers().get(0);
+		Assert.assertTrue(shared.isRolledBack());
+		Assert.assertTrue(shared.isClosed());
+	}
+
+	@Test
+	public void writeClosesSharedEntityManager() {
+		this.dataManager.executeInSharedReadTransaction(()->{
+			read();
+			write();
+			Assert.assertTrue(this.factory.getEntityManagers().get(0).isClosed());
+			read();
+			read();
+		});
+		List<RecordedEntityManager> entityManagers = this.factory.getEntityManagers();
+		Assert.assertEquals(3, entityManagers.size());
+		Assert.assertTrue(entityManagers.get(1).isCommitted());
+		Assert.assertSame(this.used.get(2), this.used.get(3));
+		Assert.assertNotSame(this.used.get(0), this.used.get(2));
+		for (RecordedEntityManager entityManager : entityManagers) {
+			Assert.assertTrue(entityManager.isClosed());
+		}
+	}
+
+	@Test
+	public void failedReadDiscardsSharedEntityManager() {
+		this.dataManager.executeInSharedReadTransaction(()->{
+			read();
+			try {
+				this.dataManager.executeInReadTransaction(em->{
+					throw new IllegalStateException("Read failed");
+				});
+				Assert.fail("The failure of the read is not reported");
+			}
+			catch (IllegalStateException e) {
+				Assert.assertEquals("Read failed", e.getMessage());
+			}
+			Assert.assertTrue(this.factory.getEntityManagers().get(0).isClosed());
+			read();
+		});
+		Assert.assertEquals(2, this.factory.getEntityManagers().size());
+		Assert.assertNotSame(this.used.get(0), this.used.get(1));
+		Assert.assertTrue(this.factory.getEntityManagers().get(1).isClosed());
+	}
+
+	@Test
+	public void nestedSharingReusesOuterEntityManager() {
+		this.dataManager.executeInSharedReadTransaction(()->{
+			read();
+			this.dataManager.executeInSharedReadTransaction(this::read);
+			Assert.assertFalse(this.factory.getEntityManagers().get(0).isClosed());
+			read();
+		});
+		Assert.assertEquals(1, this.factory.getEntityManagers().size());
+		Assert.assertTrue(this.factory.getEntityManagers().get(0).isClosed());
+		read();
+		Assert.assertEquals(2, this.factory.getEntityManagers().size());
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.summer.data;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EntityManagerFactory recording the EntityManagers it creates, and what was done with their transaction. Only the
+ * methods used by DataManagerImpl are implemented: the others throw an UnsupportedOperationException.
+ */
+public class RecordingEntityManagerFactory {
+
+	public static class RecordedEntityManager {
+		EntityManager entityManager;
+		boolean transactionActive = false;
+		boolean committed = false;
+		boolean rolledBack = false;
+		boolean closed = false;
+
+		public EntityManager get() {
+			return this.entityManager;
+		}
+
+		public boolean isCommitted() {
+			return this.committed;
+		}
+
+		public boolean isRolledBack() {
+			return this.rolledBack;
+		}
+
+		public boolean isClosed() {
+			return this.closed;
+		}
+	}
+
+	List<RecordedEntityManager> entityManagers = new ArrayList<>();
+
+	public List<RecordedEntityManager> getEntityManagers() {
+		return this.entityManagers;
+	}
+
+	/**
+	 * Returns a DataManagerImpl whose default persistence unit uses this factory.
+	 */
+	public DataManagerImpl createDataManager() {
+		DataManagerImpl dataManager = new DataManagerImpl();
+		dataManager.emFactories.put(DataManager.DEFAULT_PERSISTENCE_UNIT, get());
+		return dataManager;
+	}
+
+	public EntityManagerFactory get() {
+		return (EntityManagerFactory)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {EntityManagerFactory.class}, (proxy, method, args)->{
+				switch (method.getName()) {
+					case "createEntityManager": return createEntityManager();
+					case "toString": return "RecordingEntityManagerFactory";
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy==args[0];
+					default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+	}
+
+	EntityManager createEntityManager() {
+		RecordedEntityManager record = new RecordedEntityManager();
+		EntityTransaction transaction = (EntityTransaction)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {EntityTransaction.class}, (proxy, method, args)->{
+				switch (method.getName()) {
+					case "begin":
+						record.transactionActive = true; return null;
+					case "commit":
+						checkActive(record); record.transactionActive = false; record.committed = true; return null;
+					case "rollback":
+						checkActive(record); record.transactionActive = false; record.rolledBack = true; return null;
+					case "isActive": return record.transactionActive;
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy==args[0];
+					default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		record.entityManager = (EntityManager)Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class<?>[] {EntityManager.class}, (proxy, method, args)->{
+				switch (method.getName()) {
+					case "getTransaction": return transaction;
+					case "close": record.closed = true; return null;
+					case "isOpen": return !record.closed;
+					case "toString": return "RecordedEntityManager";
+					case "hashCode": return System.identityHashCode(proxy);
+					case "equals": return proxy==args[0];
+					default: throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		this.entityManagers.add(record);
+		return record.entityManager;
+	}
+
+	static void checkActive(RecordedEntityManager record) {
+		if (!record.transactionActive) {
+			throw new IllegalStateException("Transaction not active");
+		}
+	}
+
+}
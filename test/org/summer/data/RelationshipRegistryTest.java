@@ -0,0 +1,31 @@
+package org.summer.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.summer.ReflectUtil;
+
+import javax.persistence.OneToOne;
+import java.lang.reflect.Field;
+
+public class RelationshipRegistryTest {
+
+	static class Owner {
+		@OneToOne(mappedBy="owner")
+		Owned owned;
+	}
+
+	static class Owned {
+		@OneToOne
+		Owner owner;
+	}
+
+	@Test
+	public void findTheReverseOfAOneToOneRelationship() {
+		Field owned = ReflectUtil.getField(Owner.class, "owned");
+		Field owner = ReflectUtil.getField(Owned.class, "owner");
+		RelationshipRegistry.registerRelationship(owned, owned.getAnnotation(OneToOne.class).mappedBy());
+		Assert.assertEquals(owner, RelationshipRegistry.getReverseRelationship(owned));
+		Assert.assertEquals(owned, RelationshipRegistry.getReverseRelationship(owner));
+	}
+
+}
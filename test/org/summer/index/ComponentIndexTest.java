@@ -0,0 +1,247 @@
+package org.summer.index;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.annotation.Controller;
+import org.summer.annotation.REST;
+import org.summer.annotation.Setup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ComponentIndexTest {
+
+	static final String CONTROLLER =
+		"package sample;\n" +
+		"import org.summer.annotation.*;\n" +
+		"@Controller\n" +
+		"public class SampleController {\n" +
+		"	@REST(url=\"/api/sample\", method=REST.Method.GET)\n" +
+		"	public Object list() { return null; }\n" +
+		"	public static class Nested {}\n" +
+		"}\n";
+	static final String PLAIN_CONTROLLER =
+		"package sample;\n" +
+		"public class SampleController {\n" +
+		"	public Object list() { return null; }\n" +
+		"	public static class Nested {}\n" +
+		"}\n";
+	static final String SUB_CONTROLLER =
+		"package sample;\n" +
+		"public class SampleSubController extends SampleController {\n" +
+		"	Runnable task = new Runnable() { public void run() {} };\n" +
+		"}\n";
+	static final String SETUP =
+		"package sample;\n" +
+		"import org.summer.annotation.*;\n" +
+		"public class SampleSetup {\n" +
+		"	@Setup\n" +
+		"	static void setup() {}\n" +
+		"}\n";
+	static final String ADDED =
+		"package sample;\n" +
+		"import org.summer.annotation.*;\n" +
+		"@Controller\n" +
+		"public class AddedController {}\n";
+
+	Path sources;
+	Path classes;
+	List<URLClassLoader> classLoaders = new ArrayList<>();
+
+	@Before
+	public void createDirectories() throws IOException {
+		this.sources = Files.createTempDirectory("sources");
+		this.classes = Files.createTempDirectory("classes");
+	}
+
+	@After
+	public void deleteDirectories() throws IOException {
+		for (URLClassLoader classLoader : this.classLoaders) {
+			classLoader.close();
+		}
+		delete(this.sources);
+		delete(this.classes);
+	}
+
+	static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	void compile(Path output, boolean processed, String... contents) throws IOException {
+		List<File> files = new ArrayList<>();
+		for (String content : contents) {
+			String name = content.substring(content.indexOf("public class ")+13).split(" ")[0];
+			Path file = this.sources.resolve(name+".java");
+			Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+			files.add(file.toFile());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+			List<String> options = Arrays.asList(
+				"-d", output.toString(),
+				"-classpath", output+File.pathSeparator+System.getProperty("java.class.path"));
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, units);
+			task.setProcessors(processed ?
+				Collections.singletonList(new ComponentIndexProcessor()) :
+				Collections.emptyList());
+			Assert.assertTrue(task.call());
+		}
+	}
+
+	/**
+	 * Class loader seeing the compiled samples, and not the indexes of the build.
+	 */
+	ClassLoader getClassLoader(Path... directories) throws IOException {
+		ClassLoader parent = new ClassLoader(getClass().getClassLoader()) {
+			@Override
+			public Enumeration<URL> getResources(String name) throws IOException {
+				return ComponentIndex.INDEX.equals(name) ?
+					Collections.emptyEnumeration() :
+					super.getResources(name);
+			}
+		};
+		URL[] urls = new URL[directories.length];
+		for (int index=0; index<directories.length; index++) {
+			urls[index] = directories[index].toUri().toURL();
+		}
+		URLClassLoader classLoader = new URLClassLoader(urls, parent);
+		this.classLoaders.add(classLoader);
+		return classLoader;
+	}
+
+	static List<String> names(Collection<Class<?>> types) {
+		return types.stream().map(Class::getName).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void loadAnIndex() throws IOException {
+		compile(this.classes, true, CONTROLLER, SUB_CONTROLLER, SETUP);
+		ComponentIndex index = ComponentIndex.load(getClassLoader(this.classes), "sample");
+		Assert.assertNotNull(index);
+		Assert.assertTrue(index.covers(Controller.class));
+		Assert.assertFalse(index.covers(Test.class));
+		Assert.assertEquals(Arrays.asList("sample.SampleController", "sample.SampleSubController"),
+			names(index.getTypes(Controller.class, "sample")));
+		Assert.assertEquals(0, index.getTypes(Controller.class, "other").size());
+		Collection<Method> rests = index.getMethods(REST.class, "sample");
+		Assert.assertEquals(1, rests.size());
+		Assert.assertEquals("list", rests.iterator().next().getName());
+		Collection<Method> setups = index.getMethods(Setup.class, "sample");
+		Assert.assertEquals(1, setups.size());
+		Assert.assertEquals("setup", setups.iterator().next().getName());
+	}
+
+	@Test
+	public void loadNothingIfThereIsNoIndex() throws IOException {
+		compile(this.classes, false, CONTROLLER);
+		Assert.assertNull(ComponentIndex.load(getClassLoader(this.classes), "sample"));
+	}
+
+	@Test
+	public void keepTheEntriesOfTheClassesNotRecompiled() throws IOException {
+		compile(this.classes, true, CONTROLLER, SETUP);
+		compile(this.classes, true, ADDED);
+		ComponentIndex index = ComponentIndex.load(getClassLoader(this.classes), "sample");
+		Assert.assertEquals(Arrays.asList("sample.AddedController", "sample.SampleController"),
+			names(index.getTypes(Controller.class, "sample")));
+		Assert.assertEquals(1, index.getMethods(Setup.class, "sample").size());
+	}
+
+	@Test
+	public void dropTheEntriesOfTheClassesNoMoreAnnotated() throws IOException {
+		compile(this.classes, true, CONTROLLER, SETUP);
+		compile(this.classes, true, PLAIN_CONTROLLER);
+		ComponentIndex index = ComponentIndex.load(getClassLoader(this.classes), "sample");
+		Assert.assertEquals(0, index.getTypes(Controller.class, "sample").size());
+		Assert.assertEquals(0, index.getMethods(REST.class, "sample").size());
+		Assert.assertEquals(1, index.getMethods(Setup.class, "sample").size());
+	}
+
+	@Test
+	public void detectAClassAddedWithoutTheProcessor() throws IOException {
+		compile(this.classes, true, CONTROLLER);
+		compile(this.classes, false, ADDED);
+		try {
+			ComponentIndex.load(getClassLoader(this.classes), "sample");
+			Assert.fail("The index should be stale");
+		} catch (IllegalStateException ise) {
+			Assert.assertTrue(ise.getMessage().startsWith("Index not up to date with the classes"));
+		}
+	}
+
+	@Test
+	public void detectAClassRemovedWithoutTheProcessor() throws IOException {
+		compile(this.classes, true, CONTROLLER, SETUP);
+		Files.delete(this.classes.resolve("sample/SampleSetup.class"));
+		try {
+			ComponentIndex.load(getClassLoader(this.classes), "sample");
+			Assert.fail("The index should be stale");
+		} catch (IllegalStateException ise) {
+			Assert.assertTrue(ise.getMessage().startsWith("Index not up to date with the classes"));
+		}
+	}
+
+	@Test
+	public void detectAnAnnotationRemovedWithoutTheProcessor() throws IOException {
+		compile(this.classes, true, CONTROLLER, SUB_CONTROLLER);
+		compile(this.classes, false, PLAIN_CONTROLLER);
+		ComponentIndex index = ComponentIndex.load(getClassLoader(this.classes), "sample");
+		try {
+			index.getTypes(Controller.class, "sample");
+			Assert.fail("The index should be stale");
+		} catch (IllegalStateException ise) {
+			Assert.assertEquals("Indexed class not annotated : sample.SampleController", ise.getMessage());
+		}
+		try {
+			index.getMethods(REST.class, "sample");
+			Assert.fail("The index should be stale");
+		} catch (IllegalStateException ise) {
+			Assert.assertEquals("Indexed method not annotated : sample.SampleController#list()", ise.getMessage());
+		}
+	}
+
+	@Test
+	public void detectClassesNotIndexed() throws IOException {
+		compile(this.classes, true, CONTROLLER);
+		Path others = Files.createTempDirectory("others");
+		try {
+			compile(others, false, SETUP);
+			try {
+				ComponentIndex.load(getClassLoader(this.classes, others), "sample");
+				Assert.fail("The classes of the other directory are not indexed");
+			} catch (IllegalStateException ise) {
+				Assert.assertTrue(ise.getMessage().startsWith("Classes not indexed"));
+			}
+		}
+		finally {
+			delete(others);
+		}
+	}
+
+}
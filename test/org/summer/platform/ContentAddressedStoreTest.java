@@ -0,0 +1,147 @@
+package org.summer.platform;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class ContentAddressedStoreTest {
+
+	static final String ORPHAN_HASH = "ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12";
+
+	File root;
+
+	@Before
+	public void before() throws IOException {
+		this.root = Files.createTempDirectory("content-store").toFile();
+	}
+
+	@After
+	public void after() {
+		delete(this.root);
+	}
+
+	static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files!=null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	static void write(ContentAddressedStore store, String name, String content) throws IOException {
+		try (OutputStream out = store.openOutputStream(name)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	static String read(ContentAddressedStore store, String name) throws IOException {
+		return new String(Files.readAllBytes(store.getFile(name).toPath()), StandardCharsets.UTF_8);
+	}
+
+	List<String> readJournal() throws IOException {
+		return Files.readAllLines(new File(this.root, ContentAddressedStore.JOURNAL).toPath());
+	}
+
+	@Test
+	public void shareIdenticalContents() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		write(store, "/boards/board1.png", "board");
+		write(store, "/boards/board2.png", "board");
+		Assert.assertEquals(store.getFile("/boards/board1.png"), store.getFile("/boards/board2.png"));
+		store.delete("/boards/board1.png");
+		Assert.assertNull(store.getFile("/boards/board1.png"));
+		Assert.assertEquals("board", read(store, "/boards/board2.png"));
+		File file = store.getFile("/boards/board2.png");
+		store.delete("/boards/board2.png");
+		Assert.assertFalse(file.exists());
+	}
+
+	@Test
+	public void journalChangesInsteadOfSavingIndex() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		File indexFile = new File(this.root, ContentAddressedStore.INDEX);
+		long indexModified = indexFile.lastModified();
+		String indexContent = new String(Files.readAllBytes(indexFile.toPath()), StandardCharsets.UTF_8);
+		write(store, "/uploads/1234", "board");
+		store.move("/uploads/1234", "/boards/board 1=a.png");
+		Assert.assertEquals(indexContent, new String(Files.readAllBytes(indexFile.toPath()), StandardCharsets.UTF_8));
+		Assert.assertEquals(indexModified, indexFile.lastModified());
+		Assert.assertEquals(3, readJournal().size());
+		Assert.assertTrue(readJournal().get(2).startsWith("%2Fuploads%2F1234="));
+		Assert.assertTrue(readJournal().get(2).endsWith("="));
+	}
+
+	@Test
+	public void reloadIndexAndJournal() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		write(store, "/boards/board1.png", "first");
+		store.saveIndex();
+		write(store, "/uploads/1234", "second");
+		store.move("/uploads/1234", "/boards/board 1=a.png");
+		write(store, "/boards/board1.png", "third");
+		store = new ContentAddressedStore(this.root);
+		Assert.assertNull(store.getFile("/uploads/1234"));
+		Assert.assertEquals("second", read(store, "/boards/board 1=a.png"));
+		Assert.assertEquals("third", read(store, "/boards/board1.png"));
+		Assert.assertFalse(new File(this.root, ContentAddressedStore.JOURNAL).exists());
+	}
+
+	@Test
+	public void ignoreIncompleteJournalLine() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		write(store, "/boards/board1.png", "first");
+		Files.write(new File(this.root, ContentAddressedStore.JOURNAL).toPath(),
+			"%2Fboards%2Fboa".getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.APPEND);
+		store = new ContentAddressedStore(this.root);
+		Assert.assertEquals("first", read(store, "/boards/board1.png"));
+	}
+
+	@Test
+	public void foldJournalIntoIndexWhenItGrows() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		for (int index=0; index<ContentAddressedStore.MIN_JOURNAL_SIZE; index++) {
+			write(store, "/boards/board.png", "content"+(index%2));
+		}
+		Assert.assertEquals(ContentAddressedStore.MIN_JOURNAL_SIZE, readJournal().size());
+		write(store, "/boards/board.png", "last");
+		Assert.assertFalse(new File(this.root, ContentAddressedStore.JOURNAL).exists());
+		store = new ContentAddressedStore(this.root);
+		Assert.assertEquals("last", read(store, "/boards/board.png"));
+	}
+
+	@Test
+	public void deleteTemporaryFilesAndOrphansAtStartup() throws IOException {
+		ContentAddressedStore store = new ContentAddressedStore(this.root);
+		write(store, "/boards/board1.png", "kept");
+		File orphan = store.getObjectFile(ORPHAN_HASH);
+		orphan.getParentFile().mkdirs();
+		Files.write(orphan.toPath(), "orphan".getBytes(StandardCharsets.UTF_8));
+		File temporary = store.newTemporaryFile();
+		Files.write(temporary.toPath(), "partial".getBytes(StandardCharsets.UTF_8));
+		store = new ContentAddressedStore(this.root);
+		Assert.assertFalse(orphan.exists());
+		Assert.assertFalse(temporary.exists());
+		Assert.assertEquals("kept", read(store, "/boards/board1.png"));
+	}
+
+	@Test
+	public void keepContentsWithoutIndex() throws IOException {
+		File orphan = new ContentAddressedStore(this.root).getObjectFile(ORPHAN_HASH);
+		delete(new File(this.root, ContentAddressedStore.INDEX));
+		orphan.getParentFile().mkdirs();
+		Files.write(orphan.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+		new ContentAddressedStore(this.root);
+		Assert.assertTrue(orphan.exists());
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.summer.platform;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ContentCacheTest {
+
+	Map<String, String> contents = new HashMap<>();
+	Map<String, Object> versions = new HashMap<>();
+	int loads = 0;
+
+	InputStream load(String path) {
+		this.loads++;
+		String content = this.contents.get(path);
+		return content==null ? null : new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String read(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024];
+		int length = in.read(buffer);
+		return new String(buffer, 0, Math.max(length, 0), StandardCharsets.UTF_8);
+	}
+
+	String get(ContentCache cache, String path, Function<String, Object> versions) throws IOException {
+		InputStream in = cache.get(path, versions, this::load);
+		return in==null ? null : read(in);
+	}
+
+	@Test
+	public void keepContentWithoutVersions() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.contents.put("/a", "first");
+		Assert.assertEquals("first", get(cache, "/a", null));
+		this.contents.put("/a", "second");
+		Assert.assertEquals("first", get(cache, "/a", null));
+		Assert.assertEquals(1, this.loads);
+		cache.invalidate("/a");
+		Assert.assertEquals("second", get(cache, "/a", null));
+		Assert.assertEquals(2, this.loads);
+	}
+
+	@Test
+	public void serveCachedContentWhileVersionIsUnchanged() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.contents.put("/a", "first");
+		this.versions.put("/a", 1L);
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		Assert.assertEquals(1, this.loads);
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void reloadContentWrittenElsewhere() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.contents.put("/a", "first");
+		this.versions.put("/a", 1L);
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		this.contents.put("/a", "second");
+		this.versions.put("/a", 2L);
+		Assert.assertEquals("second", get(cache, "/a", this.versions::get));
+		Assert.assertEquals("second", get(cache, "/a", this.versions::get));
+		Assert.assertEquals(2, this.loads);
+		Assert.assertEquals("second".length(), cache.getSize());
+	}
+
+	@Test
+	public void dropContentDeletedElsewhere() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.contents.put("/a", "first");
+		this.versions.put("/a", 1L);
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		this.contents.remove("/a");
+		this.versions.remove("/a");
+		Assert.assertNull(get(cache, "/a", this.versions::get));
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+	static class VersionedContent extends ByteArrayInputStream implements StoredContent {
+		Object version;
+
+		VersionedContent(String content, Object version) {
+			super(content.getBytes(StandardCharsets.UTF_8));
+			this.version = version;
+		}
+
+		@Override
+		public long getContentLength() {
+			return this.buf.length;
+		}
+
+		@Override
+		public long getLastModified() {
+			return -1;
+		}
+
+		@Override
+		public Object getVersion() {
+			return this.version;
+		}
+	}
+
+	@Test
+	public void doNotKeepContentOfAnotherVersion() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.versions.put("/a", 2L);
+		// The loader reads an older version than the one checked.
+		Function<String, InputStream> loader = path->{
+			this.loads++;
+			return new VersionedContent("first", 1L);
+		};
+		Assert.assertEquals("first", read(cache.get("/a", this.versions::get, loader)));
+		Assert.assertEquals(0, cache.getSize());
+		loader = path->{
+			this.loads++;
+			return new VersionedContent("second", 2L);
+		};
+		Assert.assertEquals("second", read(cache.get("/a", this.versions::get, loader)));
+		Assert.assertEquals("second", read(cache.get("/a", this.versions::get, loader)));
+		Assert.assertEquals(2, this.loads);
+	}
+
+	@Test
+	public void doNotKeepContentWithoutVersion() throws IOException {
+		ContentCache cache = new ContentCache(1024, 256);
+		this.contents.put("/a", "first");
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		Assert.assertEquals("first", get(cache, "/a", this.versions::get));
+		Assert.assertEquals(2, this.loads);
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+}
@@ -0,0 +1,242 @@
+package org.summer.platform;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class GAEPlatformManagerImplTest {
+
+	static final String BUCKET = "cblades";
+
+	/**
+	 * In-memory storage (LocalStorageHelper) adding the generations of the blobs, which it does not manage: each
+	 * write gives a new generation, and reading a generation that is not the current one fails with a 404, as Cloud
+	 * Storage does for an overwritten generation. It also counts the metadata requests (get).
+	 */
+	static class VersionedStorage {
+		Storage storage = LocalStorageHelper.getOptions().getService();
+		Map<String, Long> generations = new HashMap<>();
+		long lastGeneration = 0;
+		int gets = 0;
+		int notFounds = 0;
+
+		synchronized void newGeneration(String name) {
+			this.generations.put(name, ++this.lastGeneration);
+		}
+
+		synchronized Object invoke(Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "get":
+					if (args[0] instanceof BlobId) {
+						this.gets++;
+						Blob blob = (Blob)delegate(method, args);
+						return blob==null ? null :
+							blob.toBuilder().setBlobId(BlobId.of(BUCKET, blob.getName(),
+								this.generations.get(blob.getName()))).build();
+					}
+					break;
+				case "reader":
+					BlobId blobId = (BlobId)args[0];
+					if (blobId.getGeneration()!=null && !blobId.getGeneration().equals(
+						this.generations.get(blobId.getName())))
+					{
+						this.notFounds++;
+						return failingReader(new StorageException(404, "No such object: "+blobId));
+					}
+					break;
+				case "create":
+				case "writer":
+					newGeneration(((BlobInfo)args[0]).getName());
+					break;
+				case "copy":
+					newGeneration(((Storage.CopyRequest)args[0]).getTarget().getName());
+					break;
+				case "delete":
+					if (args[0] instanceof BlobId) {
+						this.generations.remove(((BlobId)args[0]).getName());
+					}
+					break;
+			}
+			return delegate(method, args);
+		}
+
+		/**
+		 * As the Cloud Storage one, the reader fails when the reading starts.
+		 */
+		static ReadChannel failingReader(StorageException exception) {
+			return (ReadChannel)Proxy.newProxyInstance(VersionedStorage.class.getClassLoader(),
+				new Class<?>[] {ReadChannel.class}, (proxy, method, args)->{
+					switch (method.getName()) {
+						case "read": throw new IOException(exception);
+						case "close": return null;
+						case "isOpen": return true;
+						default: throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		}
+
+		Object delegate(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(this.storage, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		Storage get() {
+			return (Storage)Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {Storage.class}, (proxy, method, args)->invoke(method, args));
+		}
+
+		void write(String name, String content) {
+			get().create(BlobInfo.newBuilder(BlobId.of(BUCKET, name)).build(),
+				content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	VersionedStorage storage;
+	GAEPlatformManagerImpl platformManager;
+
+	@Before
+	public void before() {
+		this.storage = new VersionedStorage();
+		this.platformManager = new GAEPlatformManagerImpl(BUCKET, this.storage.get());
+	}
+
+	static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = in.read(buffer))>=0) {
+			content.write(buffer, 0, length);
+		}
+		in.close();
+		return new String(content.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	String read(String name) throws IOException {
+		InputStream in = this.platformManager.getInputStream(name);
+		return in==null ? null : read(in);
+	}
+
+	void write(String name, String content) throws IOException {
+		try (OutputStream out = this.platformManager.getOutputStream(name)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void readAdvertisedGeneration() throws IOException {
+		this.storage.write("map.json", "first");
+		InputStream in = this.platformManager.getInputStream("map.json");
+		Assert.assertTrue(in instanceof StoredContent);
+		Assert.assertEquals(5, ((StoredContent)in).getContentLength());
+		Assert.assertEquals(1L, ((StoredContent)in).getVersion());
+		Assert.assertTrue(((StoredContent)in).getLastModified()>0);
+		Assert.assertEquals("first", read(in));
+	}
+
+	@Test
+	public void refetchMetadataOfReplacedGeneration() throws IOException {
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+		// Written by another instance: the cached metadata refer to a generation that does not exist anymore.
+		this.storage.write("map.json", "second!");
+		InputStream in = this.platformManager.getInputStream("map.json");
+		Assert.assertEquals(1, this.storage.notFounds);
+		Assert.assertEquals(2, this.storage.gets);
+		Assert.assertEquals(7, ((StoredContent)in).getContentLength());
+		Assert.assertEquals(2L, ((StoredContent)in).getVersion());
+		Assert.assertEquals("second!", read(in));
+	}
+
+	@Test
+	public void keepMetadataUntilExpiration() throws IOException, InterruptedException {
+		this.platformManager.setMetadataTtl(100);
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals(1, this.storage.gets);
+		Thread.sleep(150);
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals(2, this.storage.gets);
+	}
+
+	@Test
+	public void doNotCacheAbsence() throws IOException {
+		Assert.assertNull(read("map.json"));
+		Assert.assertNull(read("map.json"));
+		Assert.assertEquals(2, this.storage.gets);
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+	}
+
+	@Test
+	public void forgetMetadataOnWrite() throws IOException {
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+		write("map.json", "updated");
+		Assert.assertFalse(this.platformManager.metadataCache.containsKey("map.json"));
+		Assert.assertEquals("updated", read("map.json"));
+		Assert.assertEquals(0, this.storage.notFounds);
+		Assert.assertEquals(2, this.storage.gets);
+	}
+
+	@Test
+	public void forgetMetadataOnMove() throws IOException {
+		this.storage.write("draft.json", "draft");
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("draft", read("draft.json"));
+		Assert.assertEquals("first", read("map.json"));
+		this.platformManager.moveContent("draft.json", "map.json");
+		Assert.assertNull(read("draft.json"));
+		Assert.assertEquals("draft", read("map.json"));
+		Assert.assertEquals(0, this.storage.notFounds);
+	}
+
+	@Test
+	public void forgetMetadataOnDelete() throws IOException {
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+		this.platformManager.deleteContent("map.json");
+		Assert.assertFalse(this.platformManager.metadataCache.containsKey("map.json"));
+		Assert.assertNull(read("map.json"));
+	}
+
+	@Test
+	public void checkCachedContentAgainstCachedMetadata() throws IOException, InterruptedException {
+		this.platformManager.setContentCache(1024, 256);
+		this.platformManager.setMetadataTtl(100);
+		this.storage.write("map.json", "first");
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals(1, this.platformManager.getContentCache().getHits());
+		Assert.assertEquals(1, this.storage.gets);
+		// Written by another instance: served from the cache until the metadata expire.
+		this.storage.write("map.json", "second");
+		Assert.assertEquals("first", read("map.json"));
+		Assert.assertEquals(1, this.storage.gets);
+		Thread.sleep(150);
+		Assert.assertEquals("second", read("map.json"));
+		Assert.assertEquals(2, this.storage.gets);
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.summer.security;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.ApplicationManager;
+import org.summer.ApplicationManagerForTestImpl;
+import org.summer.MockPlatformManagerImpl;
+import org.summer.TestUtils;
+import org.summer.controller.MockHttpServletRequest;
+import org.summer.controller.MockHttpServletResponse;
+import org.summer.controller.SummerControllerException;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SecurityManagerImplTest {
+
+	static class CountingSecurityManagerImpl extends SecurityManagerImpl {
+		int checks = 0;
+
+		@Override
+		ClaimSet checkAuthentication(HttpServletRequest request) {
+			this.checks++;
+			return super.checkAuthentication(request);
+		}
+	}
+
+	CountingSecurityManagerImpl securityManager;
+	MockHttpServletRequest request;
+	MockHttpServletResponse response;
+
+	@Before
+	public void before() {
+		ApplicationManager.set(new ApplicationManagerForTestImpl()
+			.setPlatformManager(new MockPlatformManagerImpl().setTime(System.currentTimeMillis())));
+		this.securityManager = new CountingSecurityManagerImpl();
+		MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+		this.securityManager.setAuthentication(loginResponse.get(), "admin", 3600000);
+		this.request = new MockHttpServletRequest();
+		for (Cookie cookie : loginResponse.getCookies()) {
+			if ("jwt".equals(cookie.getName())) {
+				this.request.addCookie(cookie);
+			}
+			else {
+				this.request.setHeader("XSRF-TOKEN", cookie.getValue());
+			}
+		}
+		this.response = new MockHttpServletResponse();
+		TestUtils.bindRequest(this.request.get(), this.response.get());
+	}
+
+	@After
+	public void after() {
+		TestUtils.unbindRequest();
+	}
+
+	List<String> cookieNames() {
+		List<String> names = new ArrayList<>();
+		for (Cookie cookie : this.response.getCookies()) {
+			names.add(cookie.getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void checkAuthenticationOncePerRequest() {
+		List<String> users = new ArrayList<>();
+		this.securityManager.executeIfConnected(users::add);
+		this.securityManager.executeIfAuthorized(users::add, "admin");
+		this.securityManager.executeIfAuthorized(users::add, (user, roles)->true);
+		Assert.assertEquals(3, users.size());
+		Assert.assertEquals("admin", users.get(2));
+		Assert.assertEquals(1, this.securityManager.checks);
+		// The authentication cookies are renewed once.
+		Assert.assertEquals(2, this.response.getCookies().size());
+		Assert.assertTrue(cookieNames().contains("jwt"));
+		Assert.assertTrue(cookieNames().contains("xsrfToken"));
+	}
+
+	@Test
+	public void refusedAuthenticationIsNotCached() {
+		this.request.setHeader("XSRF-TOKEN", "forged");
+		for (int index=0; index<2; index++) {
+			try {
+				this.securityManager.executeIfConnected(user->Assert.fail("Not authenticated"));
+				Assert.fail("The authentication is not refused");
+			}
+			catch (SummerControllerException sce) {
+				Assert.assertEquals(403, sce.getStatus());
+			}
+		}
+		Assert.assertEquals(2, this.securityManager.checks);
+		Assert.assertTrue(this.response.getCookies().isEmpty());
+	}
+
+	@Test
+	public void connectForgetsPreviousAuthentication() {
+		this.securityManager.executeIfConnected(user->{});
+		this.securityManager.doConnect("other", 3600000);
+		Assert.assertEquals(4, this.response.getCookies().size());
+		this.securityManager.executeIfConnected(user->{});
+		// Checked again, but the cookies set by the connection are not overridden.
+		Assert.assertEquals(2, this.securityManager.checks);
+		Assert.assertEquals(4, this.response.getCookies().size());
+	}
+
+	@Test
+	public void disconnectIsNotOverriddenByRefresh() {
+		this.securityManager.doDisconnect();
+		this.securityManager.executeIfConnected(user->{});
+		Assert.assertEquals(2, this.response.getCookies().size());
+		for (Cookie cookie : this.response.getCookies()) {
+			Assert.assertEquals(0, cookie.getMaxAge());
+		}
+	}
+
+}
@@ -0,0 +1,302 @@
+package org.summer.services;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.summer.ApplicationManager;
+import org.summer.ApplicationManagerForTestImpl;
+import org.summer.MockPlatformManagerImpl;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.URLName;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class MailQueueTest {
+
+	/**
+	 * Platform failing with an Error (which kills the worker) on the mails whose subject is "crash".
+	 */
+	static class MailPlatformManager extends MockPlatformManagerImpl {
+		BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+		@Override
+		public void sendMail(Session session, Message msg) {
+			try {
+				if (msg.getSubject().equals("crash")) {
+					throw new Error("Worker crash");
+				}
+				this.sent.add(msg.getSubject());
+			} catch (MessagingException me) {
+				throw new RuntimeException(me);
+			}
+		}
+	}
+
+	/**
+	 * Platform sending the mails through a (stub) transport. According to its subject, the sending of a mail:
+	 * <ul>
+	 *     <li>"block": waits for the release latch,</li>
+	 *     <li>"refused": fails with a SendFailedException,</li>
+	 *     <li>"unstable": fails the first "failures" times,</li>
+	 *     <li>otherwise: succeeds.</li>
+	 * </ul>
+	 */
+	static class TransportPlatformManager extends MockPlatformManagerImpl {
+		BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+		Map<String, List<Long>> attempts = new ConcurrentHashMap<>();
+		AtomicInteger connections = new AtomicInteger();
+		AtomicInteger closings = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		volatile boolean blocked = false;
+		volatile int failures = 0;
+
+		@Override
+		public Transport connectTransport(Session session) {
+			this.connections.incrementAndGet();
+			return new StubTransport(session, this);
+		}
+
+		@Override
+		public void sendMail(Session session, Message msg) {
+			throw new UnsupportedOperationException("sendMail");
+		}
+
+		List<Long> getAttempts(String subject) {
+			return this.attempts.computeIfAbsent(subject, key->new ArrayList<>());
+		}
+
+		void send(Message msg) throws MessagingException {
+			String subject = msg.getSubject();
+			List<Long> attempts = getAttempts(subject);
+			synchronized (attempts) {
+				attempts.add(System.currentTimeMillis());
+			}
+			switch (subject) {
+				case "block":
+					this.blocked = true;
+					try {
+						this.release.await();
+					} catch (InterruptedException ie) {
+						throw new MessagingException("Interrupted");
+					}
+					break;
+				case "refused":
+					throw new SendFailedException("Invalid address");
+				case "unstable":
+					if (attempts.size()<=this.failures) {
+						throw new MessagingException("Connection lost");
+					}
+					break;
+			}
+			this.sent.add(subject);
+		}
+	}
+
+	static class StubTransport extends Transport {
+		TransportPlatformManager platformManager;
+		volatile boolean connected = true;
+
+		StubTransport(Session session, TransportPlatformManager platformManager) {
+			super(session, new URLName("smtp://localhost"));
+			this.platformManager = platformManager;
+		}
+
+		@Override
+		public void sendMessage(Message msg, Address[] addresses) throws MessagingException {
+			this.platformManager.send(msg);
+		}
+
+		@Override
+		public boolean isConnected() {
+			return this.connected;
+		}
+
+		@Override
+		public void close() {
+			this.connected = false;
+			this.platformManager.closings.incrementAndGet();
+		}
+	}
+
+	MailPlatformManager platformManager;
+	TransportPlatformManager transportPlatformManager;
+	Session session;
+
+	@Before
+	public void before() {
+		this.platformManager = new MailPlatformManager();
+		ApplicationManager.set(new ApplicationManagerForTestImpl().setPlatformManager(this.platformManager));
+		this.session = Session.getInstance(new Properties());
+		MailQueue.setWorkerCount(1);
+	}
+
+	@After
+	public void after() {
+		MailQueue.setWorkerCount(2);
+		MailQueue.setBatchSize(20);
+		MailQueue.setRetryPolicy(5, 1000);
+		MailQueue.setIdleTimeout(30000);
+	}
+
+	void useTransport() {
+		this.transportPlatformManager = new TransportPlatformManager();
+		ApplicationManager.set(new ApplicationManagerForTestImpl().setPlatformManager(this.transportPlatformManager));
+	}
+
+	Message createMessage(String subject) throws MessagingException {
+		return createMessage(subject, "player@cblades.fr");
+	}
+
+	Message createMessage(String subject, String recipient) throws MessagingException {
+		MimeMessage message = new MimeMessage(this.session);
+		message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipient));
+		message.setSubject(subject);
+		return message;
+	}
+
+	List<String> takeSent(int count) throws InterruptedException {
+		List<String> sent = new ArrayList<>();
+		for (int index=0; index<count; index++) {
+			String subject = this.transportPlatformManager.sent.poll(5, TimeUnit.SECONDS);
+			Assert.assertNotNull(subject);
+			sent.add(subject);
+		}
+		return sent;
+	}
+
+	static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis()+5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis()<deadline) {
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+	@Test
+	public void replaceStoppedWorker() throws MessagingException, InterruptedException {
+		MailQueue queue = new MailQueue();
+		String crashId = queue.submit(this.session, createMessage("crash"));
+		waitFor(()->{
+			synchronized (queue) {
+				return queue.workers==0;
+			}
+		});
+		Assert.assertEquals(MailQueue.Status.FAILED, queue.getStatus(crashId));
+		String id = queue.submit(this.session, createMessage("welcome"));
+		waitFor(()->queue.getStatus(id)==MailQueue.Status.SENT);
+		Assert.assertEquals("welcome", this.platformManager.sent.poll());
+	}
+
+	@Test
+	public void batchMailsByDomainOnOneTransport() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue queue = new MailQueue();
+		queue.submit(this.session, createMessage("block", "first@cblades.fr"));
+		waitFor(()->this.transportPlatformManager.blocked);
+		queue.submit(this.session, createMessage("other-1", "player@other.org"));
+		queue.submit(this.session, createMessage("cblades-1", "player@cblades.fr"));
+		queue.submit(this.session, createMessage("other-2", "player@OTHER.org"));
+		queue.submit(this.session, createMessage("cblades-2", "player@cblades.fr"));
+		this.transportPlatformManager.release.countDown();
+		// The mails to the same domain as the first queued are sent together.
+		Assert.assertEquals("[block, other-1, other-2, cblades-1, cblades-2]", takeSent(5).toString());
+		Assert.assertEquals(1, this.transportPlatformManager.connections.get());
+		Assert.assertEquals(0, this.transportPlatformManager.closings.get());
+	}
+
+	@Test
+	public void limitBatchSize() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue.setBatchSize(2);
+		MailQueue queue = new MailQueue();
+		queue.submit(this.session, createMessage("block", "first@cblades.fr"));
+		waitFor(()->this.transportPlatformManager.blocked);
+		queue.submit(this.session, createMessage("cblades-1", "player@cblades.fr"));
+		queue.submit(this.session, createMessage("cblades-2", "player@cblades.fr"));
+		queue.submit(this.session, createMessage("other-1", "player@other.org"));
+		queue.submit(this.session, createMessage("cblades-3", "player@cblades.fr"));
+		this.transportPlatformManager.release.countDown();
+		Assert.assertEquals("[block, cblades-1, cblades-2, other-1, cblades-3]", takeSent(5).toString());
+		Assert.assertEquals(1, this.transportPlatformManager.connections.get());
+	}
+
+	@Test
+	public void retryWithBackoff() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue.setRetryPolicy(3, 50);
+		this.transportPlatformManager.failures = 10;
+		MailQueue queue = new MailQueue();
+		String id = queue.submit(this.session, createMessage("unstable"));
+		waitFor(()->queue.getStatus(id)==MailQueue.Status.FAILED);
+		List<Long> attempts = this.transportPlatformManager.getAttempts("unstable");
+		synchronized (attempts) {
+			Assert.assertEquals(3, attempts.size());
+			// The delay doubles at each retry.
+			Assert.assertTrue(attempts.get(1)-attempts.get(0)>=45);
+			Assert.assertTrue(attempts.get(2)-attempts.get(1)>=95);
+		}
+		// The transport is closed after a failure, and opened again for the next attempt.
+		Assert.assertEquals(3, this.transportPlatformManager.connections.get());
+		Assert.assertEquals(3, this.transportPlatformManager.closings.get());
+	}
+
+	@Test
+	public void sendAfterRetries() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue.setRetryPolicy(3, 10);
+		this.transportPlatformManager.failures = 2;
+		MailQueue queue = new MailQueue();
+		String id = queue.submit(this.session, createMessage("unstable"));
+		waitFor(()->queue.getStatus(id)==MailQueue.Status.SENT);
+		Assert.assertEquals(3, this.transportPlatformManager.getAttempts("unstable").size());
+		Assert.assertEquals("unstable", this.transportPlatformManager.sent.poll());
+	}
+
+	@Test
+	public void failRefusedMailAtOnce() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue.setRetryPolicy(3, 10);
+		MailQueue queue = new MailQueue();
+		String refusedId = queue.submit(this.session, createMessage("refused"));
+		waitFor(()->queue.getStatus(refusedId)==MailQueue.Status.FAILED);
+		String id = queue.submit(this.session, createMessage("welcome"));
+		waitFor(()->queue.getStatus(id)==MailQueue.Status.SENT);
+		Thread.sleep(50);
+		Assert.assertEquals(1, this.transportPlatformManager.getAttempts("refused").size());
+		Assert.assertEquals(MailQueue.Status.FAILED, queue.getStatus(refusedId));
+	}
+
+	@Test
+	public void closeIdleTransport() throws MessagingException, InterruptedException {
+		useTransport();
+		MailQueue.setIdleTimeout(50);
+		MailQueue queue = new MailQueue();
+		String id = queue.submit(this.session, createMessage("welcome"));
+		waitFor(()->queue.getStatus(id)==MailQueue.Status.SENT);
+		waitFor(()->this.transportPlatformManager.closings.get()==1);
+		Assert.assertEquals(1, this.transportPlatformManager.connections.get());
+		String nextId = queue.submit(this.session, createMessage("again"));
+		waitFor(()->queue.getStatus(nextId)==MailQueue.Status.SENT);
+		// A new transport is opened for the next mails.
+		Assert.assertEquals(2, this.transportPlatformManager.connections.get());
+	}
+
+}